@@ -0,0 +1,332 @@
+package macs.hig.imt4072_library;
+
+import java.util.ArrayList;
+
+/**
+Class collecting the statistics of a stream of (x, y) pairs in one pass.
+The Statistics functions read the values again for each mean, variance,
+co-variance and sum (the correlation co-efficient reads both lists 6-8
+times), while the summary reads each pair once, and keeps the count, the
+means and the co-moments:
+Cxx = sum((x - meanX)2), Cyy = sum((y - meanY)2),
+Cxy = sum((x - meanX) * (y - meanY)).
+Each pair is added with the Welford update, and two summaries are
+merged with the Chan et al. update (same as MatrixStatisticsAccumulator,
+but for two values, so no arrays are needed). The co-moments are updated
+with the distance to the running mean, instead of collecting sum(x2) and
+sum(x * y), so the result doesn't lose its precision when the values are
+large compared to their spread.
+Since two summaries can be merged, the pairs can be split into blocks
+that are summarised on separate threads and merged at the end (see
+createFromArrays(...)).
+All the statistics are then calculated in O(1):
+- Count, mean and variance of x and y <br />
+- Co-variance and correlation co-efficient <br />
+- Slope and intercept of the linear regression y = a + bx
+Note! Unlike the Statistics functions, negative means, co-variances and
+correlations are returned as they are (Statistics returns 0 for these).
+A summary is not thread-safe; use one per thread and merge them.
+@Author  Knut Lucas Andersen
+*/
+public class BivariateSummary {
+	//the number of values each thread should at least summarise
+	private final static int VALUES_PER_BLOCK = 16 * 1024;
+	//the number of pairs added so far
+	private long _count;
+	//the running means of x and y
+	private double _meanX;
+	private double _meanY;
+	//the co-moments Cxx, Cyy and Cxy
+	private double _coMomentXX;
+	private double _coMomentYY;
+	private double _coMomentXY;
+
+	/**
+	Constructor creating an empty summary
+	*/
+	public BivariateSummary() {
+		reset();
+	} //constructor
+
+	/**
+	Creates a summary of the pairs (x[xOffset + i], y[yOffset + i]), where i = 0, ..., (length - 1).
+	If the parallel mode is turned on (see ParallelExecution), the blocks
+	of pairs are summarised on separate threads. Each block has its own
+	partial summary, and the partials are merged in block order when all
+	the blocks are done, so the result doesn't depend on the number of
+	threads or which block finished first.
+	@param x - double[]: array containing the values for X
+	@param xOffset - int: The index of the first value in x
+	@param y - double[]: array containing the values for Y
+	@param yOffset - int: The index of the first value in y
+	@param length - int: The number of pairs
+	@throws ExceptionClass - Throws error if the values aren't within the arrays
+	@return BivariateSummary - summary containing all the pairs
+	*/
+	static BivariateSummary createFromArrays(final double[] x, final int xOffset, final double[] y, final int yOffset, int length) throws ExceptionClass {
+		String errorMsg = "\nCan't create the summary.";
+		ExceptionClass.throwErrorIfRangeOutOfBounds(x.length, xOffset, length, errorMsg);
+		ExceptionClass.throwErrorIfRangeOutOfBounds(y.length, yOffset, length, errorMsg);
+		final BivariateSummary result = new BivariateSummary();
+		if(length < 2 * VALUES_PER_BLOCK) {
+			result.addPairs(x, xOffset, y, yOffset, length);
+			return result;
+		} //if
+		//each "row" is a block of pairs, summarised into partials[block]
+		final int blockCount = (length + VALUES_PER_BLOCK - 1) / VALUES_PER_BLOCK,
+			lastLength = length - ((blockCount - 1) * VALUES_PER_BLOCK);
+		final BivariateSummary[] partials = new BivariateSummary[blockCount];
+		ParallelExecution.runInRowBlocks(blockCount, VALUES_PER_BLOCK, new ParallelExecution.RowBlockTask() {
+			public void run(int fromBlock, int toBlock) {
+				int start = 0;
+				for(int b = fromBlock; b < toBlock; b++) {
+					start = b * VALUES_PER_BLOCK;
+					partials[b] = new BivariateSummary();
+					partials[b].addPairs(x, xOffset + start, y, yOffset + start,
+						(b == blockCount - 1) ? lastLength : VALUES_PER_BLOCK);
+				} //for
+			} //run
+		});
+		//merge in block order, so the result is the same every time
+		for(int b = 0; b < blockCount; b++) {
+			result.merge(partials[b]);
+		} //for
+		return result;
+	} //createFromArrays
+
+	/**
+	Creates a summary of the pairs (listOfX.get(i), listOfY.get(i))
+	@param listOfX - ArrayList<Double>: list of values for X
+	@param listOfY - ArrayList<Double>: list of values for Y
+	@throws ExceptionClass - Throws error if the lists aren't of equal size
+	@return BivariateSummary - summary containing all the pairs
+	*/
+	static BivariateSummary createFromLists(ArrayList<Double> listOfX, ArrayList<Double> listOfY) throws ExceptionClass {
+		ExceptionClass.throwErrorIflistSizeIsNotEqual(listOfX, listOfY, "\nCan't create the summary.");
+		BivariateSummary result = new BivariateSummary();
+		int max = listOfX.size();
+		for(int i = 0; i < max; i++) {
+			result.add(listOfX.get(i), listOfY.get(i));
+		} //for
+		return result;
+	} //createFromLists
+
+	/***************** UPDATE FUNCTIONS *******************/
+
+	/**
+	Adds one pair to the summary (Welford update):
+	dx = x - meanX, meanX += dx / n, Cxx += dx * (x - newMeanX), Cxy += dx * (y - newMeanY)
+	@param x - double: The value for X
+	@param y - double: The value for Y
+	*/
+	void add(double x, double y) {
+		double deltaX = x - _meanX,
+			deltaY = y - _meanY;
+		_count++;
+		_meanX += deltaX / _count;
+		_meanY += deltaY / _count;
+		_coMomentXX += deltaX * (x - _meanX);
+		_coMomentYY += deltaY * (y - _meanY);
+		_coMomentXY += deltaX * (y - _meanY);
+	} //add
+
+	/**
+	Adds the pairs (x[xOffset + i], y[yOffset + i]), where i = 0, ..., (length - 1)
+	@param x - double[]: array containing the values for X
+	@param xOffset - int: The index of the first value in x
+	@param y - double[]: array containing the values for Y
+	@param yOffset - int: The index of the first value in y
+	@param length - int: The number of pairs
+	@throws ExceptionClass - Throws error if the values aren't within the arrays
+	*/
+	void addValues(double[] x, int xOffset, double[] y, int yOffset, int length) throws ExceptionClass {
+		String errorMsg = "\nCan't add the values.";
+		ExceptionClass.throwErrorIfRangeOutOfBounds(x.length, xOffset, length, errorMsg);
+		ExceptionClass.throwErrorIfRangeOutOfBounds(y.length, yOffset, length, errorMsg);
+		addPairs(x, xOffset, y, yOffset, length);
+	} //addValues
+
+	/**
+	Merges the passed summary into this one (Chan et al. update), so
+	that this summary contains the pairs from both. The passed summary
+	is not changed.
+	n = nA + nB, d = meanB - meanA, mean = meanA + d * nB / n,
+	C = CA + CB + dX * dY * nA * nB / n
+	@param other - BivariateSummary: The summary to merge in
+	*/
+	void merge(BivariateSummary other) {
+		long totalCount = _count + other._count;
+		double deltaX = 0,
+			deltaY = 0,
+			weight = 0;
+		if(other._count == 0) {
+			return;
+		} //if
+		deltaX = other._meanX - _meanX;
+		deltaY = other._meanY - _meanY;
+		weight = ((double) _count * other._count) / totalCount;
+		_meanX += deltaX * ((double) other._count / totalCount);
+		_meanY += deltaY * ((double) other._count / totalCount);
+		_coMomentXX += other._coMomentXX + (deltaX * deltaX * weight);
+		_coMomentYY += other._coMomentYY + (deltaY * deltaY * weight);
+		_coMomentXY += other._coMomentXY + (deltaX * deltaY * weight);
+		_count = totalCount;
+	} //merge
+
+	/**
+	Removes all the pairs from the summary
+	*/
+	void reset() {
+		_count = 0;
+		_meanX = 0;
+		_meanY = 0;
+		_coMomentXX = 0;
+		_coMomentYY = 0;
+		_coMomentXY = 0;
+	} //reset
+
+	/***************** CALCULATION FUNCTIONS *******************/
+
+	/**
+	Returns the mean of the x-values
+	@throws ExceptionClass - Throws error if no pairs have been added
+	@return double: the mean
+	*/
+	double calculateMeanX() throws ExceptionClass {
+		throwErrorIfEmpty("\nCan't calculate mean.");
+		return _meanX;
+	} //calculateMeanX
+
+	/**
+	Returns the mean of the y-values
+	@throws ExceptionClass - Throws error if no pairs have been added
+	@return double: the mean
+	*/
+	double calculateMeanY() throws ExceptionClass {
+		throwErrorIfEmpty("\nCan't calculate mean.");
+		return _meanY;
+	} //calculateMeanY
+
+	/**
+	Returns the variance of the x-values (divided by (n-1))
+	@return double: the variance || 0 (if less then two pairs are added)
+	*/
+	double calculateVarianceX() {
+		return (_count < 2) ? 0 : _coMomentXX / (_count - 1);
+	} //calculateVarianceX
+
+	/**
+	Returns the variance of the y-values (divided by (n-1))
+	@return double: the variance || 0 (if less then two pairs are added)
+	*/
+	double calculateVarianceY() {
+		return (_count < 2) ? 0 : _coMomentYY / (_count - 1);
+	} //calculateVarianceY
+
+	/**
+	Returns the co-variance of x and y (divided by (n-1))
+	@return double: the co-variance || 0 (if less then two pairs are added)
+	*/
+	double calculateCoVariance() {
+		return (_count < 2) ? 0 : _coMomentXY / (_count - 1);
+	} //calculateCoVariance
+
+	/**
+	Returns the (Pearson) correlation co-efficient r = Cxy / sqrt(Cxx * Cyy),
+	where (n-1) cancels out
+	@return double: the correlation co-efficient (-1, ..., 1) || 0 (if x or y has no variance)
+	*/
+	double calculateCorrelationCoefficient() {
+		double denominator = Math.sqrt(_coMomentXX * _coMomentYY);
+		if(denominator > 0) {
+			//rounding can give a value slightly outside -1, ..., 1
+			return Math.max(-1, Math.min(1, _coMomentXY / denominator));
+		} //if
+		return 0;
+	} //calculateCorrelationCoefficient
+
+	/**
+	Returns the slope b of the (least squares) linear regression y = a + bx,
+	b = Cxy / Cxx
+	@return double: the slope || 0 (if x has no variance)
+	*/
+	double calculateSlope() {
+		return (_coMomentXX > 0) ? _coMomentXY / _coMomentXX : 0;
+	} //calculateSlope
+
+	/**
+	Returns the intercept a of the (least squares) linear regression y = a + bx,
+	a = meanY - b * meanX
+	@throws ExceptionClass - Throws error if no pairs have been added
+	@return double: the intercept
+	*/
+	double calculateIntercept() throws ExceptionClass {
+		throwErrorIfEmpty("\nCan't calculate the intercept.");
+		return _meanY - (calculateSlope() * _meanX);
+	} //calculateIntercept
+
+	/**
+	Calculates the linear regression linReg = a + bx for the passed x
+	@param x - double: the value for x to be calculated
+	@throws ExceptionClass - Throws error if no pairs have been added
+	@return double: the linear regression
+	*/
+	double calculateLinearRegression(double x) throws ExceptionClass {
+		return calculateIntercept() + (calculateSlope() * x);
+	} //calculateLinearRegression
+
+	/************************* PRIVATE FUNCTIONS *********************************/
+
+	/**
+	Adds the pairs without range checks. The running values are kept in
+	local variables, so they can stay in registers during the loop.
+	*/
+	private void addPairs(double[] x, int xOffset, double[] y, int yOffset, int length) {
+		long count = _count;
+		double meanX = _meanX,
+			meanY = _meanY,
+			coMomentXX = _coMomentXX,
+			coMomentYY = _coMomentYY,
+			coMomentXY = _coMomentXY,
+			valueX = 0,
+			valueY = 0,
+			deltaX = 0,
+			deltaY = 0;
+		for(int i = 0; i < length; i++) {
+			valueX = x[xOffset + i];
+			valueY = y[yOffset + i];
+			deltaX = valueX - meanX;
+			deltaY = valueY - meanY;
+			count++;
+			meanX += deltaX / count;
+			meanY += deltaY / count;
+			coMomentXX += deltaX * (valueX - meanX);
+			coMomentYY += deltaY * (valueY - meanY);
+			coMomentXY += deltaX * (valueY - meanY);
+		} //for
+		_count = count;
+		_meanX = meanX;
+		_meanY = meanY;
+		_coMomentXX = coMomentXX;
+		_coMomentYY = coMomentYY;
+		_coMomentXY = coMomentXY;
+	} //addPairs
+
+	/**
+	Throws error if no pairs have been added to the summary
+	*/
+	void throwErrorIfEmpty(String additionalInfo) throws ExceptionClass {
+		if(_count == 0) {
+			throw new ExceptionClass("No values have been added to the summary." + additionalInfo);
+		} //if
+	} //throwErrorIfEmpty
+
+	/**********************GET & SET METHODS *****************************/
+
+	/**
+	Returns the number of pairs added to the summary
+	*/
+	long getCount() {
+		return _count;
+	} //getCount
+}
@@ -0,0 +1,330 @@
+package macs.hig.imt4072_library;
+
+/**
+Class containing a cache-blocked matrix multiplication (C += A * B)
+working directly on flat row-major arrays. The multiplication is done
+in the following way: <br />
+- B is split into panels of KC rows and NC columns, which are packed
+into a contiguous buffer of NR-wide strips <br />
+- A is split into blocks of MC rows and KC columns, which are packed
+into a contiguous buffer of MR-high strips <br />
+- A register-blocked micro kernel multiplies one MR strip of A with
+one NR strip of B, keeping the MR x NR result in local variables <br />
+The block sizes are chosen so that an A strip and a B strip fits in
+the L1 cache, and the packed A block fits in the L2 cache.
+Since A and B are always packed before they are multiplied, they can be
+read with any row - and column stride (e.g. a transposed view), without
+making the micro kernel any slower.
+@Author  Knut Lucas Andersen
+*/
+public class BlockedMatrixMultiplication {
+	//assumed size (in bytes) of the L1 data cache
+	final static int L1_CACHE_SIZE = 32 * 1024;
+	//assumed size (in bytes) of the L2 cache
+	final static int L2_CACHE_SIZE = 256 * 1024;
+	//size (in bytes) of a double
+	final static int DOUBLE_SIZE = 8;
+	//number of rows in A handled by the micro kernel
+	final static int MR = 4;
+	//number of columns in B handled by the micro kernel (must be equal to MR,
+	//since the blocks of A are packed as strips of a transposed B)
+	final static int NR = 4;
+	//depth of the packed blocks; an MR strip of A and an NR strip of B
+	//should fill no more then half of the L1 cache
+	final static int KC = roundDown(L1_CACHE_SIZE / (2 * (MR + NR) * DOUBLE_SIZE), NR);
+	//number of rows in the packed A block; should fill half of the L2 cache
+	final static int MC = roundDown(L2_CACHE_SIZE / (2 * KC * DOUBLE_SIZE), MR);
+	//number of columns in the packed B panel
+	final static int NC = 1024;
+	//below this number of multiply-adds (m * n * k), packing costs
+	//more then it saves, and the simple kernel is used instead
+	final static int BLOCKING_THRESHOLD = 32 * 32 * 32;
+
+	/**
+	Interface for packing a depth x width block of a matrix into double
+	strips (see packStrips(...)), so the same driver (multiplyPacked(...))
+	is used for matrices stored as double and as float.
+	*/
+	interface StripPacker {
+		void packStrips(int depth, int width, int offset, int depthStride, int widthStride, double[] packed);
+	} //StripPacker
+
+	/**
+	Default constructor
+	*/
+	public BlockedMatrixMultiplication() {
+
+	} //constructor
+
+	/**
+	Checks if the blocked kernel should be used for the given size.
+	@param m - int: The number of rows in A (and C)
+	@param n - int: The number of columns in B (and C)
+	@param k - int: The number of columns in A (rows in B)
+	@return boolean: True - use the blocked kernel, false - use the simple kernel
+	*/
+	static boolean isBlockingWorthwhile(int m, int n, int k) {
+		//a single column is a list of dot products, which gains nothing from packing
+		return n > 1 && ((long) m * n * k) >= BLOCKING_THRESHOLD;
+	} //isBlockingWorthwhile
+
+	/**
+	Multiplies A (m x k) with B (k x n) and adds the result to C (m x n).
+	The cell [i][j] in A is found at aOffset + (i * aRowStride) + (j * aColumnStride)
+	(and similar for B). C must be row-major, with a column stride of 1.
+	Note! No range checks are done here; the calling function is
+	expected to have validated the sizes.
+	@param m - int: The number of rows in A (and C)
+	@param n - int: The number of columns in B (and C)
+	@param k - int: The number of columns in A (rows in B)
+	@param a - double[]: The array containing A
+	@param aOffset - int: Position of A[0][0]
+	@param aRowStride - int: Distance between two rows in A
+	@param aColumnStride - int: Distance between two columns in A
+	@param b - double[]: The array containing B
+	@param bOffset - int: Position of B[0][0]
+	@param bRowStride - int: Distance between two rows in B
+	@param bColumnStride - int: Distance between two columns in B
+	@param c - double[]: The array containing C (the result is added to it)
+	@param cOffset - int: Position of C[0][0]
+	@param cRowStride - int: Distance between two rows in C
+	*/
+	static void multiply(int m, int n, int k,
+			double[] a, int aOffset, int aRowStride, int aColumnStride,
+			double[] b, int bOffset, int bRowStride, int bColumnStride,
+			double[] c, int cOffset, int cRowStride) {
+		multiplyPacked(m, n, k, createPacker(a), aOffset, aRowStride, aColumnStride,
+			createPacker(b), bOffset, bRowStride, bColumnStride, c, cOffset, cRowStride);
+	} //multiply
+
+	/**
+	Multiplies A (m x k) with B (k x n) stored as float, and adds the result
+	to C (m x n), which is stored as double. The blocks are converted to
+	double when they are packed, so the same driver and micro kernel is
+	used, and all the products are accumulated in double precision.
+	@see multiply(...)
+	*/
+	static void multiply(int m, int n, int k,
+			float[] a, int aOffset, int aRowStride, int aColumnStride,
+			float[] b, int bOffset, int bRowStride, int bColumnStride,
+			double[] c, int cOffset, int cRowStride) {
+		multiplyPacked(m, n, k, createPacker(a), aOffset, aRowStride, aColumnStride,
+			createPacker(b), bOffset, bRowStride, bColumnStride, c, cOffset, cRowStride);
+	} //multiply
+
+	/**
+	Multiplies A (m x k) with B (k x n) and adds the result to C (m x n)
+	with a simple i-k-j loop, where each row in B is added to C with
+	VectorKernels.axpy(...). If B is a single column (matrix * vector),
+	each cell in C is a dot product instead. Used for small matrices, where
+	packing the blocks costs more then it saves.
+	@see multiply(...)
+	*/
+	static void multiplySimple(int m, int n, int k,
+			double[] a, int aOffset, int aRowStride, int aColumnStride,
+			double[] b, int bOffset, int bRowStride, int bColumnStride,
+			double[] c, int cOffset, int cRowStride) {
+		int rowStartA = 0,
+			rowStartC = 0;
+		for(int i = 0; i < m; i++) {
+			rowStartA = aOffset + (i * aRowStride);
+			rowStartC = cOffset + (i * cRowStride);
+			if(n == 1) {
+				c[rowStartC] += VectorKernels.dot(k, a, rowStartA, aColumnStride, b, bOffset, bRowStride);
+				continue;
+			} //if
+			for(int p = 0; p < k; p++) {
+				VectorKernels.axpy(n, a[rowStartA + (p * aColumnStride)],
+					b, bOffset + (p * bRowStride), bColumnStride, c, rowStartC, 1);
+			} //for
+		} //for
+	} //multiplySimple
+
+	/************************* PRIVATE FUNCTIONS *********************************/
+
+	/**
+	The blocked multiplication (see the class description), where the
+	blocks of A and B are packed by the passed packers.
+	@see multiply(...)
+	*/
+	static void multiplyPacked(int m, int n, int k,
+			StripPacker packerA, int aOffset, int aRowStride, int aColumnStride,
+			StripPacker packerB, int bOffset, int bRowStride, int bColumnStride,
+			double[] c, int cOffset, int cRowStride) {
+		int nc = 0,
+			kc = 0,
+			mc = 0;
+		double[] packedA = new double[MC * KC],
+			packedB = new double[KC * roundUp(Math.min(NC, n), NR)];
+		for(int jc = 0; jc < n; jc += NC) {
+			nc = Math.min(NC, n - jc);
+			for(int pc = 0; pc < k; pc += KC) {
+				kc = Math.min(KC, k - pc);
+				//pack the KC x NC panel of B into strips of NR columns, it is reused for all blocks of A
+				packerB.packStrips(kc, nc, bOffset + (pc * bRowStride) + (jc * bColumnStride), bRowStride, bColumnStride, packedB);
+				for(int ic = 0; ic < m; ic += MC) {
+					mc = Math.min(MC, m - ic);
+					//pack the MC x KC block of A into strips of MR rows (the strides are swapped)
+					packerA.packStrips(kc, mc, aOffset + (ic * aRowStride) + (pc * aColumnStride), aColumnStride, aRowStride, packedA);
+					multiplyPackedBlock(mc, nc, kc, packedA, packedB,
+						c, cOffset + (ic * cRowStride) + jc, cRowStride);
+				} //for
+			} //for
+		} //for
+	} //multiplyPacked
+
+	/**
+	Creates a packer reading the blocks from the passed (double) array
+	*/
+	static StripPacker createPacker(final double[] array) {
+		return new StripPacker() {
+			public void packStrips(int depth, int width, int offset, int depthStride, int widthStride, double[] packed) {
+				BlockedMatrixMultiplication.packStrips(depth, width, array, offset, depthStride, widthStride, packed);
+			} //packStrips
+		};
+	} //createPacker
+
+	/**
+	Creates a packer reading the blocks from the passed (float) array
+	*/
+	static StripPacker createPacker(final float[] array) {
+		return new StripPacker() {
+			public void packStrips(int depth, int width, int offset, int depthStride, int widthStride, double[] packed) {
+				BlockedMatrixMultiplication.packStrips(depth, width, array, offset, depthStride, widthStride, packed);
+			} //packStrips
+		};
+	} //createPacker
+
+	/**
+	Packs a depth x width block into strips of NR values across the width.
+	Within a strip, the NR values at each depth are stored next to each other,
+	so the micro kernel reads the strip sequentially. The last strip is padded
+	with zeros. A panel of B is packed with depth = rows and width = columns,
+	and a block of A with depth = columns and width = rows (giving MR strips).
+	*/
+	static void packStrips(int depth, int width, double[] source, int offset, int depthStride, int widthStride, double[] packed) {
+		int index = 0,
+			values = 0,
+			start = 0;
+		for(int w = 0; w < width; w += NR) {
+			values = Math.min(NR, width - w);
+			for(int d = 0; d < depth; d++) {
+				start = offset + (d * depthStride) + (w * widthStride);
+				for(int i = 0; i < values; i++) {
+					packed[index++] = source[start + (i * widthStride)];
+				} //for
+				for(int i = values; i < NR; i++) {
+					packed[index++] = 0;
+				} //for
+			} //for
+		} //for
+	} //packStrips
+
+	/**
+	Packs a depth x width block (stored as float) into double strips.
+	@see packStrips(int, int, double[], int, int, int, double[])
+	*/
+	static void packStrips(int depth, int width, float[] source, int offset, int depthStride, int widthStride, double[] packed) {
+		int index = 0,
+			values = 0,
+			start = 0;
+		for(int w = 0; w < width; w += NR) {
+			values = Math.min(NR, width - w);
+			for(int d = 0; d < depth; d++) {
+				start = offset + (d * depthStride) + (w * widthStride);
+				for(int i = 0; i < values; i++) {
+					packed[index++] = source[start + (i * widthStride)];
+				} //for
+				for(int i = values; i < NR; i++) {
+					packed[index++] = 0;
+				} //for
+			} //for
+		} //for
+	} //packStrips
+
+	/**
+	Multiplies the packed mc x kc block of A with the packed kc x nc panel
+	of B, one MR x NR micro tile at the time, and adds the result to C.
+	*/
+	static void multiplyPackedBlock(int mc, int nc, int kc, double[] packedA, double[] packedB,
+			double[] c, int cOffset, int cRowStride) {
+		int rows = 0,
+			columns = 0;
+		for(int j = 0; j < nc; j += NR) {
+			columns = Math.min(NR, nc - j);
+			for(int i = 0; i < mc; i += MR) {
+				rows = Math.min(MR, mc - i);
+				microKernel(kc, packedA, i * kc, packedB, j * kc,
+					c, cOffset + (i * cRowStride) + j, cRowStride, rows, columns);
+			} //for
+		} //for
+	} //multiplyPackedBlock
+
+	/**
+	Multiplies one packed MR strip of A with one packed NR strip of B.
+	The 4x4 result is kept in local variables (registers) while looping
+	through kc, and is added to C at the end. For fringe tiles, only the
+	rows x columns part of the result is written.
+	*/
+	static void microKernel(int kc, double[] packedA, int aIndex, double[] packedB, int bIndex,
+			double[] c, int cIndex, int cRowStride, int rows, int columns) {
+		double c00 = 0, c01 = 0, c02 = 0, c03 = 0,
+			c10 = 0, c11 = 0, c12 = 0, c13 = 0,
+			c20 = 0, c21 = 0, c22 = 0, c23 = 0,
+			c30 = 0, c31 = 0, c32 = 0, c33 = 0,
+			a0 = 0, a1 = 0, a2 = 0, a3 = 0,
+			b0 = 0, b1 = 0, b2 = 0, b3 = 0;
+		for(int p = 0; p < kc; p++) {
+			a0 = packedA[aIndex];
+			a1 = packedA[aIndex + 1];
+			a2 = packedA[aIndex + 2];
+			a3 = packedA[aIndex + 3];
+			b0 = packedB[bIndex];
+			b1 = packedB[bIndex + 1];
+			b2 = packedB[bIndex + 2];
+			b3 = packedB[bIndex + 3];
+			c00 += a0 * b0; c01 += a0 * b1; c02 += a0 * b2; c03 += a0 * b3;
+			c10 += a1 * b0; c11 += a1 * b1; c12 += a1 * b2; c13 += a1 * b3;
+			c20 += a2 * b0; c21 += a2 * b1; c22 += a2 * b2; c23 += a2 * b3;
+			c30 += a3 * b0; c31 += a3 * b1; c32 += a3 * b2; c33 += a3 * b3;
+			aIndex += MR;
+			bIndex += NR;
+		} //for
+		if(rows == MR && columns == NR) {
+			//full tile, write the result directly
+			c[cIndex] += c00; c[cIndex + 1] += c01; c[cIndex + 2] += c02; c[cIndex + 3] += c03;
+			cIndex += cRowStride;
+			c[cIndex] += c10; c[cIndex + 1] += c11; c[cIndex + 2] += c12; c[cIndex + 3] += c13;
+			cIndex += cRowStride;
+			c[cIndex] += c20; c[cIndex + 1] += c21; c[cIndex + 2] += c22; c[cIndex + 3] += c23;
+			cIndex += cRowStride;
+			c[cIndex] += c30; c[cIndex + 1] += c31; c[cIndex + 2] += c32; c[cIndex + 3] += c33;
+		} else {
+			//fringe tile, only write the cells that are inside C
+			double[] tile = {
+				c00, c01, c02, c03,
+				c10, c11, c12, c13,
+				c20, c21, c22, c23,
+				c30, c31, c32, c33 };
+			for(int i = 0; i < rows; i++) {
+				for(int j = 0; j < columns; j++) {
+					c[cIndex + (i * cRowStride) + j] += tile[(i * NR) + j];
+				} //for
+			} //for
+		} //if
+	} //microKernel
+
+	/**
+	Rounds value down to the closest multiple of (and at least) multiple
+	*/
+	static int roundDown(int value, int multiple) {
+		return Math.max(multiple, (value / multiple) * multiple);
+	} //roundDown
+
+	/**
+	Rounds value up to the closest multiple of multiple
+	*/
+	static int roundUp(int value, int multiple) {
+		return ((value + multiple - 1) / multiple) * multiple;
+	} //roundUp
+}
@@ -0,0 +1,293 @@
+package macs.hig.imt4072_library;
+
+/**
+Class containing the Cholesky decomposition A = L * LT of a symmetric
+positive-definite (SPD) matrix, where L is lower triangular.
+Co-variance and scatter matrices are SPD (or close to it), and the
+decomposition needs about n3/6 multiply-adds, which is half of the
+LU decomposition. No pivoting is needed, and the decomposition is
+numerically stable for any SPD matrix.
+A small regularization can be added to the diagonal, so that a nearly
+singular scatter matrix becomes positive-definite.
+If the matrix turns out not to be SPD, isPositiveDefinite() returns
+false, and the LU decomposition should be used instead.
+@Author  Knut Lucas Andersen
+@see Matrix.createLinearSolver(double regularization)
+*/
+public class CholeskyDecomposition implements LinearSolver {
+	//relative tolerance used when checking if the matrix is symmetric
+	final static double SYMMETRY_TOLERANCE = 1e-10;
+	//the size of the (NxN) matrix
+	private int _size;
+	//L (on and below the diagonal), row-major
+	private double[] _lArray;
+	//true if the matrix was symmetric and all the pivots were positive
+	private boolean _isPositiveDefinite;
+
+	/**
+	Constructor calculating the Cholesky decomposition of the passed matrix.
+	@param matrix - Matrix: The NxN matrix to decompose
+	@throws ExceptionClass
+	- Throws error if the matrix is empty
+	- Throws error if the matrix isn't square
+	*/
+	public CholeskyDecomposition(Matrix matrix) throws ExceptionClass {
+		this(matrix, 0);
+	} //constructor
+
+	/**
+	Constructor calculating the Cholesky decomposition of (matrix + regularization * I).
+	The passed matrix is not changed.
+	@param matrix - Matrix: The NxN matrix to decompose
+	@param regularization - double: The value to add to the diagonal
+	@throws ExceptionClass
+	- Throws error if the matrix is empty
+	- Throws error if the matrix isn't square
+	*/
+	public CholeskyDecomposition(Matrix matrix, double regularization) throws ExceptionClass {
+		String errorMsg = "\nCan't calculate the Cholesky decomposition.";
+		ExceptionClass.throwErrorIfMatrixIsEmpty(matrix.getNumRows(), matrix.getNumColumns());
+		ExceptionClass.throwErrorIfMatrixNotSquare(matrix.getNumRows(), matrix.getNumColumns(), errorMsg);
+		_size = matrix.getNumRows();
+		_lArray = matrix.createCopy().getMatrix();
+		for(int i = 0; i < _size; i++) {
+			_lArray[(i * _size) + i] += regularization;
+		} //for
+		_isPositiveDefinite = isSymmetric() && decompose();
+	} //constructor
+
+	/**
+	Checks that the (copied) matrix is symmetric, within a relative tolerance.
+	@return boolean: True - the matrix is symmetric, false - it isn't
+	*/
+	boolean isSymmetric() {
+		int n = _size;
+		double valueIJ = 0,
+			valueJI = 0;
+		for(int i = 0; i < n; i++) {
+			for(int j = i + 1; j < n; j++) {
+				valueIJ = _lArray[(i * n) + j];
+				valueJI = _lArray[(j * n) + i];
+				if(Math.abs(valueIJ - valueJI) > SYMMETRY_TOLERANCE * Math.max(Math.abs(valueIJ), Math.abs(valueJI))) {
+					return false;
+				} //if
+			} //for
+		} //for
+		return true;
+	} //isSymmetric
+
+	/**
+	Calculates L in place in the lower triangle of _lArray, row by row:
+	L[i][j] = (A[i][j] - sum(L[i][k] * L[j][k])) / L[j][j], k < j <br />
+	L[i][i] = sqrt(A[i][i] - sum(L[i][k] * L[i][k])), k < i <br />
+	Both sums are over the start of two rows, which are read sequentially.
+	The upper triangle is set to zero.
+	@return boolean: True - the matrix is positive-definite, false - a pivot wasn't positive
+	*/
+	boolean decompose() {
+		int n = _size,
+			rowStartI = 0,
+			rowStartJ = 0;
+		double sum = 0;
+		double[] l = _lArray;
+		for(int i = 0; i < n; i++) {
+			rowStartI = i * n;
+			for(int j = 0; j <= i; j++) {
+				rowStartJ = j * n;
+				sum = l[rowStartI + j];
+				for(int k = 0; k < j; k++) {
+					sum -= l[rowStartI + k] * l[rowStartJ + k];
+				} //for
+				if(i == j) {
+					if(!(sum > 0)) {
+						//not positive-definite (or NaN)
+						return false;
+					} //if
+					l[rowStartI + i] = Math.sqrt(sum);
+				} else {
+					l[rowStartI + j] = sum / l[rowStartJ + j];
+				} //if
+			} //for
+			for(int j = i + 1; j < n; j++) {
+				l[rowStartI + j] = 0;
+			} //for
+		} //for
+		return true;
+	} //decompose
+
+	/**
+	Solves A * x = b, where b is a column vector (Nx1 matrix).
+	@param b - Matrix: The right-hand side (Nx1)
+	@throws ExceptionClass
+	- Throws error if b isn't a Nx1 matrix
+	- Throws error if A isn't positive-definite
+	@return Matrix - x (Nx1)
+	*/
+	public Matrix solve(Matrix b) throws ExceptionClass {
+		String errorMsg = "The right-hand side must be a column vector (Nx1).\nCan't solve the system.";
+		ExceptionClass.throwErrorIfSizeGreaterThenValue(b.getNumColumns(), 1, errorMsg);
+		return solveMany(b);
+	} //solve
+
+	/**
+	Solves A * X = B for all the columns in B at the same time, by
+	forward substitution with L, and backward substitution with LT.
+	Both are done row by row.
+	@param b - Matrix: The right-hand sides (NxM)
+	@throws ExceptionClass
+	- Throws error if the row count in B isn't equal to N
+	- Throws error if A isn't positive-definite
+	@return Matrix - X (NxM)
+	*/
+	public Matrix solveMany(Matrix b) throws ExceptionClass {
+		String errorMsg = "\nCan't solve the system.";
+		ExceptionClass.throwErrorIfMatrixIsEmpty(b.getNumRows(), b.getNumColumns());
+		ExceptionClass.throwErrorIfColumnAndRowCountDiffers(_size, b.getNumRows(), errorMsg);
+		throwErrorIfNotPositiveDefinite();
+		Matrix solution = b.createCopy();
+		//forward substitution: L * Y = B
+		forwardSubstitution(solution.getMatrix(), b.getNumColumns());
+		//backward substitution: LT * X = Y
+		backwardSubstitution(solution.getMatrix(), b.getNumColumns());
+		return solution;
+	} //solveMany
+
+	/**
+	Solves L * Y = B (forward substitution only). Used together with
+	solveUpper(...) to transform a symmetric problem with A into one with
+	the identity, e.g. the generalized eigenproblem Sb * v = l * Sw * v
+	becomes (inverse(L) * Sb * inverse(LT)) * y = l * y, where v = inverse(LT) * y.
+	@param b - Matrix: The right-hand sides (NxM)
+	@throws ExceptionClass
+	- Throws error if the row count in B isn't equal to N
+	- Throws error if A isn't positive-definite
+	@return Matrix - Y (NxM)
+	*/
+	Matrix solveLower(Matrix b) throws ExceptionClass {
+		ExceptionClass.throwErrorIfMatrixIsEmpty(b.getNumRows(), b.getNumColumns());
+		ExceptionClass.throwErrorIfColumnAndRowCountDiffers(_size, b.getNumRows(), "\nCan't solve the system.");
+		throwErrorIfNotPositiveDefinite();
+		Matrix solution = b.createCopy();
+		forwardSubstitution(solution.getMatrix(), b.getNumColumns());
+		return solution;
+	} //solveLower
+
+	/**
+	Solves LT * X = B (backward substitution only).
+	@param b - Matrix: The right-hand sides (NxM)
+	@throws ExceptionClass
+	- Throws error if the row count in B isn't equal to N
+	- Throws error if A isn't positive-definite
+	@return Matrix - X (NxM)
+	@see solveLower(Matrix b)
+	*/
+	Matrix solveUpper(Matrix b) throws ExceptionClass {
+		ExceptionClass.throwErrorIfMatrixIsEmpty(b.getNumRows(), b.getNumColumns());
+		ExceptionClass.throwErrorIfColumnAndRowCountDiffers(_size, b.getNumRows(), "\nCan't solve the system.");
+		throwErrorIfNotPositiveDefinite();
+		Matrix solution = b.createCopy();
+		backwardSubstitution(solution.getMatrix(), b.getNumColumns());
+		return solution;
+	} //solveUpper
+
+	/**
+	Calculates the determinant of A, which is the square of the
+	product of the diagonal in L.
+	@return double: the determinant (0 if A isn't positive-definite)
+	*/
+	public double getDeterminant() {
+		double product = 1;
+		if(!_isPositiveDefinite) {
+			return 0;
+		} //if
+		for(int i = 0; i < _size; i++) {
+			product *= _lArray[(i * _size) + i];
+		} //for
+		return product * product;
+	} //getDeterminant
+
+	/************************* PRIVATE FUNCTIONS *********************************/
+
+	/**
+	Solves L * Y = X in place, row by row, where x is a row-major NxM array
+	*/
+	void forwardSubstitution(double[] x, int m) {
+		int n = _size,
+			rowStartK = 0,
+			rowStartI = 0;
+		double factor = 0;
+		double[] l = _lArray;
+		for(int i = 0; i < n; i++) {
+			rowStartI = i * m;
+			for(int k = 0; k < i; k++) {
+				factor = l[(i * n) + k];
+				if(factor != 0) {
+					rowStartK = k * m;
+					for(int j = 0; j < m; j++) {
+						x[rowStartI + j] -= factor * x[rowStartK + j];
+					} //for
+				} //if
+			} //for
+			factor = l[(i * n) + i];
+			for(int j = 0; j < m; j++) {
+				x[rowStartI + j] /= factor;
+			} //for
+		} //for
+	} //forwardSubstitution
+
+	/**
+	Solves LT * Y = X in place, row by row, where x is a row-major NxM array
+	*/
+	void backwardSubstitution(double[] x, int m) {
+		int n = _size,
+			rowStartK = 0,
+			rowStartI = 0;
+		double factor = 0;
+		double[] l = _lArray;
+		for(int i = n - 1; i >= 0; i--) {
+			rowStartI = i * m;
+			factor = l[(i * n) + i];
+			for(int j = 0; j < m; j++) {
+				x[rowStartI + j] /= factor;
+			} //for
+			//LT[k][i] = L[i][k]
+			for(int k = 0; k < i; k++) {
+				factor = l[(i * n) + k];
+				if(factor != 0) {
+					rowStartK = k * m;
+					for(int j = 0; j < m; j++) {
+						x[rowStartK + j] -= factor * x[rowStartI + j];
+					} //for
+				} //if
+			} //for
+		} //for
+	} //backwardSubstitution
+
+	/**
+	Throws an error if the decomposed matrix isn't positive-definite
+	@throws ExceptionClass - Throws error if the matrix isn't SPD
+	*/
+	void throwErrorIfNotPositiveDefinite() throws ExceptionClass {
+		if(!_isPositiveDefinite) {
+			String errorMsg = "The matrix isn't symmetric positive-definite.\n"
+				+ "Can't solve the system (use LUDecomposition instead).";
+			throw new ExceptionClass(errorMsg);
+		} //if
+	} //throwErrorIfNotPositiveDefinite
+
+	/**********************GET & SET METHODS *****************************/
+
+	/**
+	Returns true if the decomposed matrix is symmetric positive-definite
+	*/
+	boolean isPositiveDefinite() {
+		return _isPositiveDefinite;
+	} //isPositiveDefinite
+
+	/**
+	Returns the size (N) of the decomposed NxN matrix
+	*/
+	int getSize() {
+		return _size;
+	} //getSize
+}
@@ -18,8 +18,14 @@ public class Clustering {
 	private int _noAttributes;
 	//matrix containing the unlabeled samples
 	private Matrix _sampleMatrix;
+	//the unlabeled samples stored as float (null, unless useSinglePrecisionSamples() is called)
+	private FloatMatrix _floatSampleMatrix;
 	//matrix containing the centroid samples
 	private Matrix _centroidMatrix;
+	//buffer (reused each round) holding the rows of the samples belonging to one centroid
+	private int[] _memberIndexes;
+	//buffer (reused for every sample) holding the distances from one sample to each centroid
+	private double[] _distanceBuffer;
 	//list containing the clustering results from round
 	//index1: iteration round, index2: cluster group
 	ArrayList<ArrayList<Integer>> _clusterGroupList;
@@ -33,6 +39,9 @@ public class Clustering {
 		_noAttributes = 0;
 		_centroidMatrix = new Matrix();
 		_sampleMatrix = new Matrix();
+		_floatSampleMatrix = null;
+		_memberIndexes = new int[0];
+		_distanceBuffer = new double[0];
 		_clusterGroupList = new ArrayList<ArrayList<Integer>>();
 	} //constructor
 
@@ -45,6 +54,8 @@ public class Clustering {
 	*/
 	public Clustering(int noClusterGroups, int noAttributes) throws ExceptionClass {
 		try {
+			_memberIndexes = new int[0];
+			_distanceBuffer = new double[0];
 			_clusterGroupList = new ArrayList<ArrayList<Integer>>();
 			ArrayList<ArrayList<Double>> sampleList = new ArrayList<ArrayList<Double>>();
 			ArrayList<ArrayList<Double>> centroidList = new ArrayList<ArrayList<Double>>();
@@ -144,6 +155,23 @@ public class Clustering {
 		fillMatrixWithSamples(tempList, centroidMatrix);
 	} //fillCentroidMatrixWithSamples
 
+	/**
+	Stores the samples as float (FloatMatrix) instead of double, which
+	halves the memory used by the sample matrix (the largest matrix while
+	clustering), and the memory read when calculating the distances.
+	The centroids are still stored as double, and the distances and
+	means are calculated in double.
+	Should be called after the samples are filled in, and before
+	calculateDistanceFromCentroids(...).
+	*/
+	void useSinglePrecisionSamples() {
+		if(_floatSampleMatrix == null) {
+			_floatSampleMatrix = FloatMatrix.fromMatrix(_sampleMatrix);
+			//the double samples are no longer needed
+			_sampleMatrix = new Matrix();
+		} //if
+	} //useSinglePrecisionSamples
+
 	/**
 	Calculates the distance between the centroid and the samples
 	by use of the k-means method.
@@ -154,44 +182,38 @@ public class Clustering {
 	@throws ExceptionClass 
 	*/
 	ArrayList<ArrayList<Integer>> calculateDistanceFromCentroids(float maxIterations, int stopParameter) throws ExceptionClass {
-		int counter = 0,
-			round = 0,
+		int round = 0,
 			currentIndex = 0;
-		double mean = 0,
-			distance = 0,
-			currentValue = 0;
+		double distance = 0;
 		int noSamples = getNoSamples();
+		Matrix centroidMatrix = getCentroidMatrix();
 		boolean exitLoop = false;
 		Statistics stats = new Statistics();
 		ArrayList<Integer> clusterIndex = new ArrayList<Integer>();
-		ArrayList<Double> clusterDistances = new ArrayList<Double>();
+		//(re)create the buffer if the number of centroids has changed
+		if(_distanceBuffer.length != getNoCentroids()) {
+			_distanceBuffer = new double[getNoCentroids()];
+		} //if
+		double[] distanceArray = _distanceBuffer;
 		while(round < maxIterations && !exitLoop) {
 			//loop through the test samples and centroids attribute values
 			for(int i = 0; i < noSamples; i++) {
 				for(int j = 0; j < getNoCentroids(); j++) {
-					distance = 0;
-					for(int k = 0; k < getNoAttributes(); k++) {
-						//get the value for the test sample, centroid mean and calculate distance
-						currentValue = getSampleMatrix().getCellValueAt(i, k);
-						mean = getCentroidMatrix().getCellValueAt(j, k);
-						distance += calculateDistance(currentValue, mean);
-					} //for
-					//get the squareroot of the distance, and add it to the List
-					distance = Math.sqrt(distance);
-					clusterDistances.add(distance);
+					//calculate the distance between the test sample and the centroid mean
+					distance = calculateSquaredDistance(i, centroidMatrix, j);
+					//get the squareroot of the distance
+					distanceArray[j] = Math.sqrt(distance);
 				} //for
-				currentIndex = counter = 1;
-				distance = clusterDistances.get(0);
+				currentIndex = 1;
+				distance = distanceArray[0];
 				//loop through the distances and find the shortest for this sample
-				for (double currentDistance : clusterDistances) {
-					if(currentDistance < distance) {
-						distance = currentDistance;
-						currentIndex = counter;
+				for(int j = 1; j < getNoCentroids(); j++) {
+					if(distanceArray[j] < distance) {
+						distance = distanceArray[j];
+						currentIndex = j + 1;
 					} //if
-					counter++;
 				} //for
-				//clear distance values and add index to list
-				clusterDistances = new ArrayList<Double>();
+				//add index to list
 				clusterIndex.add(currentIndex);
 			} //for
 			//add the index of cluster grouping from this round
@@ -202,30 +224,36 @@ public class Clustering {
 			round++;
 			exitLoop = isResultEqualToLastRound(round, stopParameter, _clusterGroupList, stats);
 		} //while
-		clusterDistances = new ArrayList<Double>();
-		clusterIndex = new ArrayList<Integer>();
 		return _clusterGroupList;
 	} //calculateDistanceFromCenteroids
 
 	/**
-	Calculates the distance between the unlabeled sample attribute
-	and the centroid (substraction) and then raises the answer to
-	the power of 2 and returns it.
-	
-	@param value - double: The current unlabeled sample attribute value
-	@param value - double: The current centroid value
-	@return double: Result of (value - mean)2
+	Calculates the squared distance between the sample sampleNo and the
+	centroid centroidNo, with the samples stored as double or float.
+	@param sampleNo - int: The row of the sample
+	@param centroidMatrix - Matrix: Matrix containing the centroids
+	@param centroidNo - int: The row of the centroid
+	@return double: the squared distance
 	*/
-	double calculateDistance(double value, double mean) {
-		double distance = 0;
-		distance = value - mean;
-		distance = Math.pow(distance, 2);
-		return distance;
-	} //calculateDistance
+	double calculateSquaredDistance(int sampleNo, Matrix centroidMatrix, int centroidNo) {
+		int centroidIndex = centroidMatrix.cellIndex(centroidNo, 0),
+			centroidStride = centroidMatrix.getColumnStride();
+		if(_floatSampleMatrix != null) {
+			return VectorKernels.squaredDistance(getNoAttributes(), _floatSampleMatrix.getMatrix(),
+				_floatSampleMatrix.cellIndex(sampleNo, 0), _floatSampleMatrix.getColumnStride(),
+				centroidMatrix.getMatrix(), centroidIndex, centroidStride);
+		} //if
+		return VectorKernels.squaredDistance(getNoAttributes(), _sampleMatrix.getMatrix(),
+			_sampleMatrix.cellIndex(sampleNo, 0), _sampleMatrix.getColumnStride(),
+			centroidMatrix.getMatrix(), centroidIndex, centroidStride);
+	} //calculateSquaredDistance
 
 	/**
 	Updates the centroid matrix, filling in the new averages where
 	changes have occurred.
+	The samples belonging to a centroid are read through a view of the
+	selected rows, and the mean is written directly into the centroid row
+	(through a view), so no samples are copied while iterating.
 	Excepting the format where the list position is the sample
 	(unlabeled) and the actual value in the list is the centroid index.
 	@param clusterIndex - ArrayList<Integer> - List of cluster indexes
@@ -239,33 +267,30 @@ public class Clustering {
 	Matrix updateCentroids(ArrayList<Integer> clusterIndex) throws ExceptionClass {
 		int rowNo = 0,
 			indexCounter = 0;
-		double currentValue = 0;
 		_centroidMatrix = getCentroidMatrix();
-		_sampleMatrix = getSampleMatrix();
-		Matrix tempMatrix;
+		//(re)create the buffer if the number of samples has changed
+		if(_memberIndexes.length != clusterIndex.size()) {
+			_memberIndexes = new int[clusterIndex.size()];
+		} //if
 		//loop through the centroids and update the mean values
 		for(int centroid = 0; centroid < getNoCentroids(); centroid++) {
 			if(clusterIndex.contains(centroid + 1)) {
 				rowNo = 0;
 				indexCounter = 0;
-				//create a matrix and loop through the indexes to retrieve the sample values
-				tempMatrix = new Matrix(getClusterCount(clusterIndex, centroid + 1), getNoAttributes());
+				//loop through the indexes and collect the rows belonging to this centroid
 				for (int index : clusterIndex) {
 					if(index == (centroid + 1)) {
-						for(int columnNo = 0; columnNo < getNoAttributes(); columnNo++) {
-							currentValue = _sampleMatrix.getCellValueAt(indexCounter, columnNo);
-							tempMatrix.changeCellValueAt(rowNo, columnNo, currentValue);
-						} //for
+						_memberIndexes[rowNo] = indexCounter;
 						rowNo++;
 					} //if
 					indexCounter++;
 				} //for
-				//create matrix containing mean and update the centroid values
-				tempMatrix = tempMatrix.createMeanMatrix();
-				for(int columnNo = 0; columnNo < tempMatrix.getNumRows(); columnNo++) {
-					currentValue = tempMatrix.getCellValueAt(columnNo, 0);
-					_centroidMatrix.changeCellValueAt(centroid, columnNo, currentValue);
-				} //for
+				//calculate the mean of the rows directly into the centroid row
+				if(_floatSampleMatrix != null) {
+					_floatSampleMatrix.meanOfRowsInto(_memberIndexes, rowNo, _centroidMatrix.getRowView(centroid).getTransposedView());
+				} else {
+					_sampleMatrix.getRowsView(_memberIndexes, rowNo).meanInto(_centroidMatrix.getRowView(centroid).getTransposedView());
+				} //if
 			} //if
 		} //for
 		return _centroidMatrix;
@@ -368,9 +393,13 @@ public class Clustering {
 
 	/**
 	Returns the test/sample matrix
-	(matrix containing the original unlabeled samples)
+	(matrix containing the original unlabeled samples).
+	If the samples are stored as float, a (double) copy is returned.
 	*/
 	Matrix getSampleMatrix() {
+		if(_floatSampleMatrix != null) {
+			return _floatSampleMatrix.toMatrix();
+		} //if
 		return _sampleMatrix;
 	} //getNoSamples
 
@@ -164,6 +164,27 @@ public class ExceptionClass extends Throwable {
 		} //if
 	} //throwErrorIfMatrixNotOfEqualOrder
 
+	/**
+	Throws an error if the destination matrix isn't of the size the result
+	needs. Used by the functions that write their result into a matrix
+	passed by the caller (e.g. addInto, multiplyInto).
+	
+	@param destination - Matrix: The matrix the result is written to
+	@param rowCount - int: The row count of the result
+	@param columnCount - int: The column count of the result
+	@param additionalInfo: String - Additional info, e.g. where error was captured
+	@throws ExceptionClass - Throws error if the destination size isn't rowCount x columnCount
+	*/
+	static void throwErrorIfDestinationSizeDiffers(Matrix destination, int rowCount, int columnCount, String additionalInfo) throws ExceptionClass {
+		if(destination.getNumRows() != rowCount || destination.getNumColumns() != columnCount) {
+			String errorMsg = "The destination matrix is a "
+				+ (destination.getNumRows()) + "x" + (destination.getNumColumns())
+				+ " matrix, but the result is a " + (rowCount) + "x" + (columnCount)
+				+ " matrix.\n" + additionalInfo;
+			throw new ExceptionClass(errorMsg);
+		} //if
+	} //throwErrorIfDestinationSizeDiffers
+
 	/**
 	Throws an error if the matrix row - and column count doesn't equal 2.
 	An example of usage is where there is an requirement that the matrix/matrices
@@ -186,6 +207,25 @@ public class ExceptionClass extends Throwable {
 		throwErrorIfSizeGreaterThenValue(columnCount, sizeCheck, errorMsg);
 	} //throwErrorIfMatrixNot2x2
 
+	/**
+	Throws an error if the matrix isn't square (row count equal to column count).
+	An example of usage is when factorizing or inverting a matrix, which
+	requires a NxN matrix.
+	
+	@param rowCount - int: The matrix row count
+	@param columnCount - int: The matrix column count
+	@param additionalInfo: String - Additional info, e.g. where error was captured
+	@throws ExceptionClass - Throws error if rowCount != columnCount
+	*/
+	static void throwErrorIfMatrixNotSquare(int rowCount, int columnCount, String additionalInfo) throws ExceptionClass {
+		if(rowCount != columnCount) {
+			String errorMsg = "The matrix must be a NxN matrix, but the passed matrix is a "
+				+ (rowCount) + "x"
+				+ (columnCount) + " matrix." + additionalInfo;
+			throw new ExceptionClass(errorMsg);
+		} //if
+	} //throwErrorIfMatrixNotSquare
+
 	/**
 	Compares the coumn count against the row count and then throws error
 	if the number of columns in matrix1 isn't equal to the number of rows in
@@ -292,4 +332,22 @@ public class ExceptionClass extends Throwable {
 			throw new ExceptionClass(additionalInfo);
 		} //if
 	}//throwErrorIfSizeLessThenCount
+
+	/**
+	Checks if the values array[offset], ..., array[offset + length - 1]
+	are within an array of the passed arrayLength.
+	If not, then an error is thrown.
+	
+	@param arrayLength - int: The length of the array
+	@param offset - int: The index of the first value
+	@param length - int: The number of values
+	@param additionalInfo: String - Additional information to be displayed
+	@throws ExceptionClass - Throws error if the values aren't within the array
+	*/
+	static void throwErrorIfRangeOutOfBounds(int arrayLength, int offset, int length, String additionalInfo) throws ExceptionClass {
+		if(offset < 0 || length < 0 || offset > arrayLength - length) {
+			throw new ExceptionClass("The values " + (offset) + " to " + (offset + length)
+				+ " aren't within the array of length " + (arrayLength) + "." + additionalInfo);
+		} //if
+	}//throwErrorIfRangeOutOfBounds
 }
@@ -0,0 +1,409 @@
+package macs.hig.imt4072_library;
+
+import java.util.Arrays;
+
+/**
+Class functioning as a single precision (float) matrix, for data
+where float precision is enough (e.g. pixel colour values). The values
+take half the memory (and bandwidth) of a Matrix.
+The layout is the same as in Matrix: the cell [rowNo][columnNo] is
+stored at position offset + (rowNo * rowStride) + (columnNo * columnStride),
+and a transposed view shares the array with its parent.
+All sums and products are accumulated in double, and the statistics
+(mean, co-variance and scatter) are returned as a (double) Matrix.
+Conversions between Matrix and FloatMatrix are always explicit
+(fromMatrix(...) and toMatrix()).
+The class has the ability to:
+- Calculate the mean and create a mean matrix <br />
+- Create a co-variance matrix and a scatter matrix <br />
+- Multiplication of matrices <br />
+- Transpose the matrix (or create a transposed view)
+@Author  Knut Lucas Andersen
+*/
+public class FloatMatrix {
+	//the number of rows in the matrix
+	private int _numRows;
+	//the number of columns in the matrix
+	private int _numColumns;
+	//array containing the matrix values (row-major)
+	private float _matrixArray[];
+	//position of the first cell [0][0] in _matrixArray
+	private int _offset;
+	//distance in _matrixArray between the start of two rows
+	private int _rowStride;
+	//distance in _matrixArray between two cells in the same row
+	private int _columnStride;
+	//number of result rows accumulated (as double) at the time when multiplying;
+	//a few packed A blocks, so B is packed again only once per tile
+	final static int RESULT_TILE_ROWS = 4 * BlockedMatrixMultiplication.MC;
+
+	/**
+	Constructor creating an empty matrix with the size based
+	on the based numRows and numColumns.
+	@param numRows - int: The number of rows in the matrix
+	@param numColumns - int: The number of columns in the matrix
+	*/
+	public FloatMatrix(int numRows, int numColumns) {
+		this(new float[numRows * numColumns], numRows, numColumns, 0, numColumns, 1);
+	} //constructor
+
+	/**
+	Constructor creating a view of the passed array. The view
+	shares the array, so changes in one are seen by the other.
+	@param matrixArray - float[]: The array containing the values
+	@param numRows - int: The number of rows in the view
+	@param numColumns - int: The number of columns in the view
+	@param offset - int: Position of the cell [0][0]
+	@param rowStride - int: Distance between the start of two rows
+	@param columnStride - int: Distance between two cells in the same row
+	*/
+	FloatMatrix(float[] matrixArray, int numRows, int numColumns, int offset, int rowStride, int columnStride) {
+		_numRows = numRows;
+		_numColumns = numColumns;
+		_matrixArray = matrixArray;
+		_offset = offset;
+		_rowStride = rowStride;
+		_columnStride = columnStride;
+	} //constructor
+
+	/**
+	Creates a float matrix containing the values in the passed matrix,
+	rounded to the closest float value.
+	@param matrix - Matrix: The matrix to convert
+	@return FloatMatrix - a row-major float copy of the matrix
+	*/
+	static FloatMatrix fromMatrix(Matrix matrix) {
+		int numRows = matrix.getNumRows(),
+			numColumns = matrix.getNumColumns(),
+			index = 0;
+		double[] array = matrix.getMatrix();
+		FloatMatrix floatMatrix = new FloatMatrix(numRows, numColumns);
+		for(int i = 0; i < numRows; i++) {
+			index = matrix.cellIndex(i, 0);
+			for(int j = 0; j < numColumns; j++) {
+				floatMatrix._matrixArray[(i * numColumns) + j] = (float) array[index];
+				index += matrix.getColumnStride();
+			} //for
+		} //for
+		return floatMatrix;
+	} //fromMatrix
+
+	/**
+	Creates a (double) Matrix containing the values in this matrix
+	@return Matrix - a row-major double copy of the matrix
+	*/
+	Matrix toMatrix() {
+		int index = 0;
+		Matrix matrix = new Matrix(_numRows, _numColumns);
+		double[] array = matrix.getMatrix();
+		for(int i = 0; i < _numRows; i++) {
+			index = cellIndex(i, 0);
+			for(int j = 0; j < _numColumns; j++) {
+				array[(i * _numColumns) + j] = _matrixArray[index];
+				index += _columnStride;
+			} //for
+		} //for
+		return matrix;
+	} //toMatrix
+
+	/***************** CALCULATION FUNCTIONS *******************/
+
+	/**
+	Calculates the mean of the passed columnNo (summed in double).
+	@param columnNo - int: the columnNo to calculate mean
+	@throws ExceptionClass - Throws error if the columnNo value isn't within range
+	@return double: the mean
+	*/
+	double calculateMean(int columnNo) throws ExceptionClass {
+		ExceptionClass.throwErrorIfMatrixIsEmpty(_numRows, _numColumns);
+		ExceptionClass.throwErrorIfMatrixColumnOutOfRange(columnNo, _numColumns, "\nCan't calculate mean.");
+		double sum = 0;
+		int index = cellIndex(0, columnNo);
+		for(int i = 0; i < _numRows; i++) {
+			sum += _matrixArray[index];
+			index += _rowStride;
+		} //for
+		return sum / (double) _numRows;
+	} //calculateMean
+
+	/**
+	Calculates the mean of the matrix and returns a (double) matrix containing
+	n rows and 1 column, where n = getNumColumns(). The column sums are
+	collected in double, in one pass over the rows.
+	@throws ExceptionClass - Throws error if the matrix is empty
+	@return Matrix - A matrix containing the mean(s)
+	*/
+	Matrix createMeanMatrix() throws ExceptionClass {
+		ExceptionClass.throwErrorIfMatrixIsEmpty(_numRows, _numColumns);
+		int index = 0;
+		Matrix meanMatrix = new Matrix(_numColumns, 1);
+		double[] sums = meanMatrix.getMatrix();
+		for(int i = 0; i < _numRows; i++) {
+			index = cellIndex(i, 0);
+			for(int j = 0; j < _numColumns; j++) {
+				sums[j] += _matrixArray[index];
+				index += _columnStride;
+			} //for
+		} //for
+		for(int j = 0; j < _numColumns; j++) {
+			sums[j] = sums[j] / (double) _numRows;
+		} //for
+		return meanMatrix;
+	} //createMeanMatrix
+
+	/**
+	Calculates the mean of each column in the rows rowIndexes[0], ...,
+	rowIndexes[rowCount - 1] (summed in double), and writes it into the
+	passed meanMatrix (n rows and 1 column, where n = getNumColumns()).
+	The mean matrix can be a view, e.g. a row in another matrix seen
+	through getRowView(i).getTransposedView().
+	@param rowIndexes - int[]: The rows to calculate the mean of
+	@param rowCount - int: The number of rows used in rowIndexes
+	@param meanMatrix - Matrix: The matrix to write the mean(s) to
+	@throws ExceptionClass
+	- Throws error if meanMatrix isn't a Nx1 matrix
+	- Throws error if rowCount is less then 1, or a row isn't within range
+	*/
+	void meanOfRowsInto(int[] rowIndexes, int rowCount, Matrix meanMatrix) throws ExceptionClass {
+		String errorMsg = "\nCan't calculate the mean.";
+		ExceptionClass.throwErrorIfDestinationSizeDiffers(meanMatrix, _numColumns, 1, errorMsg);
+		ExceptionClass.throwErrorIfSizeLessThenCount(rowCount, 1, "At least one row is needed." + errorMsg);
+		ExceptionClass.throwErrorIfSizeGreaterThenValue(rowCount, rowIndexes.length, "Only "
+			+ (rowIndexes.length) + " row indexes are passed, but " + (rowCount) + " rows are used." + errorMsg);
+		for(int i = 0; i < rowCount; i++) {
+			ExceptionClass.throwErrorIfMatrixRowOutOfRange(rowIndexes[i], _numRows, errorMsg);
+		} //for
+		int meanIndex = meanMatrix.getOffset(),
+			meanStride = meanMatrix.getRowStride(),
+			index = 0;
+		double[] sums = meanMatrix.getMatrix();
+		//clear the mean matrix, in case it is reused
+		for(int j = 0; j < _numColumns; j++) {
+			sums[meanIndex + (j * meanStride)] = 0;
+		} //for
+		//add each selected row to the column sums
+		for(int i = 0; i < rowCount; i++) {
+			index = cellIndex(rowIndexes[i], 0);
+			for(int j = 0; j < _numColumns; j++) {
+				sums[meanIndex + (j * meanStride)] += _matrixArray[index];
+				index += _columnStride;
+			} //for
+		} //for
+		//divide the sums by the row count to get the means
+		for(int j = 0; j < _numColumns; j++) {
+			sums[meanIndex + (j * meanStride)] = sums[meanIndex + (j * meanStride)] / (double) rowCount;
+		} //for
+	} //meanOfRowsInto
+
+	/**
+	Creates a (double) matrix containing the co-variance of the columns.
+	The rows are converted to double as they are read, and handled by
+	the same function as a Matrix (see Matrix.createCoVarianceFromRows(...)).
+	@throws ExceptionClass - Throws error if the matrix is empty
+	@return Matrix - the NxN co-variance matrix
+	@see Matrix.createCoVarianceMatrix(Matrix parent)
+	*/
+	Matrix createCoVarianceMatrix() throws ExceptionClass {
+		ExceptionClass.throwErrorIfParentMatrixIsEmpty(_numRows, _numColumns, "\nCan't create co-variance matrix.");
+		return Matrix.createCoVarianceFromRows(createRowReader(), _numRows, _numColumns);
+	} //createCoVarianceMatrix
+
+	/**
+	Creates a (double) scatter matrix, which is the co-variance
+	matrix multiplied by (n-1).
+	@throws ExceptionClass - Throws error if the matrix is empty
+	@return Matrix - the NxN scatter matrix
+	*/
+	Matrix createScatterMatrix() throws ExceptionClass {
+		Matrix scatterMatrix = createCoVarianceMatrix();
+		scatterMatrix.scaleInPlace(_numRows - 1);
+		return scatterMatrix;
+	} //createScatterMatrix
+
+	/**
+	Multiplies the two matrices, and returns the result as a new float
+	matrix. The products are accumulated in double (see
+	BlockedMatrixMultiplication), RESULT_TILE_ROWS rows at the time, and
+	each tile is rounded to float when it is finished, so only one tile
+	(per thread) of the result is ever stored as double. If the parallel
+	mode is turned on, the rows of matrix1 are split across the worker threads.
+	@param matrix1 - FloatMatrix: Matrix containing values to multiply with matrix2
+	@param matrix2 - FloatMatrix: Matrix containing values to multiply from matrix1
+	@throws ExceptionClass
+	- Throws error if matrix is empty
+	- Throws error if column count in matrix1 isn't equal to row count in matrix2
+	@return FloatMatrix - matrix containing the result of the multiplication
+	*/
+	static FloatMatrix multiplyMatrices(final FloatMatrix matrix1, final FloatMatrix matrix2) throws ExceptionClass {
+		ExceptionClass.throwErrorIfMatrixIsEmpty(matrix1._numRows, matrix1._numColumns);
+		ExceptionClass.throwErrorIfMatrixIsEmpty(matrix2._numRows, matrix2._numColumns);
+		ExceptionClass.throwErrorIfColumnAndRowCountDiffers(matrix1._numColumns, matrix2._numRows, "\nCan't multiply the matrices.");
+		final int innerCount = matrix1._numColumns,
+			columnCount = matrix2._numColumns;
+		final FloatMatrix multipliedMatrix = new FloatMatrix(matrix1._numRows, columnCount);
+		ParallelExecution.runInRowBlocks(matrix1._numRows, (long) innerCount * columnCount, new ParallelExecution.RowBlockTask() {
+			public void run(int fromRow, int toRow) {
+				int tileRows = 0,
+					start = 0;
+				double[] resultTile = new double[Math.min(RESULT_TILE_ROWS, toRow - fromRow) * columnCount];
+				for(int tileStart = fromRow; tileStart < toRow; tileStart += RESULT_TILE_ROWS) {
+					tileRows = Math.min(RESULT_TILE_ROWS, toRow - tileStart);
+					//the kernel adds to the tile, so clear it first
+					Arrays.fill(resultTile, 0);
+					BlockedMatrixMultiplication.multiply(tileRows, columnCount, innerCount,
+						matrix1._matrixArray, matrix1.cellIndex(tileStart, 0), matrix1._rowStride, matrix1._columnStride,
+						matrix2._matrixArray, matrix2._offset, matrix2._rowStride, matrix2._columnStride,
+						resultTile, 0, columnCount);
+					//round the tile to float
+					start = tileStart * columnCount;
+					for(int i = 0; i < tileRows * columnCount; i++) {
+						multipliedMatrix._matrixArray[start + i] = (float) resultTile[i];
+					} //for
+				} //for
+			} //run
+		});
+		return multipliedMatrix;
+	} //multiplyMatrices
+
+	/****************** ALTERATION FUNCTIONS *************************/
+
+	/**
+	Transposes the matrix, by copying the values into a new row-major
+	array in transposed order.
+	*/
+	void transposeMatrix() {
+		FloatMatrix transposed = getTransposedView().createCopy();
+		_matrixArray = transposed._matrixArray;
+		_numRows = transposed._numRows;
+		_numColumns = transposed._numColumns;
+		_offset = 0;
+		_rowStride = _numColumns;
+		_columnStride = 1;
+	} //transposeMatrix
+
+	/**
+	Returns a transposed view of this matrix, which shares the array
+	(no values are copied).
+	@return FloatMatrix - the transposed view
+	*/
+	FloatMatrix getTransposedView() {
+		return new FloatMatrix(_matrixArray, _numColumns, _numRows, _offset, _columnStride, _rowStride);
+	} //getTransposedView
+
+	/**
+	Creates a new row-major matrix containing a copy of the values in
+	this matrix (or view).
+	@return FloatMatrix - a copy of this matrix
+	*/
+	FloatMatrix createCopy() {
+		int index = 0;
+		FloatMatrix copyMatrix = new FloatMatrix(_numRows, _numColumns);
+		for(int i = 0; i < _numRows; i++) {
+			index = cellIndex(i, 0);
+			for(int j = 0; j < _numColumns; j++) {
+				copyMatrix._matrixArray[(i * _numColumns) + j] = _matrixArray[index];
+				index += _columnStride;
+			} //for
+		} //for
+		return copyMatrix;
+	} //createCopy
+
+	/**
+	Creates a reader returning the rows of this matrix (or view),
+	converted to double
+	@return Matrix.RowReader - reader copying one row at the time
+	*/
+	Matrix.RowReader createRowReader() {
+		final float[] matrixArray = _matrixArray;
+		final int numColumns = _numColumns,
+			columnStride = _columnStride;
+		return new Matrix.RowReader() {
+			public void readRow(int rowNo, double[] row) {
+				int index = cellIndex(rowNo, 0);
+				for(int j = 0; j < numColumns; j++) {
+					row[j] = matrixArray[index];
+					index += columnStride;
+				} //for
+			} //readRow
+		};
+	} //createRowReader
+
+	/**
+	Changes the value of the cell at [rowNo][columnNo]
+	@param rowNo - int: The row of the cell
+	@param columnNo - int: The column of the cell
+	@param value - float: The new value
+	@throws ExceptionClass - Throws error if rowNo/columnNo isn't within range
+	*/
+	void changeCellValueAt(int rowNo, int columnNo, float value) throws ExceptionClass {
+		String errorMsg = "\nCan't change value at position ["
+			+ (rowNo) + "," + (columnNo) + "]";
+		ExceptionClass.throwErrorIfMatrixRowOutOfRange(rowNo, _numRows, errorMsg);
+		ExceptionClass.throwErrorIfMatrixColumnOutOfRange(columnNo, _numColumns, errorMsg);
+		_matrixArray[cellIndex(rowNo, columnNo)] = value;
+	} //changeCellValueAt
+
+	/************************* PRIVATE FUNCTIONS *********************************/
+
+	/**
+	Returns the position of the cell [rowNo][columnNo] in the array
+	(no range check)
+	*/
+	int cellIndex(int rowNo, int columnNo) {
+		return _offset + (rowNo * _rowStride) + (columnNo * _columnStride);
+	} //cellIndex
+
+	/****************** GET FUNCTIONS *************************/
+
+	int getNumRows() {
+		return _numRows;
+	} //getNumRows
+
+	int getNumColumns() {
+		return _numColumns;
+	} //getNumColumns
+
+	/**
+	Returns the array containing the values.
+	Note! Use cellIndex(...) to find the position of a cell.
+	*/
+	float[] getMatrix() {
+		return _matrixArray;
+	} //getMatrix
+
+	/**
+	Returns the position of the cell [0][0] in the array
+	*/
+	int getOffset() {
+		return _offset;
+	} //getOffset
+
+	/**
+	Returns the distance between the start of two rows in the array
+	*/
+	int getRowStride() {
+		return _rowStride;
+	} //getRowStride
+
+	/**
+	Returns the distance between two cells in the same row in the array
+	*/
+	int getColumnStride() {
+		return _columnStride;
+	} //getColumnStride
+
+	/**
+	Returns the value of the cell at [rowNo][columnNo]
+	@param rowNo - int: The row of the cell
+	@param columnNo - int: The column of the cell
+	@throws ExceptionClass - Throws error if rowNo/columnNo isn't within range
+	@return float: the value
+	*/
+	float getCellValueAt(int rowNo, int columnNo) throws ExceptionClass {
+		String errorMsg = "\nCan't retrieve value at position ["
+			+ (rowNo) + "," + (columnNo) + "]";
+		ExceptionClass.throwErrorIfMatrixRowOutOfRange(rowNo, _numRows, errorMsg);
+		ExceptionClass.throwErrorIfMatrixColumnOutOfRange(columnNo, _numColumns, errorMsg);
+		return _matrixArray[cellIndex(rowNo, columnNo)];
+	} //getCellValueAt
+}
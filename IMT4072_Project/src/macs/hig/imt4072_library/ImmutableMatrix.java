@@ -0,0 +1,287 @@
+package macs.hig.imt4072_library;
+
+/**
+Class functioning as an immutable snapshot of a Matrix, which can be
+shared between threads (e.g. the centroids, weights or co-variance
+matrix that many workers project their samples against) without
+locks or defensive copies.
+A Matrix can't be shared safely: it can be changed through
+changeCellValueAt(...), transposeMatrix() (which moves the values around
+in the array) and getMatrix(), and a view can see changes made through
+its parent. The snapshot instead keeps a private copy of the values,
+which is never changed after the constructor, and never handed out.
+Since the copy is held in a final field, the values are seen by any
+thread that gets hold of the snapshot (the final field semantics of
+the Java memory model), also when it isn't published through a
+volatile field or a lock.
+Changes are made by copy-on-write: withCellValueAt(...) and the other
+with-functions return a new snapshot, and leave this one as it was.
+A new version can then be published to the readers (e.g. through a
+volatile field), while the readers still using the old one are unaffected.
+The class has the ability to:
+- Calculate the mean, variance and co-variance <br />
+- Create a mean matrix and co-variance matrix <br />
+- Multiply with a matrix from the right or the left <br />
+- Create a transposed snapshot (without copying) <br />
+- Create new snapshots with changed values (copy-on-write) <br />
+- Create a mutable copy
+@Author  Knut Lucas Andersen
+*/
+public class ImmutableMatrix {
+	//the values; never changed, and never passed out where it can be changed
+	private final Matrix _snapshot;
+
+	/**
+	Constructor creating a snapshot of the passed matrix (or view).
+	The values are copied, so later changes to the matrix aren't
+	seen by the snapshot.
+	@param matrix - Matrix: The matrix to create a snapshot of
+	*/
+	public ImmutableMatrix(Matrix matrix) {
+		_snapshot = matrix.createCopy();
+	} //constructor
+
+	/***************** CALCULATION FUNCTIONS *******************/
+
+	/**
+	Calculates the mean of the passed columnNo
+	@param columnNo - int: the columnNo to calculate mean
+	@throws ExceptionClass - Throws error if the columnNo value isn't within range
+	@return double: the mean
+	*/
+	double calculateMean(int columnNo) throws ExceptionClass {
+		return _snapshot.calculateMean(columnNo);
+	} //calculateMean
+
+	/**
+	Calculates the variance for the passed columnNo
+	@param columnNo - int: The columnNo to calculate variance from
+	@throws ExceptionClass - Throws error if the columnNo value isn't within range
+	@return double: the variance || 0
+	*/
+	double calculateVariance(int columnNo) throws ExceptionClass {
+		return _snapshot.calculateVariance(columnNo);
+	} //calculateVariance
+
+	/**
+	Calculates the co-variance for the two passed columns
+	@param columnX - int: The 1. columnNo to calculate co-variance from
+	@param columnY - int: The 2. columnNo to calculate co-variance from
+	@throws ExceptionClass - Throws error if the columns aren't within range
+	@return double: the coVariance || 0
+	*/
+	double calculateCoVariance(int columnX, int columnY) throws ExceptionClass {
+		return _snapshot.calculateCoVariance(columnX, columnY);
+	} //calculateCoVariance
+
+	/**
+	Creates a (new, mutable) matrix containing n rows and 1 column with the
+	mean of each column, where n = getNumColumns()
+	@throws ExceptionClass - Throws error if the matrix is empty
+	@return Matrix - A matrix containing the mean(s)
+	*/
+	Matrix createMeanMatrix() throws ExceptionClass {
+		return _snapshot.createMeanMatrix();
+	} //createMeanMatrix
+
+	/**
+	Calculates the mean of each column, and writes it into the passed meanMatrix (Nx1)
+	@param meanMatrix - Matrix: The matrix to write the mean(s) to
+	@throws ExceptionClass
+	- Throws error if the matrix is empty
+	- Throws error if meanMatrix isn't a Nx1 matrix
+	*/
+	void meanInto(Matrix meanMatrix) throws ExceptionClass {
+		_snapshot.meanInto(meanMatrix);
+	} //meanInto
+
+	/**
+	Creates a (new, mutable) matrix containing the co-variance of the columns
+	@throws ExceptionClass - Throws error if the matrix is empty
+	@return Matrix - the NxN co-variance matrix
+	*/
+	Matrix createCoVarianceMatrix() throws ExceptionClass {
+		return new Matrix().createCoVarianceMatrix(_snapshot);
+	} //createCoVarianceMatrix
+
+	/**
+	Multiplies this snapshot with the passed matrix (this * right), and
+	returns the result in a new (mutable) matrix.
+	@param right - Matrix: Matrix to multiply with
+	@throws ExceptionClass - Throws error if the column count in this isn't equal to the row count in right
+	@return Matrix - matrix containing the result of the multiplication
+	*/
+	Matrix multiply(Matrix right) throws ExceptionClass {
+		return new Matrix().multiplyMatrices(_snapshot, right);
+	} //multiply
+
+	/**
+	Multiplies the passed matrix with this snapshot (left * this), e.g.
+	projecting the samples (one per row) in left onto the axes in this
+	snapshot, and returns the result in a new (mutable) matrix.
+	@param left - Matrix: Matrix to multiply with
+	@throws ExceptionClass - Throws error if the column count in left isn't equal to the row count in this
+	@return Matrix - matrix containing the result of the multiplication
+	*/
+	Matrix multiplyFromLeft(Matrix left) throws ExceptionClass {
+		return new Matrix().multiplyMatrices(left, _snapshot);
+	} //multiplyFromLeft
+
+	/**
+	Multiplies the passed matrix with this snapshot (left * this), and writes
+	the result into the passed destination, so a worker can reuse its own
+	destination matrix.
+	@param left - Matrix: Matrix to multiply with
+	@param destination - Matrix: Matrix to write the result to
+	@throws ExceptionClass
+	- Throws error if the column count in left isn't equal to the row count in this
+	- Throws error if destination isn't of the size of the result, or isn't row-major
+	*/
+	void multiplyFromLeftInto(Matrix left, Matrix destination) throws ExceptionClass {
+		Matrix.multiplyInto(left, _snapshot, destination);
+	} //multiplyFromLeftInto
+
+	/**
+	Copies the values into the passed destination matrix
+	@param destination - Matrix: The matrix to copy to (same size as this)
+	@throws ExceptionClass - Throws error if the destination isn't of the same size
+	*/
+	void copyInto(Matrix destination) throws ExceptionClass {
+		_snapshot.copyInto(destination);
+	} //copyInto
+
+	/**
+	Creates a new (mutable, row-major) matrix containing a copy of the values
+	@return Matrix - a copy of the snapshot
+	*/
+	Matrix createMutableCopy() {
+		return _snapshot.createCopy();
+	} //createMutableCopy
+
+	/***************** COPY-ON-WRITE FUNCTIONS *******************/
+
+	/**
+	Creates a transposed snapshot. Since neither snapshot can be changed,
+	they share the values, and nothing is copied.
+	@return ImmutableMatrix - the transposed snapshot
+	*/
+	ImmutableMatrix getTransposed() {
+		return wrapOwned(_snapshot.getTransposedView());
+	} //getTransposed
+
+	/**
+	Creates a new snapshot where the cell [rowNo][columnNo] is changed to the
+	passed value. This snapshot isn't changed.
+	@param rowNo - int: The rowNo position to change value at
+	@param columnNo - int: The columnNo position to change value at
+	@param value - double: The new value
+	@throws ExceptionClass - Throws error if rowNo/columnNo isn't within range
+	@return ImmutableMatrix - the changed snapshot
+	*/
+	ImmutableMatrix withCellValueAt(int rowNo, int columnNo, double value) throws ExceptionClass {
+		Matrix copy = _snapshot.createCopy();
+		copy.changeCellValueAt(rowNo, columnNo, value);
+		return wrapOwned(copy);
+	} //withCellValueAt
+
+	/**
+	Creates a new snapshot where the row rowNo is replaced with the values
+	in the passed 1xN row matrix (e.g. a new centroid). This snapshot isn't changed.
+	@param rowNo - int: The row to replace
+	@param row - Matrix: 1xN matrix containing the new values
+	@throws ExceptionClass
+	- Throws error if rowNo isn't within range
+	- Throws error if the row isn't a 1xN matrix
+	@return ImmutableMatrix - the changed snapshot
+	*/
+	ImmutableMatrix withRow(int rowNo, Matrix row) throws ExceptionClass {
+		String errorMsg = "\nCan't replace the row.";
+		ExceptionClass.throwErrorIfMatrixRowOutOfRange(rowNo, getNumRows(), errorMsg);
+		if(row.getNumRows() != 1 || row.getNumColumns() != getNumColumns()) {
+			throw new ExceptionClass("The row is a " + (row.getNumRows()) + "x" + (row.getNumColumns())
+				+ " matrix, but a 1x" + (getNumColumns()) + " matrix is needed." + errorMsg);
+		} //if
+		Matrix copy = _snapshot.createCopy();
+		row.copyRow(0, copy, rowNo);
+		return wrapOwned(copy);
+	} //withRow
+
+	/**
+	Creates a new snapshot containing this + alpha * matrix (e.g. a
+	weight update). This snapshot isn't changed.
+	@param alpha - double: Value to multiply the cells in matrix with
+	@param matrix - Matrix: Matrix containing the values to add
+	@throws ExceptionClass - Throws error if the matrices aren't of equal size/order
+	@return ImmutableMatrix - the changed snapshot
+	*/
+	ImmutableMatrix withAxpy(double alpha, Matrix matrix) throws ExceptionClass {
+		Matrix copy = _snapshot.createCopy();
+		copy.axpy(alpha, matrix);
+		return wrapOwned(copy);
+	} //withAxpy
+
+	/**
+	Creates a new snapshot where all the values are multiplied with the
+	passed value. This snapshot isn't changed.
+	@param scale - double: Value to multiply the cells with
+	@throws ExceptionClass - Throws error if the matrix is empty
+	@return ImmutableMatrix - the changed snapshot
+	*/
+	ImmutableMatrix withScale(double scale) throws ExceptionClass {
+		Matrix copy = _snapshot.createCopy();
+		copy.scaleInPlace(scale);
+		return wrapOwned(copy);
+	} //withScale
+
+	/************************* PRIVATE FUNCTIONS *********************************/
+
+	/**
+	Constructor used internally by wrapOwned(...), viewing the passed
+	array (with the passed layout) as the values of the snapshot
+	@param matrixArray - double[]: The array containing the values
+	@param numRows - int: The number of rows
+	@param numColumns - int: The number of columns
+	@param offset - int: Position of the cell [0][0]
+	@param rowStride - int: Distance between the start of two rows
+	@param columnStride - int: Distance between two cells in the same row
+	*/
+	private ImmutableMatrix(double[] matrixArray, int numRows, int numColumns, int offset, int rowStride, int columnStride) {
+		_snapshot = new Matrix(matrixArray, numRows, numColumns, offset, rowStride, columnStride);
+	} //constructor
+
+	/**
+	Creates a snapshot of the passed matrix without copying it, where the
+	matrix is owned by the snapshot (it isn't referenced anywhere it can be
+	changed, e.g. a new copy or a view of another snapshot)
+	@param snapshot - Matrix: The values of the snapshot
+	@return ImmutableMatrix - the snapshot
+	*/
+	private static ImmutableMatrix wrapOwned(Matrix snapshot) {
+		return new ImmutableMatrix(snapshot.getMatrix(), snapshot.getNumRows(), snapshot.getNumColumns(),
+			snapshot.getOffset(), snapshot.getRowStride(), snapshot.getColumnStride());
+	} //wrapOwned
+
+	/**********************GET & SET METHODS *****************************/
+
+	/**
+	Returns the number of rows
+	*/
+	int getNumRows() {
+		return _snapshot.getNumRows();
+	} //getNumRows
+
+	/**
+	Returns the number of columns
+	*/
+	int getNumColumns() {
+		return _snapshot.getNumColumns();
+	} //getNumColumns
+
+	/**
+	Returns the value of the cell at [rowNo][columnNo]
+	@throws ExceptionClass - Throws error if rowNo/columnNo isn't within range
+	*/
+	double getCellValueAt(int rowNo, int columnNo) throws ExceptionClass {
+		return _snapshot.getCellValueAt(rowNo, columnNo);
+	} //getCellValueAt
+}
@@ -0,0 +1,248 @@
+package macs.hig.imt4072_library;
+
+/**
+Class containing the LU decomposition (with partial pivoting) of a NxN matrix,
+so that P * A = L * U, where P is a row permutation, L is lower triangular
+with ones on the diagonal and U is upper triangular.
+The decomposition is calculated once (about n3/3 multiply-adds) when the object
+is created, and can then be reused to solve any number of systems A * x = b
+(about n2 multiply-adds each), without ever creating the inverse of A.
+Can be used for: <br />
+- Solving A * x = b for one right-hand side (solve) <br />
+- Solving A * X = B for several right-hand sides (solveMany) <br />
+- Calculating the determinant of A
+@Author  Knut Lucas Andersen
+*/
+public class LUDecomposition implements LinearSolver {
+	//the size of the (NxN) matrix
+	private int _size;
+	//L (below the diagonal) and U (on and above the diagonal), row-major
+	private double[] _luArray;
+	//_pivotRows[i] is the row in A that became row i after pivoting
+	private int[] _pivotRows;
+	//+1 if the number of row swaps is even, -1 if it is odd
+	private int _pivotSign;
+	//true if a pivot was zero (the matrix is singular)
+	private boolean _isSingular;
+
+	/**
+	Constructor calculating the LU decomposition of the passed matrix.
+	The passed matrix is not changed.
+	@param matrix - Matrix: The NxN matrix to decompose
+	@throws ExceptionClass
+	- Throws error if the matrix is empty
+	- Throws error if the matrix isn't square
+	*/
+	public LUDecomposition(Matrix matrix) throws ExceptionClass {
+		this(matrix, 0);
+	} //constructor
+
+	/**
+	Constructor calculating the LU decomposition of (matrix + regularization * I).
+	Adding a small value to the diagonal makes a nearly singular matrix
+	(e.g. a scatter matrix with too few samples) solvable.
+	The passed matrix is not changed.
+	@param matrix - Matrix: The NxN matrix to decompose
+	@param regularization - double: The value to add to the diagonal
+	@throws ExceptionClass
+	- Throws error if the matrix is empty
+	- Throws error if the matrix isn't square
+	*/
+	public LUDecomposition(Matrix matrix, double regularization) throws ExceptionClass {
+		String errorMsg = "\nCan't calculate the LU decomposition.";
+		ExceptionClass.throwErrorIfMatrixIsEmpty(matrix.getNumRows(), matrix.getNumColumns());
+		ExceptionClass.throwErrorIfMatrixNotSquare(matrix.getNumRows(), matrix.getNumColumns(), errorMsg);
+		_size = matrix.getNumRows();
+		_luArray = matrix.createCopy().getMatrix();
+		for(int i = 0; i < _size; i++) {
+			_luArray[(i * _size) + i] += regularization;
+		} //for
+		_pivotRows = new int[_size];
+		_pivotSign = 1;
+		_isSingular = false;
+		for(int i = 0; i < _size; i++) {
+			_pivotRows[i] = i;
+		} //for
+		decompose();
+	} //constructor
+
+	/**
+	Calculates the decomposition in place in _luArray (right-looking,
+	row by row). For each column k, the row with the largest absolute
+	value in column k is swapped up to row k, and the rows below are
+	reduced by the multipliers L[i][k] = A[i][k] / A[k][k].
+	*/
+	void decompose() {
+		int n = _size,
+			pivotRow = 0,
+			rowStartK = 0,
+			rowStartI = 0,
+			tempIndex = 0;
+		double pivotValue = 0,
+			multiplier = 0,
+			tempValue = 0;
+		double[] lu = _luArray;
+		for(int k = 0; k < n; k++) {
+			//find the pivot (largest absolute value) in column k
+			pivotRow = k;
+			pivotValue = Math.abs(lu[(k * n) + k]);
+			for(int i = k + 1; i < n; i++) {
+				if(Math.abs(lu[(i * n) + k]) > pivotValue) {
+					pivotValue = Math.abs(lu[(i * n) + k]);
+					pivotRow = i;
+				} //if
+			} //for
+			//swap the rows
+			if(pivotRow != k) {
+				for(int j = 0; j < n; j++) {
+					tempValue = lu[(k * n) + j];
+					lu[(k * n) + j] = lu[(pivotRow * n) + j];
+					lu[(pivotRow * n) + j] = tempValue;
+				} //for
+				tempIndex = _pivotRows[k];
+				_pivotRows[k] = _pivotRows[pivotRow];
+				_pivotRows[pivotRow] = tempIndex;
+				_pivotSign = -_pivotSign;
+			} //if
+			rowStartK = k * n;
+			pivotValue = lu[rowStartK + k];
+			if(pivotValue == 0) {
+				//the column is zero below the diagonal, nothing to reduce
+				_isSingular = true;
+				continue;
+			} //if
+			//reduce the rows below the pivot
+			for(int i = k + 1; i < n; i++) {
+				rowStartI = i * n;
+				multiplier = lu[rowStartI + k] / pivotValue;
+				lu[rowStartI + k] = multiplier;
+				if(multiplier != 0) {
+					for(int j = k + 1; j < n; j++) {
+						lu[rowStartI + j] -= multiplier * lu[rowStartK + j];
+					} //for
+				} //if
+			} //for
+		} //for
+	} //decompose
+
+	/**
+	Solves A * x = b, where b is a column vector (Nx1 matrix).
+	@param b - Matrix: The right-hand side (Nx1)
+	@throws ExceptionClass
+	- Throws error if b isn't a Nx1 matrix
+	- Throws error if A is singular
+	@return Matrix - x (Nx1)
+	*/
+	public Matrix solve(Matrix b) throws ExceptionClass {
+		String errorMsg = "The right-hand side must be a column vector (Nx1).\nCan't solve the system.";
+		ExceptionClass.throwErrorIfSizeGreaterThenValue(b.getNumColumns(), 1, errorMsg);
+		return solveMany(b);
+	} //solve
+
+	/**
+	Solves A * X = B for all the columns in B at the same time.
+	The rows of B are permuted, and then forward substitution with L and
+	backward substitution with U is done row by row.
+	@param b - Matrix: The right-hand sides (NxM)
+	@throws ExceptionClass
+	- Throws error if the row count in B isn't equal to N
+	- Throws error if A is singular
+	@return Matrix - X (NxM)
+	*/
+	public Matrix solveMany(Matrix b) throws ExceptionClass {
+		String errorMsg = "\nCan't solve the system.";
+		ExceptionClass.throwErrorIfMatrixIsEmpty(b.getNumRows(), b.getNumColumns());
+		ExceptionClass.throwErrorIfColumnAndRowCountDiffers(_size, b.getNumRows(), errorMsg);
+		throwErrorIfSingular();
+		int n = _size,
+			m = b.getNumColumns(),
+			rowStartK = 0,
+			rowStartI = 0,
+			index = 0;
+		double factor = 0;
+		double[] lu = _luArray,
+			bArray = b.getMatrix();
+		Matrix solution = new Matrix(n, m);
+		double[] x = solution.getMatrix();
+		//copy B into X in the permuted row order
+		for(int i = 0; i < n; i++) {
+			index = b.cellIndex(_pivotRows[i], 0);
+			for(int j = 0; j < m; j++) {
+				x[(i * m) + j] = bArray[index];
+				index += b.getColumnStride();
+			} //for
+		} //for
+		//forward substitution: L * Y = P * B
+		for(int k = 0; k < n; k++) {
+			rowStartK = k * m;
+			for(int i = k + 1; i < n; i++) {
+				factor = lu[(i * n) + k];
+				if(factor != 0) {
+					rowStartI = i * m;
+					for(int j = 0; j < m; j++) {
+						x[rowStartI + j] -= factor * x[rowStartK + j];
+					} //for
+				} //if
+			} //for
+		} //for
+		//backward substitution: U * X = Y
+		for(int k = n - 1; k >= 0; k--) {
+			rowStartK = k * m;
+			factor = lu[(k * n) + k];
+			for(int j = 0; j < m; j++) {
+				x[rowStartK + j] /= factor;
+			} //for
+			for(int i = 0; i < k; i++) {
+				factor = lu[(i * n) + k];
+				if(factor != 0) {
+					rowStartI = i * m;
+					for(int j = 0; j < m; j++) {
+						x[rowStartI + j] -= factor * x[rowStartK + j];
+					} //for
+				} //if
+			} //for
+		} //for
+		return solution;
+	} //solveMany
+
+	/**
+	Calculates the determinant of A, which is the product of the
+	diagonal in U (with the sign of the row permutation).
+	@return double: the determinant (0 if A is singular)
+	*/
+	public double getDeterminant() {
+		double determinant = _pivotSign;
+		for(int i = 0; i < _size; i++) {
+			determinant *= _luArray[(i * _size) + i];
+		} //for
+		return determinant;
+	} //getDeterminant
+
+	/************************* PRIVATE FUNCTIONS *********************************/
+
+	/**
+	Throws an error if the decomposed matrix is singular
+	@throws ExceptionClass - Throws error if a pivot was zero
+	*/
+	void throwErrorIfSingular() throws ExceptionClass {
+		if(_isSingular) {
+			throw new ExceptionClass("The matrix is singular (a pivot is zero).\nCan't solve the system.");
+		} //if
+	} //throwErrorIfSingular
+
+	/**********************GET & SET METHODS *****************************/
+
+	/**
+	Returns true if the decomposed matrix is singular
+	*/
+	boolean isSingular() {
+		return _isSingular;
+	} //isSingular
+
+	/**
+	Returns the size (N) of the decomposed NxN matrix
+	*/
+	int getSize() {
+		return _size;
+	} //getSize
+}
@@ -0,0 +1,302 @@
+package macs.hig.imt4072_library;
+
+/**
+Class for multi-class (Fisher) Linear Discriminant Analysis.
+The labelled samples are read once, and for each class the count, mean
+and co-moments are accumulated (see MatrixStatisticsAccumulator). The
+rows are split into blocks (see ParallelExecution), where each block
+accumulates its own partial statistics per class, which are then merged.
+From the per-class statistics:
+- Sw = sum of the scatter matrices of each class <br />
+- Sb = sum of n_c * (mean_c - mean) * (mean_c - mean)T <br />
+The projection axes are the solutions of the generalized eigenproblem
+Sb * v = l * Sw * v with the largest eigenvalues l. Since Sb is the sum of
+C rank-1 matrices around the common mean, its rank is at most C-1, and
+there are at most C-1 useful axes.
+The eigenproblem is made symmetric with the Cholesky decomposition
+Sw = L * LT: the eigenvectors y of inverse(L) * Sb * inverse(LT) give the
+axes v = inverse(LT) * y, which are scaled so vT * Sw * v = 1.
+For two classes the (only) axis is parallel to inverse(Sw) * (mean1 - mean2),
+which is the optimal line from Matrix.getOptimalLineMatrix(...).
+@Author  Knut Lucas Andersen
+*/
+public class LinearDiscriminantAnalysis {
+	//number of rows copied into each class buffer before they are accumulated
+	final static int BUFFER_ROWS = 256;
+	//the number of classes (labels 0, ..., C-1)
+	private int _numClasses;
+	//the number of features (columns) in each sample
+	private int _numElements;
+	//count, mean and co-moments of each class
+	private MatrixStatisticsAccumulator[] _classAccumulators;
+	//the eigenvalues of the axes in the last projection matrix
+	private double[] _axisEigenvalues;
+
+	/**
+	Constructor creating an empty analysis for the given number of classes and features
+	@param numClasses - int: The number of classes (at least 2)
+	@param numElements - int: The number of features in each sample
+	@throws ExceptionClass
+	- Throws error if there are less then two classes
+	- Throws error if numElements is less then 1
+	*/
+	public LinearDiscriminantAnalysis(int numClasses, int numElements) throws ExceptionClass {
+		String errorMsg = "\nCan't create the discriminant analysis.";
+		ExceptionClass.throwErrorIfSizeLessThenCount(numClasses, 2, "At least two classes are needed, but "
+			+ (numClasses) + " was given." + errorMsg);
+		ExceptionClass.throwErrorIfSizeLessThenCount(numElements, 1, "At least one feature is needed, but "
+			+ (numElements) + " was given." + errorMsg);
+		_numClasses = numClasses;
+		_numElements = numElements;
+		_classAccumulators = new MatrixStatisticsAccumulator[numClasses];
+		for(int c = 0; c < numClasses; c++) {
+			_classAccumulators[c] = new MatrixStatisticsAccumulator(numElements);
+		} //for
+		_axisEigenvalues = new double[0];
+	} //constructor
+
+	/***************** UPDATE FUNCTIONS *******************/
+
+	/**
+	Adds the labelled samples (one per row) to the per-class statistics.
+	The data is read once: each row is copied into a buffer for its class,
+	and a full buffer is accumulated in one go. The rows are split into
+	blocks of MatrixStatisticsAccumulator.ROWS_PER_BLOCK rows, and each block
+	is accumulated on its own (on separate threads if the parallel mode is
+	turned on). The blocks are merged in block order, so the result is the
+	same for any number of threads.
+	Can be called several times (e.g. once per file).
+	@param data - Matrix: The samples (one per row, numElements columns)
+	@param labels - int[]: The class (0, ..., C-1) of each row
+	@throws ExceptionClass
+	- Throws error if the column count isn't equal to numElements
+	- Throws error if the label count isn't equal to the row count
+	- Throws error if a label isn't within range
+	*/
+	void addRows(final Matrix data, final int[] labels) throws ExceptionClass {
+		String errorMsg = "\nCan't add the rows.";
+		ExceptionClass.throwErrorIfMatrixIsEmpty(data.getNumRows(), data.getNumColumns());
+		if(data.getNumColumns() != _numElements) {
+			throw new ExceptionClass("The samples have " + (data.getNumColumns()) + " features, but "
+				+ (_numElements) + " was expected." + errorMsg);
+		} //if
+		if(labels.length != data.getNumRows()) {
+			throw new ExceptionClass("There are " + (labels.length) + " labels, but "
+				+ (data.getNumRows()) + " rows." + errorMsg);
+		} //if
+		for(int i = 0; i < labels.length; i++) {
+			if(labels[i] < 0 || labels[i] >= _numClasses) {
+				throw new ExceptionClass("The label " + (labels[i]) + " of row " + (i) + " isn't one of the "
+					+ (_numClasses) + " classes." + errorMsg);
+			} //if
+		} //for
+		final int numRows = data.getNumRows(),
+			rowsPerBlock = MatrixStatisticsAccumulator.ROWS_PER_BLOCK;
+		MatrixStatisticsAccumulator.mergeBlocksInOrder((numRows + rowsPerBlock - 1) / rowsPerBlock,
+				(long) rowsPerBlock * _numElements * _numElements, new MatrixStatisticsAccumulator.BlockTask() {
+			public MatrixStatisticsAccumulator[] accumulateBlock(int block) throws ExceptionClass {
+				int fromRow = block * rowsPerBlock;
+				return accumulateRows(data, labels, fromRow, Math.min(numRows, fromRow + rowsPerBlock));
+			} //accumulateBlock
+		}, _classAccumulators);
+	} //addRows
+
+	/**
+	Removes all the samples from the analysis
+	*/
+	void reset() {
+		for(int c = 0; c < _numClasses; c++) {
+			_classAccumulators[c].reset();
+		} //for
+		_axisEigenvalues = new double[0];
+	} //reset
+
+	/***************** CALCULATION FUNCTIONS *******************/
+
+	/**
+	Creates the within class scatter matrix Sw (the sum of the scatter matrix of each class)
+	@throws ExceptionClass - Throws error if no samples have been added
+	@return SymmetricMatrix - the NxN within class scatter matrix
+	*/
+	SymmetricMatrix createWithinClassScatterMatrix() throws ExceptionClass {
+		throwErrorIfEmpty("\nCan't create the within class scatter matrix.");
+		SymmetricMatrix sW = new SymmetricMatrix(_numElements);
+		for(int c = 0; c < _numClasses; c++) {
+			if(_classAccumulators[c].getCount() > 0) {
+				sW.addInPlace(_classAccumulators[c].createSymmetricScatterMatrix());
+			} //if
+		} //for
+		return sW;
+	} //createWithinClassScatterMatrix
+
+	/**
+	Creates the between class scatter matrix Sb, the sum of the rank-1 updates
+	n_c * (mean_c - mean) * (mean_c - mean)T for each (non-empty) class
+	@throws ExceptionClass - Throws error if no samples have been added
+	@return SymmetricMatrix - the NxN between class scatter matrix
+	*/
+	SymmetricMatrix createBetweenClassScatterMatrix() throws ExceptionClass {
+		throwErrorIfEmpty("\nCan't create the between class scatter matrix.");
+		SymmetricMatrix sB = new SymmetricMatrix(_numElements);
+		Matrix meanMatrix = createMeanMatrix(),
+			differenceMatrix;
+		for(int c = 0; c < _numClasses; c++) {
+			if(_classAccumulators[c].getCount() > 0) {
+				//mean_c - mean
+				differenceMatrix = _classAccumulators[c].createMeanMatrix();
+				differenceMatrix.axpy(-1, meanMatrix);
+				sB.rankOneUpdate(_classAccumulators[c].getCount(), differenceMatrix);
+			} //if
+		} //for
+		return sB;
+	} //createBetweenClassScatterMatrix
+
+	/**
+	Creates the mean of all the samples (the count-weighted mean of the class means)
+	@throws ExceptionClass - Throws error if no samples have been added
+	@return Matrix - Nx1 matrix containing the mean
+	*/
+	Matrix createMeanMatrix() throws ExceptionClass {
+		throwErrorIfEmpty("\nCan't create mean matrix.");
+		MatrixStatisticsAccumulator total = new MatrixStatisticsAccumulator(_numElements);
+		for(int c = 0; c < _numClasses; c++) {
+			total.merge(_classAccumulators[c]);
+		} //for
+		return total.createMeanMatrix();
+	} //createMeanMatrix
+
+	/**
+	Creates the projection matrix W (N x numAxes), where each column is a
+	discriminant axis, sorted by how well it separates the classes.
+	The samples are projected with Matrix.matrixMultiplication(data, W).
+	The eigenvalue of each axis (the ratio between the between and within
+	class scatter along it) can be retrieved with getAxisEigenvalue(...).
+	@param numAxes - int: The number of axes (1, ..., min(C-1, N))
+	@param regularization - double: Value added to the diagonal of Sw (0 for none)
+	@throws ExceptionClass
+	- Throws error if no samples have been added
+	- Throws error if numAxes isn't within range
+	- Throws error if Sw (+ regularization) isn't positive-definite
+	- Throws error if the eigen decomposition doesn't converge
+	@return Matrix - the projection matrix
+	*/
+	Matrix createProjectionMatrix(int numAxes, double regularization) throws ExceptionClass {
+		String errorMsg = "\nCan't create the projection matrix.";
+		int maxAxes = Math.min(_numClasses - 1, _numElements);
+		ExceptionClass.throwErrorIfSizeLessThenCount(numAxes, 1, "The number of axes must be between 1 and "
+			+ (maxAxes) + ", but was " + (numAxes) + "." + errorMsg);
+		ExceptionClass.throwErrorIfSizeGreaterThenValue(numAxes, maxAxes, "The number of axes must be between 1 and "
+			+ (maxAxes) + ", but was " + (numAxes) + "." + errorMsg);
+		CholeskyDecomposition swDecomposition = new CholeskyDecomposition(createWithinClassScatterMatrix().toMatrix(), regularization);
+		if(!swDecomposition.isPositiveDefinite()) {
+			throw new ExceptionClass("The within class scatter matrix isn't positive-definite "
+				+ "(try adding a small regularization)." + errorMsg);
+		} //if
+		//M = inverse(L) * Sb * inverse(LT), where (inverse(L) * Sb)T = Sb * inverse(LT)
+		Matrix halfSolved = swDecomposition.solveLower(createBetweenClassScatterMatrix().toMatrix());
+		Matrix symmetricProblem = swDecomposition.solveLower(halfSolved.getTransposedView());
+		SymmetricEigenDecomposition eigenDecomposition = new SymmetricEigenDecomposition(symmetricProblem);
+		//v = inverse(LT) * y, where yT * y = 1 gives vT * Sw * v = 1
+		Matrix projectionMatrix = swDecomposition.solveUpper(eigenDecomposition.createEigenvectorMatrix(numAxes));
+		_axisEigenvalues = new double[numAxes];
+		for(int k = 0; k < numAxes; k++) {
+			_axisEigenvalues[k] = eigenDecomposition.getEigenvalue(k);
+		} //for
+		return projectionMatrix;
+	} //createProjectionMatrix
+
+	/************************* PRIVATE FUNCTIONS *********************************/
+
+	/**
+	Accumulates the rows fromRow, ..., (toRow - 1) into new per-class
+	accumulators. Each row is copied into the buffer of its class, and
+	the buffer is added (in one go) when it is full.
+	@return MatrixStatisticsAccumulator[] - the statistics of each class
+	*/
+	MatrixStatisticsAccumulator[] accumulateRows(Matrix data, int[] labels, int fromRow, int toRow) throws ExceptionClass {
+		MatrixStatisticsAccumulator[] partials = new MatrixStatisticsAccumulator[_numClasses];
+		Matrix[] buffers = new Matrix[_numClasses];
+		int[] bufferCounts = new int[_numClasses];
+		int bufferRows = Math.min(BUFFER_ROWS, toRow - fromRow),
+			label = 0;
+		for(int c = 0; c < _numClasses; c++) {
+			partials[c] = new MatrixStatisticsAccumulator(_numElements);
+		} //for
+		for(int i = fromRow; i < toRow; i++) {
+			label = labels[i];
+			if(buffers[label] == null) {
+				buffers[label] = new Matrix(bufferRows, _numElements);
+			} //if
+			data.copyRow(i, buffers[label], bufferCounts[label]);
+			bufferCounts[label]++;
+			if(bufferCounts[label] == bufferRows) {
+				partials[label].addRows(buffers[label]);
+				bufferCounts[label] = 0;
+			} //if
+		} //for
+		for(int c = 0; c < _numClasses; c++) {
+			if(bufferCounts[c] > 0) {
+				partials[c].addRows(buffers[c], 0, bufferCounts[c]);
+			} //if
+		} //for
+		return partials;
+	} //accumulateRows
+
+	/**
+	Throws an error if no samples have been added
+	*/
+	void throwErrorIfEmpty(String additionalInfo) throws ExceptionClass {
+		long count = 0;
+		for(int c = 0; c < _numClasses; c++) {
+			count += _classAccumulators[c].getCount();
+		} //for
+		if(count == 0) {
+			throw new ExceptionClass("No samples have been added." + additionalInfo);
+		} //if
+	} //throwErrorIfEmpty
+
+	/**********************GET & SET METHODS *****************************/
+
+	/**
+	Returns the number of classes
+	*/
+	int getNumClasses() {
+		return _numClasses;
+	} //getNumClasses
+
+	/**
+	Returns the number of features in each sample
+	*/
+	int getNumElements() {
+		return _numElements;
+	} //getNumElements
+
+	/**
+	Returns the number of samples added to the class classNo
+	@throws ExceptionClass - Throws error if classNo isn't within range
+	*/
+	long getClassCount(int classNo) throws ExceptionClass {
+		ExceptionClass.throwErrorIfMatrixRowOutOfRange(classNo, _numClasses, "\nCan't retrieve the class count.");
+		return _classAccumulators[classNo].getCount();
+	} //getClassCount
+
+	/**
+	Returns a Nx1 matrix containing the mean of the class classNo
+	@throws ExceptionClass
+	- Throws error if classNo isn't within range
+	- Throws error if no samples have been added to the class
+	*/
+	Matrix createClassMeanMatrix(int classNo) throws ExceptionClass {
+		ExceptionClass.throwErrorIfMatrixRowOutOfRange(classNo, _numClasses, "\nCan't create mean matrix.");
+		return _classAccumulators[classNo].createMeanMatrix();
+	} //createClassMeanMatrix
+
+	/**
+	Returns the eigenvalue of the axis axisNo in the last projection matrix
+	@throws ExceptionClass - Throws error if axisNo isn't within range
+	*/
+	double getAxisEigenvalue(int axisNo) throws ExceptionClass {
+		ExceptionClass.throwErrorIfMatrixRowOutOfRange(axisNo, _axisEigenvalues.length, "\nCan't retrieve the eigenvalue.");
+		return _axisEigenvalues[axisNo];
+	} //getAxisEigenvalue
+}
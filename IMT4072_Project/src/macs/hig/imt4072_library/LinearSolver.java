@@ -0,0 +1,32 @@
+package macs.hig.imt4072_library;
+
+/**
+Interface for a factorized NxN matrix A, that can be reused to
+solve the system A * X = B for any number of right-hand sides.
+Implemented by LUDecomposition (any non-singular matrix) and
+CholeskyDecomposition (symmetric positive-definite matrices).
+@Author  Knut Lucas Andersen
+@see Matrix.createLinearSolver(double regularization)
+*/
+public interface LinearSolver {
+	/**
+	Solves A * x = b, where b is a column vector (Nx1 matrix).
+	@param b - Matrix: The right-hand side (Nx1)
+	@throws ExceptionClass - Throws error if b isn't Nx1 or the system can't be solved
+	@return Matrix - x (Nx1)
+	*/
+	Matrix solve(Matrix b) throws ExceptionClass;
+
+	/**
+	Solves A * X = B for all the columns in B at the same time.
+	@param b - Matrix: The right-hand sides (NxM)
+	@throws ExceptionClass - Throws error if B isn't NxM or the system can't be solved
+	@return Matrix - X (NxM)
+	*/
+	Matrix solveMany(Matrix b) throws ExceptionClass;
+
+	/**
+	Returns the determinant of A
+	*/
+	double getDeterminant();
+}
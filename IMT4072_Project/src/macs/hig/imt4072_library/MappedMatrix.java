@@ -0,0 +1,511 @@
+package macs.hig.imt4072_library;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+Class functioning as a row-major matrix stored outside the Java heap,
+either in direct buffers (allocateDirect) or in a memory-mapped file
+(mapFile/createFile). Only the rows being worked on are copied to the
+heap, so the size of the matrix is limited by the disk (or address
+space) instead of the heap. A file mapped as read-only can be shared
+by several processes without copying it.
+The values are stored as little-endian doubles. Since a buffer can
+hold at most 2GB, the rows are split into segments of whole rows.
+The calculations read the matrix in blocks of BLOCK_ROWS rows, which
+are copied into a small (heap) Matrix and handled by the same
+functions as a normal Matrix: <br />
+- Mean and co-variance are collected with MatrixStatisticsAccumulator <br />
+- Multiplication uses the (sequential) kernel of Matrix.multiplyInto for each block <br />
+If the parallel mode is turned on, the blocks are split across the
+worker threads (see ParallelExecution), and each thread handles its
+blocks sequentially.
+@Author  Knut Lucas Andersen
+*/
+public class MappedMatrix {
+	//size (in bytes) of a double
+	final static int DOUBLE_SIZE = 8;
+	//largest number of bytes in one segment (buffer)
+	final static int MAX_SEGMENT_BYTES = 1 << 30;
+	//number of rows copied to the heap at the time
+	final static int BLOCK_ROWS = 4096;
+	//the number of rows in the matrix
+	private int _numRows;
+	//the number of columns in the matrix
+	private int _numColumns;
+	//the number of rows in each segment (the last may have fewer)
+	private int _rowsPerSegment;
+	//the buffers containing the rows, one per segment
+	private DoubleBuffer[] _segments;
+	//true if the values can't be changed (read-only mapping)
+	private boolean _isReadOnly;
+
+	/**
+	Constructor used by the create functions, after the segments are made
+	*/
+	private MappedMatrix(int numRows, int numColumns, int rowsPerSegment, DoubleBuffer[] segments, boolean isReadOnly) {
+		_numRows = numRows;
+		_numColumns = numColumns;
+		_rowsPerSegment = rowsPerSegment;
+		_segments = segments;
+		_isReadOnly = isReadOnly;
+	} //constructor
+
+	/**
+	Creates a matrix (filled with zeros) in direct buffers outside the heap.
+	@param numRows - int: The number of rows in the matrix
+	@param numColumns - int: The number of columns in the matrix
+	@throws ExceptionClass - Throws error if the matrix is empty, or a row is too large
+	@return MappedMatrix - the matrix
+	*/
+	static MappedMatrix allocateDirect(int numRows, int numColumns) throws ExceptionClass {
+		int rowsPerSegment = getRowsPerSegment(numRows, numColumns);
+		DoubleBuffer[] segments = new DoubleBuffer[getSegmentCount(numRows, rowsPerSegment)];
+		for(int s = 0; s < segments.length; s++) {
+			segments[s] = ByteBuffer.allocateDirect(getSegmentBytes(s, numRows, numColumns, rowsPerSegment))
+				.order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+		} //for
+		return new MappedMatrix(numRows, numColumns, rowsPerSegment, segments, false);
+	} //allocateDirect
+
+	/**
+	Maps a matrix stored in a file. The values must be stored row by row as
+	little-endian doubles, starting at the passed position.
+	The file can be closed (by others) after it is mapped.
+	@param file - File: The file containing the matrix
+	@param position - long: Position (in bytes) of the first value in the file
+	@param numRows - int: The number of rows in the matrix
+	@param numColumns - int: The number of columns in the matrix
+	@param isReadOnly - boolean: True - map as read-only (can be shared), false - changes are written to the file
+	@throws ExceptionClass
+	- Throws error if the matrix is empty, or a row is too large
+	- Throws error if the file is too small, or can't be mapped
+	@return MappedMatrix - the matrix
+	*/
+	static MappedMatrix mapFile(File file, long position, int numRows, int numColumns, boolean isReadOnly) throws ExceptionClass {
+		int rowsPerSegment = getRowsPerSegment(numRows, numColumns);
+		long requiredLength = position + ((long) numRows * numColumns * DOUBLE_SIZE);
+		RandomAccessFile randomFile = null;
+		try {
+			randomFile = new RandomAccessFile(file, isReadOnly ? "r" : "rw");
+			if(randomFile.length() < requiredLength) {
+				throw new ExceptionClass("The file " + file.getName() + " contains " + (randomFile.length())
+					+ " bytes, but the matrix needs " + (requiredLength) + " bytes.\nCan't map the matrix.");
+			} //if
+			DoubleBuffer[] segments = mapSegments(randomFile.getChannel(), position, numRows, numColumns, rowsPerSegment, isReadOnly);
+			return new MappedMatrix(numRows, numColumns, rowsPerSegment, segments, isReadOnly);
+		} catch(IOException ex) {
+			throw new ExceptionClass("Can't map the file " + file.getName() + ".\n" + ex.getMessage());
+		} finally {
+			closeFile(randomFile);
+		} //try/catch
+	} //mapFile
+
+	/**
+	Creates (or extends) a file large enough for the matrix, and maps it
+	as read-write, so the values written to the matrix end up in the file.
+	@param file - File: The file to store the matrix in
+	@param position - long: Position (in bytes) of the first value in the file
+	@param numRows - int: The number of rows in the matrix
+	@param numColumns - int: The number of columns in the matrix
+	@throws ExceptionClass - Throws error if the file can't be created or mapped
+	@return MappedMatrix - the matrix
+	*/
+	static MappedMatrix createFile(File file, long position, int numRows, int numColumns) throws ExceptionClass {
+		RandomAccessFile randomFile = null;
+		long requiredLength = position + ((long) numRows * numColumns * DOUBLE_SIZE);
+		try {
+			randomFile = new RandomAccessFile(file, "rw");
+			if(randomFile.length() < requiredLength) {
+				randomFile.setLength(requiredLength);
+			} //if
+		} catch(IOException ex) {
+			throw new ExceptionClass("Can't create the file " + file.getName() + ".\n" + ex.getMessage());
+		} finally {
+			closeFile(randomFile);
+		} //try/catch
+		return mapFile(file, position, numRows, numColumns, false);
+	} //createFile
+
+	/***************** CALCULATION FUNCTIONS *******************/
+
+	/**
+	Calculates the mean of the passed columnNo.
+	@param columnNo - int: the columnNo to calculate mean
+	@throws ExceptionClass - Throws error if the columnNo value isn't within range
+	@return double: the mean
+	*/
+	double calculateMean(int columnNo) throws ExceptionClass {
+		ExceptionClass.throwErrorIfMatrixColumnOutOfRange(columnNo, _numColumns, "\nCan't calculate mean.");
+		double sum = 0;
+		for(int rowNo = 0; rowNo < _numRows; rowNo++) {
+			sum += getValue(rowNo, columnNo);
+		} //for
+		return sum / (double) _numRows;
+	} //calculateMean
+
+	/**
+	Calculates the mean of the matrix and returns a matrix containing
+	n rows and 1 column, where n = getNumColumns().
+	@throws ExceptionClass - Throws error if the matrix is empty
+	@return Matrix - A matrix containing the mean(s)
+	*/
+	Matrix createMeanMatrix() throws ExceptionClass {
+		ExceptionClass.throwErrorIfMatrixIsEmpty(_numRows, _numColumns);
+		Matrix buffer = new Matrix(BLOCK_ROWS, _numColumns),
+			meanMatrix = new Matrix(_numColumns, 1);
+		double[] sums = meanMatrix.getMatrix(),
+			blockArray = buffer.getMatrix();
+		int blockRows = 0;
+		//add the column sums of each block
+		for(int block = 0; block < getBlockCount(); block++) {
+			blockRows = readBlock(block, buffer).getNumRows();
+			for(int i = 0; i < blockRows; i++) {
+				for(int j = 0; j < _numColumns; j++) {
+					sums[j] += blockArray[(i * _numColumns) + j];
+				} //for
+			} //for
+		} //for
+		for(int j = 0; j < _numColumns; j++) {
+			sums[j] = sums[j] / (double) _numRows;
+		} //for
+		return meanMatrix;
+	} //createMeanMatrix
+
+	/**
+	Creates a matrix containing the co-variance of the columns
+	(same result as Matrix.createCoVarianceMatrix(...)).
+	@throws ExceptionClass - Throws error if the matrix has less then two rows
+	@return Matrix - the NxN co-variance matrix
+	*/
+	Matrix createCoVarianceMatrix() throws ExceptionClass {
+		return createStatisticsAccumulator().createCoVarianceMatrix();
+	} //createCoVarianceMatrix
+
+	/**
+	Creates the scatter matrix (co-variance multiplied by (n-1)).
+	@throws ExceptionClass - Throws error if the matrix is empty
+	@return Matrix - the NxN scatter matrix
+	*/
+	Matrix createScatterMatrix() throws ExceptionClass {
+		return createStatisticsAccumulator().createScatterMatrix();
+	} //createScatterMatrix
+
+	/**
+	Reads all the rows, block by block, into an accumulator containing the
+	mean and co-moments. Each block is accumulated on its own, and the
+	blocks are merged in block order (see MatrixStatisticsAccumulator.mergeBlocksInOrder(...)),
+	so the result is the same for any number of threads.
+	@throws ExceptionClass - Throws error if the matrix is empty
+	@return MatrixStatisticsAccumulator - accumulator containing all the rows
+	*/
+	MatrixStatisticsAccumulator createStatisticsAccumulator() throws ExceptionClass {
+		ExceptionClass.throwErrorIfMatrixIsEmpty(_numRows, _numColumns);
+		MatrixStatisticsAccumulator result = new MatrixStatisticsAccumulator(_numColumns);
+		MatrixStatisticsAccumulator.mergeBlocksInOrder(getBlockCount(), (long) BLOCK_ROWS * _numColumns * _numColumns,
+				new MatrixStatisticsAccumulator.BlockTask() {
+			public MatrixStatisticsAccumulator[] accumulateBlock(int block) throws ExceptionClass {
+				MatrixStatisticsAccumulator partial = new MatrixStatisticsAccumulator(_numColumns);
+				partial.addRows(readBlock(block, new Matrix(BLOCK_ROWS, _numColumns)));
+				return new MatrixStatisticsAccumulator[] { partial };
+			} //accumulateBlock
+		}, new MatrixStatisticsAccumulator[] { result });
+		return result;
+	} //createStatisticsAccumulator
+
+	/**
+	Multiplies this matrix with the passed (heap) matrix, and returns
+	the result in a new (heap) matrix.
+	@param matrix2 - Matrix: Matrix containing values to multiply with
+	@throws ExceptionClass - Throws error if column count in this isn't equal to row count in matrix2
+	@return Matrix - matrix containing the result of the multiplication
+	*/
+	Matrix multiplyMatrices(final Matrix matrix2) throws ExceptionClass {
+		ExceptionClass.throwErrorIfColumnAndRowCountDiffers(_numColumns, matrix2.getNumRows(), "\nCan't multiply the matrices.");
+		final Matrix result = new Matrix(_numRows, matrix2.getNumColumns());
+		final int resultColumns = matrix2.getNumColumns();
+		ParallelExecution.runInRowBlocks(getBlockCount(), (long) BLOCK_ROWS * _numColumns * resultColumns, new ParallelExecution.RowBlockTask() {
+			public void run(int fromBlock, int toBlock) {
+				Matrix buffer = new Matrix(BLOCK_ROWS, _numColumns),
+					block;
+				for(int b = fromBlock; b < toBlock; b++) {
+					block = readBlock(b, buffer);
+					//add straight into the (zero-filled) rows of the result
+					Matrix.multiplyRows(block, matrix2, new Matrix(result.getMatrix(), block.getNumRows(),
+						resultColumns, b * BLOCK_ROWS * resultColumns, resultColumns, 1), 0, block.getNumRows());
+				} //for
+			} //run
+		});
+		return result;
+	} //multiplyMatrices
+
+	/**
+	Multiplies this matrix with the passed (heap) matrix, and writes the
+	result into the passed destination, which is also stored outside the heap.
+	@param matrix2 - Matrix: Matrix containing values to multiply with
+	@param destination - MappedMatrix: Matrix to write the result to
+	@throws ExceptionClass
+	- Throws error if column count in this isn't equal to row count in matrix2
+	- Throws error if destination isn't of the size of the result, or is read-only
+	*/
+	void multiplyInto(final Matrix matrix2, final MappedMatrix destination) throws ExceptionClass {
+		String errorMsg = "\nCan't multiply the matrices.";
+		ExceptionClass.throwErrorIfColumnAndRowCountDiffers(_numColumns, matrix2.getNumRows(), errorMsg);
+		if(destination._numRows != _numRows || destination._numColumns != matrix2.getNumColumns()) {
+			throw new ExceptionClass("The destination matrix is a " + (destination._numRows) + "x" + (destination._numColumns)
+				+ " matrix, but the result is a " + (_numRows) + "x" + (matrix2.getNumColumns()) + " matrix." + errorMsg);
+		} //if
+		destination.throwErrorIfReadOnly();
+		final int resultColumns = matrix2.getNumColumns();
+		ParallelExecution.runInRowBlocks(getBlockCount(), (long) BLOCK_ROWS * _numColumns * resultColumns, new ParallelExecution.RowBlockTask() {
+			public void run(int fromBlock, int toBlock) {
+				Matrix buffer = new Matrix(BLOCK_ROWS, _numColumns),
+					resultBuffer = new Matrix(BLOCK_ROWS, resultColumns),
+					block,
+					resultBlock;
+				for(int b = fromBlock; b < toBlock; b++) {
+					block = readBlock(b, buffer);
+					resultBlock = new Matrix(resultBuffer.getMatrix(), block.getNumRows(), resultColumns, 0, resultColumns, 1);
+					//the kernel adds to the result, so clear the buffer first
+					Arrays.fill(resultBuffer.getMatrix(), 0);
+					Matrix.multiplyRows(block, matrix2, resultBlock, 0, block.getNumRows());
+					destination.copyRows(b * BLOCK_ROWS, (b * BLOCK_ROWS) + block.getNumRows(), resultBuffer.getMatrix(), 0, true);
+				} //for
+			} //run
+		});
+	} //multiplyInto
+
+	/****************** COPY FUNCTIONS *************************/
+
+	/**
+	Copies the rows fromRow, ..., (toRow - 1) into the passed (heap) matrix,
+	which must be row-major with at least (toRow - fromRow) rows.
+	@param fromRow - int: The first row to copy
+	@param toRow - int: The row after the last row to copy
+	@param destination - Matrix: The matrix to copy the rows to (starting at row 0)
+	@throws ExceptionClass - Throws error if the rows or the destination aren't valid
+	*/
+	void readRows(int fromRow, int toRow, Matrix destination) throws ExceptionClass {
+		throwErrorIfRowsOutOfRange(fromRow, toRow, "\nCan't read the rows.");
+		throwErrorIfNotRowMajor(destination, toRow - fromRow);
+		copyRows(fromRow, toRow, destination.getMatrix(), destination.getOffset(), false);
+	} //readRows
+
+	/**
+	Copies all the rows in the passed (heap) matrix into this matrix,
+	starting at row fromRow.
+	@param fromRow - int: The row to write the first row to
+	@param source - Matrix: The row-major matrix containing the rows
+	@throws ExceptionClass - Throws error if the rows aren't valid, or this matrix is read-only
+	*/
+	void writeRows(int fromRow, Matrix source) throws ExceptionClass {
+		throwErrorIfReadOnly();
+		throwErrorIfRowsOutOfRange(fromRow, fromRow + source.getNumRows(), "\nCan't write the rows.");
+		throwErrorIfNotRowMajor(source, source.getNumRows());
+		copyRows(fromRow, fromRow + source.getNumRows(), source.getMatrix(), source.getOffset(), true);
+	} //writeRows
+
+	/**
+	Copies the whole matrix into a new (heap) Matrix.
+	Note! The matrix must fit in the heap.
+	@return Matrix - a copy of this matrix
+	*/
+	Matrix toMatrix() throws ExceptionClass {
+		Matrix matrix = new Matrix(_numRows, _numColumns);
+		readRows(0, _numRows, matrix);
+		return matrix;
+	} //toMatrix
+
+	/************************* PRIVATE FUNCTIONS *********************************/
+
+	/**
+	Copies block number block into buffer, and returns a view of buffer
+	containing only the rows in the block (the last block may be smaller).
+	*/
+	Matrix readBlock(int block, Matrix buffer) {
+		int fromRow = block * BLOCK_ROWS,
+			toRow = Math.min(_numRows, fromRow + BLOCK_ROWS);
+		copyRows(fromRow, toRow, buffer.getMatrix(), 0, false);
+		return new Matrix(buffer.getMatrix(), toRow - fromRow, _numColumns, 0, _numColumns, 1);
+	} //readBlock
+
+	/**
+	Copies the rows between the segments and a row-major array. A copy of
+	the buffer (duplicate) is used, so several threads can copy at the same time.
+	@param fromRow - int: The first row to copy
+	@param toRow - int: The row after the last row to copy
+	@param array - double[]: The heap array
+	@param arrayOffset - int: Position of the first value in the array
+	@param isWrite - boolean: True - copy from the array to the segments, false - the other way
+	*/
+	void copyRows(int fromRow, int toRow, double[] array, int arrayOffset, boolean isWrite) {
+		int rowNo = fromRow,
+			segment = 0,
+			segmentRow = 0,
+			rowCount = 0;
+		DoubleBuffer buffer = null;
+		while(rowNo < toRow) {
+			segment = rowNo / _rowsPerSegment;
+			segmentRow = rowNo % _rowsPerSegment;
+			rowCount = Math.min(toRow - rowNo, _rowsPerSegment - segmentRow);
+			buffer = _segments[segment].duplicate();
+			buffer.position(segmentRow * _numColumns);
+			if(isWrite) {
+				buffer.put(array, arrayOffset, rowCount * _numColumns);
+			} else {
+				buffer.get(array, arrayOffset, rowCount * _numColumns);
+			} //if
+			arrayOffset += rowCount * _numColumns;
+			rowNo += rowCount;
+		} //while
+	} //copyRows
+
+	/**
+	Returns the value at [rowNo][columnNo] (no range check)
+	*/
+	double getValue(int rowNo, int columnNo) {
+		return _segments[rowNo / _rowsPerSegment].get(((rowNo % _rowsPerSegment) * _numColumns) + columnNo);
+	} //getValue
+
+	/**
+	Maps the segments of the matrix from the passed channel
+	*/
+	static DoubleBuffer[] mapSegments(FileChannel channel, long position, int numRows, int numColumns, int rowsPerSegment, boolean isReadOnly) throws IOException {
+		FileChannel.MapMode mode = isReadOnly ? FileChannel.MapMode.READ_ONLY : FileChannel.MapMode.READ_WRITE;
+		DoubleBuffer[] segments = new DoubleBuffer[getSegmentCount(numRows, rowsPerSegment)];
+		long segmentPosition = position;
+		int segmentBytes = 0;
+		for(int s = 0; s < segments.length; s++) {
+			segmentBytes = getSegmentBytes(s, numRows, numColumns, rowsPerSegment);
+			segments[s] = channel.map(mode, segmentPosition, segmentBytes).order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+			segmentPosition += segmentBytes;
+		} //for
+		return segments;
+	} //mapSegments
+
+	/**
+	Returns the number of whole rows that fits in one segment
+	@throws ExceptionClass - Throws error if the matrix is empty, or one row is larger then a segment
+	*/
+	static int getRowsPerSegment(int numRows, int numColumns) throws ExceptionClass {
+		ExceptionClass.throwErrorIfMatrixIsEmpty(numRows, numColumns);
+		long rowBytes = (long) numColumns * DOUBLE_SIZE;
+		if(rowBytes > MAX_SEGMENT_BYTES) {
+			throw new ExceptionClass("One row (" + (rowBytes) + " bytes) is larger then a segment ("
+				+ (MAX_SEGMENT_BYTES) + " bytes).\nCan't create the matrix.");
+		} //if
+		return (int) Math.min(numRows, MAX_SEGMENT_BYTES / rowBytes);
+	} //getRowsPerSegment
+
+	/**
+	Returns the number of segments needed for numRows rows
+	*/
+	static int getSegmentCount(int numRows, int rowsPerSegment) {
+		return (numRows + rowsPerSegment - 1) / rowsPerSegment;
+	} //getSegmentCount
+
+	/**
+	Returns the number of bytes in the segment s (the last may be smaller)
+	*/
+	static int getSegmentBytes(int s, int numRows, int numColumns, int rowsPerSegment) {
+		int rows = Math.min(rowsPerSegment, numRows - (s * rowsPerSegment));
+		return rows * numColumns * DOUBLE_SIZE;
+	} //getSegmentBytes
+
+	/**
+	Returns the number of blocks of BLOCK_ROWS rows
+	*/
+	int getBlockCount() {
+		return (_numRows + BLOCK_ROWS - 1) / BLOCK_ROWS;
+	} //getBlockCount
+
+	/**
+	Closes the file, ignoring errors (the mapping is still valid)
+	*/
+	static void closeFile(RandomAccessFile randomFile) {
+		if(randomFile != null) {
+			try {
+				randomFile.close();
+			} catch(IOException ex) {
+				//nothing to do, the mapped buffers don't need the file to be open
+			} //try/catch
+		} //if
+	} //closeFile
+
+	/**
+	Throws an error if the matrix is mapped as read-only
+	*/
+	void throwErrorIfReadOnly() throws ExceptionClass {
+		if(_isReadOnly) {
+			throw new ExceptionClass("The matrix is mapped as read-only.\nCan't change the values.");
+		} //if
+	} //throwErrorIfReadOnly
+
+	/**
+	Throws an error if the rows fromRow, ..., (toRow - 1) aren't within range
+	*/
+	void throwErrorIfRowsOutOfRange(int fromRow, int toRow, String additionalInfo) throws ExceptionClass {
+		if(fromRow < 0 || toRow > _numRows || fromRow > toRow) {
+			throw new ExceptionClass("The rows " + (fromRow) + " to " + (toRow) + " aren't within the "
+				+ (_numRows) + " rows of the matrix." + additionalInfo);
+		} //if
+	} //throwErrorIfRowsOutOfRange
+
+	/**
+	Throws an error if the heap matrix isn't row-major, with the same column
+	count as this matrix, and at least rowCount rows
+	*/
+	void throwErrorIfNotRowMajor(Matrix matrix, int rowCount) throws ExceptionClass {
+		if(matrix.getNumColumns() != _numColumns || matrix.getNumRows() < rowCount
+				|| matrix.getColumnStride() != 1 || (matrix.getRowStride() != _numColumns && rowCount > 1)) {
+			throw new ExceptionClass("The matrix must be a row-major matrix with " + (_numColumns)
+				+ " columns and at least " + (rowCount) + " rows.\nCan't copy the rows.");
+		} //if
+	} //throwErrorIfNotRowMajor
+
+	/****************** GET & SET FUNCTIONS *************************/
+
+	int getNumRows() {
+		return _numRows;
+	} //getNumRows
+
+	int getNumColumns() {
+		return _numColumns;
+	} //getNumColumns
+
+	/**
+	Returns true if the matrix is mapped as read-only
+	*/
+	boolean isReadOnly() {
+		return _isReadOnly;
+	} //isReadOnly
+
+	/**
+	Returns the value of the cell at [rowNo][columnNo]
+	@throws ExceptionClass - Throws error if rowNo/columnNo isn't within range
+	*/
+	double getCellValueAt(int rowNo, int columnNo) throws ExceptionClass {
+		String errorMsg = "\nCan't retrieve value at position [" + (rowNo) + "," + (columnNo) + "]";
+		ExceptionClass.throwErrorIfMatrixRowOutOfRange(rowNo, _numRows, errorMsg);
+		ExceptionClass.throwErrorIfMatrixColumnOutOfRange(columnNo, _numColumns, errorMsg);
+		return getValue(rowNo, columnNo);
+	} //getCellValueAt
+
+	/**
+	Changes the value of the cell at [rowNo][columnNo]
+	@throws ExceptionClass - Throws error if rowNo/columnNo isn't within range, or the matrix is read-only
+	*/
+	void changeCellValueAt(int rowNo, int columnNo, double value) throws ExceptionClass {
+		String errorMsg = "\nCan't change value at position [" + (rowNo) + "," + (columnNo) + "]";
+		throwErrorIfReadOnly();
+		ExceptionClass.throwErrorIfMatrixRowOutOfRange(rowNo, _numRows, errorMsg);
+		ExceptionClass.throwErrorIfMatrixColumnOutOfRange(columnNo, _numColumns, errorMsg);
+		_segments[rowNo / _rowsPerSegment].put(((rowNo % _rowsPerSegment) * _numColumns) + columnNo, value);
+	} //changeCellValueAt
+}
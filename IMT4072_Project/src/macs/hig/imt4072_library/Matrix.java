@@ -3,18 +3,27 @@ package macs.hig.imt4072_library;
 import java.util.ArrayList;
 
 /**
-Class functioning as a matrix by use of a 2D array.
+Class functioning as a matrix by use of a flat (row-major) array.
+The cell [rowNo][columnNo] is stored at position
+offset + (rowNo * rowStride) + (columnNo * columnStride). A new matrix
+is row-major (columnStride = 1), which keeps each row contiguous in memory.
+A transposed view shares the array with its parent, and just swaps the
+row - and column stride. The calculation functions validate their
+arguments once, and then work directly on the array.
 The class has the ability to:
 - Create a mean matrix <br />
 - Calculate corrected mean <br />
 - Calculate the variance <br />
-- Create a co-variance matrix <br />
+- Create a co-variance matrix (full, or packed as a SymmetricMatrix) <br />
 - Addition, subtraction and multiplication of matrices <br />
-- Create a scatter matrix and between class scatter matrix <br />
+- Create a scatter matrix and between class scatter matrix (full, or packed) <br />
 - Create a matrix containing the optimal line (w) <br />
 - Transpose the matrix (or transpose a temporary matrix) <br />
 - Inverse a 2D matrix <br />
 - Create an identity matrix (not implemented)
+Note! A matrix isn't thread-safe, since it (and the views sharing its
+array) can be changed at any time. Use createSnapshot() to share the
+values between threads.
 @Author  Knut Lucas Andersen
 */
 
@@ -23,14 +32,37 @@ public class Matrix {
 	private int _numRows;
 	//the number of columns in the matrix
 	private int _numColumns;
-	//array containing the matrix values
-	private double _matrixArray[][];
+	//array containing the matrix values (row-major)
+	private double _matrixArray[];
+	//position of the first cell [0][0] in _matrixArray
+	private int _offset;
+	//distance in _matrixArray between the start of two rows
+	private int _rowStride;
+	//distance in _matrixArray between two cells in the same row
+	private int _columnStride;
+	//size of the blocks used when transposing a square matrix in place
+	final static int TRANSPOSE_BLOCK_SIZE = 32;
+	//number of rows in the blocks used when creating the co-variance matrix
+	final static int COVARIANCE_BLOCK_ROWS = 128;
+
+	/**
+	Interface for reading one row at the time (as double values) from a
+	matrix, so the statistics functions (e.g. createCoVarianceFromRows(...))
+	can be shared by matrices with different storage (e.g. FloatMatrix).
+	The row rowNo is copied into row[0], ..., row[numColumns - 1].
+	*/
+	interface RowReader {
+		void readRow(int rowNo, double[] row);
+	} //RowReader
 	
 	public Matrix() {
 		//default initialisation
 		_numRows = 0;
 		_numColumns = 0;
-		_matrixArray = new double[0][0];
+		_offset = 0;
+		_rowStride = 0;
+		_columnStride = 1;
+		_matrixArray = new double[0];
 	} //constructor
 
 	/**
@@ -44,7 +76,29 @@ public class Matrix {
 		setNewRowCount(numRows);
 		setNewColumnCount(numColumns);
 		//create the matrix array
-		_matrixArray = createMatrixArray(numRows, numColumns);
+		_matrixArray = createFlatMatrixArray(numRows, numColumns);
+		_offset = 0;
+		_rowStride = numColumns;
+		_columnStride = 1;
+	} //constructor
+
+	/**
+	Constructor creating a view of the passed array. The view
+	shares the array, so changes in one are seen by the other.
+	@param matrixArray - double[]: The array containing the values
+	@param numRows - int: The number of rows in the view
+	@param numColumns - int: The number of columns in the view
+	@param offset - int: Position of the cell [0][0]
+	@param rowStride - int: Distance between the start of two rows
+	@param columnStride - int: Distance between two cells in the same row
+	*/
+	Matrix(double[] matrixArray, int numRows, int numColumns, int offset, int rowStride, int columnStride) {
+		setNewRowCount(numRows);
+		setNewColumnCount(numColumns);
+		_matrixArray = matrixArray;
+		_offset = offset;
+		_rowStride = rowStride;
+		_columnStride = columnStride;
 	} //constructor
 
 	/***************** CALCULATION FUNCTIONS *******************/
@@ -62,11 +116,7 @@ public class Matrix {
 			//check that the matrix isn't empty and then check that the column is within range
 			ExceptionClass.throwErrorIfMatrixIsEmpty(getNumRows(), getNumColumns());
 			ExceptionClass.throwErrorIfMatrixColumnOutOfRange(columnNo, getNumColumns(), "\nCan't calculate mean.");
-			_matrixArray = getMatrix();
-			for(int i = 0; i < getNumRows(); i++) {
-				mean += _matrixArray[i][columnNo];
-			} //for
-			mean = mean / (double) getNumRows();
+			mean = sumOfColumn(columnNo) / (double) getNumRows();
 		} catch(ExceptionClass ex) {
 			throw ex;
 		} //try/catch
@@ -75,27 +125,63 @@ public class Matrix {
 
 	/**
 	Calculates the mean of the matrix and returns a matrix containing
-	1 row and n-columns, where n = calling matrix.getNumColumns().
-	After the matrix is created, it's transposed to ensure correct order.
+	n rows and 1 column, where n = calling matrix.getNumColumns().
+	The column sums are collected in one pass over the rows, so the
+	matrix is read in the order it is stored.
 	Throws error if matrix is empty.
-	@param columnNo - int: the columnNo to calculate mean
-	@throws ExceptionClass - Throws error if the columnNo
-	value isn't within range
+	@throws ExceptionClass - Throws error if the matrix is empty
 	@return Matrix - A matrix containing the mean(s)
 	*/
 	Matrix createMeanMatrix() throws ExceptionClass {
-		//check that the matrix isn't empty and then check that the column is within range
+		//check that the matrix isn't empty
 		ExceptionClass.throwErrorIfMatrixIsEmpty(this.getNumRows(), this.getNumColumns());
-		int numRows = 1,
-			numColumns = this.getNumColumns();
-		Matrix meanMatrix = new Matrix(numRows, numColumns);
-		for(int i = 0; i < this.getNumColumns(); i++) {
-			meanMatrix.changeCellValueAt(0, i, this.calculateMean(i));
-		} //for
-		meanMatrix.transposeMatrix();
+		Matrix meanMatrix = new Matrix(this.getNumColumns(), 1);
+		meanInto(meanMatrix);
 		return meanMatrix;
 	} //createMeanMatrix
 
+	/**
+	Calculates the mean of the matrix (see createMeanMatrix()), and writes it
+	into the passed meanMatrix instead of creating a new matrix. The
+	meanMatrix must contain n rows and 1 column, where n = getNumColumns().
+	@param meanMatrix - Matrix: The matrix to write the mean(s) to
+	@throws ExceptionClass
+	- Throws error if the matrix is empty
+	- Throws error if meanMatrix isn't a nx1 matrix
+	*/
+	void meanInto(Matrix meanMatrix) throws ExceptionClass {
+		ExceptionClass.throwErrorIfMatrixIsEmpty(this.getNumRows(), this.getNumColumns());
+		ExceptionClass.throwErrorIfDestinationSizeDiffers(meanMatrix, this.getNumColumns(), 1, "\nCan't calculate the mean.");
+		int numRows = this.getNumRows(),
+			numColumns = this.getNumColumns(),
+			index = 0,
+			meanIndex = 0,
+			meanStride = meanMatrix._rowStride;
+		double[] sums = meanMatrix._matrixArray;
+		//clear the mean matrix, in case it is reused
+		meanIndex = meanMatrix._offset;
+		for(int j = 0; j < numColumns; j++) {
+			sums[meanIndex] = 0;
+			meanIndex += meanStride;
+		} //for
+		//add each row to the column sums
+		for(int i = 0; i < numRows; i++) {
+			index = cellIndex(i, 0);
+			meanIndex = meanMatrix._offset;
+			for(int j = 0; j < numColumns; j++) {
+				sums[meanIndex] += _matrixArray[index];
+				index += _columnStride;
+				meanIndex += meanStride;
+			} //for
+		} //for
+		//divide the sums by the row count to get the means
+		meanIndex = meanMatrix._offset;
+		for(int j = 0; j < numColumns; j++) {
+			sums[meanIndex] = sums[meanIndex] / (double) numRows;
+			meanIndex += meanStride;
+		} //for
+	} //meanInto
+
 	/**
 	Calculates the corrected mean. If the rowNo/columnNo value isn't
 	within range, a ExceptionClass is thrown.
@@ -113,8 +199,7 @@ public class Matrix {
 			//check that the values are within range
 			ExceptionClass.throwErrorIfMatrixRowOutOfRange(rowNo, getNumRows(), "\nCan't calculate corrected mean data.");
 			ExceptionClass.throwErrorIfMatrixColumnOutOfRange(columnNo, getNumColumns(), "\nCan't calculate corrected mean data.");
-			_matrixArray = getMatrix();
-			correctedMean = _matrixArray[rowNo][columnNo] - globalMean;
+			correctedMean = _matrixArray[cellIndex(rowNo, columnNo)] - globalMean;
 		} catch(ExceptionClass ex) {
 			throw ex;
 		} //try/catch
@@ -137,13 +222,15 @@ public class Matrix {
 			double mean = 0,
 				variance = 0,
 				sumOfValues = 0;
-			int n = getNumRows();
-			_matrixArray = getMatrix();
-			mean = calculateMean(columnNo);
+			int n = getNumRows(),
+				index = 0;
+			mean = sumOfColumn(columnNo) / (double) n;
 			//calculate the sum of the values
+			index = cellIndex(0, columnNo);
 			for(int i = 0; i < n; i++) {
-				sumOfValues = _matrixArray[i][columnNo] - mean;
-				variance += Math.pow(sumOfValues, 2);
+				sumOfValues = _matrixArray[index] - mean;
+				variance += sumOfValues * sumOfValues;
+				index += _rowStride;
 			} //for
 			//check that the sum of the values is greater then zero
 			//and then calculate the variance
@@ -175,16 +262,21 @@ public class Matrix {
 				currentY = 0,
 				meanX = 0,
 				meanY = 0;
-			int n = getNumRows();
-			_matrixArray = getMatrix();
+			int n = getNumRows(),
+				indexX = 0,
+				indexY = 0;
 			//calculate mean
 			meanX = calculateMean(columnX);
 			meanY = calculateMean(columnY);
 			//loop through the values and calculate the sum 
+			indexX = cellIndex(0, columnX);
+			indexY = cellIndex(0, columnY);
 			for(int i = 0; i < n; i++) {
-				currentX = _matrixArray[i][columnX] - meanX;
-				currentY = _matrixArray[i][columnY] - meanY;
+				currentX = _matrixArray[indexX] - meanX;
+				currentY = _matrixArray[indexY] - meanY;
 				coVariance += currentX * currentY;
+				indexX += _rowStride;
+				indexY += _rowStride;
 			} //for
 			coVariance = coVariance / (n - 1);
 		} catch(ExceptionClass ex) {
@@ -197,31 +289,190 @@ public class Matrix {
 	Creates a matrix containing the calculated co-variance values,
 	based on the values from the passed matrix parent.
 	If parent is empty, ExceptionClass is thrown.
+	The parent matrix is only read once (see createCoVarianceFromRows(...)).
 	@param parent - Matrix: Matrix containing the original values
 	@throws ExceptionClass - Throws error if parent is empty
 	@return Matrix - a matrix filled with the co-variance calculated
 	from the passed Matrix parent
 	*/
 	Matrix createCoVarianceMatrix(Matrix parent) throws ExceptionClass {
-		int numElements = 0;
-		double coVariance = 0;
-		//since the matrix is a NxN matrix, use columns as counter
-		numElements = parent.getNumColumns();
 		//check that the parent matrix isn't empty
 		String  errorMsg = "\nCan't create co-variance matrix.";
 		ExceptionClass.throwErrorIfParentMatrixIsEmpty(parent.getNumRows(), parent.getNumColumns(), errorMsg);
-		//create the co-variance matrix
-		Matrix coVarMatrix = new Matrix(numElements, numElements);
-		//fill coVarMatrix with values from parent matrix
+		return createCoVarianceFromRows(parent.createRowReader(), parent.getNumRows(), parent.getNumColumns());
+	} //createCoVarianceMatrix
+
+	/**
+	Creates a symmetric matrix containing the co-variance values of the
+	passed matrix parent, where only the upper triangle is stored (packed,
+	see SymmetricMatrix). Same values as createCoVarianceMatrix(Matrix parent),
+	with half the memory.
+	@param parent - Matrix: Matrix containing the original values
+	@throws ExceptionClass - Throws error if parent is empty
+	@return SymmetricMatrix - the NxN co-variance matrix
+	*/
+	SymmetricMatrix createSymmetricCoVarianceMatrix(Matrix parent) throws ExceptionClass {
+		String  errorMsg = "\nCan't create co-variance matrix.";
+		ExceptionClass.throwErrorIfParentMatrixIsEmpty(parent.getNumRows(), parent.getNumColumns(), errorMsg);
+		return createSymmetricCoVarianceFromRows(parent.createRowReader(), parent.getNumRows(), parent.getNumColumns());
+	} //createSymmetricCoVarianceMatrix
+
+	/**
+	Creates the co-variance matrix of the rows read by the passed reader
+	(see createSymmetricCoVarianceFromRows(...)), mirrored into a full NxN matrix.
+	Note! No range checks are done here; the calling function is
+	expected to have validated the sizes.
+	@param reader - RowReader: Reader returning the rows (as double)
+	@param numRows - int: The number of rows
+	@param numElements - int: The number of columns in each row
+	@return Matrix - the NxN co-variance matrix
+	*/
+	static Matrix createCoVarianceFromRows(RowReader reader, int numRows, int numElements) {
+		return createSymmetricCoVarianceFromRows(reader, numRows, numElements).toMatrix();
+	} //createCoVarianceFromRows
+
+	/**
+	Creates the co-variance matrix of the rows read by the passed reader.
+	The rows are only read once. Each row x is shifted by the first
+	row K (y = x - K, which keeps the sums small and accurate), and the sums
+	of y and y * yT are collected block by block (see addShiftedGramOfRows).
+	The co-variance is then (sum(y * yT) - n * meanY * meanYT) / (n - 1).
+	Only the upper triangle is calculated (packed, see SymmetricMatrix),
+	and the co-variance replaces the Gram matrix in the same array.
+	Note! No range checks are done here; the calling function is
+	expected to have validated the sizes.
+	@param reader - RowReader: Reader returning the rows (as double)
+	@param numRows - int: The number of rows
+	@param numElements - int: The number of columns in each row
+	@return SymmetricMatrix - the NxN co-variance matrix
+	*/
+	static SymmetricMatrix createSymmetricCoVarianceFromRows(RowReader reader, int numRows, int numElements) {
+		int packedIndex = 0;
+		double meanI = 0,
+			meanJ = 0;
+		double[] shift = new double[numElements],
+			shiftedSums = new double[numElements],
+			gramArray = new double[SymmetricMatrix.getPackedLength(numElements)];
+		//use the first row as shift
+		reader.readRow(0, shift);
+		addShiftedGramOfRows(reader, 0, numRows, numElements, shift, shiftedSums, gramArray);
+		//remove the mean
 		for(int i = 0; i < numElements; i++) {
-			for(int j = 0; j < numElements; j++) {
-				coVariance = parent.calculateCoVariance(i, j);
-				coVarMatrix.changeCellValueAt(i, j, coVariance);
+			meanI = shiftedSums[i] / numRows;
+			for(int j = i; j < numElements; j++) {
+				meanJ = shiftedSums[j] / numRows;
+				gramArray[packedIndex] = (gramArray[packedIndex] - (numRows * meanI * meanJ)) / (numRows - 1);
+				packedIndex++;
+			} //for
+		} //for
+		return SymmetricMatrix.wrapPackedArray(gramArray, numElements);
+	} //createSymmetricCoVarianceFromRows
+
+	/**
+	Reads the rows fromRow, ..., (toRow - 1), shifts each row y = x - shift,
+	and adds y to shiftedSums and the upper triangle of y * yT to gramArray
+	(packed row by row, see SymmetricMatrix). The shifted rows are copied block by block, column
+	after column, so the Gram matrix of each block can be added with
+	addUpperGramOfBlock(...).
+	@param reader - RowReader: Reader returning the rows (as double)
+	@param fromRow - int: The first row to read
+	@param toRow - int: The row after the last row to read
+	@param numElements - int: The number of columns in each row
+	@param shift - double[]: The values to subtract from each row
+	@param shiftedSums - double[]: The sums of the shifted rows are added to this
+	@param gramArray - double[]: The packed upper triangle of the Gram matrix is added to this
+	*/
+	static void addShiftedGramOfRows(RowReader reader, int fromRow, int toRow, int numElements,
+			double[] shift, double[] shiftedSums, double[] gramArray) {
+		int blockRows = 0;
+		double value = 0;
+		double[] row = new double[numElements],
+			blockArray = new double[numElements * COVARIANCE_BLOCK_ROWS];
+		for(int blockStart = fromRow; blockStart < toRow; blockStart += COVARIANCE_BLOCK_ROWS) {
+			blockRows = Math.min(COVARIANCE_BLOCK_ROWS, toRow - blockStart);
+			//copy the shifted block, one column after the other
+			for(int r = 0; r < blockRows; r++) {
+				reader.readRow(blockStart + r, row);
+				for(int j = 0; j < numElements; j++) {
+					value = row[j] - shift[j];
+					blockArray[(j * COVARIANCE_BLOCK_ROWS) + r] = value;
+					shiftedSums[j] += value;
+				} //for
 			} //for
+			addUpperGramOfBlock(blockArray, numElements, COVARIANCE_BLOCK_ROWS, blockRows, gramArray);
 		} //for
-		return coVarMatrix;
+	} //addShiftedGramOfRows
+
+	/**
+	Creates a matrix containing the co-variance values of a matrix
+	stored outside the heap. The parent is read block by block.
+	@param parent - MappedMatrix: Matrix containing the original values
+	@throws ExceptionClass - Throws error if parent has less then two rows
+	@return Matrix - a matrix filled with the co-variance calculated
+	from the passed MappedMatrix parent
+	@see MappedMatrix.createCoVarianceMatrix()
+	*/
+	Matrix createCoVarianceMatrix(MappedMatrix parent) throws ExceptionClass {
+		return parent.createCoVarianceMatrix();
+	} //createCoVarianceMatrix
+
+	/**
+	Creates a matrix containing the co-variance values of a sparse matrix.
+	Only the non-zero values in parent are visited.
+	@param parent - SparseMatrix: Matrix containing the original values
+	@throws ExceptionClass - Throws error if parent has less then two rows
+	@return Matrix - a matrix filled with the co-variance calculated
+	from the passed SparseMatrix parent
+	@see SparseMatrix.createCoVarianceMatrix()
+	*/
+	Matrix createCoVarianceMatrix(SparseMatrix parent) throws ExceptionClass {
+		return parent.createCoVarianceMatrix();
 	} //createCoVarianceMatrix
 
+	/**
+	Creates a matrix containing the co-variance values of the rows
+	selected by the passed view, without copying the rows.
+	@param parent - RowSelectionView: The selected rows
+	@throws ExceptionClass - Throws error if parent has less then two rows
+	@return Matrix - a matrix filled with the co-variance calculated
+	from the passed RowSelectionView parent
+	@see RowSelectionView.createCoVarianceMatrix()
+	*/
+	Matrix createCoVarianceMatrix(RowSelectionView parent) throws ExceptionClass {
+		return parent.createCoVarianceMatrix();
+	} //createCoVarianceMatrix
+
+	/**
+	Adds the upper triangle of BT * B to gramArray, where the triangle is
+	packed row by row (N * (N + 1) / 2 values, same as SymmetricMatrix),
+	and B is a block of blockRows rows and numElements columns. The block
+	is stored one column after the other in blockArray (column j starts at
+	j * blockStride), so each cell in the triangle is the dot product of two
+	sequential pieces of the array, that stay in the L1 cache.
+	@param blockArray - double[]: The block, stored column by column
+	@param numElements - int: The number of columns in the block (N)
+	@param blockStride - int: Distance between the start of two columns in blockArray
+	@param blockRows - int: The number of rows in the block
+	@param gramArray - double[]: The packed upper triangle to add the result to
+	*/
+	static void addUpperGramOfBlock(double[] blockArray, int numElements, int blockStride, int blockRows, double[] gramArray) {
+		int columnStartI = 0,
+			columnStartJ = 0,
+			packedIndex = 0;
+		double sum = 0;
+		for(int i = 0; i < numElements; i++) {
+			columnStartI = i * blockStride;
+			for(int j = i; j < numElements; j++) {
+				columnStartJ = j * blockStride;
+				sum = 0;
+				for(int r = 0; r < blockRows; r++) {
+					sum += blockArray[columnStartI + r] * blockArray[columnStartJ + r];
+				} //for
+				gramArray[packedIndex++] += sum;
+			} //for
+		} //for
+	} //addUpperGramOfBlock
+
 	/**
 	Attempts to calculate and create a scatter matrix based on the values in
 	the passed coVarMatrix. If the coVarMatrix is empty, an attempt to create
@@ -240,7 +491,8 @@ public class Matrix {
 	Matrix createScatterMatrix(Matrix coVarParent, Matrix coVarMatrix) throws ExceptionClass {
 		//since the matrix should sizes should be equal, just use the counter
 		int n = 0,
-			numElements = 0;
+			numElements = 0,
+			rowStart = 0;
 		double coVariance = 0;
 		//get the columncount
 		numElements = coVarMatrix.getNumColumns();
@@ -258,52 +510,88 @@ public class Matrix {
 				errorMsg += "\nCan't create scatter matrix.";
 				throw new ExceptionClass(errorMsg);
 			} //try/catch
+			numElements = coVarMatrix.getNumColumns();
 		} //if
 		n = coVarParent.getNumRows() - 1;
 		//create scatter matrix
 		Matrix scatterMatrix = new Matrix(numElements, numElements);
+		double[] coVarArray = coVarMatrix._matrixArray,
+			scatterArray = scatterMatrix._matrixArray;
 		//fill scatterMatrix with values 
 		for(int i = 0; i < numElements; i++) {
+			rowStart = coVarMatrix.cellIndex(i, 0);
 			for(int j = 0; j < numElements; j++) {
-				coVariance = n * coVarMatrix.getMatrix()[i][j];
-				scatterMatrix.changeCellValueAt(i, j, coVariance);
+				coVariance = n * coVarArray[rowStart + (j * coVarMatrix._columnStride)];
+				scatterArray[(i * numElements) + j] = coVariance;
 			} //for
 		} //for
 		return scatterMatrix;
 	} //createScatterMatrix
 
 	/**
-	Create a matrix containing the between scatter.
-	Based on a two-class problem.
-	@param invSw - Matrix: Matrix containing the mean values
+	Creates a symmetric scatter matrix (the co-variance multiplied by (n-1)),
+	where only the upper triangle is stored (packed, see SymmetricMatrix).
+	Same values as createScatterMatrix(...): if the coVarMatrix is empty, the
+	co-variance is created from coVarParent (directly in packed storage),
+	otherwise the upper triangle of coVarMatrix is used.
+	@param coVarParent: Matrix filled with the original values
+	@param coVarMatrix: Matrix filled with the co-variance values
+	@throws ExceptionClass
+	- Throws error if both the coVarParent and coVarMatrix is empty
+	- Throws error if the coVarMatrix isn't square
+	@see createSymmetricCoVarianceMatrix(Matrix parent)
+	@return SymmetricMatrix - a scatter matrix (filled with the co-variance multiplied with (n-1))
+	*/
+	SymmetricMatrix createSymmetricScatterMatrix(Matrix coVarParent, Matrix coVarMatrix) throws ExceptionClass {
+		SymmetricMatrix scatterMatrix = null;
+		if(coVarMatrix.getNumColumns() == 0) {
+			try {
+				scatterMatrix = createSymmetricCoVarianceMatrix(coVarParent);
+			} catch(ExceptionClass ex) {
+				String  errorMsg = ex.ToString();
+				errorMsg += "\nCan't create scatter matrix.";
+				throw new ExceptionClass(errorMsg);
+			} //try/catch
+		} else {
+			scatterMatrix = SymmetricMatrix.fromMatrix(coVarMatrix);
+		} //if
+		scatterMatrix.scaleInPlace(coVarParent.getNumRows() - 1);
+		return scatterMatrix;
+	} //createSymmetricScatterMatrix
+
+	/**
+	Create a matrix containing the between scatter
+	sB = (meanMatrix1 - meanMatrix2) * (meanMatrix1 - meanMatrix2)T.
+	Based on a two-class problem, but the means can have any number of features.
+	@param meanMatrix1 - Matrix: Matrix containing the mean values of class 1
+	@param meanMatrix2 - Matrix: Matrix containing the mean values of class 2
 	@throws ExceptionClass - Throws error if one of the matrices is empty
 	@return Matrix - matrix containing the between scatter
+	@see getSymmetricBetweenClassScatterMatrix(Matrix meanMatrix1, Matrix meanMatrix2)
 	*/
 	Matrix getBetweenClassScatterMatrix(Matrix meanMatrix1, Matrix meanMatrix2) throws ExceptionClass {
+		return getSymmetricBetweenClassScatterMatrix(meanMatrix1, meanMatrix2).toMatrix();
+	} //getBetweenClassScatterMatrix
+
+	/**
+	Create a symmetric (packed) matrix containing the between scatter,
+	added as a rank-1 update with the difference between the means.
+	@param meanMatrix1 - Matrix: Nx1 matrix containing the mean values of class 1
+	@param meanMatrix2 - Matrix: Nx1 matrix containing the mean values of class 2
+	@throws ExceptionClass
+	- Throws error if one of the matrices is empty
+	- Throws error if the matrices containing the mean aren't of equal size/order
+	@return SymmetricMatrix - matrix containing the between scatter
+	*/
+	SymmetricMatrix getSymmetricBetweenClassScatterMatrix(Matrix meanMatrix1, Matrix meanMatrix2) throws ExceptionClass {
 		ExceptionClass.throwErrorIfMatrixIsEmpty(meanMatrix1.getNumRows(), meanMatrix1.getNumColumns());
 		ExceptionClass.throwErrorIfMatrixIsEmpty(meanMatrix2.getNumRows(), meanMatrix2.getNumColumns());
 		//check that the size of the mean matrices are equal
 		ExceptionClass.throwErrorIfMatrixNotOfEqualOrder(meanMatrix1, meanMatrix2);
-		int numElements = meanMatrix1.getNumRows();
-		Matrix sB = new Matrix(numElements, numElements);
-		double subtractedMean1 = 0,
-			subtractedMean2 = 0,
-			value = 0;
-		//calculate the subtracted mean
-		subtractedMean1 = meanMatrix1.getCellValueAt(0, 0) - meanMatrix2.getCellValueAt(0, 0);
-		subtractedMean2 = meanMatrix1.getCellValueAt(1, 0) - meanMatrix2.getCellValueAt(1, 0);
-		//since it's only four values, it's done manually
-		value = subtractedMean1 * subtractedMean1;
-		sB.changeCellValueAt(0, 0, value);
-		value = subtractedMean1 * subtractedMean2;
-		sB.changeCellValueAt(0, 1, value);
-		value = subtractedMean2 * subtractedMean1;
-		sB.changeCellValueAt(1, 0, value);
-		value = subtractedMean2 * subtractedMean2;
-		sB.changeCellValueAt(1, 1, value);
-		//return the matrix
+		SymmetricMatrix sB = new SymmetricMatrix(meanMatrix1.getNumRows() * meanMatrix1.getNumColumns());
+		sB.rankOneUpdate(1, matrixSubstraction(meanMatrix1, meanMatrix2));
 		return sB;
-	} //getBetweenClassScatterMatrix
+	} //getSymmetricBetweenClassScatterMatrix
 
 	/**
 	Create a matrix containing the optimal line v.
@@ -348,6 +636,51 @@ public class Matrix {
 		return optimalLine;
 	} //getOptimalLineMatrix
 
+	/**
+	Create a matrix containing the optimal line v = inverse(Sw) * (meanC1 - meanC2),
+	by solving the system Sw * v = (meanC1 - meanC2) with a decomposition
+	of Sw (see createLinearSolver(...)). The inverse of Sw is never created,
+	and Sw can be of any size (e.g. more then two features).
+	@param swSolver - LinearSolver: The decomposition of the within class scatter matrix Sw
+	@param meanC1 - Matrix: Matrix containing the mean of class 1
+	@param meanC2 - Matrix: Matrix containing the mean of class 2
+	@throws ExceptionClass
+	- Throws error if one of the matrices is empty
+	- Throws error if the matrices containing the mean aren't of equal size/order
+	- Throws error if Sw is singular
+	@return Matrix - matrix containing the list v that represents the optimal line
+	@see createLinearSolver(double regularization)
+	*/
+	Matrix getOptimalLineMatrix(LinearSolver swSolver, Matrix meanC1, Matrix meanC2) throws ExceptionClass {
+		//check that the size of the mean matrices are equal
+		ExceptionClass.throwErrorIfMatrixNotOfEqualOrder(meanC1, meanC2);
+		//solve Sw * v = (meanC1 - meanC2)
+		return swSolver.solveMany(matrixSubstraction(meanC1, meanC2));
+	} //getOptimalLineMatrix
+
+	/**
+	Creates a decomposition of (this matrix + regularization * I), that can be
+	used to solve systems with this matrix. The Cholesky decomposition is tried
+	first, since co-variance and scatter matrices are symmetric positive-definite,
+	and it is about twice as fast as LU. If the matrix isn't symmetric
+	positive-definite, the LU decomposition is used instead.
+	@param regularization - double: The value to add to the diagonal
+	(0 for none, or a small value for a nearly singular scatter matrix)
+	@throws ExceptionClass
+	- Throws error if the matrix is empty
+	- Throws error if the matrix isn't square
+	@return LinearSolver - the Cholesky or LU decomposition of the matrix
+	@see CholeskyDecomposition
+	@see LUDecomposition
+	*/
+	LinearSolver createLinearSolver(double regularization) throws ExceptionClass {
+		CholeskyDecomposition cholesky = new CholeskyDecomposition(this, regularization);
+		if(cholesky.isPositiveDefinite()) {
+			return cholesky;
+		} //if
+		return new LUDecomposition(this, regularization);
+	} //createLinearSolver
+
 	/**
 	Additions the two matrices that are passed if they are of equal size
 	(equal row - and column count).
@@ -359,26 +692,34 @@ public class Matrix {
 	- Throws error if matrices aren't of equal size/order
 	@return Matrix - matrix containing the result of the addition
 	*/
-	Matrix matrixAddition(Matrix matrix1, Matrix matrix2) throws ExceptionClass {
+	Matrix matrixAddition(final Matrix matrix1, final Matrix matrix2) throws ExceptionClass {
 		//check that the matrices isn't empty and that the size/order is equal (rowcount and columncount)
 		ExceptionClass.throwErrorIfMatrixIsEmpty(matrix1.getNumRows(), matrix1.getNumColumns());
 		ExceptionClass.throwErrorIfMatrixIsEmpty(matrix2.getNumRows(), matrix2.getNumColumns());
 		ExceptionClass.throwErrorIfMatrixNotOfEqualOrder(matrix1, matrix2);
-		int rowCount = 0,
-			columnCount = 0;
-		double value = 0;
-		rowCount = matrix1.getNumRows();
-		columnCount = matrix1.getNumColumns();
-		Matrix additionedMatrix = new Matrix(rowCount, columnCount);
-		for(int i = 0; i < rowCount; i++) {
-			for(int j = 0; j < columnCount; j++) {
-				value = matrix1.getCellValueAt(i, j) + matrix2.getCellValueAt(i, j);
-				additionedMatrix.changeCellValueAt(i, j, value);
-			} //for
-		} //for
+		Matrix additionedMatrix = new Matrix(matrix1.getNumRows(), matrix1.getNumColumns());
+		addInto(matrix1, matrix2, additionedMatrix);
 		return additionedMatrix;
 	} //matrixAddition
 
+	/**
+	Additions the two matrices, and writes the result into the passed
+	destination matrix instead of creating a new matrix. The destination
+	can be one of the two matrices (e.g. addInto(a, b, a) adds b to a).
+	A matrix sharing array with the destination, but stored in another
+	layout (e.g. addInto(a, a.getTransposedView(), a)), is copied first,
+	so no value is overwritten before it is read.
+	@param matrix1 - Matrix: Matrix containing values to be additioned with values in matrix2
+	@param matrix2 - Matrix: Matrix containing values to add to values in matrix1
+	@param destination - Matrix: Matrix to write the result to
+	@throws ExceptionClass
+	- Throws error if matrix is empty
+	- Throws error if the matrices (and destination) aren't of equal size/order
+	*/
+	static void addInto(final Matrix matrix1, final Matrix matrix2, final Matrix destination) throws ExceptionClass {
+		addOrSubtractInto(matrix1, matrix2, destination, false);
+	} //addInto
+
 	/**
 	Subtracts the two matrices that are passed if they are of equal size
 	(equal row - and column count).
@@ -390,43 +731,221 @@ public class Matrix {
 	- Throws error if matrices aren't of equal size/order
 	@return Matrix - matrix containing the result of the subtraction
 	*/
-	Matrix matrixSubstraction(Matrix matrix1, Matrix matrix2) throws ExceptionClass {
+	Matrix matrixSubstraction(final Matrix matrix1, final Matrix matrix2) throws ExceptionClass {
 		//check that the matrices isn't empty and that the size/order is equal (rowcount and columncount)
 		ExceptionClass.throwErrorIfMatrixIsEmpty(matrix1.getNumRows(), matrix1.getNumColumns());
 		ExceptionClass.throwErrorIfMatrixIsEmpty(matrix2.getNumRows(), matrix2.getNumColumns());
 		ExceptionClass.throwErrorIfMatrixNotOfEqualOrder(matrix1, matrix2);
-		int rowCount = 0,
-			columnCount = 0;
-		double value = 0;
-		rowCount = matrix1.getNumRows();
-		columnCount = matrix1.getNumColumns();
-		Matrix subtractedMatrix = new Matrix(rowCount, columnCount);
-		for(int i = 0; i < rowCount; i++) {
-			for(int j = 0; j < columnCount; j++) {
-				value = matrix1.getCellValueAt(i, j) - matrix2.getCellValueAt(i, j);
-				subtractedMatrix.changeCellValueAt(i, j, value);
-			} //for
-		} //for
+		Matrix subtractedMatrix = new Matrix(matrix1.getNumRows(), matrix1.getNumColumns());
+		subtractInto(matrix1, matrix2, subtractedMatrix);
 		return subtractedMatrix;
 	} //matrixSubstraction
 
+	/**
+	Subtracts matrix2 from matrix1, and writes the result into the passed
+	destination matrix instead of creating a new matrix. The destination
+	can be one of the two matrices (e.g. subtractInto(a, b, a) subtracts b from a).
+	A matrix sharing array with the destination, but stored in another
+	layout (e.g. a transposed view of the destination), is copied first,
+	so no value is overwritten before it is read.
+	@param matrix1 - Matrix: Matrix containing values to be subtracted from
+	@param matrix2 - Matrix: Matrix containing values to subtract from matrix1
+	@param destination - Matrix: Matrix to write the result to
+	@throws ExceptionClass
+	- Throws error if matrix is empty
+	- Throws error if the matrices (and destination) aren't of equal size/order
+	*/
+	static void subtractInto(final Matrix matrix1, final Matrix matrix2, final Matrix destination) throws ExceptionClass {
+		addOrSubtractInto(matrix1, matrix2, destination, true);
+	} //subtractInto
+
+	/**
+	Validates the sizes, and adds (or subtracts) the two matrices into
+	destination, split in row blocks (see ParallelExecution).
+	@see addInto(...), subtractInto(...)
+	*/
+	static void addOrSubtractInto(Matrix matrix1, Matrix matrix2, final Matrix destination, final boolean isSubtraction) throws ExceptionClass {
+		ExceptionClass.throwErrorIfMatrixIsEmpty(matrix1.getNumRows(), matrix1.getNumColumns());
+		ExceptionClass.throwErrorIfMatrixIsEmpty(matrix2.getNumRows(), matrix2.getNumColumns());
+		ExceptionClass.throwErrorIfMatrixNotOfEqualOrder(matrix1, matrix2);
+		ExceptionClass.throwErrorIfMatrixNotOfEqualOrder(matrix1, destination);
+		final Matrix source1 = copyIfAliased(matrix1, destination),
+			source2 = copyIfAliased(matrix2, destination);
+		ParallelExecution.runInRowBlocks(source1.getNumRows(), source1.getNumColumns(), new ParallelExecution.RowBlockTask() {
+			public void run(int fromRow, int toRow) {
+				addOrSubtractRows(source1, source2, destination, isSubtraction, fromRow, toRow);
+			} //run
+		});
+	} //addOrSubtractInto
+
+	/**
+	Returns a copy of matrix if it shares array with destination, but
+	with another layout (offset or strides), since the cells in destination
+	would then overwrite cells in matrix that haven't been read yet.
+	Otherwise (another array, or the same cells) the matrix itself is returned.
+	@param matrix - Matrix: The matrix to be read
+	@param destination - Matrix: The matrix to be written
+	@return Matrix - matrix, or a copy of it
+	*/
+	static Matrix copyIfAliased(Matrix matrix, Matrix destination) {
+		if(matrix._matrixArray == destination._matrixArray && (matrix._offset != destination._offset
+				|| matrix._rowStride != destination._rowStride || matrix._columnStride != destination._columnStride)) {
+			return matrix.createCopy();
+		} //if
+		return matrix;
+	} //copyIfAliased
+
+	/**
+	Adds (or subtracts) the rows fromRow, ..., (toRow - 1) in matrix2 to the same
+	rows in matrix1, and stores the result in resultMatrix.
+	Note! No range checks are done here; the calling function is
+	expected to have validated the sizes.
+	@param matrix1 - Matrix: Matrix containing the values to add to/subtract from
+	@param matrix2 - Matrix: Matrix containing the values to add/subtract
+	@param resultMatrix - Matrix: Matrix to store the result in
+	@param isSubtraction - boolean: True - subtract matrix2, false - add matrix2
+	@param fromRow - int: The first row to calculate
+	@param toRow - int: The row after the last row to calculate
+	*/
+	static void addOrSubtractRows(Matrix matrix1, Matrix matrix2, Matrix resultMatrix, boolean isSubtraction, int fromRow, int toRow) {
+		int columnCount = matrix1.getNumColumns(),
+			columnStride1 = matrix1._columnStride,
+			columnStride2 = matrix2._columnStride,
+			columnStrideResult = resultMatrix._columnStride,
+			index1 = 0,
+			index2 = 0,
+			indexResult = 0;
+		double[] array1 = matrix1._matrixArray,
+			array2 = matrix2._matrixArray,
+			resultArray = resultMatrix._matrixArray;
+		double sign = isSubtraction ? -1 : 1;
+		for(int i = fromRow; i < toRow; i++) {
+			index1 = matrix1.cellIndex(i, 0);
+			index2 = matrix2.cellIndex(i, 0);
+			indexResult = resultMatrix.cellIndex(i, 0);
+			if(columnStride1 == 1 && columnStride2 == 1 && columnStrideResult == 1) {
+				//all the rows are contiguous
+				for(int j = 0; j < columnCount; j++) {
+					resultArray[indexResult + j] = array1[index1 + j] + (sign * array2[index2 + j]);
+				} //for
+			} else {
+				//at least one of the matrices is a view (e.g. transposed)
+				for(int j = 0; j < columnCount; j++) {
+					resultArray[indexResult] = array1[index1] + (sign * array2[index2]);
+					index1 += columnStride1;
+					index2 += columnStride2;
+					indexResult += columnStrideResult;
+				} //for
+			} //if
+		} //for
+	} //addOrSubtractRows
+
 	/**
 	Multiplies the cell values in this matrix with the passed value.
 	Throws error if this matrix is empty.
 	@param multiplyValue - double: Value to multiply with matrix cells
 	@throws ExceptionClass - Throws error if matrix is empty
 	*/
-	void multiplyCellsWithValue(double multiplyValue) throws ExceptionClass {
-		double value = 0;
-		ExceptionClass.throwErrorIfMatrixIsEmpty(this.getNumRows(), this.getNumColumns());
-		for(int rowNo = 0; rowNo < this.getNumRows(); rowNo++) {
-			for(int columnNo = 0; columnNo < this.getNumColumns(); columnNo++) {
-				value = multiplyValue * this.getCellValueAt(rowNo, columnNo);
-				this.changeCellValueAt(rowNo, columnNo, value);
-			} //for
-		} //for
+	void multiplyCellsWithValue(final double multiplyValue) throws ExceptionClass {
+		scaleInPlace(multiplyValue);
 	} //multiplyCellsWithValue
 
+	/**
+	Multiplies the cell values in this matrix with the passed value,
+	without creating a new matrix (this = scale * this).
+	@param scale - double: Value to multiply with matrix cells
+	@throws ExceptionClass - Throws error if matrix is empty
+	*/
+	void scaleInPlace(final double scale) throws ExceptionClass {
+		ExceptionClass.throwErrorIfMatrixIsEmpty(this.getNumRows(), this.getNumColumns());
+		ParallelExecution.runInRowBlocks(this.getNumRows(), this.getNumColumns(), new ParallelExecution.RowBlockTask() {
+			public void run(int fromRow, int toRow) {
+				int index = 0,
+					columnCount = getNumColumns();
+				for(int rowNo = fromRow; rowNo < toRow; rowNo++) {
+					index = cellIndex(rowNo, 0);
+					for(int columnNo = 0; columnNo < columnCount; columnNo++) {
+						_matrixArray[index] *= scale;
+						index += _columnStride;
+					} //for
+				} //for
+			} //run
+		});
+	} //scaleInPlace
+
+	/**
+	Adds the passed matrix multiplied with alpha to this matrix,
+	without creating a new matrix (this = this + alpha * matrix).
+	The passed matrix can be a view (e.g. a transposed view), as long
+	as it is of the same size/order as this matrix.
+	@param alpha - double: Value to multiply the cells in matrix with
+	@param matrix - Matrix: Matrix containing the values to add
+	@throws ExceptionClass
+	- Throws error if matrix is empty
+	- Throws error if the matrices aren't of equal size/order
+	*/
+	void axpy(final double alpha, final Matrix matrix) throws ExceptionClass {
+		ExceptionClass.throwErrorIfMatrixIsEmpty(this.getNumRows(), this.getNumColumns());
+		ExceptionClass.throwErrorIfMatrixNotOfEqualOrder(this, matrix);
+		ParallelExecution.runInRowBlocks(this.getNumRows(), this.getNumColumns(), new ParallelExecution.RowBlockTask() {
+			public void run(int fromRow, int toRow) {
+				for(int rowNo = fromRow; rowNo < toRow; rowNo++) {
+					VectorKernels.axpy(getNumColumns(), alpha,
+						matrix._matrixArray, matrix.cellIndex(rowNo, 0), matrix._columnStride,
+						_matrixArray, cellIndex(rowNo, 0), _columnStride);
+				} //for
+			} //run
+		});
+	} //axpy
+
+	/**
+	Adds the row matrixRowNo in the passed matrix multiplied with alpha to
+	the row rowNo in this matrix (row = row + alpha * matrixRow), reading
+	both rows directly from the arrays (no views or temporaries are created).
+	@param rowNo - int: The row in this matrix to update
+	@param alpha - double: Value to multiply the cells in the row with
+	@param matrix - Matrix: Matrix containing the row to add
+	@param matrixRowNo - int: The row in matrix to add
+	@throws ExceptionClass
+	- Throws error if either of the rows isn't within range
+	- Throws error if the matrices don't have the same number of columns
+	*/
+	void axpyRow(int rowNo, double alpha, Matrix matrix, int matrixRowNo) throws ExceptionClass {
+		String errorMsg = "\nCan't add the rows.";
+		ExceptionClass.throwErrorIfMatrixRowOutOfRange(rowNo, getNumRows(), errorMsg);
+		ExceptionClass.throwErrorIfMatrixRowOutOfRange(matrixRowNo, matrix.getNumRows(), errorMsg);
+		if(matrix.getNumColumns() != getNumColumns()) {
+			throw new ExceptionClass("The rows don't have the same number of columns." + errorMsg);
+		} //if
+		VectorKernels.axpy(getNumColumns(), alpha,
+			matrix._matrixArray, matrix.cellIndex(matrixRowNo, 0), matrix._columnStride,
+			_matrixArray, cellIndex(rowNo, 0), _columnStride);
+	} //axpyRow
+
+	/**
+	Calculates the dot product of the row rowNo in this matrix and the row
+	matrixRowNo in the passed matrix, reading both rows directly from the
+	arrays (no views or temporaries are created).
+	@param rowNo - int: The row in this matrix
+	@param matrix - Matrix: Matrix containing the other row
+	@param matrixRowNo - int: The row in matrix
+	@throws ExceptionClass
+	- Throws error if either of the rows isn't within range
+	- Throws error if the matrices don't have the same number of columns
+	@return double: the dot product of the two rows
+	*/
+	double dotRows(int rowNo, Matrix matrix, int matrixRowNo) throws ExceptionClass {
+		String errorMsg = "\nCan't calculate the dot product of the rows.";
+		ExceptionClass.throwErrorIfMatrixRowOutOfRange(rowNo, getNumRows(), errorMsg);
+		ExceptionClass.throwErrorIfMatrixRowOutOfRange(matrixRowNo, matrix.getNumRows(), errorMsg);
+		if(matrix.getNumColumns() != getNumColumns()) {
+			throw new ExceptionClass("The rows don't have the same number of columns." + errorMsg);
+		} //if
+		return VectorKernels.dot(getNumColumns(),
+			_matrixArray, cellIndex(rowNo, 0), _columnStride,
+			matrix._matrixArray, matrix.cellIndex(matrixRowNo, 0), matrix._columnStride);
+	} //dotRows
+
 	/**
 	Multiplies the two matrices. If the columnCount in matrix1 isn't equal to rowCount in
 	matrix2 (requirement for matrix multiplication), then a new check is performed if
@@ -447,6 +966,26 @@ public class Matrix {
 	@return Matrix - matrix containing the result of the multiplication
 	*/
 	Matrix matrixMultiplication(Matrix matrix1, Matrix matrix2, boolean allowSwitch) throws ExceptionClass {
+		return matrixMultiplication(matrix1, matrix2, allowSwitch, false);
+	} //matrixMultiplication
+
+	/**
+	Multiplies the two matrices (see matrixMultiplication(matrix1, matrix2, allowSwitch)),
+	with the option of using the Strassen-Winograd algorithm. Strassen-Winograd
+	is faster for large matrices (it falls back to the classical multiplication
+	below StrassenMultiplication.CROSSOVER), but has a larger rounding error
+	for cells that are small compared to the largest values in the matrices.
+	@param matrix1 - Matrix: Matrix containing values to multiply with matrix2
+	@param matrix2 - Matrix: Matrix containing values to multiply from matrix1
+	@param allowSwitch: boolean - boolean value for if a switch is allowed (see above)
+	@param useStrassen: boolean - True: use Strassen-Winograd, false: use the classical multiplication
+	@throws ExceptionClass
+	- Throws error if matrix is empty
+	- Throws error if matrices aren't of equal size/order
+	@return Matrix - matrix containing the result of the multiplication
+	@see StrassenMultiplication
+	*/
+	Matrix matrixMultiplication(Matrix matrix1, Matrix matrix2, boolean allowSwitch, boolean useStrassen) throws ExceptionClass {
 		//check that the matrices isn't empty
 		ExceptionClass.throwErrorIfMatrixIsEmpty(matrix1.getNumRows(), matrix1.getNumColumns());
 		ExceptionClass.throwErrorIfMatrixIsEmpty(matrix2.getNumRows(), matrix2.getNumColumns());
@@ -470,9 +1009,9 @@ public class Matrix {
 		} //if
 		//is the matrices to be switched before multiplying them?
 		if(switchOrder) {
-			return multiplyMatrices(matrix2, matrix1);
+			return (useStrassen) ? StrassenMultiplication.multiply(matrix2, matrix1) : multiplyMatrices(matrix2, matrix1);
 		} //if
-		return multiplyMatrices(matrix1, matrix2);
+		return (useStrassen) ? StrassenMultiplication.multiply(matrix1, matrix2) : multiplyMatrices(matrix1, matrix2);
 	} //matrixMultiplication
 
 	/***
@@ -481,32 +1020,129 @@ public class Matrix {
 	rowCount of matrix1 and the columnCount of matrix2. The multiplication
 	process is to take the row value of matrix1 and multiply it with the
 	column value in matrix2 and add all these multiplied values together.
+	Larger matrices are multiplied block by block with packed copies of the
+	blocks (see BlockedMatrixMultiplication), so that the values being
+	multiplied stay in the cache. Small matrices use a simple i-k-j loop.
+	If the parallel mode is turned on, the rows of matrix1 are split
+	across the worker threads (see ParallelExecution).
 	@param matrix1 - Matrix:
 	@param matrix1 - Matrix:
+	@see BlockedMatrixMultiplication
 	*/
-	Matrix multiplyMatrices(Matrix matrix1, Matrix matrix2) throws ExceptionClass {
+	Matrix multiplyMatrices(final Matrix matrix1, final Matrix matrix2) throws ExceptionClass {
+		int rowCount = matrix1.getNumRows(),
+			innerCount = matrix1.getNumColumns(),
+			columnCount = matrix2.getNumColumns();
+		ExceptionClass.throwErrorIfColumnAndRowCountDiffers(innerCount, matrix2.getNumRows(), "\nCan't multiply the matrices.");
 		//matrix to be filled with the multiplied values
-		Matrix multipliedMatrix = new Matrix(matrix1.getNumRows(), matrix2.getNumColumns());
-		double valueMatrix1 = 0,
-			valueMatrix2 = 0,
-			sumOfM1xM2 = 0;
-		//loop through the matrices
-		for(int i = 0; i < matrix1.getNumRows(); i++) {
-			for(int j = 0; j < matrix2.getNumColumns(); j++) {
-				for(int k = 0; k < matrix1.getNumColumns(); k++) {
-					//get the values, multiply and add them together
-					valueMatrix1 = matrix1.getCellValueAt(i, k);
-					valueMatrix2 = matrix2.getCellValueAt(k, j);
-					sumOfM1xM2 += valueMatrix1 * valueMatrix2;
-				} //for
-				//set the multiplied value and reset summation variable
-				multipliedMatrix.changeCellValueAt(i, j, sumOfM1xM2);
-				sumOfM1xM2 = 0;
-			} //for
-		} //for
+		Matrix multipliedMatrix = new Matrix(rowCount, columnCount);
+		multiplyInto(matrix1, matrix2, multipliedMatrix);
 		return multipliedMatrix;
 	} //multiplyMatrices
 
+	/**
+	Multiplies a matrix stored outside the heap with matrix2. The rows of
+	matrix1 are read block by block, and the result is stored in the heap.
+	@param matrix1 - MappedMatrix: Matrix containing values to multiply with matrix2
+	@param matrix2 - Matrix: Matrix containing values to multiply from matrix1
+	@throws ExceptionClass - Throws error if column count in matrix1 isn't equal to row count in matrix2
+	@return Matrix - matrix containing the result of the multiplication
+	@see MappedMatrix.multiplyMatrices(Matrix matrix2)
+	*/
+	Matrix multiplyMatrices(MappedMatrix matrix1, Matrix matrix2) throws ExceptionClass {
+		return matrix1.multiplyMatrices(matrix2);
+	} //multiplyMatrices
+
+	/**
+	Multiplies a sparse matrix with matrix2. The time used depends on the
+	number of non-zeros in matrix1, not on its size.
+	@param matrix1 - SparseMatrix: Matrix containing values to multiply with matrix2
+	@param matrix2 - Matrix: Matrix containing values to multiply from matrix1
+	@throws ExceptionClass - Throws error if column count in matrix1 isn't equal to row count in matrix2
+	@return Matrix - matrix containing the result of the multiplication
+	@see SparseMatrix.multiply(Matrix dense)
+	*/
+	Matrix multiplyMatrices(SparseMatrix matrix1, Matrix matrix2) throws ExceptionClass {
+		return matrix1.multiply(matrix2);
+	} //multiplyMatrices
+
+	/**
+	Multiplies matrix1 with a sparse matrix.
+	@param matrix1 - Matrix: Matrix containing values to multiply with matrix2
+	@param matrix2 - SparseMatrix: Matrix containing values to multiply from matrix1
+	@throws ExceptionClass - Throws error if column count in matrix1 isn't equal to row count in matrix2
+	@return Matrix - matrix containing the result of the multiplication
+	@see SparseMatrix.multiplyFromLeft(Matrix dense)
+	*/
+	Matrix multiplyMatrices(Matrix matrix1, SparseMatrix matrix2) throws ExceptionClass {
+		return matrix2.multiplyFromLeft(matrix1);
+	} //multiplyMatrices
+
+	/**
+	Multiplies matrix1 with matrix2, and writes the result into the passed
+	destination matrix instead of creating a new matrix. The destination
+	must be row-major (e.g. created with new Matrix(rows, columns)), and
+	can't share its array with matrix1 or matrix2, since the result is
+	written while the matrices are still being read.
+	@param matrix1 - Matrix: Matrix containing values to multiply with matrix2
+	@param matrix2 - Matrix: Matrix containing values to multiply from matrix1
+	@param destination - Matrix: Matrix to write the result to
+	@throws ExceptionClass
+	- Throws error if column count in matrix1 isn't equal to row count in matrix2
+	- Throws error if destination isn't of the size of the result
+	- Throws error if destination isn't row-major, or shares array with matrix1/matrix2
+	*/
+	static void multiplyInto(final Matrix matrix1, final Matrix matrix2, final Matrix destination) throws ExceptionClass {
+		int rowCount = matrix1.getNumRows(),
+			innerCount = matrix1.getNumColumns(),
+			columnCount = matrix2.getNumColumns();
+		String errorMsg = "\nCan't multiply the matrices.";
+		ExceptionClass.throwErrorIfColumnAndRowCountDiffers(innerCount, matrix2.getNumRows(), errorMsg);
+		ExceptionClass.throwErrorIfDestinationSizeDiffers(destination, rowCount, columnCount, errorMsg);
+		if(destination._columnStride != 1 && columnCount > 1) {
+			throw new ExceptionClass("The destination matrix must be row-major (column stride of 1)." + errorMsg);
+		} //if
+		if(destination._matrixArray == matrix1._matrixArray || destination._matrixArray == matrix2._matrixArray) {
+			throw new ExceptionClass("The destination matrix can't share array with the matrices being multiplied." + errorMsg);
+		} //if
+		//the rows are added to, so clear the destination first
+		destination.fillWithValue(0);
+		ParallelExecution.runInRowBlocks(rowCount, (long) innerCount * columnCount, new ParallelExecution.RowBlockTask() {
+			public void run(int fromRow, int toRow) {
+				multiplyRows(matrix1, matrix2, destination, fromRow, toRow);
+			} //run
+		});
+	} //multiplyInto
+
+	/**
+	Multiplies the rows fromRow, ..., (toRow - 1) in matrix1 with matrix2, and
+	adds the result to the same rows in resultMatrix.
+	Note! No range checks are done here; the calling function is
+	expected to have validated the sizes.
+	@param matrix1 - Matrix: Matrix containing values to multiply with matrix2
+	@param matrix2 - Matrix: Matrix containing values to multiply from matrix1
+	@param resultMatrix - Matrix: Matrix to add the result to
+	@param fromRow - int: The first row to calculate
+	@param toRow - int: The row after the last row to calculate
+	*/
+	static void multiplyRows(Matrix matrix1, Matrix matrix2, Matrix resultMatrix, int fromRow, int toRow) {
+		//note! resultMatrix must be row-major (column stride of 1)
+		int rowCount = toRow - fromRow,
+			innerCount = matrix1.getNumColumns(),
+			columnCount = matrix2.getNumColumns();
+		if(BlockedMatrixMultiplication.isBlockingWorthwhile(rowCount, columnCount, innerCount)) {
+			BlockedMatrixMultiplication.multiply(rowCount, columnCount, innerCount,
+				matrix1._matrixArray, matrix1.cellIndex(fromRow, 0), matrix1._rowStride, matrix1._columnStride,
+				matrix2._matrixArray, matrix2._offset, matrix2._rowStride, matrix2._columnStride,
+				resultMatrix._matrixArray, resultMatrix.cellIndex(fromRow, 0), resultMatrix._rowStride);
+		} else {
+			BlockedMatrixMultiplication.multiplySimple(rowCount, columnCount, innerCount,
+				matrix1._matrixArray, matrix1.cellIndex(fromRow, 0), matrix1._rowStride, matrix1._columnStride,
+				matrix2._matrixArray, matrix2._offset, matrix2._rowStride, matrix2._columnStride,
+				resultMatrix._matrixArray, resultMatrix.cellIndex(fromRow, 0), resultMatrix._rowStride);
+		} //if
+	} //multiplyRows
+
 	/****************** ALTERATION FUNCTIONS *************************/
 
 	/***
@@ -525,6 +1161,13 @@ public class Matrix {
 		tempArray = null;
 	} //deleteTempArrayObjects
 
+	/***
+	Deletes a temporary flat array by setting the value to null
+	*/
+	void deleteTempArrayObjects(double[] tempArray) {
+		tempArray = null;
+	} //deleteTempArrayObjects
+
 	/**
 	Calculates a 2x2 matrix based on the original matrix values.
 	First the determinants are decided and swapped, and at the end the
@@ -548,24 +1191,24 @@ public class Matrix {
 		//swap a and d
 		rowPosition = 0;
 		columnPosition = 0;
-		determinantAD = _matrixArray[rowPosition][columnPosition];
+		determinantAD = _matrixArray[cellIndex(rowPosition, columnPosition)];
 		swapCellValueAt(rowPosition, columnPosition, getNumRows() - 1, getNumColumns() - 1, inverseArray);
 		//swap d and a
 		rowPosition = getNumRows() - 1;
 		columnPosition = getNumColumns() - 1;
-		determinantAD *= _matrixArray[rowPosition][columnPosition];
+		determinantAD *= _matrixArray[cellIndex(rowPosition, columnPosition)];
 		//make b negative
 		rowPosition = 0;
 		columnPosition = getNumColumns() - 1;
-		value = -_matrixArray[rowPosition][columnPosition];
+		value = -_matrixArray[cellIndex(rowPosition, columnPosition)];
 		changeCellValueAt(rowPosition, columnPosition, value, inverseArray);
-		determinantBC = _matrixArray[rowPosition][columnPosition];
+		determinantBC = _matrixArray[cellIndex(rowPosition, columnPosition)];
 		//make c negative
 		rowPosition = getNumRows() - 1;
 		columnPosition = 0;
-		value = -_matrixArray[rowPosition][columnPosition];
+		value = -_matrixArray[cellIndex(rowPosition, columnPosition)];
 		changeCellValueAt(rowPosition, columnPosition, value, inverseArray);
-		determinantBC *= _matrixArray[rowPosition][columnPosition];
+		determinantBC *= _matrixArray[cellIndex(rowPosition, columnPosition)];
 		//check that determinant isn't zero
 		value = 1 / (determinantAD - determinantBC);
 		if(value == 0) {
@@ -585,52 +1228,274 @@ public class Matrix {
 	} //inverse2DMatrix
 
 	/**
-	Transposes the original matrix. First the values from the original matrix is
-	copied, then the original matrix is deleted and reconstructed to fit the new
-	rowNo and columnNo count. Finally it's filled with the new rowNo and columnNo values.
+	Transposes the original matrix in place, without creating a new array: <br />
+	- A vector (one row or one column) keeps its values where they are, only
+	the row - and column count is swapped <br />
+	- A square matrix swaps the cells [i][j] and [j][i], block by block <br />
+	- Other matrices are transposed by following the cycles of the
+	permutation [i][j] -> [j][i] through the array <br />
+	A view that isn't contiguous (e.g. a transposed view) is copied into a
+	new row-major array instead. Note! Views sharing the array with this
+	matrix will see the transposed values.
+	Note! Following the cycles jumps around the whole array, and is much
+	slower than reading through getTransposedView() (a 1500x1000 matrix
+	takes about 250 ms, versus 10 - 50 ms to copy the transposed view),
+	so don't use this in loops or repeated calculations.
+	@see getTransposedView()
 	*/
 	void transposeMatrix() throws ExceptionClass {
 		//check that the matrix has at least one rowNo and columnNo
 		if(getNumRows() > 0 && getNumColumns() > 0) {
-			double value = 0;
-			int oldRowCount = 0,
-				oldColumnCount = 0,
-				newRowCount = 0,
-				newColumnCount = 0;
-			double[][] tempArray = new double[0][0];
-			//get current count for rows and columns
-			oldRowCount = getNumRows();
-			oldColumnCount = getNumColumns();
-			//set the new count for rows and columns (tranpose)
-			newRowCount = oldColumnCount;
-			newColumnCount = oldRowCount;
-			//copy the content of the current matrix
-			tempArray = createMatrixArray(oldRowCount, oldColumnCount);
-			for(int i = 0; i < oldRowCount; i++) {
-				for(int j = 0; j < oldColumnCount; j++) {
-					tempArray[i][j] = _matrixArray[i][j];
+			int oldRowCount = getNumRows(),
+				oldColumnCount = getNumColumns();
+			if(!isContiguous()) {
+				transposeIntoNewArray();
+			} else if(oldRowCount == oldColumnCount) {
+				transposeSquareInPlace();
+			} else if(oldRowCount > 1 && oldColumnCount > 1) {
+				transposeRectangularInPlace();
+			} //if
+			//the values are now stored row-major in the transposed order,
+			//set the new rowNo and columnNo count (tranpose)
+			_rowStride = oldRowCount;
+			_columnStride = 1;
+			setNewRowCount(oldColumnCount);
+			setNewColumnCount(oldRowCount);
+		} //if
+	} //transposeMatrix
+
+	/**
+	Returns a transposed view of this matrix. The view shares the array
+	with this matrix (nothing is copied), and only swaps the row - and
+	column stride. The calculation functions read the view directly,
+	so it can be used in e.g. matrixAddition and matrixMultiplication
+	without creating a transposed copy. Changes to the values in one of
+	the matrices are seen by the other.
+	@return Matrix - a transposed view of this matrix
+	*/
+	Matrix getTransposedView() {
+		return new Matrix(_matrixArray, getNumColumns(), getNumRows(), _offset, _columnStride, _rowStride);
+	} //getTransposedView
+
+	/**
+	Returns a 1xN view of the row rowNo. The view shares the array with
+	this matrix (nothing is copied), so it can be passed directly to the
+	calculation functions (e.g. getRowView(i).getTransposedView() is
+	the row as a Nx1 vector).
+	@param rowNo - int: The row to view
+	@throws ExceptionClass - Throws error if the rowNo isn't within range
+	@return Matrix - a view of the row
+	*/
+	Matrix getRowView(int rowNo) throws ExceptionClass {
+		ExceptionClass.throwErrorIfMatrixRowOutOfRange(rowNo, getNumRows(), "\nCan't create the row view.");
+		return new Matrix(_matrixArray, 1, getNumColumns(), cellIndex(rowNo, 0), _rowStride, _columnStride);
+	} //getRowView
+
+	/**
+	Returns a Nx1 view of the column columnNo, sharing the array with this matrix.
+	@param columnNo - int: The column to view
+	@throws ExceptionClass - Throws error if the columnNo isn't within range
+	@return Matrix - a view of the column
+	*/
+	Matrix getColumnView(int columnNo) throws ExceptionClass {
+		ExceptionClass.throwErrorIfMatrixColumnOutOfRange(columnNo, getNumColumns(), "\nCan't create the column view.");
+		return new Matrix(_matrixArray, getNumRows(), 1, cellIndex(0, columnNo), _rowStride, _columnStride);
+	} //getColumnView
+
+	/**
+	Returns a view of the numRows x numColumns block starting at
+	[fromRow][fromColumn], sharing the array with this matrix.
+	@param fromRow - int: The first row in the block
+	@param fromColumn - int: The first column in the block
+	@param numRows - int: The number of rows in the block
+	@param numColumns - int: The number of columns in the block
+	@throws ExceptionClass - Throws error if the block isn't within the matrix
+	@return Matrix - a view of the block
+	*/
+	Matrix getSubMatrixView(int fromRow, int fromColumn, int numRows, int numColumns) throws ExceptionClass {
+		String errorMsg = "\nCan't create the sub-matrix view.";
+		ExceptionClass.throwErrorIfMatrixIsEmpty(numRows, numColumns);
+		ExceptionClass.throwErrorIfMatrixRowOutOfRange(fromRow, getNumRows(), errorMsg);
+		ExceptionClass.throwErrorIfMatrixRowOutOfRange(fromRow + numRows - 1, getNumRows(), errorMsg);
+		ExceptionClass.throwErrorIfMatrixColumnOutOfRange(fromColumn, getNumColumns(), errorMsg);
+		ExceptionClass.throwErrorIfMatrixColumnOutOfRange(fromColumn + numColumns - 1, getNumColumns(), errorMsg);
+		return new Matrix(_matrixArray, numRows, numColumns, cellIndex(fromRow, fromColumn), _rowStride, _columnStride);
+	} //getSubMatrixView
+
+	/**
+	Returns a view of the rows rowIndexes[0], ..., rowIndexes[numRows - 1]
+	in this matrix (e.g. the samples belonging to one cluster). Nothing is
+	copied; the rows are read from this matrix when the view is used.
+	Note! The rowIndexes array is used directly, so it can be reused
+	(refilled) for the next view, but not while this view is in use.
+	@param rowIndexes - int[]: The rows to view
+	@param numRows - int: The number of indexes to use from rowIndexes
+	@throws ExceptionClass - Throws error if a row index isn't within range
+	@return RowSelectionView - a view of the selected rows
+	@see RowSelectionView
+	*/
+	RowSelectionView getRowsView(int[] rowIndexes, int numRows) throws ExceptionClass {
+		String errorMsg = "\nCan't create the row selection view.";
+		ExceptionClass.throwErrorIfMatrixIsEmpty(numRows, getNumColumns());
+		ExceptionClass.throwErrorIfSizeGreaterThenValue(numRows, rowIndexes.length, "The view can't contain "
+			+ (numRows) + " rows, since only " + (rowIndexes.length) + " row indexes are passed." + errorMsg);
+		for(int i = 0; i < numRows; i++) {
+			ExceptionClass.throwErrorIfMatrixRowOutOfRange(rowIndexes[i], getNumRows(), errorMsg);
+		} //for
+		return new RowSelectionView(this, rowIndexes, numRows);
+	} //getRowsView
+
+	/**
+	Creates a new row-major matrix containing a copy of the values in
+	this matrix (or view).
+	@return Matrix - a copy of this matrix
+	*/
+	Matrix createCopy() {
+		int numRows = getNumRows(),
+			numColumns = getNumColumns(),
+			index = 0;
+		Matrix copyMatrix = new Matrix(numRows, numColumns);
+		double[] copyArray = copyMatrix._matrixArray;
+		for(int i = 0; i < numRows; i++) {
+			index = cellIndex(i, 0);
+			if(_columnStride == 1) {
+				System.arraycopy(_matrixArray, index, copyArray, i * numColumns, numColumns);
+			} else {
+				for(int j = 0; j < numColumns; j++) {
+					copyArray[(i * numColumns) + j] = _matrixArray[index];
+					index += _columnStride;
 				} //for
-			} //for
-			//delete the old matrix and recreate it
-			deleteMatrix();
-			_matrixArray = createMatrixArray(newRowCount, newColumnCount);
-			//set new range for _matrixArray's rowNo and columnNo count
-			setNewRowCount(newRowCount);
-			setNewColumnCount(newColumnCount);
-			//fill _matrixArray with the tranposed values
-			for(int i = 0; i < oldRowCount; i++) {
-				for(int j = 0; j < oldColumnCount; j++) {
-					//getting tranposed position and value
-					newRowCount = j;
-					newColumnCount = i;
-					value = tempArray[i][j];
-					//add the value to _matrixArray
-					changeCellValueAt(newRowCount, newColumnCount, value);
+			} //if
+		} //for
+		return copyMatrix;
+	} //createCopy
+
+	/**
+	Creates a reader returning the rows of this matrix (or view),
+	e.g. for createCoVarianceFromRows(...)
+	@return RowReader - reader copying one row at the time
+	*/
+	RowReader createRowReader() {
+		final double[] matrixArray = _matrixArray;
+		final int numColumns = getNumColumns(),
+			columnStride = _columnStride;
+		return new RowReader() {
+			public void readRow(int rowNo, double[] row) {
+				int index = cellIndex(rowNo, 0);
+				if(columnStride == 1) {
+					System.arraycopy(matrixArray, index, row, 0, numColumns);
+					return;
+				} //if
+				for(int j = 0; j < numColumns; j++) {
+					row[j] = matrixArray[index];
+					index += columnStride;
+				} //for
+			} //readRow
+		};
+	} //createRowReader
+
+	/**
+	Creates an immutable snapshot of the values in this matrix (or view),
+	which can be shared between threads. Later changes to this matrix
+	aren't seen by the snapshot.
+	@return ImmutableMatrix - a snapshot of this matrix
+	@see ImmutableMatrix
+	*/
+	ImmutableMatrix createSnapshot() {
+		return new ImmutableMatrix(this);
+	} //createSnapshot
+
+	/**
+	Transposes a contiguous square matrix in place, by swapping the cells
+	[i][j] and [j][i]. The matrix is handled in blocks, so that both the
+	rows being read and the rows being written stays in the cache.
+	*/
+	void transposeSquareInPlace() {
+		int size = getNumRows(),
+			blockSize = TRANSPOSE_BLOCK_SIZE,
+			rowEnd = 0,
+			columnEnd = 0,
+			indexIJ = 0,
+			indexJI = 0;
+		double value = 0;
+		for(int blockRow = 0; blockRow < size; blockRow += blockSize) {
+			rowEnd = Math.min(blockRow + blockSize, size);
+			for(int blockColumn = blockRow; blockColumn < size; blockColumn += blockSize) {
+				columnEnd = Math.min(blockColumn + blockSize, size);
+				for(int i = blockRow; i < rowEnd; i++) {
+					//on the diagonal block, only swap the cells above the diagonal
+					for(int j = Math.max(blockColumn, i + 1); j < columnEnd; j++) {
+						indexIJ = _offset + (i * size) + j;
+						indexJI = _offset + (j * size) + i;
+						value = _matrixArray[indexIJ];
+						_matrixArray[indexIJ] = _matrixArray[indexJI];
+						_matrixArray[indexJI] = value;
+					} //for
 				} //for
 			} //for
-			deleteTempArrayObjects(tempArray);
-		} //if
-	} //transposeMatrix
+		} //for
+	} //transposeSquareInPlace
+
+	/**
+	Transposes a contiguous rows x columns matrix in place by following
+	cycles. The value at position p (counted from the offset) moves to
+	(p * rows) mod (rows * columns - 1). Each cycle is only moved from its
+	lowest position (the leader), which is found by walking the cycle, so
+	no array is needed to remember which positions are done.
+	*/
+	void transposeRectangularInPlace() {
+		int rows = getNumRows(),
+			lastPosition = (rows * getNumColumns()) - 1,
+			position = 0,
+			nextPosition = 0;
+		long longRows = rows;
+		double value = 0,
+			nextValue = 0;
+		//the first and last positions never move
+		for(int start = 1; start < lastPosition; start++) {
+			//walk the cycle, and skip it if a lower position is in it
+			position = (int) ((start * longRows) % lastPosition);
+			while(position > start) {
+				position = (int) ((position * longRows) % lastPosition);
+			} //while
+			if(position == start) {
+				//start is the leader, move all the values in the cycle
+				value = _matrixArray[_offset + start];
+				position = start;
+				do {
+					nextPosition = (int) ((position * longRows) % lastPosition);
+					nextValue = _matrixArray[_offset + nextPosition];
+					_matrixArray[_offset + nextPosition] = value;
+					value = nextValue;
+					position = nextPosition;
+				} while(position != start);
+			} //if
+		} //for
+	} //transposeRectangularInPlace
+
+	/**
+	Copies the transposed values of this matrix into a new row-major array,
+	which then replaces the original array. Used for views that aren't
+	contiguous, and therefore can't be transposed in place.
+	*/
+	void transposeIntoNewArray() {
+		int oldRowCount = getNumRows(),
+			oldColumnCount = getNumColumns(),
+			index = 0;
+		double[] transposedArray = createFlatMatrixArray(oldColumnCount, oldRowCount);
+		for(int i = 0; i < oldRowCount; i++) {
+			index = cellIndex(i, 0);
+			for(int j = 0; j < oldColumnCount; j++) {
+				transposedArray[(j * oldRowCount) + i] = _matrixArray[index];
+				index += _columnStride;
+			} //for
+		} //for
+		//replace the old array
+		_matrixArray = transposedArray;
+		_offset = 0;
+		_rowStride = oldRowCount;
+		_columnStride = 1;
+	} //transposeIntoNewArray
 
 	/**
 	Transposes the passed matrix transposeArray. First the values from are
@@ -710,14 +1575,80 @@ public class Matrix {
 			errorMsg = "The number of row values is higher then the row count. \nCan't fill matrix with values.";
 			ExceptionClass.throwErrorIfSizeGreaterThenValue(max_size, rowCount, errorMsg);
 			//fill the matrix array with rowNo values from the list
+			int index = cellIndex(0, columnNo);
 			for(int i = 0; i < max_size; i++) {
-				_matrixArray[i][columnNo] = values.get(i);
+				_matrixArray[index] = values.get(i);
+				index += _rowStride;
 			} //for
 		} catch(ExceptionClass ex) {
 			throw ex;
 		} //try/catch
 	} //fillMatrixWithValues
 
+	/**
+	Sets all the cells in the matrix to the passed value
+	@param value - double: The value to set
+	*/
+	void fillWithValue(double value) {
+		int index = 0;
+		for(int i = 0; i < getNumRows(); i++) {
+			index = cellIndex(i, 0);
+			for(int j = 0; j < getNumColumns(); j++) {
+				_matrixArray[index] = value;
+				index += _columnStride;
+			} //for
+		} //for
+	} //fillWithValue
+
+	/**
+	Copies the values in this matrix into the passed destination matrix,
+	without creating a new matrix. Both matrices can be views.
+	@param destination - Matrix: The matrix to copy the values to
+	@throws ExceptionClass - Throws error if the matrices aren't of equal size/order
+	*/
+	void copyInto(Matrix destination) throws ExceptionClass {
+		ExceptionClass.throwErrorIfMatrixNotOfEqualOrder(this, destination);
+		for(int i = 0; i < getNumRows(); i++) {
+			copyRow(i, destination, i);
+		} //for
+	} //copyInto
+
+	/**
+	Copies the row rowNo in this matrix into the row destinationRow in the
+	passed destination matrix, without creating a new matrix.
+	@param rowNo - int: The row to copy
+	@param destination - Matrix: The matrix to copy the row to
+	@param destinationRow - int: The row in destination to copy to
+	@throws ExceptionClass
+	- Throws error if the rows aren't within range
+	- Throws error if the column count in the matrices differs
+	*/
+	void copyRowInto(int rowNo, Matrix destination, int destinationRow) throws ExceptionClass {
+		String errorMsg = "\nCan't copy the row.";
+		ExceptionClass.throwErrorIfMatrixRowOutOfRange(rowNo, getNumRows(), errorMsg);
+		ExceptionClass.throwErrorIfMatrixRowOutOfRange(destinationRow, destination.getNumRows(), errorMsg);
+		ExceptionClass.throwErrorIfDestinationSizeDiffers(destination, destination.getNumRows(), getNumColumns(), errorMsg);
+		copyRow(rowNo, destination, destinationRow);
+	} //copyRowInto
+
+	/**
+	Copies a row without range checks (see copyRowInto(...))
+	*/
+	void copyRow(int rowNo, Matrix destination, int destinationRow) {
+		int index = cellIndex(rowNo, 0),
+			destinationIndex = destination.cellIndex(destinationRow, 0);
+		double[] destinationArray = destination._matrixArray;
+		if(_columnStride == 1 && destination._columnStride == 1) {
+			System.arraycopy(_matrixArray, index, destinationArray, destinationIndex, getNumColumns());
+			return;
+		} //if
+		for(int j = 0; j < getNumColumns(); j++) {
+			destinationArray[destinationIndex] = _matrixArray[index];
+			index += _columnStride;
+			destinationIndex += destination._columnStride;
+		} //for
+	} //copyRow
+
 	/**
 	Creates a new matrix array filled with zero's. The matrix arrays
 	size is based on the passed values numRows and numColumns.
@@ -739,6 +1670,46 @@ public class Matrix {
 		return newArray;
 	} //createMatrixArray
 
+	/**
+	Creates a new flat (row-major) matrix array filled with zero's.
+	The array's length is numRows * numColumns, and the cell [i][j]
+	is found at position (i * numColumns) + j.
+	@param numRows - int: The number of rows the matrix shall have
+	@param numColumns - int: The number of columns the matrix shall have
+	*/
+	double[] createFlatMatrixArray(int numRows, int numColumns) {
+		//Java initialises the new array to zero
+		return new double[numRows * numColumns];
+	} //createFlatMatrixArray
+
+	/**
+	Returns the position of the cell [rowNo][columnNo] in _matrixArray.
+	Note! No range checks are done here; the calling function is
+	expected to have validated rowNo and columnNo.
+	@param rowNo - int: The rowNo of the cell
+	@param columnNo - int: The columnNo of the cell
+	@return int: the position of the cell in _matrixArray
+	*/
+	int cellIndex(int rowNo, int columnNo) {
+		return _offset + (rowNo * _rowStride) + (columnNo * _columnStride);
+	} //cellIndex
+
+	/**
+	Returns the sum of all the values in the passed columnNo.
+	Note! No range checks are done here.
+	@param columnNo - int: The columnNo to sum
+	@return double: The sum of the values in the column
+	*/
+	double sumOfColumn(int columnNo) {
+		double sum = 0;
+		int index = cellIndex(0, columnNo);
+		for(int i = 0; i < getNumRows(); i++) {
+			sum += _matrixArray[index];
+			index += _rowStride;
+		} //for
+		return sum;
+	} //sumOfColumn
+
 	/**
 	Changes the cell value at given position in the original matrix.
 	Throws error if the passed rowNo/columnNo value isn't within range.
@@ -758,7 +1729,7 @@ public class Matrix {
 			errorMsg = "\nCan't change value at position ["
 				+ (rowNo) + "," + (columnNo) + "]";
 			ExceptionClass.throwErrorIfMatrixColumnOutOfRange(columnNo, getNumColumns(), errorMsg);
-			_matrixArray[rowNo][columnNo] = value;
+			_matrixArray[cellIndex(rowNo, columnNo)] = value;
 		} catch(ExceptionClass ex) {
 			throw ex;
 		} //try/catch
@@ -777,9 +1748,9 @@ public class Matrix {
 	*/
 	void swapCellValueAt(int fromRow, int fromColumn, int toRow, int toColumn, double matrixArray[][]) {
 		double currentValue = 0;
-		currentValue = _matrixArray[fromRow][fromColumn];
+		currentValue = _matrixArray[cellIndex(fromRow, fromColumn)];
 		changeCellValueAt(toRow, toColumn, currentValue, matrixArray);
-		currentValue = _matrixArray[toRow][toColumn];
+		currentValue = _matrixArray[cellIndex(toRow, toColumn)];
 		changeCellValueAt(fromRow, fromColumn, currentValue, matrixArray);
 	} //swapCellValueAt
 
@@ -812,10 +1783,44 @@ public class Matrix {
 		return _numColumns;
 	} //getNumColumns
 
-	double[][] getMatrix() {
+	/**
+	Returns the array containing the matrix values.
+	The cell [rowNo][columnNo] is found at position
+	getOffset() + (rowNo * getRowStride()) + (columnNo * getColumnStride()).
+	*/
+	double[] getMatrix() {
 		return _matrixArray;
 	} //getMatrix
 
+	/**
+	Returns the position of the cell [0][0] in the matrix array
+	*/
+	int getOffset() {
+		return _offset;
+	} //getOffset
+
+	/**
+	Returns the distance between the start of two rows in the matrix array
+	*/
+	int getRowStride() {
+		return _rowStride;
+	} //getRowStride
+
+	/**
+	Returns the distance between two cells in the same row in the matrix array
+	*/
+	int getColumnStride() {
+		return _columnStride;
+	} //getColumnStride
+
+	/**
+	Returns true if the matrix is stored row-major with no gaps between
+	the rows, i.e. the cells fill numRows * numColumns positions in a row
+	*/
+	boolean isContiguous() {
+		return _columnStride == 1 && (_rowStride == getNumColumns() || getNumRows() <= 1);
+	} //isContiguous
+
 	/**
 	Function to create and possibly return an identity matrix.
 	Currently not created.
@@ -849,7 +1854,7 @@ public class Matrix {
 			errorMsg = "\nCan't retrieve value at position ["
 				+ (rowNo) + "," + (columnNo) + "]";
 			ExceptionClass.throwErrorIfMatrixColumnOutOfRange(columnNo, getNumColumns(), errorMsg);
-			cellValue = _matrixArray[rowNo][columnNo];
+			cellValue = _matrixArray[cellIndex(rowNo, columnNo)];
 		} catch(ExceptionClass ex) {
 			throw ex;
 		} //try/catch
@@ -0,0 +1,331 @@
+package macs.hig.imt4072_library;
+
+/**
+Class recording a chain of elementwise matrix operations (addition,
+subtraction, elementwise multiplication, scaling and transposing) as
+an expression tree, without calculating anything. The whole tree is
+calculated in one fused pass when evaluate() is called, so the
+intermediate results are never stored as full matrices.
+The evaluation is done row by row: each node writes its part of the row
+into a small buffer (one per depth in the tree), which stays in the L1 cache.
+A transpose is moved down to the matrices at the leaves, where it
+becomes a transposed view (no copying). A matrix multiplication is not
+elementwise, and forces the evaluation of both operands.
+Example: <br />
+MatrixExpression.of(w).add(MatrixExpression.of(x).scale(n).transpose()).evaluateInto(w)
+@Author  Knut Lucas Andersen
+*/
+public class MatrixExpression {
+	//the node is a matrix (leaf)
+	final static int OP_MATRIX = 0;
+	//the node is left + right
+	final static int OP_ADD = 1;
+	//the node is left - right
+	final static int OP_SUBTRACT = 2;
+	//the node is left * right (cell by cell)
+	final static int OP_MULTIPLY_ELEMENTS = 3;
+	//the node is factor * left
+	final static int OP_SCALE = 4;
+	//the operation in this node
+	private int _operation;
+	//the matrix (only used by OP_MATRIX)
+	private Matrix _matrix;
+	//the left (or only) operand
+	private MatrixExpression _left;
+	//the right operand
+	private MatrixExpression _right;
+	//the scale factor (only used by OP_SCALE)
+	private double _factor;
+	//the size of the result
+	private int _numRows;
+	private int _numColumns;
+	//the number of nodes from this node down to the deepest leaf
+	private int _height;
+
+	/**
+	Constructor creating a node in the expression tree.
+	Use of(...) and the operation functions to create expressions.
+	*/
+	private MatrixExpression(int operation, Matrix matrix, MatrixExpression left, MatrixExpression right, double factor, int numRows, int numColumns) {
+		_operation = operation;
+		_matrix = matrix;
+		_left = left;
+		_right = right;
+		_factor = factor;
+		_numRows = numRows;
+		_numColumns = numColumns;
+		_height = 1;
+		if(left != null) {
+			_height = Math.max(_height, left._height);
+		} //if
+		if(right != null) {
+			//the right operand is written one buffer further down
+			_height = Math.max(_height, right._height + 1);
+		} //if
+	} //constructor
+
+	/**
+	Creates an expression containing the passed matrix (no values are copied).
+	@param matrix - Matrix: The matrix to use in the expression
+	@throws ExceptionClass - Throws error if the matrix is empty
+	@return MatrixExpression - the expression
+	*/
+	static MatrixExpression of(Matrix matrix) throws ExceptionClass {
+		ExceptionClass.throwErrorIfMatrixIsEmpty(matrix.getNumRows(), matrix.getNumColumns());
+		return new MatrixExpression(OP_MATRIX, matrix, null, null, 0, matrix.getNumRows(), matrix.getNumColumns());
+	} //of
+
+	/***************** OPERATION FUNCTIONS *******************/
+
+	/**
+	Records this + other
+	@param other - MatrixExpression: The expression to add
+	@throws ExceptionClass - Throws error if the expressions aren't of equal size/order
+	@return MatrixExpression - the expression
+	*/
+	MatrixExpression add(MatrixExpression other) throws ExceptionClass {
+		return createElementwise(OP_ADD, other, "\nCan't add the matrices.");
+	} //add
+
+	/**
+	Records this + matrix
+	@see add(MatrixExpression other)
+	*/
+	MatrixExpression add(Matrix matrix) throws ExceptionClass {
+		return add(of(matrix));
+	} //add
+
+	/**
+	Records this - other
+	@param other - MatrixExpression: The expression to subtract
+	@throws ExceptionClass - Throws error if the expressions aren't of equal size/order
+	@return MatrixExpression - the expression
+	*/
+	MatrixExpression subtract(MatrixExpression other) throws ExceptionClass {
+		return createElementwise(OP_SUBTRACT, other, "\nCan't subtract the matrices.");
+	} //subtract
+
+	/**
+	Records this - matrix
+	@see subtract(MatrixExpression other)
+	*/
+	MatrixExpression subtract(Matrix matrix) throws ExceptionClass {
+		return subtract(of(matrix));
+	} //subtract
+
+	/**
+	Records this * other, where each cell is multiplied with the same cell in other
+	@param other - MatrixExpression: The expression to multiply with
+	@throws ExceptionClass - Throws error if the expressions aren't of equal size/order
+	@return MatrixExpression - the expression
+	*/
+	MatrixExpression multiplyElements(MatrixExpression other) throws ExceptionClass {
+		return createElementwise(OP_MULTIPLY_ELEMENTS, other, "\nCan't multiply the cells.");
+	} //multiplyElements
+
+	/**
+	Records factor * this. Two scalings after each other are joined into one.
+	@param factor - double: The value to multiply the cells with
+	@return MatrixExpression - the expression
+	*/
+	MatrixExpression scale(double factor) {
+		if(_operation == OP_SCALE) {
+			return new MatrixExpression(OP_SCALE, null, _left, null, _factor * factor, _numRows, _numColumns);
+		} //if
+		return new MatrixExpression(OP_SCALE, null, this, null, factor, _numRows, _numColumns);
+	} //scale
+
+	/**
+	Records the transpose of this. Since all the operations are elementwise,
+	the transpose is moved down to the matrices at the leaves, where it
+	becomes a transposed view.
+	@return MatrixExpression - the expression
+	*/
+	MatrixExpression transpose() {
+		switch(_operation) {
+			case OP_MATRIX:
+				return new MatrixExpression(OP_MATRIX, _matrix.getTransposedView(), null, null, 0, _numColumns, _numRows);
+			case OP_SCALE:
+				return new MatrixExpression(OP_SCALE, null, _left.transpose(), null, _factor, _numColumns, _numRows);
+			default:
+				return new MatrixExpression(_operation, null, _left.transpose(), _right.transpose(), 0, _numColumns, _numRows);
+		} //switch
+	} //transpose
+
+	/**
+	Records this * other (matrix multiplication). The multiplication isn't
+	elementwise, so both expressions are evaluated first, and the result
+	is returned as a new expression.
+	@param other - MatrixExpression: The expression to multiply with
+	@throws ExceptionClass - Throws error if the column count in this isn't equal to the row count in other
+	@return MatrixExpression - expression containing the result
+	*/
+	MatrixExpression multiply(MatrixExpression other) throws ExceptionClass {
+		ExceptionClass.throwErrorIfColumnAndRowCountDiffers(_numColumns, other._numRows, "\nCan't multiply the matrices.");
+		Matrix result = new Matrix(_numRows, other._numColumns);
+		Matrix.multiplyInto(evaluateOperand(), other.evaluateOperand(), result);
+		return of(result);
+	} //multiply
+
+	/***************** EVALUATION FUNCTIONS *******************/
+
+	/**
+	Calculates the expression, and returns the result in a new matrix
+	@throws ExceptionClass - Throws error if the evaluation failed
+	@return Matrix - the result
+	*/
+	Matrix evaluate() throws ExceptionClass {
+		Matrix result = new Matrix(_numRows, _numColumns);
+		evaluateInto(result);
+		return result;
+	} //evaluate
+
+	/**
+	Calculates the expression, and writes the result into the passed
+	destination matrix. The destination can be one of the matrices in the
+	expression (e.g. w = w + n * x); if it is used with another layout
+	(e.g. as a transposed view), the result is calculated into a temporary
+	matrix first, since the values would otherwise be overwritten before
+	they are read.
+	If the parallel mode is turned on, the rows are split across the
+	worker threads (see ParallelExecution).
+	@param destination - Matrix: The matrix to write the result to
+	@throws ExceptionClass - Throws error if the destination isn't of the size of the result
+	*/
+	void evaluateInto(final Matrix destination) throws ExceptionClass {
+		ExceptionClass.throwErrorIfDestinationSizeDiffers(destination, _numRows, _numColumns, "\nCan't evaluate the expression.");
+		if(isOverlappingWith(destination)) {
+			Matrix result = evaluate();
+			result.copyInto(destination);
+			return;
+		} //if
+		ParallelExecution.runInRowBlocks(_numRows, (long) _numColumns * _height, new ParallelExecution.RowBlockTask() {
+			public void run(int fromRow, int toRow) {
+				double[][] buffers = new double[_height][_numColumns];
+				double[] destinationArray = destination.getMatrix();
+				int index = 0,
+					columnStride = destination.getColumnStride();
+				for(int rowNo = fromRow; rowNo < toRow; rowNo++) {
+					evaluateRow(rowNo, buffers, 0);
+					index = destination.cellIndex(rowNo, 0);
+					for(int j = 0; j < _numColumns; j++) {
+						destinationArray[index] = buffers[0][j];
+						index += columnStride;
+					} //for
+				} //for
+			} //run
+		});
+	} //evaluateInto
+
+	/************************* PRIVATE FUNCTIONS *********************************/
+
+	/**
+	Creates a node for an elementwise operation between this and other
+	*/
+	MatrixExpression createElementwise(int operation, MatrixExpression other, String errorMsg) throws ExceptionClass {
+		if(_numRows != other._numRows || _numColumns != other._numColumns) {
+			errorMsg = "The expressions aren't of equal size/order ("
+				+ (_numRows) + "x" + (_numColumns) + " and "
+				+ (other._numRows) + "x" + (other._numColumns) + ")." + errorMsg;
+			throw new ExceptionClass(errorMsg);
+		} //if
+		return new MatrixExpression(operation, null, this, other, 0, _numRows, _numColumns);
+	} //createElementwise
+
+	/**
+	Returns the matrix if this is a leaf, otherwise the evaluated result
+	*/
+	Matrix evaluateOperand() throws ExceptionClass {
+		if(_operation == OP_MATRIX) {
+			return _matrix;
+		} //if
+		return evaluate();
+	} //evaluateOperand
+
+	/**
+	Calculates row rowNo of this node into buffers[depth]. The left operand
+	is written to the same buffer, and the right operand to the next buffer.
+	*/
+	void evaluateRow(int rowNo, double[][] buffers, int depth) {
+		int index = 0,
+			columnStride = 0;
+		double[] row = buffers[depth],
+			rightRow = null,
+			array = null;
+		switch(_operation) {
+			case OP_MATRIX:
+				array = _matrix.getMatrix();
+				index = _matrix.cellIndex(rowNo, 0);
+				columnStride = _matrix.getColumnStride();
+				for(int j = 0; j < _numColumns; j++) {
+					row[j] = array[index];
+					index += columnStride;
+				} //for
+				break;
+			case OP_SCALE:
+				_left.evaluateRow(rowNo, buffers, depth);
+				for(int j = 0; j < _numColumns; j++) {
+					row[j] *= _factor;
+				} //for
+				break;
+			case OP_ADD:
+				_left.evaluateRow(rowNo, buffers, depth);
+				_right.evaluateRow(rowNo, buffers, depth + 1);
+				rightRow = buffers[depth + 1];
+				for(int j = 0; j < _numColumns; j++) {
+					row[j] += rightRow[j];
+				} //for
+				break;
+			case OP_SUBTRACT:
+				_left.evaluateRow(rowNo, buffers, depth);
+				_right.evaluateRow(rowNo, buffers, depth + 1);
+				rightRow = buffers[depth + 1];
+				for(int j = 0; j < _numColumns; j++) {
+					row[j] -= rightRow[j];
+				} //for
+				break;
+			case OP_MULTIPLY_ELEMENTS:
+				_left.evaluateRow(rowNo, buffers, depth);
+				_right.evaluateRow(rowNo, buffers, depth + 1);
+				rightRow = buffers[depth + 1];
+				for(int j = 0; j < _numColumns; j++) {
+					row[j] *= rightRow[j];
+				} //for
+				break;
+		} //switch
+	} //evaluateRow
+
+	/**
+	Checks if a matrix in the expression shares array with the destination,
+	but with another layout (offset, row stride or column stride). Reading
+	and writing the same cells row by row is safe, everything else isn't.
+	*/
+	boolean isOverlappingWith(Matrix destination) {
+		if(_operation == OP_MATRIX) {
+			return _matrix.getMatrix() == destination.getMatrix()
+				&& (_matrix.getOffset() != destination.getOffset()
+				|| _matrix.getRowStride() != destination.getRowStride()
+				|| _matrix.getColumnStride() != destination.getColumnStride());
+		} //if
+		if(_left.isOverlappingWith(destination)) {
+			return true;
+		} //if
+		return _right != null && _right.isOverlappingWith(destination);
+	} //isOverlappingWith
+
+	/**********************GET & SET METHODS *****************************/
+
+	/**
+	Returns the number of rows in the result
+	*/
+	int getNumRows() {
+		return _numRows;
+	} //getNumRows
+
+	/**
+	Returns the number of columns in the result
+	*/
+	int getNumColumns() {
+		return _numColumns;
+	} //getNumColumns
+}
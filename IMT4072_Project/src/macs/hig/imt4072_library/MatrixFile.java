@@ -0,0 +1,462 @@
+package macs.hig.imt4072_library;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+Class for storing matrices in a compact, versioned binary file format,
+and loading them again without parsing or boxing the values.
+The file contains a header of HEADER_SIZE bytes, followed by the values
+(the payload). Everything is stored as little-endian: <br />
+- bytes 0-3: the magic number "IMTM" <br />
+- bytes 4-7: the format version (int) <br />
+- bytes 8-11: the data type, DTYPE_FLOAT64 or DTYPE_FLOAT32 (int) <br />
+- bytes 12-15: the layout, LAYOUT_ROW_MAJOR or LAYOUT_COLUMN_MAJOR (int) <br />
+- bytes 16-19: the number of rows (int) <br />
+- bytes 20-23: the number of columns (int) <br />
+- bytes 24-31: reserved (zero), so the payload starts on an 8 byte boundary <br />
+The matrices are written in chunks of WRITE_BUFFER_SIZE bytes, so no
+copy of the whole file is kept in memory. When loading, the payload is
+mapped and copied in bulk into the matrix array, or (mapMatrix) used
+directly as the storage of a MappedMatrix, without copying anything.
+@Author  Knut Lucas Andersen
+*/
+public class MatrixFile {
+	//the magic number at the start of the file ("IMTM")
+	final static int MAGIC_NUMBER = ('I') | ('M' << 8) | ('T' << 16) | ('M' << 24);
+	//the current version of the format
+	final static int FORMAT_VERSION = 1;
+	//size (in bytes) of the header
+	final static int HEADER_SIZE = 32;
+	//the values are stored as 8 byte doubles
+	final static int DTYPE_FLOAT64 = 1;
+	//the values are stored as 4 byte floats
+	final static int DTYPE_FLOAT32 = 2;
+	//the values are stored row by row
+	final static int LAYOUT_ROW_MAJOR = 0;
+	//the values are stored column by column
+	final static int LAYOUT_COLUMN_MAJOR = 1;
+	//size (in bytes) of the buffer used when writing
+	final static int WRITE_BUFFER_SIZE = 64 * 1024;
+	//largest number of bytes mapped at the time when loading (a mapped buffer can hold at most 2GB)
+	final static int MAX_MAP_BYTES = 1 << 30;
+	//largest number of values that can be loaded into an array
+	final static int MAX_ARRAY_LENGTH = Integer.MAX_VALUE - 8;
+	//the number of rows in the loaded file
+	private int _numRows;
+	//the number of columns in the loaded file
+	private int _numColumns;
+	//the number of values (rows * columns) in the loaded file
+	private long _valueCount;
+	//the data type in the loaded file
+	private int _dataType;
+	//the layout in the loaded file
+	private int _layout;
+	//the format version of the loaded file
+	private int _version;
+
+	/**
+	Constructor reading (and validating) the header of the passed file.
+	@param file - File: The file to read the header from
+	@throws ExceptionClass - Throws error if the file can't be read, or isn't a valid matrix file
+	*/
+	public MatrixFile(File file) throws ExceptionClass {
+		readHeader(file);
+	} //constructor
+
+	/****************** WRITE FUNCTIONS *************************/
+
+	/**
+	Writes the passed matrix (or view) to the file, as row-major doubles.
+	@param matrix - Matrix: The matrix to write
+	@param file - File: The file to write to (overwritten if it exists)
+	@throws ExceptionClass - Throws error if the matrix is empty, or the file can't be written
+	*/
+	static void write(Matrix matrix, File file) throws ExceptionClass {
+		ExceptionClass.throwErrorIfMatrixIsEmpty(matrix.getNumRows(), matrix.getNumColumns());
+		int numRows = matrix.getNumRows(),
+			numColumns = matrix.getNumColumns(),
+			index = 0;
+		double[] array = matrix.getMatrix();
+		FileOutputStream stream = null;
+		try {
+			stream = new FileOutputStream(file);
+			FileChannel channel = stream.getChannel();
+			ByteBuffer buffer = createWriteBuffer();
+			putHeader(buffer, DTYPE_FLOAT64, LAYOUT_ROW_MAJOR, numRows, numColumns);
+			for(int i = 0; i < numRows; i++) {
+				index = matrix.cellIndex(i, 0);
+				for(int j = 0; j < numColumns; j++) {
+					if(buffer.remaining() < 8) {
+						flushBuffer(buffer, channel);
+					} //if
+					buffer.putDouble(array[index]);
+					index += matrix.getColumnStride();
+				} //for
+			} //for
+			flushBuffer(buffer, channel);
+		} catch(IOException ex) {
+			throw new ExceptionClass("Can't write the matrix to " + file.getName() + ".\n" + ex.getMessage());
+		} finally {
+			closeStream(stream);
+		} //try/catch
+	} //write
+
+	/**
+	Writes the passed float matrix (or view) to the file, as row-major floats.
+	@param matrix - FloatMatrix: The matrix to write
+	@param file - File: The file to write to (overwritten if it exists)
+	@throws ExceptionClass - Throws error if the matrix is empty, or the file can't be written
+	*/
+	static void write(FloatMatrix matrix, File file) throws ExceptionClass {
+		ExceptionClass.throwErrorIfMatrixIsEmpty(matrix.getNumRows(), matrix.getNumColumns());
+		int numRows = matrix.getNumRows(),
+			numColumns = matrix.getNumColumns(),
+			index = 0;
+		float[] array = matrix.getMatrix();
+		FileOutputStream stream = null;
+		try {
+			stream = new FileOutputStream(file);
+			FileChannel channel = stream.getChannel();
+			ByteBuffer buffer = createWriteBuffer();
+			putHeader(buffer, DTYPE_FLOAT32, LAYOUT_ROW_MAJOR, numRows, numColumns);
+			for(int i = 0; i < numRows; i++) {
+				index = matrix.cellIndex(i, 0);
+				for(int j = 0; j < numColumns; j++) {
+					if(buffer.remaining() < 4) {
+						flushBuffer(buffer, channel);
+					} //if
+					buffer.putFloat(array[index]);
+					index += matrix.getColumnStride();
+				} //for
+			} //for
+			flushBuffer(buffer, channel);
+		} catch(IOException ex) {
+			throw new ExceptionClass("Can't write the matrix to " + file.getName() + ".\n" + ex.getMessage());
+		} finally {
+			closeStream(stream);
+		} //try/catch
+	} //write
+
+	/**
+	Writes the passed off-heap matrix to the file, as row-major doubles.
+	The rows are copied block by block, so the matrix never has to fit in the heap.
+	@param matrix - MappedMatrix: The matrix to write
+	@param file - File: The file to write to (overwritten if it exists)
+	@throws ExceptionClass - Throws error if the file can't be written
+	*/
+	static void write(MappedMatrix matrix, File file) throws ExceptionClass {
+		int numRows = matrix.getNumRows(),
+			numColumns = matrix.getNumColumns(),
+			blockRows = 0;
+		Matrix block = new Matrix(MappedMatrix.BLOCK_ROWS, numColumns);
+		double[] blockArray = block.getMatrix();
+		FileOutputStream stream = null;
+		try {
+			stream = new FileOutputStream(file);
+			FileChannel channel = stream.getChannel();
+			ByteBuffer buffer = createWriteBuffer();
+			putHeader(buffer, DTYPE_FLOAT64, LAYOUT_ROW_MAJOR, numRows, numColumns);
+			for(int fromRow = 0; fromRow < numRows; fromRow += MappedMatrix.BLOCK_ROWS) {
+				blockRows = Math.min(MappedMatrix.BLOCK_ROWS, numRows - fromRow);
+				matrix.readRows(fromRow, fromRow + blockRows, block);
+				for(int i = 0; i < blockRows * numColumns; i++) {
+					if(buffer.remaining() < 8) {
+						flushBuffer(buffer, channel);
+					} //if
+					buffer.putDouble(blockArray[i]);
+				} //for
+			} //for
+			flushBuffer(buffer, channel);
+		} catch(IOException ex) {
+			throw new ExceptionClass("Can't write the matrix to " + file.getName() + ".\n" + ex.getMessage());
+		} finally {
+			closeStream(stream);
+		} //try/catch
+	} //write
+
+	/****************** READ FUNCTIONS *************************/
+
+	/**
+	Loads the matrix in the file. The payload is mapped, and copied in bulk
+	into the matrix array. Floats are widened to double. A column-major
+	payload is returned as a view with swapped strides, so it isn't reordered.
+	@param file - File: The file to load
+	@throws ExceptionClass
+	- Throws error if the file can't be read, or isn't a valid matrix file
+	- Throws error if the matrix has more values then an array can hold
+	@return Matrix - the loaded matrix
+	*/
+	static Matrix readMatrix(File file) throws ExceptionClass {
+		MatrixFile header = new MatrixFile(file);
+		int count = header.getArrayLength();
+		double[] array = new double[count];
+		if(header._dataType == DTYPE_FLOAT64) {
+			header.readPayload(file, array);
+		} else {
+			float[] floatArray = new float[count];
+			header.readPayload(file, floatArray);
+			for(int i = 0; i < count; i++) {
+				array[i] = floatArray[i];
+			} //for
+		} //if
+		if(header._layout == LAYOUT_COLUMN_MAJOR) {
+			return new Matrix(array, header._numRows, header._numColumns, 0, 1, header._numRows);
+		} //if
+		return new Matrix(array, header._numRows, header._numColumns, 0, header._numColumns, 1);
+	} //readMatrix
+
+	/**
+	Loads the float matrix in the file (the data type must be DTYPE_FLOAT32).
+	@param file - File: The file to load
+	@throws ExceptionClass
+	- Throws error if the file can't be read, or doesn't contain floats
+	- Throws error if the matrix has more values then an array can hold
+	@return FloatMatrix - the loaded matrix
+	*/
+	static FloatMatrix readFloatMatrix(File file) throws ExceptionClass {
+		MatrixFile header = new MatrixFile(file);
+		if(header._dataType != DTYPE_FLOAT32) {
+			throw new ExceptionClass("The file " + file.getName() + " doesn't contain floats.\nUse readMatrix(...) instead.");
+		} //if
+		float[] array = new float[header.getArrayLength()];
+		header.readPayload(file, array);
+		if(header._layout == LAYOUT_COLUMN_MAJOR) {
+			return new FloatMatrix(array, header._numRows, header._numColumns, 0, 1, header._numRows);
+		} //if
+		return new FloatMatrix(array, header._numRows, header._numColumns, 0, header._numColumns, 1);
+	} //readFloatMatrix
+
+	/**
+	Maps the payload in the file as the storage of a MappedMatrix, without
+	copying anything (the data type must be DTYPE_FLOAT64, and the layout row-major).
+	@param file - File: The file to map
+	@param isReadOnly - boolean: True - map as read-only (can be shared), false - changes are written to the file
+	@throws ExceptionClass - Throws error if the file can't be mapped, or isn't row-major doubles
+	@return MappedMatrix - the mapped matrix
+	*/
+	static MappedMatrix mapMatrix(File file, boolean isReadOnly) throws ExceptionClass {
+		MatrixFile header = new MatrixFile(file);
+		if(header._dataType != DTYPE_FLOAT64 || header._layout != LAYOUT_ROW_MAJOR) {
+			throw new ExceptionClass("Only row-major doubles can be mapped directly.\nUse readMatrix(...) instead.");
+		} //if
+		return MappedMatrix.mapFile(file, HEADER_SIZE, header._numRows, header._numColumns, isReadOnly);
+	} //mapMatrix
+
+	/************************* PRIVATE FUNCTIONS *********************************/
+
+	/**
+	Reads and validates the header, and checks that the file is large
+	enough for the payload. The number of values is calculated as long,
+	since rows * columns can be larger then an int (e.g. for mapMatrix).
+	*/
+	void readHeader(File file) throws ExceptionClass {
+		String errorMsg = "\nCan't read the matrix file " + file.getName() + ".";
+		RandomAccessFile randomFile = null;
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+		long fileLength = 0;
+		try {
+			randomFile = new RandomAccessFile(file, "r");
+			fileLength = randomFile.length();
+			if(fileLength < HEADER_SIZE) {
+				throw new ExceptionClass("The file is too small to contain a header." + errorMsg);
+			} //if
+			randomFile.readFully(header.array());
+		} catch(IOException ex) {
+			throw new ExceptionClass(ex.getMessage() + errorMsg);
+		} finally {
+			closeFile(randomFile);
+		} //try/catch
+		if(header.getInt(0) != MAGIC_NUMBER) {
+			throw new ExceptionClass("The file isn't a matrix file (wrong magic number)." + errorMsg);
+		} //if
+		_version = header.getInt(4);
+		_dataType = header.getInt(8);
+		_layout = header.getInt(12);
+		_numRows = header.getInt(16);
+		_numColumns = header.getInt(20);
+		if(_version < 1 || _version > FORMAT_VERSION) {
+			throw new ExceptionClass("The format version " + (_version) + " isn't supported (newest is "
+				+ (FORMAT_VERSION) + ")." + errorMsg);
+		} //if
+		if(_dataType != DTYPE_FLOAT64 && _dataType != DTYPE_FLOAT32) {
+			throw new ExceptionClass("Unknown data type (" + (_dataType) + ")." + errorMsg);
+		} //if
+		if(_layout != LAYOUT_ROW_MAJOR && _layout != LAYOUT_COLUMN_MAJOR) {
+			throw new ExceptionClass("Unknown layout (" + (_layout) + ")." + errorMsg);
+		} //if
+		if(_numRows < 0 || _numColumns < 0) {
+			throw new ExceptionClass("Invalid matrix size (" + (_numRows) + "x" + (_numColumns) + ")." + errorMsg);
+		} //if
+		ExceptionClass.throwErrorIfMatrixIsEmpty(_numRows, _numColumns);
+		_valueCount = (long) _numRows * _numColumns;
+		if(fileLength < HEADER_SIZE + getPayloadSize()) {
+			throw new ExceptionClass("The file contains " + (fileLength) + " bytes, but the "
+				+ (_numRows) + "x" + (_numColumns) + " matrix needs " + (HEADER_SIZE + getPayloadSize())
+				+ " bytes." + errorMsg);
+		} //if
+	} //readHeader
+
+	/**
+	Returns the number of values as the length of the array to load them into
+	@throws ExceptionClass - Throws error if the matrix has more values then an array can hold
+	*/
+	int getArrayLength() throws ExceptionClass {
+		if(_valueCount > MAX_ARRAY_LENGTH) {
+			throw new ExceptionClass("The " + (_numRows) + "x" + (_numColumns) + " matrix has " + (_valueCount)
+				+ " values, but an array can hold at most " + (MAX_ARRAY_LENGTH) + " values."
+				+ "\nCan't load the matrix into an array.");
+		} //if
+		return (int) _valueCount;
+	} //getArrayLength
+
+	/**
+	Copies the (double) payload into the array, mapping at most MAX_MAP_BYTES at the time
+	*/
+	void readPayload(File file, double[] array) throws ExceptionClass {
+		int valuesPerMap = MAX_MAP_BYTES / getValueSize(),
+			count = 0;
+		RandomAccessFile randomFile = null;
+		try {
+			randomFile = new RandomAccessFile(file, "r");
+			for(int index = 0; index < array.length; index += count) {
+				count = Math.min(valuesPerMap, array.length - index);
+				mapPayload(randomFile.getChannel(), index, count).asDoubleBuffer().get(array, index, count);
+			} //for
+		} catch(IOException ex) {
+			throw new ExceptionClass("Can't map the matrix file " + file.getName() + ".\n" + ex.getMessage());
+		} finally {
+			closeFile(randomFile);
+		} //try/catch
+	} //readPayload
+
+	/**
+	Copies the (float) payload into the array, mapping at most MAX_MAP_BYTES at the time
+	*/
+	void readPayload(File file, float[] array) throws ExceptionClass {
+		int valuesPerMap = MAX_MAP_BYTES / getValueSize(),
+			count = 0;
+		RandomAccessFile randomFile = null;
+		try {
+			randomFile = new RandomAccessFile(file, "r");
+			for(int index = 0; index < array.length; index += count) {
+				count = Math.min(valuesPerMap, array.length - index);
+				mapPayload(randomFile.getChannel(), index, count).asFloatBuffer().get(array, index, count);
+			} //for
+		} catch(IOException ex) {
+			throw new ExceptionClass("Can't map the matrix file " + file.getName() + ".\n" + ex.getMessage());
+		} finally {
+			closeFile(randomFile);
+		} //try/catch
+	} //readPayload
+
+	/**
+	Maps (read-only) the values firstValue, ..., (firstValue + valueCount - 1)
+	of the payload as a little-endian buffer
+	*/
+	ByteBuffer mapPayload(FileChannel channel, long firstValue, int valueCount) throws IOException {
+		long position = HEADER_SIZE + (firstValue * getValueSize());
+		MappedByteBuffer payload = channel.map(FileChannel.MapMode.READ_ONLY, position, (long) valueCount * getValueSize());
+		payload.order(ByteOrder.LITTLE_ENDIAN);
+		return payload;
+	} //mapPayload
+
+	/**
+	Creates the buffer used when writing
+	*/
+	static ByteBuffer createWriteBuffer() {
+		return ByteBuffer.allocate(WRITE_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+	} //createWriteBuffer
+
+	/**
+	Writes the header to the start of the buffer
+	*/
+	static void putHeader(ByteBuffer buffer, int dataType, int layout, int numRows, int numColumns) {
+		buffer.putInt(MAGIC_NUMBER);
+		buffer.putInt(FORMAT_VERSION);
+		buffer.putInt(dataType);
+		buffer.putInt(layout);
+		buffer.putInt(numRows);
+		buffer.putInt(numColumns);
+		buffer.putLong(0);
+	} //putHeader
+
+	/**
+	Writes the content of the buffer to the channel, and clears the buffer
+	*/
+	static void flushBuffer(ByteBuffer buffer, FileChannel channel) throws IOException {
+		buffer.flip();
+		while(buffer.hasRemaining()) {
+			channel.write(buffer);
+		} //while
+		buffer.clear();
+	} //flushBuffer
+
+	/**
+	Closes the stream, ignoring errors
+	*/
+	static void closeStream(FileOutputStream stream) {
+		if(stream != null) {
+			try {
+				stream.close();
+			} catch(IOException ex) {
+				//nothing to do
+			} //try/catch
+		} //if
+	} //closeStream
+
+	/**
+	Closes the file, ignoring errors
+	*/
+	static void closeFile(RandomAccessFile randomFile) {
+		if(randomFile != null) {
+			try {
+				randomFile.close();
+			} catch(IOException ex) {
+				//nothing to do
+			} //try/catch
+		} //if
+	} //closeFile
+
+	/**********************GET & SET METHODS *****************************/
+
+	/**
+	Returns the size (in bytes) of the payload
+	*/
+	long getPayloadSize() {
+		return _valueCount * getValueSize();
+	} //getPayloadSize
+
+	/**
+	Returns the size (in bytes) of one value
+	*/
+	int getValueSize() {
+		return (_dataType == DTYPE_FLOAT64) ? 8 : 4;
+	} //getValueSize
+
+	int getNumRows() {
+		return _numRows;
+	} //getNumRows
+
+	int getNumColumns() {
+		return _numColumns;
+	} //getNumColumns
+
+	int getDataType() {
+		return _dataType;
+	} //getDataType
+
+	int getLayout() {
+		return _layout;
+	} //getLayout
+
+	int getVersion() {
+		return _version;
+	} //getVersion
+}
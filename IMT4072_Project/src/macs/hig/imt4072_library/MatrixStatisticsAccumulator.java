@@ -0,0 +1,500 @@
+package macs.hig.imt4072_library;
+
+import java.util.Arrays;
+
+/**
+Class collecting the mean, variance and co-variance of a stream of rows,
+without keeping the rows in memory. Each row (or batch of rows) updates
+a running mean vector and the co-moment matrix
+C = sum((x - mean) * (x - mean)T), by use of the Welford update for
+single rows and the Chan et al. update for batches and merging.
+Since two accumulators can be merged, the rows can be split into blocks
+that are accumulated on separate threads and merged at the end.
+The class has the ability to:
+- Add one row, a batch of rows (Matrix) or a part of a batch <br />
+- Merge two accumulators <br />
+- Calculate mean, variance and co-variance <br />
+- Create a mean matrix, co-variance matrix and scatter matrix
+(full, or packed as a SymmetricMatrix) <br />
+Note! An accumulator is not thread-safe; use one per thread and merge them.
+@Author  Knut Lucas Andersen
+*/
+public class MatrixStatisticsAccumulator {
+	//the number of columns (features) in each row
+	private int _numElements;
+	//the number of rows added so far
+	private long _count;
+	//the running mean of each column
+	private double[] _mean;
+	//the upper triangle of the co-moment matrix, packed row by row (see SymmetricMatrix)
+	private double[] _coMoment;
+	//buffer holding (x - mean) for the row being added
+	private double[] _delta;
+	//number of rows summarised into each partial accumulator when the rows
+	//are split into blocks (fixed, so the result is the same for any number of threads)
+	final static int ROWS_PER_BLOCK = 4096;
+	//number of blocks (partials) per thread kept in memory before they are merged
+	final static int BLOCKS_PER_THREAD = 4;
+
+	/**
+	Interface for summarising one block of rows into new (partial)
+	accumulators, e.g. one accumulator per class.
+	@see mergeBlocksInOrder(...)
+	*/
+	interface BlockTask {
+		MatrixStatisticsAccumulator[] accumulateBlock(int block) throws ExceptionClass;
+	} //BlockTask
+
+	/**
+	Constructor creating an empty accumulator for rows with
+	numElements columns.
+	@param numElements - int: The number of columns in each row
+	@throws ExceptionClass - Throws error if numElements is less then 1
+	*/
+	public MatrixStatisticsAccumulator(int numElements) throws ExceptionClass {
+		String errorMsg = "The number of elements must be at least 1, but was " + (numElements) + ".";
+		ExceptionClass.throwErrorIfSizeLessThenCount(numElements, 1, errorMsg);
+		createArrays(numElements);
+	} //constructor
+
+	/**
+	Creates an accumulator containing all the rows in the passed matrix.
+	The rows are split into blocks of ROWS_PER_BLOCK rows, and each block
+	is summarised into its own partial accumulator (on separate threads if
+	the parallel mode is turned on, see ParallelExecution). The partials
+	are merged in block order (see mergeBlocksInOrder(...)).
+	@param matrix - Matrix: The matrix to accumulate
+	@throws ExceptionClass - Throws error if the matrix is empty
+	@return MatrixStatisticsAccumulator - accumulator containing all the rows
+	*/
+	static MatrixStatisticsAccumulator createFromMatrix(final Matrix matrix) throws ExceptionClass {
+		ExceptionClass.throwErrorIfMatrixIsEmpty(matrix.getNumRows(), matrix.getNumColumns());
+		final int numElements = matrix.getNumColumns(),
+			numRows = matrix.getNumRows();
+		MatrixStatisticsAccumulator result = new MatrixStatisticsAccumulator(numElements);
+		mergeBlocksInOrder((numRows + ROWS_PER_BLOCK - 1) / ROWS_PER_BLOCK, (long) ROWS_PER_BLOCK * numElements * numElements, new BlockTask() {
+			public MatrixStatisticsAccumulator[] accumulateBlock(int block) {
+				MatrixStatisticsAccumulator partial = createValidated(numElements);
+				int fromRow = block * ROWS_PER_BLOCK;
+				partial.accumulateRows(matrix, fromRow, Math.min(numRows, fromRow + ROWS_PER_BLOCK));
+				return new MatrixStatisticsAccumulator[] { partial };
+			} //accumulateBlock
+		}, new MatrixStatisticsAccumulator[] { result });
+		return result;
+	} //createFromMatrix
+
+	/**
+	Runs the task on the blocks 0, ..., (blockCount - 1), and merges the
+	partials of each block into the results (partial i into results[i]).
+	The merge (Chan et al.) rounds differently depending on the order, so
+	the partials are merged in block order, which gives the same result for
+	any number of threads and any order the blocks finish in.
+	The blocks are run in rounds of BLOCKS_PER_THREAD blocks per thread,
+	so only the partials of one round are kept in memory.
+	@param blockCount - int: The number of blocks
+	@param workPerBlock - long: The (approximate) number of operations per block
+	@param task - BlockTask: The work summarising each block
+	@param results - MatrixStatisticsAccumulator[]: The accumulators to merge the partials into
+	@throws ExceptionClass - Throws the error from the first block that failed
+	*/
+	static void mergeBlocksInOrder(int blockCount, long workPerBlock, final BlockTask task,
+			MatrixStatisticsAccumulator[] results) throws ExceptionClass {
+		int roundSize = Math.min(blockCount, ParallelExecution.getParallelism() * BLOCKS_PER_THREAD),
+			roundBlocks = 0;
+		final MatrixStatisticsAccumulator[][] partials = new MatrixStatisticsAccumulator[roundSize][];
+		for(int firstBlock = 0; firstBlock < blockCount; firstBlock += roundSize) {
+			final int roundStart = firstBlock;
+			roundBlocks = Math.min(roundSize, blockCount - firstBlock);
+			ParallelExecution.runInRowBlocks(roundBlocks, workPerBlock, new ParallelExecution.RowBlockTask() {
+				public void run(int fromBlock, int toBlock) throws ExceptionClass {
+					for(int b = fromBlock; b < toBlock; b++) {
+						partials[b] = task.accumulateBlock(roundStart + b);
+					} //for
+				} //run
+			});
+			//merge in block order, so the result is the same every time
+			for(int b = 0; b < roundBlocks; b++) {
+				for(int i = 0; i < results.length; i++) {
+					results[i].mergeWith(partials[b][i]);
+				} //for
+			} //for
+		} //for
+	} //mergeBlocksInOrder
+
+	/***************** UPDATE FUNCTIONS *******************/
+
+	/**
+	Adds one row to the accumulator (Welford update).
+	@param row - double[]: The values of the row
+	@throws ExceptionClass - Throws error if the row length isn't equal to numElements
+	*/
+	void addRow(double[] row) throws ExceptionClass {
+		throwErrorIfLengthDiffers(row.length, "\nCan't add the row.");
+		addRow(row, 0, 1);
+	} //addRow
+
+	/**
+	Adds the row rowNo in the passed matrix to the accumulator (Welford update).
+	@param matrix - Matrix: The matrix containing the row
+	@param rowNo - int: The row to add
+	@throws ExceptionClass
+	- Throws error if the column count isn't equal to numElements
+	- Throws error if the rowNo isn't within range
+	*/
+	void addRow(Matrix matrix, int rowNo) throws ExceptionClass {
+		String errorMsg = "\nCan't add the row.";
+		throwErrorIfLengthDiffers(matrix.getNumColumns(), errorMsg);
+		ExceptionClass.throwErrorIfMatrixRowOutOfRange(rowNo, matrix.getNumRows(), errorMsg);
+		addRow(matrix.getMatrix(), matrix.cellIndex(rowNo, 0), matrix.getColumnStride());
+	} //addRow
+
+	/**
+	Adds all the rows in the passed matrix to the accumulator.
+	@param batch - Matrix: The rows to add
+	@throws ExceptionClass - Throws error if the column count isn't equal to numElements
+	*/
+	void addRows(Matrix batch) throws ExceptionClass {
+		addRows(batch, 0, batch.getNumRows());
+	} //addRows
+
+	/**
+	Adds the rows fromRow, ..., (toRow - 1) in the passed matrix to the
+	accumulator. The batch is summarised on its own (see accumulateRows),
+	and then merged in, which is both faster and more accurate then
+	adding the rows one at the time.
+	@param batch - Matrix: The matrix containing the rows
+	@param fromRow - int: The first row to add
+	@param toRow - int: The row after the last row to add
+	@throws ExceptionClass
+	- Throws error if the column count isn't equal to numElements
+	- Throws error if the rows aren't within range
+	*/
+	void addRows(Matrix batch, int fromRow, int toRow) throws ExceptionClass {
+		String errorMsg = "\nCan't add the rows.";
+		throwErrorIfLengthDiffers(batch.getNumColumns(), errorMsg);
+		if(fromRow < 0 || toRow > batch.getNumRows() || fromRow > toRow) {
+			errorMsg = "The rows " + (fromRow) + " to " + (toRow) + " aren't within the "
+				+ (batch.getNumRows()) + " rows of the batch." + errorMsg;
+			throw new ExceptionClass(errorMsg);
+		} //if
+		if(_count == 0) {
+			accumulateRows(batch, fromRow, toRow);
+		} else {
+			MatrixStatisticsAccumulator partial = createValidated(_numElements);
+			partial.accumulateRows(batch, fromRow, toRow);
+			mergeWith(partial);
+		} //if
+	} //addRows
+
+	/**
+	Merges the passed accumulator into this one (Chan et al. update), so
+	that this accumulator contains the rows from both. The passed
+	accumulator is not changed.
+	@param other - MatrixStatisticsAccumulator: The accumulator to merge in
+	@throws ExceptionClass - Throws error if the number of elements differs
+	*/
+	void merge(MatrixStatisticsAccumulator other) throws ExceptionClass {
+		throwErrorIfLengthDiffers(other._numElements, "\nCan't merge the accumulators.");
+		mergeWith(other);
+	} //merge
+
+	/**
+	Removes all the rows from the accumulator
+	*/
+	void reset() {
+		_count = 0;
+		Arrays.fill(_mean, 0);
+		Arrays.fill(_coMoment, 0);
+	} //reset
+
+	/***************** CALCULATION FUNCTIONS *******************/
+
+	/**
+	Returns the mean of the passed columnNo.
+	@param columnNo - int: The column to return the mean of
+	@throws ExceptionClass
+	- Throws error if no rows have been added
+	- Throws error if the columnNo isn't within range
+	@return double: the mean
+	*/
+	double calculateMean(int columnNo) throws ExceptionClass {
+		String errorMsg = "\nCan't calculate mean.";
+		throwErrorIfEmpty(errorMsg);
+		ExceptionClass.throwErrorIfMatrixColumnOutOfRange(columnNo, _numElements, errorMsg);
+		return _mean[columnNo];
+	} //calculateMean
+
+	/**
+	Returns the variance of the passed columnNo (divided by (n-1)).
+	@param columnNo - int: The column to return the variance of
+	@throws ExceptionClass - Throws error if the columnNo isn't within range
+	@return double: the variance || 0 (if less then two rows are added)
+	*/
+	double calculateVariance(int columnNo) throws ExceptionClass {
+		ExceptionClass.throwErrorIfMatrixColumnOutOfRange(columnNo, _numElements, "\nCan't calculate variance.");
+		if(_count < 2) {
+			return 0;
+		} //if
+		return _coMoment[SymmetricMatrix.getPackedIndex(columnNo, columnNo, _numElements)] / (_count - 1);
+	} //calculateVariance
+
+	/**
+	Returns the co-variance of the two passed columns (divided by (n-1)).
+	@param columnX - int: The 1. column
+	@param columnY - int: The 2. column
+	@throws ExceptionClass - Throws error if a column isn't within range
+	@return double: the co-variance || 0 (if less then two rows are added)
+	*/
+	double calculateCoVariance(int columnX, int columnY) throws ExceptionClass {
+		ExceptionClass.throwErrorIfMatrixColumnOutOfRange(columnX, _numElements, "\nCan't calculate Co-Variance.");
+		ExceptionClass.throwErrorIfMatrixColumnOutOfRange(columnY, _numElements, "\nCan't calculate Co-Variance.");
+		if(_count < 2) {
+			return 0;
+		} //if
+		return _coMoment[SymmetricMatrix.getPackedIndex(Math.min(columnX, columnY), Math.max(columnX, columnY), _numElements)] / (_count - 1);
+	} //calculateCoVariance
+
+	/**
+	Creates a matrix containing n rows and 1 column with the mean
+	of each column (same layout as Matrix.createMeanMatrix()).
+	@throws ExceptionClass - Throws error if no rows have been added
+	@return Matrix - A matrix containing the mean(s)
+	*/
+	Matrix createMeanMatrix() throws ExceptionClass {
+		throwErrorIfEmpty("\nCan't create mean matrix.");
+		Matrix meanMatrix = new Matrix(_numElements, 1);
+		System.arraycopy(_mean, 0, meanMatrix.getMatrix(), 0, _numElements);
+		return meanMatrix;
+	} //createMeanMatrix
+
+	/**
+	Creates the co-variance matrix (the co-moments divided by (n-1)).
+	@throws ExceptionClass - Throws error if less then two rows have been added
+	@return Matrix - the NxN co-variance matrix
+	*/
+	Matrix createCoVarianceMatrix() throws ExceptionClass {
+		String errorMsg = "At least two rows are needed, but " + (_count) + " has been added."
+			+ "\nCan't create co-variance matrix.";
+		if(_count < 2) {
+			throw new ExceptionClass(errorMsg);
+		} //if
+		return createSymmetricMatrix(1.0 / (_count - 1));
+	} //createCoVarianceMatrix
+
+	/**
+	Creates the scatter matrix, which is the co-moment matrix
+	(equal to the co-variance matrix multiplied by (n-1)).
+	@throws ExceptionClass - Throws error if no rows have been added
+	@return Matrix - the NxN scatter matrix
+	*/
+	Matrix createScatterMatrix() throws ExceptionClass {
+		throwErrorIfEmpty("\nCan't create scatter matrix.");
+		return createSymmetricMatrix(1);
+	} //createScatterMatrix
+
+	/**
+	Creates the co-variance matrix in packed symmetric storage
+	(only the upper triangle is stored).
+	@throws ExceptionClass - Throws error if less then two rows have been added
+	@return SymmetricMatrix - the NxN co-variance matrix
+	*/
+	SymmetricMatrix createSymmetricCoVarianceMatrix() throws ExceptionClass {
+		String errorMsg = "At least two rows are needed, but " + (_count) + " has been added."
+			+ "\nCan't create co-variance matrix.";
+		if(_count < 2) {
+			throw new ExceptionClass(errorMsg);
+		} //if
+		return SymmetricMatrix.fromPackedArray(_coMoment, _numElements, 1.0 / (_count - 1));
+	} //createSymmetricCoVarianceMatrix
+
+	/**
+	Creates the scatter matrix in packed symmetric storage
+	(only the upper triangle is stored).
+	@throws ExceptionClass - Throws error if no rows have been added
+	@return SymmetricMatrix - the NxN scatter matrix
+	*/
+	SymmetricMatrix createSymmetricScatterMatrix() throws ExceptionClass {
+		throwErrorIfEmpty("\nCan't create scatter matrix.");
+		return SymmetricMatrix.fromPackedArray(_coMoment, _numElements, 1);
+	} //createSymmetricScatterMatrix
+
+	/************************* PRIVATE FUNCTIONS *********************************/
+
+	/**
+	Constructor used internally by createValidated(...), which creates the arrays
+	*/
+	private MatrixStatisticsAccumulator() {
+
+	} //constructor
+
+	/**
+	Creates an empty accumulator, where numElements is already validated
+	(e.g. the partial accumulators used when adding a batch)
+	@param numElements - int: The number of columns in each row
+	@return MatrixStatisticsAccumulator - the empty accumulator
+	*/
+	private static MatrixStatisticsAccumulator createValidated(int numElements) {
+		MatrixStatisticsAccumulator accumulator = new MatrixStatisticsAccumulator();
+		accumulator.createArrays(numElements);
+		return accumulator;
+	} //createValidated
+
+	/**
+	Creates the (empty) arrays for rows with numElements columns
+	*/
+	private void createArrays(int numElements) {
+		_numElements = numElements;
+		_count = 0;
+		_mean = new double[numElements];
+		_coMoment = new double[SymmetricMatrix.getPackedLength(numElements)];
+		_delta = new double[numElements];
+	} //createArrays
+
+	/**
+	Welford update with the row found at array[start + (j * stride)]:
+	delta = x - mean, mean += delta / n, C += delta * (x - newMean)T
+	*/
+	void addRow(double[] array, int start, int stride) {
+		int n = _numElements,
+			packedIndex = 0;
+		double deltaI = 0;
+		double[] delta = _delta;
+		_count++;
+		for(int j = 0; j < n; j++) {
+			delta[j] = array[start + (j * stride)] - _mean[j];
+			_mean[j] += delta[j] / _count;
+		} //for
+		for(int i = 0; i < n; i++) {
+			deltaI = delta[i];
+			for(int j = i; j < n; j++) {
+				_coMoment[packedIndex++] += deltaI * (array[start + (j * stride)] - _mean[j]);
+			} //for
+		} //for
+	} //addRow
+
+	/**
+	Summarises the rows fromRow, ..., (toRow - 1) into this (empty)
+	accumulator. The rows are read once, shifted by the first row (which
+	keeps the sums small), and the sums and the packed Gram matrix are
+	collected by Matrix.addShiftedGramOfRows (same as when creating the
+	co-variance matrix). The shifted sums then give the mean and the co-moments.
+	*/
+	void accumulateRows(Matrix batch, int fromRow, int toRow) {
+		int n = _numElements,
+			numRows = toRow - fromRow,
+			packedIndex = 0;
+		double meanI = 0;
+		if(numRows <= 0) {
+			return;
+		} //if
+		Matrix.RowReader reader = batch.createRowReader();
+		double[] shift = new double[n];
+		//use the first row as shift, the sums are collected in _mean
+		reader.readRow(fromRow, shift);
+		Matrix.addShiftedGramOfRows(reader, fromRow, toRow, n, shift, _mean, _coMoment);
+		//C = sum(y * yT) - n * meanY * meanYT, mean = meanY + shift
+		for(int i = 0; i < n; i++) {
+			_mean[i] = _mean[i] / numRows;
+		} //for
+		for(int i = 0; i < n; i++) {
+			meanI = _mean[i];
+			for(int j = i; j < n; j++) {
+				_coMoment[packedIndex++] -= numRows * meanI * _mean[j];
+			} //for
+			_mean[i] += shift[i];
+		} //for
+		_count = numRows;
+	} //accumulateRows
+
+	/**
+	Chan et al. update, merging other into this accumulator:
+	n = nA + nB, delta = meanB - meanA, mean = meanA + delta * nB / n,
+	C = CA + CB + delta * deltaT * nA * nB / n
+	*/
+	void mergeWith(MatrixStatisticsAccumulator other) {
+		int n = _numElements,
+			packedIndex = 0;
+		long totalCount = _count + other._count;
+		double weight = 0,
+			deltaI = 0;
+		if(other._count == 0) {
+			return;
+		} //if
+		if(_count == 0) {
+			_count = other._count;
+			System.arraycopy(other._mean, 0, _mean, 0, n);
+			System.arraycopy(other._coMoment, 0, _coMoment, 0, _coMoment.length);
+			return;
+		} //if
+		double[] delta = new double[n];
+		for(int j = 0; j < n; j++) {
+			delta[j] = other._mean[j] - _mean[j];
+			_mean[j] += delta[j] * ((double) other._count / totalCount);
+		} //for
+		weight = ((double) _count * other._count) / totalCount;
+		for(int i = 0; i < n; i++) {
+			deltaI = delta[i] * weight;
+			for(int j = i; j < n; j++) {
+				_coMoment[packedIndex] += other._coMoment[packedIndex] + (deltaI * delta[j]);
+				packedIndex++;
+			} //for
+		} //for
+		_count = totalCount;
+	} //mergeWith
+
+	/**
+	Creates a NxN matrix from the (packed) upper triangle of the co-moments,
+	multiplied by factor, and mirrors it to the lower triangle.
+	*/
+	Matrix createSymmetricMatrix(double factor) {
+		int n = _numElements,
+			packedIndex = 0;
+		double value = 0;
+		Matrix result = new Matrix(n, n);
+		double[] resultArray = result.getMatrix();
+		for(int i = 0; i < n; i++) {
+			for(int j = i; j < n; j++) {
+				value = _coMoment[packedIndex++] * factor;
+				resultArray[(i * n) + j] = value;
+				resultArray[(j * n) + i] = value;
+			} //for
+		} //for
+		return result;
+	} //createSymmetricMatrix
+
+	/**
+	Throws an error if the passed length isn't equal to numElements
+	*/
+	void throwErrorIfLengthDiffers(int length, String additionalInfo) throws ExceptionClass {
+		if(length != _numElements) {
+			String errorMsg = "The number of elements(" + (length) + ") isn't equal to the "
+				+ "number of elements(" + (_numElements) + ") in the accumulator." + additionalInfo;
+			throw new ExceptionClass(errorMsg);
+		} //if
+	} //throwErrorIfLengthDiffers
+
+	/**
+	Throws an error if no rows have been added
+	*/
+	void throwErrorIfEmpty(String additionalInfo) throws ExceptionClass {
+		if(_count == 0) {
+			throw new ExceptionClass("No rows have been added to the accumulator." + additionalInfo);
+		} //if
+	} //throwErrorIfEmpty
+
+	/**********************GET & SET METHODS *****************************/
+
+	/**
+	Returns the number of rows added to the accumulator
+	*/
+	long getCount() {
+		return _count;
+	} //getCount
+
+	/**
+	Returns the number of columns (features) in each row
+	*/
+	int getNumElements() {
+		return _numElements;
+	} //getNumElements
+}
@@ -19,6 +19,8 @@ public abstract class NeuralNetwork {
 	private double _learningRate;
 	//list containing input values 
 	private ArrayList<ArrayList<Double>> _inputList;
+	//matrix containing the input values (one row per input)
+	private Matrix _inputMatrix;
 	//list containing desired output values
 	ArrayList<Double> _desiredOutputList;
 	
@@ -31,6 +33,7 @@ public abstract class NeuralNetwork {
 		_weightMatrix = new Matrix();
 		_outputMatrix = new Matrix();
 		_inputList = new ArrayList<ArrayList<Double>>();
+		_inputMatrix = new Matrix();
 		_desiredOutputList = new ArrayList<Double>();
 	} //constructor
 
@@ -44,20 +47,24 @@ public abstract class NeuralNetwork {
 	public NeuralNetwork(ArrayList<ArrayList<Double>> inputList, ArrayList<Double> desiredOutputList) throws ExceptionClass {
 		if(!inputList.isEmpty() && !desiredOutputList.isEmpty()) {
 			_inputList = inputList;
+			//each input is filled into a column of the transposed view, which is
+			//a row in _inputMatrix (so the matrix is row-major without transposing it)
+			_inputMatrix = new Matrix(inputList.size(), inputList.get(0).size());
+			fillMatrixWithValues(_inputMatrix.getTransposedView(), inputList);
 			setLearningRate();
 			_desiredOutputList = new ArrayList<Double>(desiredOutputList);
 			//fill weight matrix with (random) values
 			_outputMatrix = new Matrix(inputList.size(), 1);
-			_weightMatrix = new Matrix(inputList.get(0).size(), 1);
+			//the weights are a row (1xN), filled through the transposed (Nx1) view
+			_weightMatrix = new Matrix(1, inputList.get(0).size());
 			ArrayList<Double> weightList = fillWeightList(inputList.get(0).size());
-			_weightMatrix.fillMatrixWithValues(0, weightList);
+			_weightMatrix.getTransposedView().fillMatrixWithValues(0, weightList);
 			/****CHEAT/DEBUG TEST***
 			_weightMatrix.changeCellValueAt(0, 0, 1);
-			_weightMatrix.changeCellValueAt(1, 0, -1);
-			_weightMatrix.changeCellValueAt(2, 0, 0);
+			_weightMatrix.changeCellValueAt(0, 1, -1);
+			_weightMatrix.changeCellValueAt(0, 2, 0);
 			_learningRate = 0.1;
 			/****END CHEAT/DEBUG TEST***/
-			_weightMatrix.transposeMatrix();
 		} //if
 	} //constructor
 
@@ -102,27 +109,24 @@ public abstract class NeuralNetwork {
 		double desOutput = 0,
 			output = 0,
 			runningError = 0;
-		Matrix inputMatrix = new Matrix();
 		//loop through the input values
-		for (ArrayList<Double> list : _inputList) {
+		for(counter = 0; counter < _inputMatrix.getNumRows(); counter++) {
 			//get values for this round
 			desOutput = _desiredOutputList.get(counter);
-			inputMatrix = new Matrix(list.size(), 1);
-			inputMatrix.fillMatrixWithValues(0, list);
-			//get the values for the multiplied matrices
-			output = inputMatrix.matrixMultiplication(_weightMatrix, inputMatrix, false).getCellValueAt(0, 0);
+			//the output is the dot product of the weights and the input row
+			//(read directly from the arrays, so no matrices are created)
+			output = _weightMatrix.dotRows(0, _inputMatrix, counter);
 			_outputMatrix.changeCellValueAt(counter, 0, output);
 			//is the resulting output equal to the desired output?
 			if(desOutput != checkCalculatedPerceptrpn(output)) {
-				adjustWeights(inputMatrix, desOutput, output);
+				adjustWeights(counter, desOutput, output);
 				runningError += calculateCurrentError(desOutput, output);
 				//if a numerical format error occured, just set error to 1/2
 				if(Double.isNaN(runningError)) {
 					runningError = 0.5;
 				} //if
 			} //if
-			counter++;
-		} //foreach
+		} //for
 		//the training cycle is completed, but did any errors occur?
 		if(runningError > 0) {
 			trainSingularPerceptron();
@@ -147,29 +151,16 @@ public abstract class NeuralNetwork {
 	/**
 	Adjusts the weight matrix by use of the following formula:
 	_weightMatrix = _weightMatrix + (desOutput - output) * inputMatrix; i = 1, ..., m
+	The weights are updated in place (axpyRow) with the input row inputNo,
+	so no temporary matrix is created.
 	------------------
 	@throws ExceptionClass 
 	*/
-	void adjustWeights(Matrix inputMatrix, double desOutput, double output) throws ExceptionClass {
-		double cellValue = 0,
-			nTimesOutput = 0;
+	void adjustWeights(int inputNo, double desOutput, double output) throws ExceptionClass {
+		double nTimesOutput = 0;
 		//multiply learning rate with the desired and result output
 		nTimesOutput = _learningRate * (desOutput - output);
-		//create a new matrix with the same values as the passed input matrix
-		Matrix tempMatrix = new Matrix(inputMatrix.getNumRows(), inputMatrix.getNumColumns());
-		//fill tempMatrix with inputMatrix values
-		for(int rowNo = 0; rowNo < inputMatrix.getNumRows(); rowNo++) {
-			for(int columnNo = 0; columnNo < inputMatrix.getNumColumns(); columnNo++) {
-				cellValue = inputMatrix.getCellValueAt(rowNo, columnNo);
-				tempMatrix.changeCellValueAt(rowNo, columnNo, cellValue);
-			} //for
-		} //for
-		//multiply the cells in the tempmatrix with the nTimesOutput result, 
-		//transpose tempMatrix to match _weightMatrix and then and update the 
-		//_weightMatrix by adding this with the tempMatrix
-		tempMatrix.multiplyCellsWithValue(nTimesOutput);
-		tempMatrix.transposeMatrix();
-		_weightMatrix = tempMatrix.matrixAddition(_weightMatrix, tempMatrix);
+		_weightMatrix.axpyRow(0, nTimesOutput, _inputMatrix, inputNo);
 	} //adjustWeights
 
 	/**
@@ -186,14 +177,14 @@ public abstract class NeuralNetwork {
 
 	/**
 	Calculates the weighted sum based on the content in the matrix inputMatrix
-	and _weightMatrix.
+	and _weightMatrix. The weights are read through a transposed (Nx1) view,
+	so _weightMatrix itself stays a row.
 	@throws ExceptionClass 
 	*/
 	void calculateWeightedSum(Matrix inputMatrix) throws ExceptionClass {
 		Matrix multpliedMatrix = new Matrix();
-		_weightMatrix.transposeMatrix();
 		//multiply the matrices to get the weighted sum
-		multpliedMatrix.matrixMultiplication(inputMatrix, _weightMatrix, false);
+		multpliedMatrix.matrixMultiplication(inputMatrix, _weightMatrix.getTransposedView(), false);
 		//loop through values to get the weighted sum
 		for(int rowNo = 0; rowNo < multpliedMatrix.getNumRows(); rowNo++) {
 			for(int columnNo = 0; columnNo < multpliedMatrix.getNumColumns(); columnNo++) {
@@ -0,0 +1,210 @@
+package macs.hig.imt4072_library;
+
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+Class that splits row based matrix operations into blocks of rows,
+and runs the blocks on a shared pool of worker threads.
+The parallel mode is turned off by default (parallelism = 1), and is
+turned on by calling setParallelism(...) with the number of threads to use.
+Operations where (rowCount * workPerRow) is below the sequential threshold
+are always run on the calling thread, since splitting them costs more then it saves.
+A task that is already running in a block (e.g. a block of a MappedMatrix
+calling Matrix.multiplyInto) runs any nested operation on its own thread,
+since the worker threads are already busy with the outer blocks (and a
+worker waiting for blocks queued behind itself would never finish).
+@Author  Knut Lucas Andersen
+*/
+public class ParallelExecution {
+	//default number of operations below which the work stays sequential
+	final static long DEFAULT_SEQUENTIAL_THRESHOLD = 128 * 1024;
+	//the number of threads to split the work across (1 = sequential)
+	private static int _parallelism = 1;
+	//number of operations below which the work stays sequential
+	private static long _sequentialThreshold = DEFAULT_SEQUENTIAL_THRESHOLD;
+	//seconds an idle worker thread is kept before it ends
+	final static long IDLE_SECONDS = 30;
+	//the worker threads (created when first needed)
+	private static ExecutorService _threadPool = null;
+	//true while the current thread is running a block
+	private final static ThreadLocal<Boolean> _isInBlock = new ThreadLocal<Boolean>() {
+		protected Boolean initialValue() {
+			return Boolean.FALSE;
+		} //initialValue
+	};
+
+	/**
+	Interface for work that can be done on a block of rows.
+	The rows fromRow, ..., (toRow - 1) are handled by each call.
+	An error thrown by a block is thrown again by runInRowBlocks(...).
+	*/
+	interface RowBlockTask {
+		void run(int fromRow, int toRow) throws ExceptionClass;
+	} //RowBlockTask
+
+	/**
+	Default constructor
+	*/
+	public ParallelExecution() {
+
+	} //constructor
+
+	/**
+	Runs the task on the rows 0, ..., (rowCount - 1). If the parallel mode is
+	turned on and the work is above the sequential threshold, the rows are
+	split into one block per thread. The calling thread runs the last block
+	itself, and then waits for the other blocks to finish.
+	If the calling thread is already running a block, all the rows are run
+	on the calling thread.
+	@param rowCount - int: The number of rows to run the task on
+	@param workPerRow - long: The (approximate) number of operations per row
+	@param task - RowBlockTask: The work to run on each block of rows
+	@throws ExceptionClass - Throws the error from the first block that failed
+	*/
+	static void runInRowBlocks(int rowCount, long workPerRow, final RowBlockTask task) throws ExceptionClass {
+		int noBlocks = Math.min(getParallelism(), rowCount);
+		if(noBlocks <= 1 || ((long) rowCount * workPerRow) < getSequentialThreshold() || _isInBlock.get()) {
+			task.run(0, rowCount);
+			return;
+		} //if
+		ExecutorService threadPool = getThreadPool();
+		ArrayList<Future<ExceptionClass>> blockList = new ArrayList<Future<ExceptionClass>>();
+		ExceptionClass lastBlockFailure = null;
+		int blockSize = (rowCount + noBlocks - 1) / noBlocks,
+			fromRow = 0;
+		//submit all but the last block to the thread pool
+		for(fromRow = 0; fromRow + blockSize < rowCount; fromRow += blockSize) {
+			final int blockStart = fromRow,
+				blockEnd = fromRow + blockSize;
+			blockList.add(threadPool.submit(new Callable<ExceptionClass>() {
+				public ExceptionClass call() {
+					return runBlock(task, blockStart, blockEnd);
+				} //call
+			}));
+		} //for
+		//run the last block on this thread, and wait for the others
+		lastBlockFailure = runBlock(task, fromRow, rowCount);
+		waitForBlocks(blockList);
+		if(lastBlockFailure != null) {
+			throw lastBlockFailure;
+		} //if
+	} //runInRowBlocks
+
+	/**
+	Waits until all the submitted blocks are finished, and throws the
+	error from the first block (in row order) that failed.
+	@param blockList - ArrayList<Future<ExceptionClass>>: The submitted blocks
+	@throws ExceptionClass - Throws error if a block failed or the thread was interrupted
+	*/
+	static void waitForBlocks(ArrayList<Future<ExceptionClass>> blockList) throws ExceptionClass {
+		String errorMsg = "";
+		ExceptionClass failure = null,
+			blockFailure = null;
+		for (Future<ExceptionClass> block : blockList) {
+			try {
+				blockFailure = block.get();
+			} catch(InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				errorMsg = "Interrupted while waiting for the parallel matrix operation.";
+				blockFailure = new ExceptionClass(errorMsg);
+			} catch(ExecutionException ex) {
+				errorMsg = "The parallel matrix operation failed.\n" + ex.getCause();
+				blockFailure = new ExceptionClass(errorMsg);
+			} //try/catch
+			if(failure == null) {
+				failure = blockFailure;
+			} //if
+		} //for
+		if(failure != null) {
+			throw failure;
+		} //if
+	} //waitForBlocks
+
+	/**
+	Runs the task on the rows fromRow, ..., (toRow - 1), marking the
+	current thread as running a block (so nested operations aren't split)
+	@return ExceptionClass - the error thrown by the task || null
+	*/
+	static ExceptionClass runBlock(RowBlockTask task, int fromRow, int toRow) {
+		_isInBlock.set(Boolean.TRUE);
+		try {
+			task.run(fromRow, toRow);
+			return null;
+		} catch(ExceptionClass ex) {
+			return ex;
+		} finally {
+			_isInBlock.set(Boolean.FALSE);
+		} //try/catch
+	} //runBlock
+
+	/**
+	Returns the thread pool, and creates it if it doesn't exist.
+	The threads are daemon threads, so they don't keep the application alive,
+	and they end after being idle for IDLE_SECONDS.
+	*/
+	static synchronized ExecutorService getThreadPool() {
+		if(_threadPool == null) {
+			ThreadPoolExecutor threadPool = new ThreadPoolExecutor(_parallelism, _parallelism, IDLE_SECONDS, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable, "matrix-worker");
+					thread.setDaemon(true);
+					return thread;
+				} //newThread
+			});
+			threadPool.allowCoreThreadTimeOut(true);
+			_threadPool = threadPool;
+		} //if
+		return _threadPool;
+	} //getThreadPool
+
+	/**********************GET & SET METHODS *****************************/
+
+	/**
+	Sets the number of threads used by the parallel mode.
+	A value of 1 turns the parallel mode off. If the number of threads is
+	changed, a new thread pool is created when next needed. The old pool
+	isn't shut down, since other threads may still be submitting blocks
+	to it; its threads end by themselves when they have been idle for
+	IDLE_SECONDS.
+	@param parallelism - int: The number of threads to use
+	@throws ExceptionClass - Throws error if parallelism is less then 1
+	*/
+	static synchronized void setParallelism(int parallelism) throws ExceptionClass {
+		String errorMsg = "The parallelism must be at least 1, but was " + (parallelism) + ".";
+		ExceptionClass.throwErrorIfSizeLessThenCount(parallelism, 1, errorMsg);
+		if(parallelism != _parallelism) {
+			_threadPool = null;
+		} //if
+		_parallelism = parallelism;
+	} //setParallelism
+
+	/**
+	Returns the number of threads used by the parallel mode (1 = sequential)
+	*/
+	static synchronized int getParallelism() {
+		return _parallelism;
+	} //getParallelism
+
+	/**
+	Sets the number of operations below which the work stays sequential
+	*/
+	static synchronized void setSequentialThreshold(long sequentialThreshold) {
+		_sequentialThreshold = sequentialThreshold;
+	} //setSequentialThreshold
+
+	/**
+	Returns the number of operations below which the work stays sequential
+	*/
+	static synchronized long getSequentialThreshold() {
+		return _sequentialThreshold;
+	} //getSequentialThreshold
+}
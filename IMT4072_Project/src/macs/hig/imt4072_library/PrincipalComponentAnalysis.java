@@ -0,0 +1,185 @@
+package macs.hig.imt4072_library;
+
+/**
+Class for Principal Component Analysis (PCA), used to reduce the number
+of features (e.g. colour/texture features) before the samples are
+clustered or classified. The distance calculations in k-means cost
+O(numFeatures) per sample and centroid, so projecting the samples onto
+the k most important components cuts the cost by numFeatures / k.
+The components are the eigenvectors of the co-variance matrix (see
+SymmetricEigenDecomposition), sorted by their eigenvalues, which are the
+variances of the samples along each component.
+The samples are read once, into a MatrixStatisticsAccumulator (in
+parallel, see ParallelExecution), which gives both the mean and the
+co-variance matrix.
+A sample x is projected as (x - mean)T * V, where V contains the k
+first components (one per column). For a matrix of samples (one per row)
+this is samples * V - meanT * V, so the samples are multiplied directly
+(see Matrix.multiplyInto(...)), and the projected mean is subtracted
+from each row afterwards.
+The class has the ability to:
+- Create a matrix containing the k first components <br />
+- Project samples onto the k first components <br />
+- Calculate the share of the variance kept by k components
+@Author  Knut Lucas Andersen
+*/
+public class PrincipalComponentAnalysis {
+	//the number of features in each sample
+	private int _numElements;
+	//the mean of the samples (Nx1)
+	private Matrix _meanMatrix;
+	//the eigenvalues and eigenvectors of the co-variance matrix
+	private SymmetricEigenDecomposition _eigenDecomposition;
+
+	/**
+	Constructor calculating the principal components of the passed samples (one per row)
+	@param samples - Matrix: The samples
+	@throws ExceptionClass
+	- Throws error if there are less then two samples
+	- Throws error if the eigen decomposition doesn't converge
+	*/
+	public PrincipalComponentAnalysis(Matrix samples) throws ExceptionClass {
+		this(MatrixStatisticsAccumulator.createFromMatrix(samples));
+	} //constructor
+
+	/**
+	Constructor calculating the principal components of the samples added to
+	the passed accumulator (e.g. samples read in blocks, or from a MappedMatrix)
+	@param accumulator - MatrixStatisticsAccumulator: Accumulator containing the samples
+	@throws ExceptionClass
+	- Throws error if there are less then two samples
+	- Throws error if the eigen decomposition doesn't converge
+	*/
+	public PrincipalComponentAnalysis(MatrixStatisticsAccumulator accumulator) throws ExceptionClass {
+		_numElements = accumulator.getNumElements();
+		_eigenDecomposition = new SymmetricEigenDecomposition(accumulator.createCoVarianceMatrix());
+		_meanMatrix = accumulator.createMeanMatrix();
+	} //constructor
+
+	/***************** CALCULATION FUNCTIONS *******************/
+
+	/**
+	Creates a matrix containing the numComponents first components, one per column (N x numComponents)
+	@param numComponents - int: The number of components (1, ..., N)
+	@throws ExceptionClass - Throws error if numComponents isn't within range
+	@return Matrix - the components
+	*/
+	Matrix createComponentMatrix(int numComponents) throws ExceptionClass {
+		return _eigenDecomposition.createEigenvectorMatrix(numComponents);
+	} //createComponentMatrix
+
+	/**
+	Projects the samples (one per row) onto the numComponents first components,
+	and returns the result in a new matrix (numSamples x numComponents).
+	@param samples - Matrix: The samples to project (N columns)
+	@param numComponents - int: The number of components (1, ..., N)
+	@throws ExceptionClass
+	- Throws error if the samples don't have N columns
+	- Throws error if numComponents isn't within range
+	@return Matrix - the projected samples
+	*/
+	Matrix project(Matrix samples, int numComponents) throws ExceptionClass {
+		ExceptionClass.throwErrorIfMatrixIsEmpty(samples.getNumRows(), samples.getNumColumns());
+		Matrix projectedMatrix = new Matrix(samples.getNumRows(), numComponents);
+		projectInto(samples, createComponentMatrix(numComponents), projectedMatrix);
+		return projectedMatrix;
+	} //project
+
+	/**
+	Projects the samples (one per row) onto the passed components (see
+	createComponentMatrix(...)), and writes the result into the passed
+	destination, so the same components and destination can be reused
+	for each block of samples.
+	@param samples - Matrix: The samples to project (N columns)
+	@param componentMatrix - Matrix: The components, one per column (N x k)
+	@param destination - Matrix: Matrix to write the result to (numSamples x k, row-major)
+	@throws ExceptionClass
+	- Throws error if the samples or components don't have N rows/columns
+	- Throws error if destination isn't of the size of the result
+	*/
+	void projectInto(Matrix samples, Matrix componentMatrix, Matrix destination) throws ExceptionClass {
+		String errorMsg = "\nCan't project the samples.";
+		ExceptionClass.throwErrorIfColumnAndRowCountDiffers(samples.getNumColumns(), _numElements, errorMsg);
+		ExceptionClass.throwErrorIfColumnAndRowCountDiffers(_numElements, componentMatrix.getNumRows(), errorMsg);
+		int numComponents = componentMatrix.getNumColumns();
+		//samples * V
+		Matrix.multiplyInto(samples, componentMatrix, destination);
+		//meanT * V, subtracted from each row
+		Matrix projectedMean = new Matrix(1, numComponents);
+		Matrix.multiplyInto(_meanMatrix.getTransposedView(), componentMatrix, projectedMean);
+		for(int i = 0; i < samples.getNumRows(); i++) {
+			VectorKernels.axpy(numComponents, -1, projectedMean.getMatrix(), 0, 1,
+				destination.getMatrix(), destination.cellIndex(i, 0), destination.getColumnStride());
+		} //for
+	} //projectInto
+
+	/**
+	Calculates the share (0, ..., 1) of the total variance that is kept
+	by the numComponents first components
+	@param numComponents - int: The number of components (1, ..., N)
+	@throws ExceptionClass - Throws error if numComponents isn't within range
+	@return double: the share of the variance
+	*/
+	double calculateExplainedVariance(int numComponents) throws ExceptionClass {
+		String errorMsg = "The number of components must be between 1 and " + (_numElements) + ", but was "
+			+ (numComponents) + ".\nCan't calculate the explained variance.";
+		ExceptionClass.throwErrorIfSizeLessThenCount(numComponents, 1, errorMsg);
+		ExceptionClass.throwErrorIfSizeGreaterThenValue(numComponents, _numElements, errorMsg);
+		double kept = 0,
+			total = 0,
+			variance = 0;
+		for(int k = 0; k < _numElements; k++) {
+			//rounding can give tiny negative eigenvalues
+			variance = Math.max(0, _eigenDecomposition.getEigenvalue(k));
+			total += variance;
+			if(k < numComponents) {
+				kept += variance;
+			} //if
+		} //for
+		return (total > 0) ? kept / total : 1;
+	} //calculateExplainedVariance
+
+	/**
+	Finds the smallest number of components that keeps at least the
+	passed share of the total variance (e.g. 0.95)
+	@param share - double: The share of the variance to keep (0, ..., 1)
+	@throws ExceptionClass - Throws error if the share isn't between 0 and 1
+	@return int: the number of components
+	*/
+	int findComponentCount(double share) throws ExceptionClass {
+		if(share < 0 || share > 1) {
+			throw new ExceptionClass("The share must be between 0 and 1, but was " + (share)
+				+ ".\nCan't find the number of components.");
+		} //if
+		for(int k = 1; k < _numElements; k++) {
+			if(calculateExplainedVariance(k) >= share) {
+				return k;
+			} //if
+		} //for
+		return _numElements;
+	} //findComponentCount
+
+	/**********************GET & SET METHODS *****************************/
+
+	/**
+	Returns the number of features in each sample
+	*/
+	int getNumElements() {
+		return _numElements;
+	} //getNumElements
+
+	/**
+	Returns a Nx1 matrix containing the mean of the samples
+	*/
+	Matrix getMeanMatrix() {
+		return _meanMatrix.createCopy();
+	} //getMeanMatrix
+
+	/**
+	Returns the variance along the component componentNo (0 is the largest)
+	@throws ExceptionClass - Throws error if componentNo isn't within range
+	*/
+	double getComponentVariance(int componentNo) throws ExceptionClass {
+		return _eigenDecomposition.getEigenvalue(componentNo);
+	} //getComponentVariance
+}
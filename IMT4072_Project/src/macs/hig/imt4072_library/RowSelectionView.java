@@ -0,0 +1,160 @@
+package macs.hig.imt4072_library;
+
+/**
+Class functioning as a view of selected rows in a Matrix (e.g. the
+samples belonging to one cluster), given by a list of row indexes.
+Nothing is copied; the rows are read from the parent matrix when the
+view is used, and each row can be used as a Matrix through getRowView().
+Since the rows aren't placed at a fixed distance from each other, the
+view can't be described by an offset and strides like the other views
+(see Matrix.getRowView(...) and Matrix.getSubMatrixView(...)), which is
+why it is a class of its own.
+The class has the ability to:
+- Calculate the mean of the selected rows <br />
+- Create a mean matrix and co-variance matrix of the selected rows <br />
+- Copy the selected rows into a matrix
+@Author  Knut Lucas Andersen
+*/
+public class RowSelectionView {
+	//the matrix containing the rows
+	private Matrix _parent;
+	//the rows in the parent (only the first _numRows are used)
+	private int[] _rowIndexes;
+	//the number of selected rows
+	private int _numRows;
+
+	/**
+	Constructor creating a view of the selected rows.
+	Use Matrix.getRowsView(...), which validates the row indexes.
+	@param parent - Matrix: The matrix containing the rows
+	@param rowIndexes - int[]: The rows to view
+	@param numRows - int: The number of indexes to use from rowIndexes
+	*/
+	RowSelectionView(Matrix parent, int[] rowIndexes, int numRows) {
+		_parent = parent;
+		_rowIndexes = rowIndexes;
+		_numRows = numRows;
+	} //constructor
+
+	/***************** CALCULATION FUNCTIONS *******************/
+
+	/**
+	Calculates the mean of each column in the selected rows, and writes it
+	into the passed meanMatrix (n rows and 1 column, where n = getNumColumns()).
+	The mean matrix can be a view, e.g. a row in another matrix seen
+	through getRowView(i).getTransposedView().
+	@param meanMatrix - Matrix: The matrix to write the mean(s) to
+	@throws ExceptionClass - Throws error if meanMatrix isn't a Nx1 matrix
+	*/
+	void meanInto(Matrix meanMatrix) throws ExceptionClass {
+		ExceptionClass.throwErrorIfDestinationSizeDiffers(meanMatrix, getNumColumns(), 1, "\nCan't calculate the mean.");
+		int numColumns = getNumColumns(),
+			meanIndex = meanMatrix.getOffset(),
+			meanStride = meanMatrix.getRowStride();
+		double[] parentArray = _parent.getMatrix(),
+			sums = meanMatrix.getMatrix();
+		//clear the mean matrix, in case it is reused
+		for(int j = 0; j < numColumns; j++) {
+			sums[meanIndex + (j * meanStride)] = 0;
+		} //for
+		//add each selected row to the column sums
+		for(int i = 0; i < _numRows; i++) {
+			VectorKernels.axpy(numColumns, 1, parentArray, _parent.cellIndex(_rowIndexes[i], 0),
+				_parent.getColumnStride(), sums, meanIndex, meanStride);
+		} //for
+		//divide the sums by the row count to get the means
+		for(int j = 0; j < numColumns; j++) {
+			sums[meanIndex + (j * meanStride)] = sums[meanIndex + (j * meanStride)] / (double) _numRows;
+		} //for
+	} //meanInto
+
+	/**
+	Creates a matrix containing n rows and 1 column with the mean of
+	each column in the selected rows.
+	@return Matrix - A matrix containing the mean(s)
+	@throws ExceptionClass - Throws error if the view is empty
+	*/
+	Matrix createMeanMatrix() throws ExceptionClass {
+		Matrix meanMatrix = new Matrix(getNumColumns(), 1);
+		meanInto(meanMatrix);
+		return meanMatrix;
+	} //createMeanMatrix
+
+	/**
+	Creates the co-variance matrix of the selected rows. The rows are added
+	one at the time to a MatrixStatisticsAccumulator, so they aren't copied.
+	@throws ExceptionClass - Throws error if less then two rows are selected
+	@return Matrix - the NxN co-variance matrix
+	*/
+	Matrix createCoVarianceMatrix() throws ExceptionClass {
+		MatrixStatisticsAccumulator accumulator = new MatrixStatisticsAccumulator(getNumColumns());
+		for(int i = 0; i < _numRows; i++) {
+			accumulator.addRow(_parent, _rowIndexes[i]);
+		} //for
+		return accumulator.createCoVarianceMatrix();
+	} //createCoVarianceMatrix
+
+	/**
+	Copies the selected rows into the passed destination matrix
+	@param destination - Matrix: The matrix to copy to (same size as the view)
+	@throws ExceptionClass - Throws error if the destination isn't of the size of the view
+	*/
+	void copyInto(Matrix destination) throws ExceptionClass {
+		ExceptionClass.throwErrorIfDestinationSizeDiffers(destination, _numRows, getNumColumns(), "\nCan't copy the rows.");
+		for(int i = 0; i < _numRows; i++) {
+			_parent.copyRow(_rowIndexes[i], destination, i);
+		} //for
+	} //copyInto
+
+	/**
+	Creates a new row-major matrix containing a copy of the selected rows
+	@throws ExceptionClass - Throws error if the view is empty
+	@return Matrix - the copied rows
+	*/
+	Matrix createCopy() throws ExceptionClass {
+		Matrix copy = new Matrix(_numRows, getNumColumns());
+		copyInto(copy);
+		return copy;
+	} //createCopy
+
+	/**********************GET & SET METHODS *****************************/
+
+	/**
+	Returns the number of selected rows
+	*/
+	int getNumRows() {
+		return _numRows;
+	} //getNumRows
+
+	/**
+	Returns the number of columns
+	*/
+	int getNumColumns() {
+		return _parent.getNumColumns();
+	} //getNumColumns
+
+	/**
+	Returns the matrix containing the rows
+	*/
+	Matrix getParent() {
+		return _parent;
+	} //getParent
+
+	/**
+	Returns a 1xN view of the selected row rowNo (the row _rowIndexes[rowNo] in the parent)
+	@throws ExceptionClass - Throws error if the rowNo isn't within range
+	*/
+	Matrix getRowView(int rowNo) throws ExceptionClass {
+		ExceptionClass.throwErrorIfMatrixRowOutOfRange(rowNo, _numRows, "\nCan't create the row view.");
+		return _parent.getRowView(_rowIndexes[rowNo]);
+	} //getRowView
+
+	/**
+	Returns the value of the cell at [rowNo][columnNo] in the view
+	@throws ExceptionClass - Throws error if rowNo/columnNo isn't within range
+	*/
+	double getCellValueAt(int rowNo, int columnNo) throws ExceptionClass {
+		ExceptionClass.throwErrorIfMatrixRowOutOfRange(rowNo, _numRows, "\nCan't retrieve value at position [" + (rowNo) + "," + (columnNo) + "]");
+		return _parent.getCellValueAt(_rowIndexes[rowNo], columnNo);
+	} //getCellValueAt
+}
@@ -0,0 +1,440 @@
+package macs.hig.imt4072_library;
+
+/**
+Class containing a batch of N small (2x2 or 3x3) matrices, e.g. the
+scatter matrix of each tile or the co-variance matrix of each region
+in a segmentation, where thousands of tiny problems are solved.
+Handling each problem as a Matrix means creating several objects and
+validating the arguments for every problem, which costs far more then
+the few multiplications of the actual calculation. The batch instead
+stores the matrices as a structure of arrays: one array per cell, where
+_cellArrays[(row * size) + column][problem] is the cell [row][column] of
+the matrix problem. The calculation functions validate the arguments
+once, and then run one loop over all the problems, where each round
+reads the cells of one problem from the same position in the arrays.
+Since the rounds are independent of each other (and have no branches),
+the JIT compiler can turn the loops into SIMD instructions.
+A singular matrix (determinant of zero) doesn't stop the batch: the
+inverse (or solution) of that problem is filled with NaN, and the
+number of singular problems is returned.
+The class has the ability to:
+- Calculate the determinants <br />
+- Calculate the inverses <br />
+- Solve A * x = b for one right-hand side per problem <br />
+- Create the co-variance (or scatter) matrix of each region of samples
+@Author  Knut Lucas Andersen
+*/
+public class SmallMatrixBatch {
+	//the size (2 or 3) of each (size x size) matrix
+	private int _size;
+	//the number of matrices (problems) in the batch
+	private int _count;
+	//one array per cell, containing the cell of each problem
+	private double[][] _cellArrays;
+
+	/**
+	Constructor creating a batch of count (size x size) matrices filled with zeros
+	@param size - int: The size of each matrix (2 or 3)
+	@param count - int: The number of matrices
+	@throws ExceptionClass
+	- Throws error if size isn't 2 or 3
+	- Throws error if count is less then 1
+	*/
+	public SmallMatrixBatch(int size, int count) throws ExceptionClass {
+		String errorMsg = "\nCan't create the batch.";
+		ExceptionClass.throwErrorIfSizeLessThenCount(size, 2, "Only 2x2 and 3x3 matrices are supported, but the size was "
+			+ (size) + "." + errorMsg);
+		ExceptionClass.throwErrorIfSizeGreaterThenValue(size, 3, "Only 2x2 and 3x3 matrices are supported, but the size was "
+			+ (size) + "." + errorMsg);
+		ExceptionClass.throwErrorIfSizeLessThenCount(count, 1, "The batch must contain at least one matrix." + errorMsg);
+		_size = size;
+		_count = count;
+		_cellArrays = new double[size * size][count];
+	} //constructor
+
+	/***************** CALCULATION FUNCTIONS *******************/
+
+	/**
+	Calculates the determinant of each matrix in the batch
+	@param determinants - double[]: Array to write the determinants to (length N)
+	@throws ExceptionClass - Throws error if the array isn't of length N
+	*/
+	void determinantsInto(double[] determinants) throws ExceptionClass {
+		throwErrorIfLengthDiffers(determinants.length, "\nCan't calculate the determinants.");
+		double[][] m = _cellArrays;
+		if(_size == 2) {
+			double[] a = m[0], b = m[1], c = m[2], d = m[3];
+			for(int p = 0; p < _count; p++) {
+				determinants[p] = (a[p] * d[p]) - (b[p] * c[p]);
+			} //for
+		} else {
+			double[] a = m[0], b = m[1], c = m[2],
+				d = m[3], e = m[4], f = m[5],
+				g = m[6], h = m[7], i = m[8];
+			for(int p = 0; p < _count; p++) {
+				determinants[p] = (a[p] * ((e[p] * i[p]) - (f[p] * h[p])))
+					- (b[p] * ((d[p] * i[p]) - (f[p] * g[p])))
+					+ (c[p] * ((d[p] * h[p]) - (e[p] * g[p])));
+			} //for
+		} //if
+	} //determinantsInto
+
+	/**
+	Calculates the inverse of each matrix in the batch (the adjugate divided
+	by the determinant), and writes them into the passed destination batch.
+	The inverse of a singular matrix is filled with NaN.
+	The destination can be this batch (the matrices are then replaced).
+	@param destination - SmallMatrixBatch: The batch to write the inverses to
+	@throws ExceptionClass - Throws error if the destination isn't of the same size and count
+	@return int: the number of singular matrices
+	*/
+	int inverseInto(SmallMatrixBatch destination) throws ExceptionClass {
+		throwErrorIfBatchDiffers(destination, "\nCan't calculate the inverses.");
+		double[][] m = _cellArrays,
+			r = destination._cellArrays;
+		double[] determinants = new double[_count];
+		double invDet = 0;
+		determinantsInto(determinants);
+		if(_size == 2) {
+			double[] a = m[0], b = m[1], c = m[2], d = m[3],
+				ra = r[0], rb = r[1], rc = r[2], rd = r[3];
+			double valueA = 0;
+			for(int p = 0; p < _count; p++) {
+				invDet = 1 / determinants[p];
+				valueA = a[p];
+				ra[p] = d[p] * invDet;
+				rb[p] = -b[p] * invDet;
+				rc[p] = -c[p] * invDet;
+				rd[p] = valueA * invDet;
+			} //for
+		} else {
+			double[] a = m[0], b = m[1], c = m[2],
+				d = m[3], e = m[4], f = m[5],
+				g = m[6], h = m[7], i = m[8];
+			double[] ra = r[0], rb = r[1], rc = r[2],
+				rd = r[3], re = r[4], rf = r[5],
+				rg = r[6], rh = r[7], ri = r[8];
+			double cofactorA = 0, cofactorB = 0, cofactorC = 0,
+				cofactorD = 0, cofactorE = 0, cofactorF = 0,
+				cofactorG = 0, cofactorH = 0, cofactorI = 0;
+			for(int p = 0; p < _count; p++) {
+				invDet = 1 / determinants[p];
+				//the cofactors are calculated first, so the destination can be this batch
+				cofactorA = (e[p] * i[p]) - (f[p] * h[p]);
+				cofactorB = (c[p] * h[p]) - (b[p] * i[p]);
+				cofactorC = (b[p] * f[p]) - (c[p] * e[p]);
+				cofactorD = (f[p] * g[p]) - (d[p] * i[p]);
+				cofactorE = (a[p] * i[p]) - (c[p] * g[p]);
+				cofactorF = (c[p] * d[p]) - (a[p] * f[p]);
+				cofactorG = (d[p] * h[p]) - (e[p] * g[p]);
+				cofactorH = (b[p] * g[p]) - (a[p] * h[p]);
+				cofactorI = (a[p] * e[p]) - (b[p] * d[p]);
+				ra[p] = cofactorA * invDet;
+				rb[p] = cofactorB * invDet;
+				rc[p] = cofactorC * invDet;
+				rd[p] = cofactorD * invDet;
+				re[p] = cofactorE * invDet;
+				rf[p] = cofactorF * invDet;
+				rg[p] = cofactorG * invDet;
+				rh[p] = cofactorH * invDet;
+				ri[p] = cofactorI * invDet;
+			} //for
+		} //if
+		return markSingular(determinants, r);
+	} //inverseInto
+
+	/**
+	Solves A * x = b for each matrix A in the batch (Cramer's rule).
+	The right-hand sides and solutions are stored the same way as the
+	matrices: b[k][problem] is the value k of the right-hand side of problem.
+	The solution of a singular matrix is filled with NaN.
+	@param b - double[][]: The right-hand sides (size arrays of length N)
+	@param x - double[][]: Arrays to write the solutions to (size arrays of length N, can be b)
+	@throws ExceptionClass - Throws error if b or x isn't size arrays of length N
+	@return int: the number of singular matrices
+	*/
+	int solveInto(double[][] b, double[][] x) throws ExceptionClass {
+		String errorMsg = "\nCan't solve the systems.";
+		throwErrorIfVectorsDiffer(b, errorMsg);
+		throwErrorIfVectorsDiffer(x, errorMsg);
+		double[][] m = _cellArrays;
+		double[] determinants = new double[_count];
+		double invDet = 0;
+		determinantsInto(determinants);
+		if(_size == 2) {
+			double[] a = m[0], mb = m[1], c = m[2], d = m[3],
+				b0 = b[0], b1 = b[1], x0 = x[0], x1 = x[1];
+			double value0 = 0;
+			for(int p = 0; p < _count; p++) {
+				invDet = 1 / determinants[p];
+				value0 = ((d[p] * b0[p]) - (mb[p] * b1[p])) * invDet;
+				x1[p] = ((a[p] * b1[p]) - (c[p] * b0[p])) * invDet;
+				x0[p] = value0;
+			} //for
+		} else {
+			double[] a = m[0], mb = m[1], c = m[2],
+				d = m[3], e = m[4], f = m[5],
+				g = m[6], h = m[7], i = m[8],
+				b0 = b[0], b1 = b[1], b2 = b[2],
+				x0 = x[0], x1 = x[1], x2 = x[2];
+			double value0 = 0,
+				value1 = 0,
+				value2 = 0;
+			for(int p = 0; p < _count; p++) {
+				invDet = 1 / determinants[p];
+				//x = adjugate(A) * b / det(A)
+				value0 = (((e[p] * i[p]) - (f[p] * h[p])) * b0[p])
+					+ (((c[p] * h[p]) - (mb[p] * i[p])) * b1[p])
+					+ (((mb[p] * f[p]) - (c[p] * e[p])) * b2[p]);
+				value1 = (((f[p] * g[p]) - (d[p] * i[p])) * b0[p])
+					+ (((a[p] * i[p]) - (c[p] * g[p])) * b1[p])
+					+ (((c[p] * d[p]) - (a[p] * f[p])) * b2[p]);
+				value2 = (((d[p] * h[p]) - (e[p] * g[p])) * b0[p])
+					+ (((mb[p] * g[p]) - (a[p] * h[p])) * b1[p])
+					+ (((a[p] * e[p]) - (mb[p] * d[p])) * b2[p]);
+				x0[p] = value0 * invDet;
+				x1[p] = value1 * invDet;
+				x2[p] = value2 * invDet;
+			} //for
+		} //if
+		return markSingular(determinants, x);
+	} //solveInto
+
+	/**
+	Creates a batch containing the co-variance matrix of each region, where
+	the samples (one per row, with 2 or 3 columns) are divided into regions
+	by the passed labels. The samples are read once: for each region the
+	count and the sums of y and y * yT are collected, where y is the sample
+	shifted by the first sample of the region (which keeps the sums small
+	and accurate). A region with less then two samples gets a zero matrix.
+	@param samples - Matrix: The samples (one per row, 2 or 3 columns)
+	@param labels - int[]: The region (0, ..., numRegions-1) of each sample
+	@param numRegions - int: The number of regions
+	@throws ExceptionClass
+	- Throws error if the samples don't have 2 or 3 columns
+	- Throws error if the label count isn't equal to the row count
+	- Throws error if a label isn't within range
+	@return SmallMatrixBatch - the co-variance matrix of each region
+	*/
+	static SmallMatrixBatch createCoVarianceBatch(Matrix samples, int[] labels, int numRegions) throws ExceptionClass {
+		return createMomentBatch(samples, labels, numRegions, true);
+	} //createCoVarianceBatch
+
+	/**
+	Creates a batch containing the scatter matrix of each region (the
+	co-variance matrix multiplied by (n-1)), see createCoVarianceBatch(...).
+	@param samples - Matrix: The samples (one per row, 2 or 3 columns)
+	@param labels - int[]: The region (0, ..., numRegions-1) of each sample
+	@param numRegions - int: The number of regions
+	@throws ExceptionClass
+	- Throws error if the samples don't have 2 or 3 columns
+	- Throws error if the label count isn't equal to the row count
+	- Throws error if a label isn't within range
+	@return SmallMatrixBatch - the scatter matrix of each region
+	*/
+	static SmallMatrixBatch createScatterBatch(Matrix samples, int[] labels, int numRegions) throws ExceptionClass {
+		return createMomentBatch(samples, labels, numRegions, false);
+	} //createScatterBatch
+
+	/************************* PRIVATE FUNCTIONS *********************************/
+
+	/**
+	Collects the shifted sums of each region (see createCoVarianceBatch(...)),
+	and turns them into co-variance (isCoVariance) or scatter matrices
+	*/
+	static SmallMatrixBatch createMomentBatch(Matrix samples, int[] labels, int numRegions, boolean isCoVariance) throws ExceptionClass {
+		String errorMsg = "\nCan't create the " + ((isCoVariance) ? "co-variance" : "scatter") + " matrices.";
+		int size = samples.getNumColumns(),
+			numRows = samples.getNumRows(),
+			label = 0,
+			index = 0,
+			rowStride = samples.getRowStride(),
+			columnStride = samples.getColumnStride();
+		ExceptionClass.throwErrorIfMatrixIsEmpty(numRows, size);
+		if(labels.length != numRows) {
+			throw new ExceptionClass("There are " + (labels.length) + " labels, but "
+				+ (numRows) + " samples." + errorMsg);
+		} //if
+		SmallMatrixBatch batch = new SmallMatrixBatch(size, numRegions);
+		double[][] m = batch._cellArrays;
+		double[][] shift = new double[size][numRegions],
+			sums = new double[size][numRegions];
+		long[] counts = new long[numRegions];
+		double[] sampleArray = samples.getMatrix(),
+			y = new double[size];
+		double n = 0,
+			factor = 0;
+		for(int row = 0; row < numRows; row++) {
+			label = labels[row];
+			if(label < 0 || label >= numRegions) {
+				throw new ExceptionClass("The label " + (label) + " of sample " + (row) + " isn't one of the "
+					+ (numRegions) + " regions." + errorMsg);
+			} //if
+			index = samples.getOffset() + (row * rowStride);
+			if(counts[label] == 0) {
+				for(int k = 0; k < size; k++) {
+					shift[k][label] = sampleArray[index + (k * columnStride)];
+				} //for
+			} //if
+			counts[label]++;
+			for(int k = 0; k < size; k++) {
+				y[k] = sampleArray[index + (k * columnStride)] - shift[k][label];
+				sums[k][label] += y[k];
+			} //for
+			//the upper triangle of y * yT
+			for(int k = 0; k < size; k++) {
+				for(int l = k; l < size; l++) {
+					m[(k * size) + l][label] += y[k] * y[l];
+				} //for
+			} //for
+		} //for
+		//co-moment = sum(y * yT) - sum(y) * sum(y)T / n, then mirror the upper triangle
+		for(int k = 0; k < size; k++) {
+			for(int l = k; l < size; l++) {
+				double[] cell = m[(k * size) + l],
+					sumK = sums[k],
+					sumL = sums[l],
+					mirror = m[(l * size) + k];
+				for(int p = 0; p < numRegions; p++) {
+					n = counts[p];
+					factor = (isCoVariance) ? 1 / (n - 1) : 1;
+					cell[p] = (n < 2) ? 0 : (cell[p] - ((sumK[p] * sumL[p]) / n)) * factor;
+					mirror[p] = cell[p];
+				} //for
+			} //for
+		} //for
+		return batch;
+	} //createMomentBatch
+
+	/**
+	Fills the result of each singular problem (determinant of zero) with NaN
+	@return int: the number of singular problems
+	*/
+	int markSingular(double[] determinants, double[][] resultArrays) {
+		int singularCount = 0;
+		for(int p = 0; p < _count; p++) {
+			if(determinants[p] == 0) {
+				singularCount++;
+				for(int k = 0; k < resultArrays.length; k++) {
+					resultArrays[k][p] = Double.NaN;
+				} //for
+			} //if
+		} //for
+		return singularCount;
+	} //markSingular
+
+	/**
+	Throws an error if the passed length isn't equal to the number of problems
+	*/
+	void throwErrorIfLengthDiffers(int length, String additionalInfo) throws ExceptionClass {
+		if(length != _count) {
+			throw new ExceptionClass("The array has length " + (length) + ", but the batch contains "
+				+ (_count) + " matrices." + additionalInfo);
+		} //if
+	} //throwErrorIfLengthDiffers
+
+	/**
+	Throws an error if the passed vectors aren't size arrays of length N
+	*/
+	void throwErrorIfVectorsDiffer(double[][] vectors, String additionalInfo) throws ExceptionClass {
+		if(vectors.length != _size) {
+			throw new ExceptionClass("The vectors have " + (vectors.length) + " values, but the matrices are "
+				+ (_size) + "x" + (_size) + "." + additionalInfo);
+		} //if
+		for(int k = 0; k < _size; k++) {
+			throwErrorIfLengthDiffers(vectors[k].length, additionalInfo);
+		} //for
+	} //throwErrorIfVectorsDiffer
+
+	/**
+	Throws an error if the passed batch isn't of the same size and count as this batch
+	*/
+	void throwErrorIfBatchDiffers(SmallMatrixBatch other, String additionalInfo) throws ExceptionClass {
+		if(other._size != _size || other._count != _count) {
+			throw new ExceptionClass("The batch contains " + (other._count) + " " + (other._size) + "x" + (other._size)
+				+ " matrices, but " + (_count) + " " + (_size) + "x" + (_size) + " matrices are needed." + additionalInfo);
+		} //if
+	} //throwErrorIfBatchDiffers
+
+	/**********************GET & SET METHODS *****************************/
+
+	/**
+	Returns the size (2 or 3) of each matrix
+	*/
+	int getSize() {
+		return _size;
+	} //getSize
+
+	/**
+	Returns the number of matrices in the batch
+	*/
+	int getCount() {
+		return _count;
+	} //getCount
+
+	/**
+	Returns the array containing the cell [rowNo][columnNo] of each matrix.
+	Can be used to fill (or read) the batch directly, without going
+	through changeCellValueAt(...).
+	@throws ExceptionClass - Throws error if rowNo/columnNo isn't within range
+	*/
+	double[] getCellArray(int rowNo, int columnNo) throws ExceptionClass {
+		String errorMsg = "\nCan't retrieve the cell array.";
+		ExceptionClass.throwErrorIfMatrixRowOutOfRange(rowNo, _size, errorMsg);
+		ExceptionClass.throwErrorIfMatrixColumnOutOfRange(columnNo, _size, errorMsg);
+		return _cellArrays[(rowNo * _size) + columnNo];
+	} //getCellArray
+
+	/**
+	Returns the value of the cell [rowNo][columnNo] in the matrix problemNo
+	@throws ExceptionClass - Throws error if problemNo/rowNo/columnNo isn't within range
+	*/
+	double getCellValueAt(int problemNo, int rowNo, int columnNo) throws ExceptionClass {
+		ExceptionClass.throwErrorIfMatrixRowOutOfRange(problemNo, _count, "\nCan't retrieve the value.");
+		return getCellArray(rowNo, columnNo)[problemNo];
+	} //getCellValueAt
+
+	/**
+	Changes the value of the cell [rowNo][columnNo] in the matrix problemNo
+	@throws ExceptionClass - Throws error if problemNo/rowNo/columnNo isn't within range
+	*/
+	void changeCellValueAt(int problemNo, int rowNo, int columnNo, double value) throws ExceptionClass {
+		ExceptionClass.throwErrorIfMatrixRowOutOfRange(problemNo, _count, "\nCan't change the value.");
+		getCellArray(rowNo, columnNo)[problemNo] = value;
+	} //changeCellValueAt
+
+	/**
+	Copies the values of the passed (size x size) matrix into the matrix problemNo
+	@param problemNo - int: The matrix in the batch to change
+	@param matrix - Matrix: The values to copy
+	@throws ExceptionClass
+	- Throws error if problemNo isn't within range
+	- Throws error if the matrix isn't a (size x size) matrix
+	*/
+	void setMatrix(int problemNo, Matrix matrix) throws ExceptionClass {
+		String errorMsg = "\nCan't change the matrix.";
+		ExceptionClass.throwErrorIfMatrixRowOutOfRange(problemNo, _count, errorMsg);
+		ExceptionClass.throwErrorIfDestinationSizeDiffers(matrix, _size, _size, errorMsg);
+		double[] array = matrix.getMatrix();
+		for(int i = 0; i < _size; i++) {
+			for(int j = 0; j < _size; j++) {
+				_cellArrays[(i * _size) + j][problemNo] = array[matrix.cellIndex(i, j)];
+			} //for
+		} //for
+	} //setMatrix
+
+	/**
+	Creates a (size x size) Matrix containing a copy of the matrix problemNo
+	@throws ExceptionClass - Throws error if problemNo isn't within range
+	@return Matrix - the matrix
+	*/
+	Matrix createMatrix(int problemNo) throws ExceptionClass {
+		ExceptionClass.throwErrorIfMatrixRowOutOfRange(problemNo, _count, "\nCan't create the matrix.");
+		Matrix matrix = new Matrix(_size, _size);
+		double[] array = matrix.getMatrix();
+		for(int k = 0; k < _size * _size; k++) {
+			array[k] = _cellArrays[k][problemNo];
+		} //for
+		return matrix;
+	} //createMatrix
+}
@@ -0,0 +1,463 @@
+package macs.hig.imt4072_library;
+
+import java.util.Arrays;
+
+/**
+Class functioning as a sparse matrix, stored in the compressed sparse
+row (CSR) format. Only the non-zero values are stored: <br />
+- values[k] is the k'th non-zero value (row by row) <br />
+- columnIndexes[k] is the column of values[k] <br />
+- the non-zeros in row i are stored at rowPointers[i], ..., (rowPointers[i + 1] - 1) <br />
+The memory used, and the time used by the calculations, depends on the
+number of non-zeros instead of rows x columns.
+The transpose of a CSR matrix is the compressed sparse column (CSC)
+format of the same matrix, so transpose() is also used to go between
+the two formats.
+The class has the ability to:
+- Convert to and from a (dense) Matrix <br />
+- Multiply with a dense matrix (sparse x dense and dense x sparse) <br />
+- Transpose the matrix <br />
+- Create a mean matrix, co-variance matrix and scatter matrix
+@Author  Knut Lucas Andersen
+*/
+public class SparseMatrix {
+	//the number of rows in the matrix
+	private int _numRows;
+	//the number of columns in the matrix
+	private int _numColumns;
+	//start of each row in _columnIndexes/_values (numRows + 1 values)
+	private int[] _rowPointers;
+	//the column of each non-zero value
+	private int[] _columnIndexes;
+	//the non-zero values, row by row
+	private double[] _values;
+
+	/**
+	Constructor creating a sparse matrix from the passed CSR arrays.
+	The arrays are used directly (not copied). The columns in each row
+	must be sorted, and not contain duplicates.
+	@param numRows - int: The number of rows in the matrix
+	@param numColumns - int: The number of columns in the matrix
+	@param rowPointers - int[]: Start of each row (numRows + 1 values)
+	@param columnIndexes - int[]: The column of each non-zero value
+	@param values - double[]: The non-zero values
+	@throws ExceptionClass - Throws error if the arrays aren't a valid CSR matrix
+	*/
+	public SparseMatrix(int numRows, int numColumns, int[] rowPointers, int[] columnIndexes, double[] values) throws ExceptionClass {
+		setArrays(numRows, numColumns, rowPointers, columnIndexes, values);
+		throwErrorIfNotValid();
+	} //constructor
+
+	/**
+	Constructor used internally by wrapValidated(...), which sets the arrays
+	*/
+	private SparseMatrix() {
+
+	} //constructor
+
+	/**
+	Creates a sparse matrix containing the non-zero values in the passed matrix.
+	@param matrix - Matrix: The (dense) matrix to convert
+	@return SparseMatrix - the sparse matrix
+	*/
+	static SparseMatrix fromMatrix(Matrix matrix) {
+		int numRows = matrix.getNumRows(),
+			numColumns = matrix.getNumColumns(),
+			nonZeros = 0,
+			index = 0;
+		double[] array = matrix.getMatrix();
+		int[] rowPointers = new int[numRows + 1];
+		//count the non-zeros, so the arrays can be created with the right size
+		for(int i = 0; i < numRows; i++) {
+			index = matrix.cellIndex(i, 0);
+			for(int j = 0; j < numColumns; j++) {
+				if(array[index] != 0) {
+					nonZeros++;
+				} //if
+				index += matrix.getColumnStride();
+			} //for
+		} //for
+		int[] columnIndexes = new int[nonZeros];
+		double[] values = new double[nonZeros];
+		nonZeros = 0;
+		for(int i = 0; i < numRows; i++) {
+			index = matrix.cellIndex(i, 0);
+			for(int j = 0; j < numColumns; j++) {
+				if(array[index] != 0) {
+					columnIndexes[nonZeros] = j;
+					values[nonZeros] = array[index];
+					nonZeros++;
+				} //if
+				index += matrix.getColumnStride();
+			} //for
+			rowPointers[i + 1] = nonZeros;
+		} //for
+		return wrapValidated(numRows, numColumns, rowPointers, columnIndexes, values);
+	} //fromMatrix
+
+	/**
+	Creates a sparse matrix from (row, column, value) triplets, in any order.
+	Triplets with the same row and column are added together.
+	@param numRows - int: The number of rows in the matrix
+	@param numColumns - int: The number of columns in the matrix
+	@param rows - int[]: The row of each triplet
+	@param columns - int[]: The column of each triplet
+	@param values - double[]: The value of each triplet
+	@throws ExceptionClass - Throws error if the arrays differ in length, or a triplet is out of range
+	@return SparseMatrix - the sparse matrix
+	*/
+	static SparseMatrix fromTriplets(int numRows, int numColumns, int[] rows, int[] columns, double[] values) throws ExceptionClass {
+		String errorMsg = "\nCan't create the sparse matrix.";
+		int count = values.length,
+			position = 0,
+			nonZeros = 0,
+			rowStart = 0;
+		if(rows.length != count || columns.length != count) {
+			throw new ExceptionClass("The number of rows, columns and values in the triplets differs." + errorMsg);
+		} //if
+		for(int k = 0; k < count; k++) {
+			ExceptionClass.throwErrorIfMatrixRowOutOfRange(rows[k], numRows, errorMsg);
+			ExceptionClass.throwErrorIfMatrixColumnOutOfRange(columns[k], numColumns, errorMsg);
+		} //for
+		//sort the triplets by row (counting sort)
+		int[] rowPointers = new int[numRows + 1],
+			nextPosition = new int[numRows],
+			sortedColumns = new int[count];
+		double[] sortedValues = new double[count];
+		for(int k = 0; k < count; k++) {
+			rowPointers[rows[k] + 1]++;
+		} //for
+		for(int i = 0; i < numRows; i++) {
+			rowPointers[i + 1] += rowPointers[i];
+			nextPosition[i] = rowPointers[i];
+		} //for
+		for(int k = 0; k < count; k++) {
+			position = nextPosition[rows[k]]++;
+			sortedColumns[position] = columns[k];
+			sortedValues[position] = values[k];
+		} //for
+		//sort each row by column, and add together the duplicates
+		for(int i = 0; i < numRows; i++) {
+			sortRowByColumn(sortedColumns, sortedValues, rowPointers[i], rowPointers[i + 1]);
+			rowStart = nonZeros;
+			for(int k = rowPointers[i]; k < rowPointers[i + 1]; k++) {
+				if(nonZeros > rowStart && sortedColumns[nonZeros - 1] == sortedColumns[k]) {
+					sortedValues[nonZeros - 1] += sortedValues[k];
+				} else {
+					sortedColumns[nonZeros] = sortedColumns[k];
+					sortedValues[nonZeros] = sortedValues[k];
+					nonZeros++;
+				} //if
+			} //for
+			rowPointers[i] = rowStart;
+		} //for
+		rowPointers[numRows] = nonZeros;
+		return wrapValidated(numRows, numColumns, rowPointers,
+			Arrays.copyOf(sortedColumns, nonZeros), Arrays.copyOf(sortedValues, nonZeros));
+	} //fromTriplets
+
+	/**
+	Creates a (dense) Matrix containing the values in this matrix
+	@return Matrix - the dense matrix
+	*/
+	Matrix toMatrix() {
+		Matrix matrix = new Matrix(_numRows, _numColumns);
+		double[] array = matrix.getMatrix();
+		for(int i = 0; i < _numRows; i++) {
+			for(int k = _rowPointers[i]; k < _rowPointers[i + 1]; k++) {
+				array[(i * _numColumns) + _columnIndexes[k]] = _values[k];
+			} //for
+		} //for
+		return matrix;
+	} //toMatrix
+
+	/***************** CALCULATION FUNCTIONS *******************/
+
+	/**
+	Multiplies this (sparse) matrix with the passed dense matrix.
+	Each non-zero value A[i][k] adds A[i][k] * (row k in B) to row i in the
+	result, so the time used is (number of non-zeros x columns in B).
+	If the parallel mode is turned on, the rows are split across the worker threads.
+	@param dense - Matrix: The dense matrix to multiply with
+	@throws ExceptionClass - Throws error if the column count in this isn't equal to the row count in dense
+	@return Matrix - matrix containing the result of the multiplication
+	*/
+	Matrix multiply(final Matrix dense) throws ExceptionClass {
+		ExceptionClass.throwErrorIfColumnAndRowCountDiffers(_numColumns, dense.getNumRows(), "\nCan't multiply the matrices.");
+		final int columnCount = dense.getNumColumns();
+		final Matrix result = new Matrix(_numRows, columnCount);
+		long workPerRow = ((long) getNumNonZeros() * columnCount) / Math.max(1, _numRows);
+		ParallelExecution.runInRowBlocks(_numRows, workPerRow, new ParallelExecution.RowBlockTask() {
+			public void run(int fromRow, int toRow) {
+				double[] denseArray = dense.getMatrix(),
+					resultArray = result.getMatrix();
+				int columnStride = dense.getColumnStride(),
+					rowStart = 0,
+					indexB = 0;
+				double value = 0;
+				for(int i = fromRow; i < toRow; i++) {
+					rowStart = i * columnCount;
+					for(int k = _rowPointers[i]; k < _rowPointers[i + 1]; k++) {
+						value = _values[k];
+						indexB = dense.cellIndex(_columnIndexes[k], 0);
+						for(int j = 0; j < columnCount; j++) {
+							resultArray[rowStart + j] += value * denseArray[indexB];
+							indexB += columnStride;
+						} //for
+					} //for
+				} //for
+			} //run
+		});
+		return result;
+	} //multiply
+
+	/**
+	Multiplies the passed dense matrix with this (sparse) matrix.
+	Each value D[i][k] adds D[i][k] * (row k in this) to row i in the result.
+	@param dense - Matrix: The dense matrix to multiply with this
+	@throws ExceptionClass - Throws error if the column count in dense isn't equal to the row count in this
+	@return Matrix - matrix containing the result of the multiplication
+	*/
+	Matrix multiplyFromLeft(final Matrix dense) throws ExceptionClass {
+		ExceptionClass.throwErrorIfColumnAndRowCountDiffers(dense.getNumColumns(), _numRows, "\nCan't multiply the matrices.");
+		final int innerCount = _numRows;
+		final Matrix result = new Matrix(dense.getNumRows(), _numColumns);
+		long workPerRow = getNumNonZeros();
+		ParallelExecution.runInRowBlocks(dense.getNumRows(), workPerRow, new ParallelExecution.RowBlockTask() {
+			public void run(int fromRow, int toRow) {
+				double[] denseArray = dense.getMatrix(),
+					resultArray = result.getMatrix();
+				int rowStart = 0,
+					indexD = 0;
+				double value = 0;
+				for(int i = fromRow; i < toRow; i++) {
+					rowStart = i * _numColumns;
+					indexD = dense.cellIndex(i, 0);
+					for(int k = 0; k < innerCount; k++) {
+						value = denseArray[indexD];
+						indexD += dense.getColumnStride();
+						if(value == 0) {
+							continue;
+						} //if
+						for(int p = _rowPointers[k]; p < _rowPointers[k + 1]; p++) {
+							resultArray[rowStart + _columnIndexes[p]] += value * _values[p];
+						} //for
+					} //for
+				} //for
+			} //run
+		});
+		return result;
+	} //multiplyFromLeft
+
+	/**
+	Creates the transpose of this matrix (which is also the CSC format of
+	this matrix). The non-zeros are counted per column, and then placed
+	in order, so the time used depends on the number of non-zeros.
+	@return SparseMatrix - the transposed matrix
+	*/
+	SparseMatrix transpose() {
+		int nonZeros = getNumNonZeros(),
+			position = 0;
+		int[] rowPointers = new int[_numColumns + 1],
+			nextPosition = new int[_numColumns],
+			columnIndexes = new int[nonZeros];
+		double[] values = new double[nonZeros];
+		//count the non-zeros in each column
+		for(int k = 0; k < nonZeros; k++) {
+			rowPointers[_columnIndexes[k] + 1]++;
+		} //for
+		for(int j = 0; j < _numColumns; j++) {
+			rowPointers[j + 1] += rowPointers[j];
+			nextPosition[j] = rowPointers[j];
+		} //for
+		//the rows are visited in order, so each new row is sorted
+		for(int i = 0; i < _numRows; i++) {
+			for(int k = _rowPointers[i]; k < _rowPointers[i + 1]; k++) {
+				position = nextPosition[_columnIndexes[k]]++;
+				columnIndexes[position] = i;
+				values[position] = _values[k];
+			} //for
+		} //for
+		return wrapValidated(_numColumns, _numRows, rowPointers, columnIndexes, values);
+	} //transpose
+
+	/**
+	Calculates the mean of each column, and returns a matrix containing
+	n rows and 1 column, where n = getNumColumns().
+	@throws ExceptionClass - Throws error if the matrix is empty
+	@return Matrix - A matrix containing the mean(s)
+	*/
+	Matrix createMeanMatrix() throws ExceptionClass {
+		ExceptionClass.throwErrorIfMatrixIsEmpty(_numRows, _numColumns);
+		Matrix meanMatrix = new Matrix(_numColumns, 1);
+		double[] sums = meanMatrix.getMatrix();
+		for(int k = 0; k < getNumNonZeros(); k++) {
+			sums[_columnIndexes[k]] += _values[k];
+		} //for
+		for(int j = 0; j < _numColumns; j++) {
+			sums[j] = sums[j] / (double) _numRows;
+		} //for
+		return meanMatrix;
+	} //createMeanMatrix
+
+	/**
+	Creates the (dense) co-variance matrix of the columns:
+	cov = (AT * A - n * mean * meanT) / (n - 1).
+	AT * A is collected row by row from the pairs of non-zeros in each row,
+	so the time used is the sum of (non-zeros in the row)2.
+	Note! The mean is removed at the end, which loses accuracy if the
+	mean is large compared to the spread (not the case for sparse data).
+	@throws ExceptionClass - Throws error if the matrix has less then two rows
+	@return Matrix - the NxN co-variance matrix
+	*/
+	Matrix createCoVarianceMatrix() throws ExceptionClass {
+		Matrix coVarMatrix = createScatterMatrix();
+		coVarMatrix.scaleInPlace(1.0 / (_numRows - 1));
+		return coVarMatrix;
+	} //createCoVarianceMatrix
+
+	/**
+	Creates the (dense) scatter matrix of the columns:
+	scatter = AT * A - n * mean * meanT (the co-variance multiplied by (n-1)).
+	@throws ExceptionClass - Throws error if the matrix has less then two rows
+	@return Matrix - the NxN scatter matrix
+	*/
+	Matrix createScatterMatrix() throws ExceptionClass {
+		String errorMsg = "At least two rows are needed, but the matrix has " + (_numRows) + ".\nCan't create co-variance matrix.";
+		ExceptionClass.throwErrorIfSizeLessThenCount(_numRows, 2, errorMsg);
+		int n = _numColumns,
+			columnA = 0;
+		double valueA = 0,
+			scatter = 0;
+		double[] mean = createMeanMatrix().getMatrix();
+		Matrix scatterMatrix = new Matrix(n, n);
+		double[] scatterArray = scatterMatrix.getMatrix();
+		//add the upper triangle of AT * A, one row at the time
+		for(int i = 0; i < _numRows; i++) {
+			for(int a = _rowPointers[i]; a < _rowPointers[i + 1]; a++) {
+				columnA = _columnIndexes[a];
+				valueA = _values[a];
+				for(int b = a; b < _rowPointers[i + 1]; b++) {
+					scatterArray[(columnA * n) + _columnIndexes[b]] += valueA * _values[b];
+				} //for
+			} //for
+		} //for
+		//remove the mean, and mirror the upper triangle
+		for(int p = 0; p < n; p++) {
+			for(int q = p; q < n; q++) {
+				scatter = scatterArray[(p * n) + q] - (_numRows * mean[p] * mean[q]);
+				scatterArray[(p * n) + q] = scatter;
+				scatterArray[(q * n) + p] = scatter;
+			} //for
+		} //for
+		return scatterMatrix;
+	} //createScatterMatrix
+
+	/************************* PRIVATE FUNCTIONS *********************************/
+
+	/**
+	Creates a sparse matrix using the passed arrays directly, where the arrays
+	are created by this class and already valid (so they aren't checked again).
+	@return SparseMatrix - the sparse matrix
+	*/
+	private static SparseMatrix wrapValidated(int numRows, int numColumns, int[] rowPointers, int[] columnIndexes, double[] values) {
+		SparseMatrix sparseMatrix = new SparseMatrix();
+		sparseMatrix.setArrays(numRows, numColumns, rowPointers, columnIndexes, values);
+		return sparseMatrix;
+	} //wrapValidated
+
+	/**
+	Sets the size and the CSR arrays (used directly, not copied)
+	*/
+	private void setArrays(int numRows, int numColumns, int[] rowPointers, int[] columnIndexes, double[] values) {
+		_numRows = numRows;
+		_numColumns = numColumns;
+		_rowPointers = rowPointers;
+		_columnIndexes = columnIndexes;
+		_values = values;
+	} //setArrays
+
+	/**
+	Sorts the columns (and values) from position start to end by column
+	(insertion sort, since the rows are short)
+	*/
+	static void sortRowByColumn(int[] columns, double[] values, int start, int end) {
+		int column = 0,
+			k = 0;
+		double value = 0;
+		for(int i = start + 1; i < end; i++) {
+			column = columns[i];
+			value = values[i];
+			for(k = i - 1; k >= start && columns[k] > column; k--) {
+				columns[k + 1] = columns[k];
+				values[k + 1] = values[k];
+			} //for
+			columns[k + 1] = column;
+			values[k + 1] = value;
+		} //for
+	} //sortRowByColumn
+
+	/**
+	Checks that the arrays are a valid CSR matrix
+	*/
+	void throwErrorIfNotValid() throws ExceptionClass {
+		String errorMsg = "\nCan't create the sparse matrix.";
+		if(_rowPointers.length != _numRows + 1 || _rowPointers[0] != 0
+				|| _rowPointers[_numRows] != _values.length || _columnIndexes.length != _values.length) {
+			throw new ExceptionClass("The row pointers don't match the number of rows and values." + errorMsg);
+		} //if
+		for(int i = 0; i < _numRows; i++) {
+			if(_rowPointers[i] > _rowPointers[i + 1]) {
+				throw new ExceptionClass("The row pointers aren't increasing (row " + (i) + ")." + errorMsg);
+			} //if
+			for(int k = _rowPointers[i]; k < _rowPointers[i + 1]; k++) {
+				ExceptionClass.throwErrorIfMatrixColumnOutOfRange(_columnIndexes[k], _numColumns, errorMsg);
+				if(k > _rowPointers[i] && _columnIndexes[k - 1] >= _columnIndexes[k]) {
+					throw new ExceptionClass("The columns in row " + (i) + " aren't sorted, or contain duplicates." + errorMsg);
+				} //if
+			} //for
+		} //for
+	} //throwErrorIfNotValid
+
+	/**********************GET & SET METHODS *****************************/
+
+	int getNumRows() {
+		return _numRows;
+	} //getNumRows
+
+	int getNumColumns() {
+		return _numColumns;
+	} //getNumColumns
+
+	/**
+	Returns the number of stored (non-zero) values
+	*/
+	int getNumNonZeros() {
+		return _rowPointers[_numRows];
+	} //getNumNonZeros
+
+	/**
+	Returns the value of the cell at [rowNo][columnNo]
+	(binary search in the row, 0 if the value isn't stored)
+	@throws ExceptionClass - Throws error if rowNo/columnNo isn't within range
+	*/
+	double getCellValueAt(int rowNo, int columnNo) throws ExceptionClass {
+		String errorMsg = "\nCan't retrieve value at position [" + (rowNo) + "," + (columnNo) + "]";
+		ExceptionClass.throwErrorIfMatrixRowOutOfRange(rowNo, _numRows, errorMsg);
+		ExceptionClass.throwErrorIfMatrixColumnOutOfRange(columnNo, _numColumns, errorMsg);
+		int position = Arrays.binarySearch(_columnIndexes, _rowPointers[rowNo], _rowPointers[rowNo + 1], columnNo);
+		return (position >= 0) ? _values[position] : 0;
+	} //getCellValueAt
+
+	int[] getRowPointers() {
+		return _rowPointers;
+	} //getRowPointers
+
+	int[] getColumnIndexes() {
+		return _columnIndexes;
+	} //getColumnIndexes
+
+	double[] getValues() {
+		return _values;
+	} //getValues
+}
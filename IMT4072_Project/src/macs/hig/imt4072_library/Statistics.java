@@ -11,6 +11,14 @@ import java.util.ArrayList;
 	- Calculate co-variance <br />
 	- Calculate correlation co-efficient <br />
 	- Calculate linear regression
+	Each calculation can be done on a list (ArrayList<Double>) or on a
+	primitive array (double[], and int[] for the mean and variance) with
+	an offset and length, e.g. one channel of an image. The list functions
+	copy the values into an array once, and then use the array functions,
+	so the values aren't unboxed (and the list isn't traversed) again for
+	every sum. For large data, use the array functions directly.
+	When several statistics are needed for the same (x, y) values, use
+	createBivariateSummary(...), which reads each pair once (see BivariateSummary).
 	@Author  Knut Lucas Andersen
 */
 public class Statistics {
@@ -31,17 +39,22 @@ public class Statistics {
 	@return double: mean || 0 (if mean couldn't be calculated)
 	*/
 	double calculateMeanInteger(ArrayList<Integer> valueList) {
-		double mean = 0;
-		int n = valueList.size();
-		mean = sumOfListInteger(valueList);
-		//check if mean is greater then zero 
-		//(to avoid divide-by-zero error)
-		if(mean > 0) {
-			mean = mean / n;
-		} //if
-		return mean;
+		return meanOf(sumOfListInteger(valueList), valueList.size());
 	} //calculateMean
 
+	/**
+	Calculate the mean of the values values[offset], ..., values[offset + length - 1].
+	@param values - int[]: array containing the values for calculating the mean
+	@param offset - int: The index of the first value
+	@param length - int: The number of values
+	@throws ExceptionClass - Throws error if the values aren't within the array
+	@return double: mean || 0 (if mean couldn't be calculated)
+	*/
+	double calculateMeanInteger(int[] values, int offset, int length) throws ExceptionClass {
+		ExceptionClass.throwErrorIfRangeOutOfBounds(values.length, offset, length, "\nCan't calculate the mean.");
+		return meanOf(sumOfArray(values, offset, length), length);
+	} //calculateMeanInteger
+
 	/**
 	Calculate the mean based on the values in the passed list.
 	Requires a list filled with double.
@@ -49,18 +62,22 @@ public class Statistics {
 	@return double: mean || 0 (if mean couldn't be calculated)
 	*/
 	double calculateMeanDouble(ArrayList<Double> valueList) {
-		double mean = 0;
-		int n = 0;
-		n = valueList.size();
-		mean = sumOfListDouble(valueList);
-		//check if mean is greater then zero 
-		//(to avoid divide-by-zero error)
-		if(mean > 0) {
-			mean = mean / n;
-		} //if
-		return mean;
+		return meanOf(sumOfListDouble(valueList), valueList.size());
 	} //calculateMean
 
+	/**
+	Calculate the mean of the values values[offset], ..., values[offset + length - 1].
+	@param values - double[]: array containing the values for calculating the mean
+	@param offset - int: The index of the first value
+	@param length - int: The number of values
+	@throws ExceptionClass - Throws error if the values aren't within the array
+	@return double: mean || 0 (if mean couldn't be calculated)
+	*/
+	double calculateMeanDouble(double[] values, int offset, int length) throws ExceptionClass {
+		ExceptionClass.throwErrorIfRangeOutOfBounds(values.length, offset, length, "\nCan't calculate the mean.");
+		return meanOf(sumOfArray(values, offset, length), length);
+	} //calculateMeanDouble
+
 	/**
 	Calculates the variance for the values passed in the list valueList.
 	The function checks that the passed mean is greater then zero, and then
@@ -70,23 +87,37 @@ public class Statistics {
 	@return double: calculated variance || 0 (if variance couldn't be calculated)
 	*/
 	double calculateVariance(ArrayList<Double> valueList, double mean) {
-		double variance = 0,
-			sumOfValues = 0;
-		int n = 0;
-		if(mean > 0) {
-			n = valueList.size();
-			//calculate the sum of the values
-			for(int i = 0; i < n; i++) {
-				sumOfValues = valueList.get(i) - mean;
-				variance += Math.pow(sumOfValues, 2);
-			} //for
-			//check that the sum of the values is greater then zero
-			//and then calculate the variance
-			if(variance > 0) {
-				variance = variance / (n - 1);
-			} //if
-		} //if
-		return variance;
+		return varianceOf(toArray(valueList), 0, valueList.size(), mean);
+	} //calculateVariance
+
+	/**
+	Calculates the variance for the values values[offset], ..., values[offset + length - 1]
+	(see calculateVariance(ArrayList<Double> valueList, double mean)).
+	@param values - double[]: array containing the values to be used to calculate the variance
+	@param offset - int: The index of the first value
+	@param length - int: The number of values
+	@param mean - double: the mean based on the values
+	@throws ExceptionClass - Throws error if the values aren't within the array
+	@return double: calculated variance || 0 (if variance couldn't be calculated)
+	*/
+	double calculateVariance(double[] values, int offset, int length, double mean) throws ExceptionClass {
+		ExceptionClass.throwErrorIfRangeOutOfBounds(values.length, offset, length, "\nCan't calculate the variance.");
+		return varianceOf(values, offset, length, mean);
+	} //calculateVariance
+
+	/**
+	Calculates the variance for the values values[offset], ..., values[offset + length - 1]
+	(see calculateVariance(ArrayList<Double> valueList, double mean)).
+	@param values - int[]: array containing the values to be used to calculate the variance
+	@param offset - int: The index of the first value
+	@param length - int: The number of values
+	@param mean - double: the mean based on the values
+	@throws ExceptionClass - Throws error if the values aren't within the array
+	@return double: calculated variance || 0 (if variance couldn't be calculated)
+	*/
+	double calculateVariance(int[] values, int offset, int length, double mean) throws ExceptionClass {
+		ExceptionClass.throwErrorIfRangeOutOfBounds(values.length, offset, length, "\nCan't calculate the variance.");
+		return varianceOf(sumOfSquaredDifferences(values, offset, length, mean), length, mean);
 	} //calculateVariance
 
 	/**
@@ -114,33 +145,27 @@ public class Statistics {
 	@return double: the co-variance || 0 (if co-variance couldn't be calculated)
 	*/
 	double calculateCoVariance(ArrayList<Double> listOfX, ArrayList<Double> listOfY) throws ExceptionClass {
-		double coVariance = 0;
-		try {
-			double currentX = 0,
-				currentY = 0,
-				meanX = 0,
-				meanY = 0;
-			int n = 0;
-			//check that the lists is of equal size
-			ExceptionClass.throwErrorIflistSizeIsNotEqual(listOfX, listOfY, FAILED_AT_VARIANCE_CALCULATION);
-			n = listOfX.size();
-			//calculate mean
-			meanX = calculateMeanDouble(listOfX);
-			meanY = calculateMeanDouble(listOfY);
-			//loop through the values and calculate the sum 
-			for(int i = 0; i < n; i++) {
-				currentX = listOfX.get(i) - meanX;
-				currentY = listOfY.get(i) - meanY;
-				coVariance += currentX * currentY;
-			} //for
-			//if the sum was created, calculate the covariance
-			if(coVariance > 0) {
-				coVariance = coVariance / (n - 1);
-			} //if
-		} catch(ExceptionClass ex) {
-			throw ex;
-		} //try/catch
-		return coVariance;
+		//check that the lists is of equal size
+		ExceptionClass.throwErrorIflistSizeIsNotEqual(listOfX, listOfY, FAILED_AT_VARIANCE_CALCULATION);
+		return coVarianceOf(toArray(listOfX), 0, toArray(listOfY), 0, listOfX.size());
+	} //calculateCoVariance
+
+	/**
+	Calculate the co-variance of the values x[xOffset], ..., x[xOffset + length - 1]
+	and y[yOffset], ..., y[yOffset + length - 1]
+	(see calculateCoVariance(ArrayList<Double> listOfX, ArrayList<Double> listOfY)).
+	@param x - double[]: array containing the values for X
+	@param xOffset - int: The index of the first value in x
+	@param y - double[]: array containing the values for Y
+	@param yOffset - int: The index of the first value in y
+	@param length - int: The number of values
+	@throws ExceptionClass - Throws error if the values aren't within the arrays
+	@return double: the co-variance || 0 (if co-variance couldn't be calculated)
+	*/
+	double calculateCoVariance(double[] x, int xOffset, double[] y, int yOffset, int length) throws ExceptionClass {
+		ExceptionClass.throwErrorIfRangeOutOfBounds(x.length, xOffset, length, FAILED_AT_VARIANCE_CALCULATION);
+		ExceptionClass.throwErrorIfRangeOutOfBounds(y.length, yOffset, length, FAILED_AT_VARIANCE_CALCULATION);
+		return coVarianceOf(x, xOffset, y, yOffset, length);
 	} //calculateCoVariance
 
 	/**
@@ -174,35 +199,27 @@ public class Statistics {
 	@return double: calculated correlation co-efficient || 0 (if corr. co-effic. couldn't be calculated)
 	*/
 	double calculateCorrelationCoefficient(ArrayList<Double> listOfX, ArrayList<Double> listOfY) throws ExceptionClass {
-		double r = 0;
-		try {
-			double coVariance = 0,
-				meanX = 0,
-				meanY = 0,
-				varianceX = 0,
-				varianceY = 0,
-				multiStdDev = 0;
-			//check that the lists is of equal size
-			ExceptionClass.throwErrorIflistSizeIsNotEqual(listOfX, listOfY, FAILED_AT_VARIANCE_CALCULATION);
-			//calculate the mean of the x - and y-values
-			meanX = calculateMeanDouble(listOfX);
-			meanY = calculateMeanDouble(listOfY);
-			//calculate the variance for the x - and y-values
-			varianceX = calculateVariance(listOfX, meanX);
-			varianceY = calculateVariance(listOfY, meanY);
-			//calculate the value for Sx * Sy
-			multiStdDev = calculateStdDev(varianceX) * calculateStdDev(varianceY);
-			//calculate the co-variance
-			coVariance = calculateCoVariance(listOfX, listOfY);
-			//check that the co-variance and the multiplication of multiStdDev was calculated
-			if(coVariance > 0 && multiStdDev > 0) {
-				//calculate the correlation co-efficient
-				r = coVariance / multiStdDev;
-			} //if
-		} catch(ExceptionClass ex) {
-			throw ex;
-		} //try/catch
-		return r;
+		//check that the lists is of equal size
+		ExceptionClass.throwErrorIflistSizeIsNotEqual(listOfX, listOfY, FAILED_AT_VARIANCE_CALCULATION);
+		return correlationCoefficientOf(toArray(listOfX), 0, toArray(listOfY), 0, listOfX.size());
+	} //calculateCorrelationCoefficient
+
+	/**
+	Calculates the correlation co-efficient of the values x[xOffset], ..., x[xOffset + length - 1]
+	and y[yOffset], ..., y[yOffset + length - 1]
+	(see calculateCorrelationCoefficient(ArrayList<Double> listOfX, ArrayList<Double> listOfY)).
+	@param x - double[]: array containing the values for X
+	@param xOffset - int: The index of the first value in x
+	@param y - double[]: array containing the values for Y
+	@param yOffset - int: The index of the first value in y
+	@param length - int: The number of values
+	@throws ExceptionClass - Throws error if the values aren't within the arrays
+	@return double: calculated correlation co-efficient || 0 (if corr. co-effic. couldn't be calculated)
+	*/
+	double calculateCorrelationCoefficient(double[] x, int xOffset, double[] y, int yOffset, int length) throws ExceptionClass {
+		ExceptionClass.throwErrorIfRangeOutOfBounds(x.length, xOffset, length, FAILED_AT_VARIANCE_CALCULATION);
+		ExceptionClass.throwErrorIfRangeOutOfBounds(y.length, yOffset, length, FAILED_AT_VARIANCE_CALCULATION);
+		return correlationCoefficientOf(x, xOffset, y, yOffset, length);
 	} //calculateCorrelationCoefficient
 
 
@@ -219,13 +236,28 @@ public class Statistics {
 	@return double: linear regression || 0 (if can't calculate the linear regression)
 	*/
 	double calculateLinearRegression(ArrayList<Double> listOfX, ArrayList<Double> listOfY, double x, double a, double b) throws ExceptionClass {
-		double linReg = 0;
-		//calculate b and a
-		b = calculateRegressionB(listOfX, listOfY);
-		a = calculateRegressionA(listOfX, listOfY, b);
-		//calculate the linear regression
-		linReg = a + (b * x);
-		return linReg;
+		//check that the lists is of equal size
+		ExceptionClass.throwErrorIflistSizeIsNotEqual(listOfX, listOfY, FAILED_AT_VARIANCE_CALCULATION);
+		return linearRegressionOf(toArray(listOfX), 0, toArray(listOfY), 0, listOfX.size(), x);
+	} //calculateLinearRegression
+
+	/**
+	Calculate the linear regression linReg = a + bx of the values x[xOffset], ...,
+	x[xOffset + length - 1] and y[yOffset], ..., y[yOffset + length - 1]
+	(see calculateLinearRegression(...)).
+	@param listOfX - double[]: array containing the values for X
+	@param xOffset - int: The index of the first value in listOfX
+	@param listOfY - double[]: array containing the values for Y
+	@param yOffset - int: The index of the first value in listOfY
+	@param length - int: The number of values
+	@param x - double: the value for x to be calculated
+	@throws ExceptionClass - Throws error if the values aren't within the arrays
+	@return double: linear regression || 0 (if can't calculate the linear regression)
+	*/
+	double calculateLinearRegression(double[] listOfX, int xOffset, double[] listOfY, int yOffset, int length, double x) throws ExceptionClass {
+		ExceptionClass.throwErrorIfRangeOutOfBounds(listOfX.length, xOffset, length, FAILED_AT_VARIANCE_CALCULATION);
+		ExceptionClass.throwErrorIfRangeOutOfBounds(listOfY.length, yOffset, length, FAILED_AT_VARIANCE_CALCULATION);
+		return linearRegressionOf(listOfX, xOffset, listOfY, yOffset, length, x);
 	} //calculateLinearRegression
 
 	/**
@@ -237,25 +269,28 @@ public class Statistics {
 	@return double: the value a || 0 (if can't calculate a)
 	*/
 	double calculateRegressionA(ArrayList<Double> listOfX, ArrayList<Double> listOfY, double b) throws ExceptionClass {
-		int n = 0;
-		double a = 0,
-			sumListX = 0,
-			sumListY = 0;
-		try {
-			//check that the lists is of equal size
-			ExceptionClass.throwErrorIflistSizeIsNotEqual(listOfX, listOfY, FAILED_AT_VARIANCE_CALCULATION);
-			n = listOfX.size();
-			//calculate the sum of x and y
-			sumListX = calculateMeanDouble(listOfX);
-			sumListY = calculateMeanDouble(listOfY);
-			//check that the sums were calculated
-			if(sumListX > 0 && sumListY > 0) {
-				a = (sumListY - (b * sumListX)) / n;
-			} //if
-		} catch(ExceptionClass ex) {
-			throw ex;
-		} //try/catch
-		return a;
+		//check that the lists is of equal size
+		ExceptionClass.throwErrorIflistSizeIsNotEqual(listOfX, listOfY, FAILED_AT_VARIANCE_CALCULATION);
+		return regressionAOf(toArray(listOfX), 0, toArray(listOfY), 0, listOfX.size(), b);
+	} //calculateRegressionA
+
+	/**
+	Calculates the value a for the linear regression linReg = a + bx of the values
+	x[xOffset], ..., x[xOffset + length - 1] and y[yOffset], ..., y[yOffset + length - 1]
+	(see calculateRegressionA(ArrayList<Double> listOfX, ArrayList<Double> listOfY, double b)).
+	@param x - double[]: array containing the values for X
+	@param xOffset - int: The index of the first value in x
+	@param y - double[]: array containing the values for Y
+	@param yOffset - int: The index of the first value in y
+	@param length - int: The number of values
+	@param b - double: the value b of the linear regression
+	@throws ExceptionClass - Throws error if the values aren't within the arrays
+	@return double: the value a || 0 (if can't calculate a)
+	*/
+	double calculateRegressionA(double[] x, int xOffset, double[] y, int yOffset, int length, double b) throws ExceptionClass {
+		ExceptionClass.throwErrorIfRangeOutOfBounds(x.length, xOffset, length, FAILED_AT_VARIANCE_CALCULATION);
+		ExceptionClass.throwErrorIfRangeOutOfBounds(y.length, yOffset, length, FAILED_AT_VARIANCE_CALCULATION);
+		return regressionAOf(x, xOffset, y, yOffset, length, b);
 	} //calculateRegressionA
 
 	/**
@@ -270,38 +305,42 @@ public class Statistics {
 	@return double: the value b || 0 (if can't calculate b)
 	*/
 	double calculateRegressionB(ArrayList<Double> listOfX, ArrayList<Double> listOfY) throws ExceptionClass {
-		int n = 0;
-		double b = 0;
-		try {
-			double numerator = 0,
-				denominator = 0,
-				sumListX = 0,
-				sumListY = 0,
-				sumXY = 0,
-				sumX_2;
-			//check that the lists is of equal size
-			ExceptionClass.throwErrorIflistSizeIsNotEqual(listOfX, listOfY, FAILED_AT_VARIANCE_CALCULATION);
-			n = listOfX.size();
-			//calculate the sum, sum(x*y), sum(x2)
-			sumListX = calculateMeanDouble(listOfX);
-			sumListY = calculateMeanDouble(listOfY);
-			sumXY = sumOfXtimesY(listOfX, listOfY);
-			sumX_2 = sumOfVariableToPowerOf2(listOfX);
-			//check that the sums were calculated
-			if(sumListX > 0 && sumListY > 0 && sumXY > 0 && sumX_2 > 0) {
-				//get the value of the numerator
-				numerator = ((n * sumXY) - (sumListX * sumListY));
-				//get the value of the denominator
-				denominator = ((n * sumX_2) - Math.pow(sumListX, 2));
-				//calculate b
-				b = numerator / denominator;
-			} //if
-		} catch(ExceptionClass ex) {
-			throw ex;
-		} //try/catch
-		return b;
+		//check that the lists is of equal size
+		ExceptionClass.throwErrorIflistSizeIsNotEqual(listOfX, listOfY, FAILED_AT_VARIANCE_CALCULATION);
+		return regressionBOf(toArray(listOfX), 0, toArray(listOfY), 0, listOfX.size());
+	} //calculateRegressionB
+
+	/**
+	Calculates the value b for the linear regression linReg = a + bx of the values
+	x[xOffset], ..., x[xOffset + length - 1] and y[yOffset], ..., y[yOffset + length - 1]
+	(see calculateRegressionB(ArrayList<Double> listOfX, ArrayList<Double> listOfY)).
+	@param x - double[]: array containing the values for X
+	@param xOffset - int: The index of the first value in x
+	@param y - double[]: array containing the values for Y
+	@param yOffset - int: The index of the first value in y
+	@param length - int: The number of values
+	@throws ExceptionClass - Throws error if the values aren't within the arrays
+	@return double: the value b || 0 (if can't calculate b)
+	*/
+	double calculateRegressionB(double[] x, int xOffset, double[] y, int yOffset, int length) throws ExceptionClass {
+		ExceptionClass.throwErrorIfRangeOutOfBounds(x.length, xOffset, length, FAILED_AT_VARIANCE_CALCULATION);
+		ExceptionClass.throwErrorIfRangeOutOfBounds(y.length, yOffset, length, FAILED_AT_VARIANCE_CALCULATION);
+		return regressionBOf(x, xOffset, y, yOffset, length);
 	} //calculateRegressionB
 
+	/**
+	Creates a summary of the values in the two lists, which reads each pair once,
+	and then gives the mean, variance, co-variance, correlation co-efficient and
+	linear regression without reading the lists again (see BivariateSummary).
+	@param listOfX - ArrayList<Double>: list of values for X
+	@param listOfY - ArrayList<Double>: list of values for Y
+	@throws ExceptionClass - Throws error if the lists aren't of equal size
+	@return BivariateSummary - summary of the values
+	*/
+	BivariateSummary createBivariateSummary(ArrayList<Double> listOfX, ArrayList<Double> listOfY) throws ExceptionClass {
+		return BivariateSummary.createFromLists(listOfX, listOfY);
+	} //createBivariateSummary
+
 	/************************* PRIVATE FUNCTIONS *********************************/
 
 	/**
@@ -344,23 +383,9 @@ public class Statistics {
 	@return double: Sum(x * y) for the values in listOfX and listOfY
 	*/
 	double sumOfXtimesY(ArrayList<Double> listOfX, ArrayList<Double> listOfY) throws ExceptionClass {
-		int max = 0;
-		double x = 0,
-			y = 0,
-			sumOfXY = 0;
-		try {
-			//check that the lists is of equal size
-			ExceptionClass.throwErrorIflistSizeIsNotEqual(listOfX, listOfY, FAILED_AT_VARIANCE_CALCULATION);
-			max = listOfX.size();
-			for(int i = 0; i < max; i++) {
-				x = listOfX.get(i);
-				y = listOfY.get(i);
-				sumOfXY += x * y;
-			} //for
-		} catch(ExceptionClass ex) {
-			throw ex;
-		} //try/catch
-		return sumOfXY;
+		//check that the lists is of equal size
+		ExceptionClass.throwErrorIflistSizeIsNotEqual(listOfX, listOfY, FAILED_AT_VARIANCE_CALCULATION);
+		return VectorKernels.dot(listOfX.size(), toArray(listOfX), 0, 1, toArray(listOfY), 0, 1);
 	} //sumOfXtimesY
 
 	/**
@@ -369,14 +394,191 @@ public class Statistics {
 	@return double: Sum of all values raised to the power of 2 (Sum(x2) )
 	*/
 	double sumOfVariableToPowerOf2(ArrayList<Double> valueList) {
-		double sumToPower = 0,
-			value = 0;
-		int max = 0;
-		max = valueList.size();
+		double[] values = toArray(valueList);
+		return VectorKernels.dot(values.length, values, 0, 1, values, 0, 1);
+	} //sumOfVariableToPower
+
+	/**
+	Copies the values in the list into a new array (unboxing each value once)
+	@param valueList - ArrayList<Double>: the values to copy
+	@return double[]: array containing the values
+	*/
+	double[] toArray(ArrayList<Double> valueList) {
+		int max = valueList.size();
+		double[] values = new double[max];
 		for(int i = 0; i < max; i++) {
-			value = valueList.get(i);
-			sumToPower += Math.pow(value, 2);
+			values[i] = valueList.get(i);
 		} //for
-		return sumToPower;
-	} //sumOfVariableToPower
+		return values;
+	} //toArray
+
+	/**
+	Calculates the sum of the values values[offset], ..., values[offset + length - 1]
+	*/
+	double sumOfArray(double[] values, int offset, int length) {
+		double sum = 0;
+		for(int i = offset; i < offset + length; i++) {
+			sum += values[i];
+		} //for
+		return sum;
+	} //sumOfArray
+
+	/**
+	Calculates the sum of the values values[offset], ..., values[offset + length - 1]
+	*/
+	double sumOfArray(int[] values, int offset, int length) {
+		double sum = 0;
+		for(int i = offset; i < offset + length; i++) {
+			sum += values[i];
+		} //for
+		return sum;
+	} //sumOfArray
+
+	/**
+	Divides the sum by n, if the sum is greater then zero
+	(to avoid divide-by-zero error)
+	*/
+	double meanOf(double sum, int n) {
+		double mean = sum;
+		if(mean > 0) {
+			mean = mean / n;
+		} //if
+		return mean;
+	} //meanOf
+
+	/**
+	Calculates the variance without range checks (see calculateVariance(...))
+	*/
+	double varianceOf(double[] values, int offset, int length, double mean) {
+		return varianceOf(sumOfSquaredDifferences(values, offset, length, mean), length, mean);
+	} //varianceOf
+
+	/**
+	Calculates the variance from the sum of (x - mean)2, shared by the
+	calculateVariance(...) functions. The function checks that the mean
+	and the sum are greater then zero, and then divides the sum by (n - 1).
+	@return double: calculated variance || 0 (if variance couldn't be calculated)
+	*/
+	double varianceOf(double sumOfSquares, int length, double mean) {
+		double variance = 0;
+		if(mean > 0 && sumOfSquares > 0) {
+			variance = sumOfSquares / (length - 1);
+		} //if
+		return variance;
+	} //varianceOf
+
+	/**
+	Calculates the sum of (x - mean)2 for the values values[offset], ..., values[offset + length - 1]
+	*/
+	double sumOfSquaredDifferences(double[] values, int offset, int length, double mean) {
+		double sum = 0,
+			difference = 0;
+		for(int i = offset; i < offset + length; i++) {
+			difference = values[i] - mean;
+			sum += difference * difference;
+		} //for
+		return sum;
+	} //sumOfSquaredDifferences
+
+	/**
+	Calculates the sum of (x - mean)2 for the values values[offset], ..., values[offset + length - 1]
+	*/
+	double sumOfSquaredDifferences(int[] values, int offset, int length, double mean) {
+		double sum = 0,
+			difference = 0;
+		for(int i = offset; i < offset + length; i++) {
+			difference = values[i] - mean;
+			sum += difference * difference;
+		} //for
+		return sum;
+	} //sumOfSquaredDifferences
+
+	/**
+	Calculates the co-variance without range checks (see calculateCoVariance(...))
+	*/
+	double coVarianceOf(double[] x, int xOffset, double[] y, int yOffset, int length) {
+		double coVariance = 0,
+			meanX = meanOf(sumOfArray(x, xOffset, length), length),
+			meanY = meanOf(sumOfArray(y, yOffset, length), length);
+		//loop through the values and calculate the sum
+		for(int i = 0; i < length; i++) {
+			coVariance += (x[xOffset + i] - meanX) * (y[yOffset + i] - meanY);
+		} //for
+		//if the sum was created, calculate the covariance
+		if(coVariance > 0) {
+			coVariance = coVariance / (length - 1);
+		} //if
+		return coVariance;
+	} //coVarianceOf
+
+	/**
+	Calculates the correlation co-efficient without range checks
+	(see calculateCorrelationCoefficient(...))
+	*/
+	double correlationCoefficientOf(double[] x, int xOffset, double[] y, int yOffset, int length) {
+		double r = 0,
+			meanX = meanOf(sumOfArray(x, xOffset, length), length),
+			meanY = meanOf(sumOfArray(y, yOffset, length), length),
+			coVariance = 0,
+			multiStdDev = 0;
+		//calculate the value for Sx * Sy
+		multiStdDev = calculateStdDev(varianceOf(x, xOffset, length, meanX))
+			* calculateStdDev(varianceOf(y, yOffset, length, meanY));
+		coVariance = coVarianceOf(x, xOffset, y, yOffset, length);
+		//check that the co-variance and the multiplication of multiStdDev was calculated
+		if(coVariance > 0 && multiStdDev > 0) {
+			r = coVariance / multiStdDev;
+		} //if
+		return r;
+	} //correlationCoefficientOf
+
+	/**
+	Calculates the linear regression without range checks (see calculateLinearRegression(...))
+	*/
+	double linearRegressionOf(double[] listOfX, int xOffset, double[] listOfY, int yOffset, int length, double x) {
+		double a = 0,
+			b = 0;
+		//calculate b and a
+		b = regressionBOf(listOfX, xOffset, listOfY, yOffset, length);
+		a = regressionAOf(listOfX, xOffset, listOfY, yOffset, length, b);
+		//calculate the linear regression
+		return a + (b * x);
+	} //linearRegressionOf
+
+	/**
+	Calculates the value a without range checks (see calculateRegressionA(...))
+	*/
+	double regressionAOf(double[] x, int xOffset, double[] y, int yOffset, int length, double b) {
+		double a = 0,
+			sumListX = meanOf(sumOfArray(x, xOffset, length), length),
+			sumListY = meanOf(sumOfArray(y, yOffset, length), length);
+		//check that the sums were calculated
+		if(sumListX > 0 && sumListY > 0) {
+			a = (sumListY - (b * sumListX)) / length;
+		} //if
+		return a;
+	} //regressionAOf
+
+	/**
+	Calculates the value b without range checks (see calculateRegressionB(...))
+	*/
+	double regressionBOf(double[] x, int xOffset, double[] y, int yOffset, int length) {
+		double b = 0,
+			numerator = 0,
+			denominator = 0,
+			sumListX = meanOf(sumOfArray(x, xOffset, length), length),
+			sumListY = meanOf(sumOfArray(y, yOffset, length), length),
+			sumXY = VectorKernels.dot(length, x, xOffset, 1, y, yOffset, 1),
+			sumX_2 = VectorKernels.dot(length, x, xOffset, 1, x, xOffset, 1);
+		//check that the sums were calculated
+		if(sumListX > 0 && sumListY > 0 && sumXY > 0 && sumX_2 > 0) {
+			//get the value of the numerator
+			numerator = ((length * sumXY) - (sumListX * sumListY));
+			//get the value of the denominator
+			denominator = ((length * sumX_2) - (sumListX * sumListX));
+			//calculate b
+			b = numerator / denominator;
+		} //if
+		return b;
+	} //regressionBOf
 }
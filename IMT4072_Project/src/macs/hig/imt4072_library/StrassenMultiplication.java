@@ -0,0 +1,265 @@
+package macs.hig.imt4072_library;
+
+import java.util.Arrays;
+
+/**
+Class containing the Strassen-Winograd matrix multiplication, which
+splits A and B into 2x2 blocks (quadrants) and calculates C = A * B with
+7 block multiplications instead of 8 (and 15 block additions). Used
+recursively, this needs O(n^2.81) operations instead of O(n^3), which
+pays off for large matrices (e.g. a full feature space scatter matrix
+multiplied with a projection basis).
+The recursion stops at the crossover size (CROSSOVER), where the blocks
+are multiplied with the cache-blocked classical kernel
+(see BlockedMatrixMultiplication), which is faster for smaller blocks.
+The matrices are copied into arrays padded with zeros so each size can be
+halved at each level (e.g. odd sizes), and the padding is removed from the result.
+The products are calculated in an order where only three temporary
+quadrants are needed per level (the quadrants of C are used for the
+rest), and the temporaries are created once per level.
+Error bound: unlike the classical multiplication, where each cell has an
+error of at most k * u * (|A| * |B|) (u = 2^-53 is the unit roundoff),
+Strassen-Winograd only has a bound on the largest error
+(Higham, Accuracy and Stability of Numerical Algorithms, 2002, ch. 23):
+max|C - C'| <= ((18^L * (n0^2 + 6 * n0)) - 6n) * u * max|A| * max|B|,
+where L is the number of levels and n0 = n / 2^L the size at the crossover.
+The bound grows by about 18 (instead of 8 for classical) for each level,
+so the error is larger for cells that are small compared to the largest
+values in A and B. See getErrorBound(...).
+@Author  Knut Lucas Andersen
+*/
+public class StrassenMultiplication {
+	//the size (of the smallest dimension) below which the classical kernel is used
+	final static int CROSSOVER = 256;
+	//the unit roundoff for doubles (2^-53)
+	final static double UNIT_ROUNDOFF = 1.1102230246251565E-16;
+
+	/**
+	Default constructor
+	*/
+	public StrassenMultiplication() {
+
+	} //constructor
+
+	/**
+	Multiplies matrix1 with matrix2 with the Strassen-Winograd algorithm, and
+	returns the result in a new matrix. If the smallest dimension is below
+	the crossover size, the classical (blocked) multiplication is used.
+	@param matrix1 - Matrix: Matrix containing values to multiply with matrix2
+	@param matrix2 - Matrix: Matrix containing values to multiply from matrix1
+	@throws ExceptionClass - Throws error if column count in matrix1 isn't equal to row count in matrix2
+	@return Matrix - matrix containing the result of the multiplication
+	*/
+	static Matrix multiply(Matrix matrix1, Matrix matrix2) throws ExceptionClass {
+		int m = matrix1.getNumRows(),
+			k = matrix1.getNumColumns(),
+			n = matrix2.getNumColumns(),
+			levels = getLevelCount(Math.min(m, Math.min(k, n))),
+			paddedM = BlockedMatrixMultiplication.roundUp(m, 1 << levels),
+			paddedK = BlockedMatrixMultiplication.roundUp(k, 1 << levels),
+			paddedN = BlockedMatrixMultiplication.roundUp(n, 1 << levels);
+		ExceptionClass.throwErrorIfColumnAndRowCountDiffers(k, matrix2.getNumRows(), "\nCan't multiply the matrices.");
+		Matrix result = new Matrix(m, n);
+		if(levels == 0) {
+			Matrix.multiplyInto(matrix1, matrix2, result);
+			return result;
+		} //if
+		//copy the matrices into the padded arrays (the padding stays zero)
+		Matrix paddedA = new Matrix(paddedM, paddedK),
+			paddedB = new Matrix(paddedK, paddedN),
+			paddedC = result;
+		matrix1.copyInto(new Matrix(paddedA.getMatrix(), m, k, 0, paddedK, 1));
+		matrix2.copyInto(new Matrix(paddedB.getMatrix(), k, n, 0, paddedN, 1));
+		if(paddedM != m || paddedN != n) {
+			paddedC = new Matrix(paddedM, paddedN);
+		} //if
+		double[][] workspace = createWorkspace(paddedM, paddedK, paddedN, levels);
+		multiplyRecursive(paddedM, paddedK, paddedN, levels,
+			paddedA.getMatrix(), 0, paddedK,
+			paddedB.getMatrix(), 0, paddedN,
+			paddedC.getMatrix(), 0, paddedN, workspace);
+		if(paddedC != result) {
+			new Matrix(paddedC.getMatrix(), m, n, 0, paddedN, 1).copyInto(result);
+		} //if
+		return result;
+	} //multiply
+
+	/**
+	Returns the bound on the largest error in C = A * B when calculated
+	with multiply(...), for the given sizes and largest values in A and B
+	(see the class description). For sizes that aren't square, the largest
+	padded size is used as n. Below the crossover the classical
+	multiplication is used, where the bound is k^2 * u * max|A| * max|B|.
+	@param m - int: The number of rows in A
+	@param k - int: The number of columns in A (rows in B)
+	@param n - int: The number of columns in B
+	@param maxA - double: The largest absolute value in A
+	@param maxB - double: The largest absolute value in B
+	@return double: the largest error max|C - C'| (to first order in u)
+	*/
+	static double getErrorBound(int m, int k, int n, double maxA, double maxB) {
+		int levels = getLevelCount(Math.min(m, Math.min(k, n))),
+			size = BlockedMatrixMultiplication.roundUp(Math.max(m, Math.max(k, n)), 1 << levels);
+		double leafSize = size >> levels,
+			factor = 0;
+		if(levels == 0) {
+			//each cell is a sum of k products, each bounded by maxA * maxB
+			return (double) k * k * UNIT_ROUNDOFF * maxA * maxB;
+		} //if
+		factor = (Math.pow(18, levels) * ((leafSize * leafSize) + (6 * leafSize))) - (6 * size);
+		return factor * UNIT_ROUNDOFF * maxA * maxB;
+	} //getErrorBound
+
+	/************************* PRIVATE FUNCTIONS *********************************/
+
+	/**
+	Returns the number of times the size must be halved to reach the crossover
+	*/
+	static int getLevelCount(int smallestSize) {
+		int levels = 0;
+		while(((smallestSize + (1 << levels) - 1) >> levels) > CROSSOVER) {
+			levels++;
+		} //while
+		return levels;
+	} //getLevelCount
+
+	/**
+	Creates the three temporary quadrants (X: m/2 x k/2, Y: k/2 x n/2, Z: m/2 x n/2)
+	for each level. The calls on the same level are done one after the
+	other, so they can share the temporaries.
+	*/
+	static double[][] createWorkspace(int m, int k, int n, int levels) {
+		double[][] workspace = new double[3 * levels][];
+		for(int level = 0; level < levels; level++) {
+			m /= 2;
+			k /= 2;
+			n /= 2;
+			workspace[3 * level] = new double[m * k];
+			workspace[(3 * level) + 1] = new double[k * n];
+			workspace[(3 * level) + 2] = new double[m * n];
+		} //for
+		return workspace;
+	} //createWorkspace
+
+	/**
+	Calculates C = A * B (C is overwritten), where all sizes can be halved
+	levels times. All the arrays are row-major with a column stride of 1.
+	The order of the products (P1 - P7) and sums (U1 - U7) is: <br />
+	C21 = P7 = (A11 - A21) * (B22 - B12) <br />
+	C22 = P5 = (A21 + A22) * (B12 - B11) <br />
+	C12 = P6 = (A21 + A22 - A11) * (B22 - B12 + B11) <br />
+	C11 = P3 = (A12 - A21 - A22 + A11) * B22 <br />
+	Z = P1 = A11 * B11 <br />
+	C12 = U2 = P1 + P6, C21 = U3 = U2 + P7, C12 = U4 = U2 + P5,
+	C22 = U7 = U3 + P5, C12 = U5 = U4 + P3 <br />
+	C11 = P4 = A22 * (B22 - B12 + B11 - B21), C21 = U6 = U3 - P4 <br />
+	C11 = P2 = A12 * B21, C11 = U1 = P1 + P2
+	*/
+	static void multiplyRecursive(int m, int k, int n, int levels,
+			double[] a, int aOffset, int aRowStride,
+			double[] b, int bOffset, int bRowStride,
+			double[] c, int cOffset, int cRowStride, double[][] workspace) throws ExceptionClass {
+		if(levels == 0) {
+			multiplyClassical(m, k, n, a, aOffset, aRowStride, b, bOffset, bRowStride, c, cOffset, cRowStride);
+			return;
+		} //if
+		int hm = m / 2,
+			hk = k / 2,
+			hn = n / 2,
+			level = workspace.length / 3 - levels,
+			a11 = aOffset,
+			a12 = aOffset + hk,
+			a21 = aOffset + (hm * aRowStride),
+			a22 = a21 + hk,
+			b11 = bOffset,
+			b12 = bOffset + hn,
+			b21 = bOffset + (hk * bRowStride),
+			b22 = b21 + hn,
+			c11 = cOffset,
+			c12 = cOffset + hn,
+			c21 = cOffset + (hm * cRowStride),
+			c22 = c21 + hn;
+		double[] x = workspace[3 * level],
+			y = workspace[(3 * level) + 1],
+			z = workspace[(3 * level) + 2];
+		//P7 = S3 * T3
+		addBlocks(hm, hk, a, a11, aRowStride, a, a21, aRowStride, x, 0, hk, true);
+		addBlocks(hk, hn, b, b22, bRowStride, b, b12, bRowStride, y, 0, hn, true);
+		multiplyRecursive(hm, hk, hn, levels - 1, x, 0, hk, y, 0, hn, c, c21, cRowStride, workspace);
+		//P5 = S1 * T1
+		addBlocks(hm, hk, a, a21, aRowStride, a, a22, aRowStride, x, 0, hk, false);
+		addBlocks(hk, hn, b, b12, bRowStride, b, b11, bRowStride, y, 0, hn, true);
+		multiplyRecursive(hm, hk, hn, levels - 1, x, 0, hk, y, 0, hn, c, c22, cRowStride, workspace);
+		//P6 = S2 * T2
+		addBlocks(hm, hk, x, 0, hk, a, a11, aRowStride, x, 0, hk, true);
+		addBlocks(hk, hn, b, b22, bRowStride, y, 0, hn, y, 0, hn, true);
+		multiplyRecursive(hm, hk, hn, levels - 1, x, 0, hk, y, 0, hn, c, c12, cRowStride, workspace);
+		//P3 = S4 * B22
+		addBlocks(hm, hk, a, a12, aRowStride, x, 0, hk, x, 0, hk, true);
+		multiplyRecursive(hm, hk, hn, levels - 1, x, 0, hk, b, b22, bRowStride, c, c11, cRowStride, workspace);
+		//P1 = A11 * B11
+		multiplyRecursive(hm, hk, hn, levels - 1, a, a11, aRowStride, b, b11, bRowStride, z, 0, hn, workspace);
+		//U2, U3, U4, U7 and U5
+		addBlocks(hm, hn, z, 0, hn, c, c12, cRowStride, c, c12, cRowStride, false);
+		addBlocks(hm, hn, c, c12, cRowStride, c, c21, cRowStride, c, c21, cRowStride, false);
+		addBlocks(hm, hn, c, c12, cRowStride, c, c22, cRowStride, c, c12, cRowStride, false);
+		addBlocks(hm, hn, c, c21, cRowStride, c, c22, cRowStride, c, c22, cRowStride, false);
+		addBlocks(hm, hn, c, c12, cRowStride, c, c11, cRowStride, c, c12, cRowStride, false);
+		//P4 = A22 * T4, and U6 = U3 - P4
+		addBlocks(hk, hn, y, 0, hn, b, b21, bRowStride, y, 0, hn, true);
+		multiplyRecursive(hm, hk, hn, levels - 1, a, a22, aRowStride, y, 0, hn, c, c11, cRowStride, workspace);
+		addBlocks(hm, hn, c, c21, cRowStride, c, c11, cRowStride, c, c21, cRowStride, true);
+		//P2 = A12 * B21, and U1 = P1 + P2
+		multiplyRecursive(hm, hk, hn, levels - 1, a, a12, aRowStride, b, b21, bRowStride, c, c11, cRowStride, workspace);
+		addBlocks(hm, hn, c, c11, cRowStride, z, 0, hn, c, c11, cRowStride, false);
+	} //multiplyRecursive
+
+	/**
+	Calculates C = A * B (C is overwritten) with the classical blocked kernel.
+	If the parallel mode is turned on, the rows are split across the worker threads.
+	*/
+	static void multiplyClassical(final int m, final int k, final int n,
+			final double[] a, final int aOffset, final int aRowStride,
+			final double[] b, final int bOffset, final int bRowStride,
+			final double[] c, final int cOffset, final int cRowStride) throws ExceptionClass {
+		ParallelExecution.runInRowBlocks(m, (long) k * n, new ParallelExecution.RowBlockTask() {
+			public void run(int fromRow, int toRow) {
+				for(int i = fromRow; i < toRow; i++) {
+					Arrays.fill(c, cOffset + (i * cRowStride), cOffset + (i * cRowStride) + n, 0);
+				} //for
+				BlockedMatrixMultiplication.multiply(toRow - fromRow, n, k,
+					a, aOffset + (fromRow * aRowStride), aRowStride, 1,
+					b, bOffset, bRowStride, 1,
+					c, cOffset + (fromRow * cRowStride), cRowStride);
+			} //run
+		});
+	} //multiplyClassical
+
+	/**
+	Calculates Z = X + Y (or Z = X - Y if isSubtraction) for two rows x columns
+	blocks. Z can be the same block as X or Y, since each cell is only read
+	before it is written.
+	*/
+	static void addBlocks(int rows, int columns,
+			double[] x, int xOffset, int xRowStride,
+			double[] y, int yOffset, int yRowStride,
+			double[] z, int zOffset, int zRowStride, boolean isSubtraction) {
+		int indexX = 0,
+			indexY = 0,
+			indexZ = 0;
+		for(int i = 0; i < rows; i++) {
+			indexX = xOffset + (i * xRowStride);
+			indexY = yOffset + (i * yRowStride);
+			indexZ = zOffset + (i * zRowStride);
+			if(isSubtraction) {
+				for(int j = 0; j < columns; j++) {
+					z[indexZ + j] = x[indexX + j] - y[indexY + j];
+				} //for
+			} else {
+				for(int j = 0; j < columns; j++) {
+					z[indexZ + j] = x[indexX + j] + y[indexY + j];
+				} //for
+			} //if
+		} //for
+	} //addBlocks
+}
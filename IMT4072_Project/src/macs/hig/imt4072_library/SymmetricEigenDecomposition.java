@@ -0,0 +1,466 @@
+package macs.hig.imt4072_library;
+
+/**
+Class containing the eigen decomposition A = V * D * VT of a symmetric
+matrix, where D contains the (real) eigenvalues on the diagonal and the
+columns of V are the (orthonormal) eigenvectors.
+Small matrices (up to JACOBI_MAX_SIZE) are decomposed with the cyclic
+Jacobi method: each rotation sets one off-diagonal value to zero, and the
+sweeps over all the off-diagonal values are repeated until they are all
+zero (to machine precision). The method is simple and very accurate, also
+for small eigenvalues, but needs about 6-10 sweeps of O(n^3) each.
+Larger matrices are first reduced to a tridiagonal matrix with Householder
+reflections (once, about 4n^3/3 operations), and the tridiagonal matrix is
+then diagonalised with the implicit QL method, where each eigenvalue needs
+only a few iterations of O(n) (plus O(n^2) to update the eigenvectors).
+This is several times faster then Jacobi for e.g. the co-variance matrix
+of high-dimensional features.
+The eigenvalues are sorted from the largest to the smallest, so the
+first k eigenvectors are the k most important axes (e.g. for LDA or PCA).
+@Author  Knut Lucas Andersen
+*/
+public class SymmetricEigenDecomposition {
+	//the maximum number of sweeps before giving up
+	final static int MAX_SWEEPS = 50;
+	//the largest matrix decomposed with the Jacobi method (larger use Householder + QL)
+	final static int JACOBI_MAX_SIZE = 16;
+	//the maximum number of QL iterations per eigenvalue before giving up
+	final static int MAX_QL_ITERATIONS = 50;
+	//the size of the (NxN) matrix
+	private int _size;
+	//the eigenvalues, from the largest to the smallest
+	private double[] _eigenvalues;
+	//the eigenvectors (one per column), row-major NxN
+	private double[] _eigenvectors;
+
+	/**
+	Constructor calculating the eigen decomposition of the passed symmetric matrix.
+	Only the upper triangle is read. The passed matrix is not changed.
+	Matrices larger then JACOBI_MAX_SIZE are decomposed with Householder + QL.
+	@param matrix - Matrix: The symmetric NxN matrix to decompose
+	@throws ExceptionClass
+	- Throws error if the matrix is empty
+	- Throws error if the matrix isn't square
+	- Throws error if the decomposition doesn't converge
+	*/
+	public SymmetricEigenDecomposition(Matrix matrix) throws ExceptionClass {
+		String errorMsg = "\nCan't calculate the eigen decomposition.";
+		ExceptionClass.throwErrorIfMatrixIsEmpty(matrix.getNumRows(), matrix.getNumColumns());
+		ExceptionClass.throwErrorIfMatrixNotSquare(matrix.getNumRows(), matrix.getNumColumns(), errorMsg);
+		_size = matrix.getNumRows();
+		_eigenvalues = new double[_size];
+		_eigenvectors = new double[_size * _size];
+		if(_size <= JACOBI_MAX_SIZE) {
+			decompose(matrix.createCopy().getMatrix());
+		} else {
+			reduceToTridiagonal(matrix, _eigenvectors);
+		} //if
+		sortDescending();
+	} //constructor
+
+	/**
+	Constructor calculating the eigen decomposition of the passed (packed) symmetric matrix.
+	@param matrix - SymmetricMatrix: The symmetric matrix to decompose
+	@throws ExceptionClass - Throws error if the decomposition doesn't converge
+	*/
+	public SymmetricEigenDecomposition(SymmetricMatrix matrix) throws ExceptionClass {
+		this(matrix.toMatrix());
+	} //constructor
+
+	/***************** CALCULATION FUNCTIONS *******************/
+
+	/**
+	Creates a matrix containing the eigenvectors of the numVectors largest
+	eigenvalues, one per column (N x numVectors).
+	@param numVectors - int: The number of eigenvectors
+	@throws ExceptionClass - Throws error if numVectors isn't between 1 and N
+	@return Matrix - the eigenvectors
+	*/
+	Matrix createEigenvectorMatrix(int numVectors) throws ExceptionClass {
+		String errorMsg = "The number of eigenvectors must be between 1 and " + (_size) + ", but was "
+			+ (numVectors) + ".\nCan't create the eigenvector matrix.";
+		ExceptionClass.throwErrorIfSizeLessThenCount(numVectors, 1, errorMsg);
+		ExceptionClass.throwErrorIfSizeGreaterThenValue(numVectors, _size, errorMsg);
+		Matrix vectorMatrix = new Matrix(_size, numVectors);
+		new Matrix(_eigenvectors, _size, numVectors, 0, _size, 1).copyInto(vectorMatrix);
+		return vectorMatrix;
+	} //createEigenvectorMatrix
+
+	/**
+	Creates a Nx1 matrix containing the eigenvalues (from the largest to the smallest)
+	@return Matrix - the eigenvalues
+	*/
+	Matrix createEigenvalueMatrix() {
+		Matrix valueMatrix = new Matrix(_size, 1);
+		System.arraycopy(_eigenvalues, 0, valueMatrix.getMatrix(), 0, _size);
+		return valueMatrix;
+	} //createEigenvalueMatrix
+
+	/************************* PRIVATE FUNCTIONS *********************************/
+
+	/**
+	Calculates the eigenvalues and eigenvectors with the cyclic Jacobi
+	method, where the upper triangle of a is destroyed. In the first three
+	sweeps, only values above a threshold are rotated away (the large values
+	first). The diagonal is collected in a separate sum (z), which is added
+	at the end of each sweep, to reduce the rounding errors.
+	*/
+	void decompose(double[] a) throws ExceptionClass {
+		int n = _size;
+		double[] d = _eigenvalues,
+			v = _eigenvectors,
+			b = new double[n],
+			z = new double[n];
+		double sum = 0,
+			threshold = 0,
+			g = 0,
+			h = 0,
+			t = 0,
+			theta = 0,
+			c = 0,
+			s = 0,
+			tau = 0,
+			apq = 0;
+		for(int i = 0; i < n; i++) {
+			v[(i * n) + i] = 1;
+			d[i] = a[(i * n) + i];
+			b[i] = d[i];
+		} //for
+		for(int sweep = 0; sweep < MAX_SWEEPS; sweep++) {
+			//sum of the off-diagonal values; stop when it is zero
+			sum = 0;
+			for(int p = 0; p < n - 1; p++) {
+				for(int q = p + 1; q < n; q++) {
+					sum += Math.abs(a[(p * n) + q]);
+				} //for
+			} //for
+			if(sum == 0) {
+				return;
+			} //if
+			threshold = (sweep < 3) ? (0.2 * sum / (n * n)) : 0;
+			for(int p = 0; p < n - 1; p++) {
+				for(int q = p + 1; q < n; q++) {
+					apq = a[(p * n) + q];
+					g = 100 * Math.abs(apq);
+					if(sweep > 3 && (Math.abs(d[p]) + g) == Math.abs(d[p]) && (Math.abs(d[q]) + g) == Math.abs(d[q])) {
+						//the value is too small to change the diagonal
+						a[(p * n) + q] = 0;
+					} else if(Math.abs(apq) > threshold) {
+						h = d[q] - d[p];
+						if((Math.abs(h) + g) == Math.abs(h)) {
+							t = apq / h;
+						} else {
+							theta = 0.5 * h / apq;
+							t = 1 / (Math.abs(theta) + Math.sqrt(1 + (theta * theta)));
+							if(theta < 0) {
+								t = -t;
+							} //if
+						} //if
+						c = 1 / Math.sqrt(1 + (t * t));
+						s = t * c;
+						tau = s / (1 + c);
+						h = t * apq;
+						z[p] -= h;
+						z[q] += h;
+						d[p] -= h;
+						d[q] += h;
+						a[(p * n) + q] = 0;
+						for(int j = 0; j < p; j++) {
+							rotate(a, (j * n) + p, (j * n) + q, s, tau);
+						} //for
+						for(int j = p + 1; j < q; j++) {
+							rotate(a, (p * n) + j, (j * n) + q, s, tau);
+						} //for
+						for(int j = q + 1; j < n; j++) {
+							rotate(a, (p * n) + j, (q * n) + j, s, tau);
+						} //for
+						for(int j = 0; j < n; j++) {
+							rotate(v, (j * n) + p, (j * n) + q, s, tau);
+						} //for
+					} //if
+				} //for
+			} //for
+			for(int i = 0; i < n; i++) {
+				b[i] += z[i];
+				d[i] = b[i];
+				z[i] = 0;
+			} //for
+		} //for
+		throw new ExceptionClass("The Jacobi method didn't converge in " + (MAX_SWEEPS) + " sweeps."
+			+ "\nCan't calculate the eigen decomposition.");
+	} //decompose
+
+	/**
+	Reduces the symmetric matrix (upper triangle) to a tridiagonal matrix
+	with Householder reflections (the diagonal is placed in _eigenvalues
+	and the sub-diagonal in e), and accumulates the reflections in v. The
+	tridiagonal matrix is then diagonalised with diagonaliseTridiagonal(...).
+	*/
+	void reduceToTridiagonal(Matrix matrix, double[] v) throws ExceptionClass {
+		int n = _size;
+		double[] d = _eigenvalues,
+			e = new double[n];
+		double scale = 0,
+			h = 0,
+			f = 0,
+			g = 0,
+			hh = 0;
+		//v starts as a full (mirrored) copy of the matrix
+		for(int i = 0; i < n; i++) {
+			for(int j = i; j < n; j++) {
+				v[(i * n) + j] = matrix.getMatrix()[matrix.cellIndex(i, j)];
+				v[(j * n) + i] = v[(i * n) + j];
+			} //for
+		} //for
+		for(int j = 0; j < n; j++) {
+			d[j] = v[((n - 1) * n) + j];
+		} //for
+		for(int i = n - 1; i > 0; i--) {
+			//scale the row to avoid under/overflow
+			scale = 0;
+			h = 0;
+			for(int k = 0; k < i; k++) {
+				scale += Math.abs(d[k]);
+			} //for
+			if(scale == 0) {
+				e[i] = d[i - 1];
+				for(int j = 0; j < i; j++) {
+					d[j] = v[((i - 1) * n) + j];
+					v[(i * n) + j] = 0;
+					v[(j * n) + i] = 0;
+				} //for
+			} else {
+				//create the Householder vector
+				for(int k = 0; k < i; k++) {
+					d[k] /= scale;
+					h += d[k] * d[k];
+				} //for
+				f = d[i - 1];
+				g = Math.sqrt(h);
+				if(f > 0) {
+					g = -g;
+				} //if
+				e[i] = scale * g;
+				h = h - (f * g);
+				d[i - 1] = f - g;
+				for(int j = 0; j < i; j++) {
+					e[j] = 0;
+				} //for
+				//apply the similarity transformation to the remaining columns
+				for(int j = 0; j < i; j++) {
+					f = d[j];
+					v[(j * n) + i] = f;
+					g = e[j] + (v[(j * n) + j] * f);
+					for(int k = j + 1; k <= i - 1; k++) {
+						g += v[(k * n) + j] * d[k];
+						e[k] += v[(k * n) + j] * f;
+					} //for
+					e[j] = g;
+				} //for
+				f = 0;
+				for(int j = 0; j < i; j++) {
+					e[j] /= h;
+					f += e[j] * d[j];
+				} //for
+				hh = f / (h + h);
+				for(int j = 0; j < i; j++) {
+					e[j] -= hh * d[j];
+				} //for
+				for(int j = 0; j < i; j++) {
+					f = d[j];
+					g = e[j];
+					for(int k = j; k <= i - 1; k++) {
+						v[(k * n) + j] -= (f * e[k]) + (g * d[k]);
+					} //for
+					d[j] = v[((i - 1) * n) + j];
+					v[(i * n) + j] = 0;
+				} //for
+			} //if
+			d[i] = h;
+		} //for
+		//accumulate the transformations
+		for(int i = 0; i < n - 1; i++) {
+			v[((n - 1) * n) + i] = v[(i * n) + i];
+			v[(i * n) + i] = 1;
+			h = d[i + 1];
+			if(h != 0) {
+				for(int k = 0; k <= i; k++) {
+					d[k] = v[(k * n) + i + 1] / h;
+				} //for
+				for(int j = 0; j <= i; j++) {
+					g = 0;
+					for(int k = 0; k <= i; k++) {
+						g += v[(k * n) + i + 1] * v[(k * n) + j];
+					} //for
+					for(int k = 0; k <= i; k++) {
+						v[(k * n) + j] -= g * d[k];
+					} //for
+				} //for
+			} //if
+			for(int k = 0; k <= i; k++) {
+				v[(k * n) + i + 1] = 0;
+			} //for
+		} //for
+		for(int j = 0; j < n; j++) {
+			d[j] = v[((n - 1) * n) + j];
+			v[((n - 1) * n) + j] = 0;
+		} //for
+		v[((n - 1) * n) + n - 1] = 1;
+		e[0] = 0;
+		diagonaliseTridiagonal(e, v);
+	} //reduceToTridiagonal
+
+	/**
+	Diagonalises the tridiagonal matrix (diagonal in _eigenvalues, sub-diagonal
+	in e[1], ..., e[n-1]) with the implicit QL method (with shifts), and
+	applies the rotations to the eigenvectors in v
+	*/
+	void diagonaliseTridiagonal(double[] e, double[] v) throws ExceptionClass {
+		int n = _size,
+			m = 0,
+			iterations = 0;
+		double[] d = _eigenvalues;
+		double f = 0,
+			largest = 0,
+			g = 0,
+			p = 0,
+			r = 0,
+			h = 0,
+			c = 0,
+			c2 = 0,
+			c3 = 0,
+			s = 0,
+			s2 = 0,
+			dl1 = 0,
+			el1 = 0,
+			epsilon = Math.ulp(1.0);
+		for(int i = 1; i < n; i++) {
+			e[i - 1] = e[i];
+		} //for
+		e[n - 1] = 0;
+		for(int l = 0; l < n; l++) {
+			//find a small sub-diagonal value, which splits the matrix
+			largest = Math.max(largest, Math.abs(d[l]) + Math.abs(e[l]));
+			m = l;
+			while(m < n - 1 && Math.abs(e[m]) > epsilon * largest) {
+				m++;
+			} //while
+			iterations = 0;
+			while(m > l && Math.abs(e[l]) > epsilon * largest) {
+				if(++iterations > MAX_QL_ITERATIONS) {
+					throw new ExceptionClass("The QL method didn't converge in " + (MAX_QL_ITERATIONS) + " iterations."
+						+ "\nCan't calculate the eigen decomposition.");
+				} //if
+				//the shift
+				g = d[l];
+				p = (d[l + 1] - g) / (2 * e[l]);
+				r = Math.hypot(p, 1);
+				if(p < 0) {
+					r = -r;
+				} //if
+				d[l] = e[l] / (p + r);
+				d[l + 1] = e[l] * (p + r);
+				dl1 = d[l + 1];
+				h = g - d[l];
+				for(int i = l + 2; i < n; i++) {
+					d[i] -= h;
+				} //for
+				f += h;
+				//the implicit QL transformation
+				p = d[m];
+				c = 1;
+				c2 = c;
+				c3 = c;
+				el1 = e[l + 1];
+				s = 0;
+				s2 = 0;
+				for(int i = m - 1; i >= l; i--) {
+					c3 = c2;
+					c2 = c;
+					s2 = s;
+					g = c * e[i];
+					h = c * p;
+					r = Math.hypot(p, e[i]);
+					e[i + 1] = s * r;
+					s = e[i] / r;
+					c = p / r;
+					p = (c * d[i]) - (s * g);
+					d[i + 1] = h + (s * ((c * g) + (s * d[i])));
+					for(int k = 0; k < n; k++) {
+						rotateColumns(v, (k * n) + i, (k * n) + i + 1, c, s);
+					} //for
+				} //for
+				p = -s * s2 * c3 * el1 * e[l] / dl1;
+				e[l] = s * p;
+				d[l] = c * p;
+			} //while
+			d[l] = d[l] + f;
+			e[l] = 0;
+		} //for
+	} //diagonaliseTridiagonal
+
+	/**
+	Applies the plane rotation (c, s) to the two values array[i] and array[j]
+	*/
+	static void rotateColumns(double[] array, int i, int j, double c, double s) {
+		double h = array[j];
+		array[j] = (s * array[i]) + (c * h);
+		array[i] = (c * array[i]) - (s * h);
+	} //rotateColumns
+
+	/**
+	Applies the rotation to the two values array[i] and array[j]
+	*/
+	static void rotate(double[] array, int i, int j, double s, double tau) {
+		double g = array[i],
+			h = array[j];
+		array[i] = g - (s * (h + (g * tau)));
+		array[j] = h + (s * (g - (h * tau)));
+	} //rotate
+
+	/**
+	Sorts the eigenvalues from the largest to the smallest (selection sort),
+	and moves the eigenvectors (columns) with them
+	*/
+	void sortDescending() {
+		int n = _size,
+			largest = 0;
+		double value = 0;
+		for(int i = 0; i < n - 1; i++) {
+			largest = i;
+			for(int j = i + 1; j < n; j++) {
+				if(_eigenvalues[j] > _eigenvalues[largest]) {
+					largest = j;
+				} //if
+			} //for
+			if(largest != i) {
+				value = _eigenvalues[i];
+				_eigenvalues[i] = _eigenvalues[largest];
+				_eigenvalues[largest] = value;
+				for(int r = 0; r < n; r++) {
+					value = _eigenvectors[(r * n) + i];
+					_eigenvectors[(r * n) + i] = _eigenvectors[(r * n) + largest];
+					_eigenvectors[(r * n) + largest] = value;
+				} //for
+			} //if
+		} //for
+	} //sortDescending
+
+	/**********************GET & SET METHODS *****************************/
+
+	/**
+	Returns the size (N) of the decomposed matrix
+	*/
+	int getSize() {
+		return _size;
+	} //getSize
+
+	/**
+	Returns the eigenvalue number index (0 is the largest)
+	@throws ExceptionClass - Throws error if the index isn't within range
+	*/
+	double getEigenvalue(int index) throws ExceptionClass {
+		ExceptionClass.throwErrorIfMatrixRowOutOfRange(index, _size, "\nCan't retrieve the eigenvalue.");
+		return _eigenvalues[index];
+	} //getEigenvalue
+}
@@ -0,0 +1,335 @@
+package macs.hig.imt4072_library;
+
+import java.util.Arrays;
+
+/**
+Class functioning as a symmetric NxN matrix (e.g. a co-variance or
+scatter matrix), where only the upper triangle is stored. The triangle is
+packed row by row into one array of N * (N + 1) / 2 values: <br />
+row 0: [0][0], [0][1], ..., [0][N-1] <br />
+row 1: [1][1], ..., [1][N-1] <br />
+... <br />
+Compared to a full NxN Matrix this halves the memory used, and the
+number of values read by the calculations.
+The class has the ability to:
+- Convert to and from a (full) Matrix <br />
+- Add a rank-1 update (alpha * x * xT), e.g. for the between class scatter <br />
+- Multiply with a vector <br />
+- Add two symmetric matrices and scale the values
+@Author  Knut Lucas Andersen
+*/
+public class SymmetricMatrix {
+	//the number of rows and columns in the matrix
+	private int _numElements;
+	//the upper triangle, packed row by row
+	private double[] _packedArray;
+
+	/**
+	Constructor creating a NxN symmetric matrix filled with zeros.
+	@param numElements - int: The number of rows (and columns) in the matrix
+	@throws ExceptionClass - Throws error if numElements is less then 1
+	*/
+	public SymmetricMatrix(int numElements) throws ExceptionClass {
+		String errorMsg = "The number of elements must be at least 1, but was " + (numElements) + ".";
+		ExceptionClass.throwErrorIfSizeLessThenCount(numElements, 1, errorMsg);
+		_numElements = numElements;
+		_packedArray = new double[getPackedLength(numElements)];
+	} //constructor
+
+	/**
+	Constructor used internally, where the packed array is already created
+	*/
+	private SymmetricMatrix(int numElements, double[] packedArray) {
+		_numElements = numElements;
+		_packedArray = packedArray;
+	} //constructor
+
+	/**
+	Creates a symmetric matrix from the upper triangle of the passed matrix.
+	The lower triangle isn't read (it is assumed to be equal to the upper).
+	@param matrix - Matrix: The square matrix to convert
+	@throws ExceptionClass - Throws error if the matrix isn't square
+	@return SymmetricMatrix - the symmetric matrix
+	*/
+	static SymmetricMatrix fromMatrix(Matrix matrix) throws ExceptionClass {
+		ExceptionClass.throwErrorIfMatrixNotSquare(matrix.getNumRows(), matrix.getNumColumns(), "\nCan't create the symmetric matrix.");
+		int n = matrix.getNumRows(),
+			packedIndex = 0,
+			index = 0;
+		double[] array = matrix.getMatrix(),
+			packedArray = new double[getPackedLength(n)];
+		for(int i = 0; i < n; i++) {
+			index = matrix.cellIndex(i, i);
+			for(int j = i; j < n; j++) {
+				packedArray[packedIndex++] = array[index];
+				index += matrix.getColumnStride();
+			} //for
+		} //for
+		return new SymmetricMatrix(n, packedArray);
+	} //fromMatrix
+
+	/**
+	Creates a symmetric matrix from a packed upper triangle (e.g. the
+	co-moments in MatrixStatisticsAccumulator), multiplied with factor.
+	The passed array isn't changed.
+	*/
+	static SymmetricMatrix fromPackedArray(double[] packedArray, int numElements, double factor) {
+		double[] scaledArray = new double[getPackedLength(numElements)];
+		for(int i = 0; i < scaledArray.length; i++) {
+			scaledArray[i] = packedArray[i] * factor;
+		} //for
+		return new SymmetricMatrix(numElements, scaledArray);
+	} //fromPackedArray
+
+	/**
+	Creates a symmetric matrix using the passed packed upper triangle
+	directly (it isn't copied), e.g. a triangle that was just calculated.
+	The caller must not use the array afterwards.
+	*/
+	static SymmetricMatrix wrapPackedArray(double[] packedArray, int numElements) {
+		return new SymmetricMatrix(numElements, packedArray);
+	} //wrapPackedArray
+
+	/**
+	Creates a (full) NxN Matrix containing the values in this matrix
+	@return Matrix - the full matrix
+	*/
+	Matrix toMatrix() {
+		int n = _numElements,
+			packedIndex = 0;
+		double value = 0;
+		Matrix matrix = new Matrix(n, n);
+		double[] array = matrix.getMatrix();
+		for(int i = 0; i < n; i++) {
+			for(int j = i; j < n; j++) {
+				value = _packedArray[packedIndex++];
+				array[(i * n) + j] = value;
+				array[(j * n) + i] = value;
+			} //for
+		} //for
+		return matrix;
+	} //toMatrix
+
+	/**
+	Creates a copy of this matrix
+	@return SymmetricMatrix - the copy
+	*/
+	SymmetricMatrix createCopy() {
+		return new SymmetricMatrix(_numElements, Arrays.copyOf(_packedArray, _packedArray.length));
+	} //createCopy
+
+	/***************** CALCULATION FUNCTIONS *******************/
+
+	/**
+	Adds alpha * x * xT to this matrix, where x is a Nx1 (or 1xN) matrix.
+	Only the upper triangle is updated, so this is half the work of the
+	full outer product. E.g. the between class scatter for class c is
+	added by rankOneUpdate(n_c, mean_c - mean).
+	@param alpha - double: The value to multiply the outer product with
+	@param vector - Matrix: The vector x
+	@throws ExceptionClass - Throws error if the vector doesn't contain N values
+	*/
+	void rankOneUpdate(double alpha, Matrix vector) throws ExceptionClass {
+		rankOneUpdate(alpha, getVectorValues(vector, "\nCan't add the rank-1 update."));
+	} //rankOneUpdate
+
+	/**
+	Adds alpha * x * xT to this matrix
+	@param alpha - double: The value to multiply the outer product with
+	@param values - double[]: The vector x (N values)
+	@throws ExceptionClass - Throws error if the vector doesn't contain N values
+	*/
+	void rankOneUpdate(double alpha, double[] values) throws ExceptionClass {
+		throwErrorIfLengthDiffers(values.length, "\nCan't add the rank-1 update.");
+		int packedIndex = 0;
+		double scaledValue = 0;
+		for(int i = 0; i < _numElements; i++) {
+			scaledValue = alpha * values[i];
+			for(int j = i; j < _numElements; j++) {
+				_packedArray[packedIndex++] += scaledValue * values[j];
+			} //for
+		} //for
+	} //rankOneUpdate
+
+	/**
+	Multiplies this matrix with the vector x (y = A * x). Each stored value
+	is read once, and used for both [i][j] and [j][i].
+	@param vector - Matrix: The Nx1 (or 1xN) vector x
+	@throws ExceptionClass - Throws error if the vector doesn't contain N values
+	@return Matrix - the Nx1 result y
+	*/
+	Matrix multiplyVector(Matrix vector) throws ExceptionClass {
+		double[] values = getVectorValues(vector, "\nCan't multiply the matrix with the vector.");
+		Matrix result = new Matrix(_numElements, 1);
+		multiplyVector(values, result.getMatrix());
+		return result;
+	} //multiplyVector
+
+	/**
+	Multiplies this matrix with the vector x, and writes the result into y
+	@param values - double[]: The vector x (N values)
+	@param result - double[]: The array to write y to (N values)
+	@throws ExceptionClass - Throws error if one of the arrays doesn't contain N values
+	*/
+	void multiplyVector(double[] values, double[] result) throws ExceptionClass {
+		throwErrorIfLengthDiffers(values.length, "\nCan't multiply the matrix with the vector.");
+		throwErrorIfLengthDiffers(result.length, "\nCan't multiply the matrix with the vector.");
+		int packedIndex = 0;
+		double value = 0,
+			valueI = 0,
+			sum = 0;
+		Arrays.fill(result, 0);
+		for(int i = 0; i < _numElements; i++) {
+			valueI = values[i];
+			//the diagonal
+			sum = _packedArray[packedIndex++] * valueI;
+			for(int j = i + 1; j < _numElements; j++) {
+				value = _packedArray[packedIndex++];
+				sum += value * values[j];
+				result[j] += value * valueI;
+			} //for
+			result[i] += sum;
+		} //for
+	} //multiplyVector
+
+	/**
+	Adds the two symmetric matrices, and returns the result in a new matrix
+	(e.g. Sw = S1 + S2).
+	@param matrix1 - SymmetricMatrix: The 1. matrix
+	@param matrix2 - SymmetricMatrix: The 2. matrix
+	@throws ExceptionClass - Throws error if the matrices aren't of equal size
+	@return SymmetricMatrix - the sum
+	*/
+	static SymmetricMatrix add(SymmetricMatrix matrix1, SymmetricMatrix matrix2) throws ExceptionClass {
+		SymmetricMatrix result = matrix1.createCopy();
+		result.addInPlace(matrix2);
+		return result;
+	} //add
+
+	/**
+	Adds the values in other to this matrix
+	@param other - SymmetricMatrix: The matrix to add
+	@throws ExceptionClass - Throws error if the matrices aren't of equal size
+	*/
+	void addInPlace(SymmetricMatrix other) throws ExceptionClass {
+		throwErrorIfLengthDiffers(other._numElements, "\nCan't add the matrices.");
+		for(int k = 0; k < _packedArray.length; k++) {
+			_packedArray[k] += other._packedArray[k];
+		} //for
+	} //addInPlace
+
+	/**
+	Multiplies all the values in this matrix with factor
+	@param factor - double: The value to multiply with
+	*/
+	void scaleInPlace(double factor) {
+		for(int k = 0; k < _packedArray.length; k++) {
+			_packedArray[k] *= factor;
+		} //for
+	} //scaleInPlace
+
+	/**
+	Adds value to each cell on the diagonal (e.g. regularization of a nearly
+	singular scatter matrix)
+	@param value - double: The value to add
+	*/
+	void addToDiagonal(double value) {
+		for(int i = 0; i < _numElements; i++) {
+			_packedArray[packedIndex(i, i)] += value;
+		} //for
+	} //addToDiagonal
+
+	/************************* PRIVATE FUNCTIONS *********************************/
+
+	/**
+	Returns the index of [rowNo][columnNo] in the packed array, where rowNo <= columnNo
+	*/
+	int packedIndex(int rowNo, int columnNo) {
+		return getPackedIndex(rowNo, columnNo, _numElements);
+	} //packedIndex
+
+	/**
+	Returns the values in a Nx1 or 1xN matrix
+	*/
+	double[] getVectorValues(Matrix vector, String additionalInfo) throws ExceptionClass {
+		int length = vector.getNumRows() * vector.getNumColumns(),
+			stride = (vector.getNumColumns() == 1) ? vector.getRowStride() : vector.getColumnStride(),
+			index = 0;
+		if((vector.getNumRows() != 1 && vector.getNumColumns() != 1) || length != _numElements) {
+			String errorMsg = "The vector is a " + (vector.getNumRows()) + "x" + (vector.getNumColumns())
+				+ " matrix, but must contain " + (_numElements) + " values in one row or column." + additionalInfo;
+			throw new ExceptionClass(errorMsg);
+		} //if
+		double[] array = vector.getMatrix(),
+			values = new double[length];
+		index = vector.cellIndex(0, 0);
+		for(int k = 0; k < length; k++) {
+			values[k] = array[index];
+			index += stride;
+		} //for
+		return values;
+	} //getVectorValues
+
+	/**
+	Throws an error if the passed length isn't equal to the number of elements
+	*/
+	void throwErrorIfLengthDiffers(int length, String additionalInfo) throws ExceptionClass {
+		if(length != _numElements) {
+			String errorMsg = "The number of elements(" + (length) + ") isn't equal to the "
+				+ "number of elements(" + (_numElements) + ") in the symmetric matrix." + additionalInfo;
+			throw new ExceptionClass(errorMsg);
+		} //if
+	} //throwErrorIfLengthDiffers
+
+	/**********************GET & SET METHODS *****************************/
+
+	/**
+	Returns the number of values in the packed upper triangle of a NxN matrix
+	*/
+	static int getPackedLength(int numElements) {
+		return (numElements * (numElements + 1)) / 2;
+	} //getPackedLength
+
+	/**
+	Returns the index of [rowNo][columnNo] in a packed NxN upper triangle, where rowNo <= columnNo
+	*/
+	static int getPackedIndex(int rowNo, int columnNo, int numElements) {
+		return ((rowNo * ((2 * numElements) - rowNo - 1)) / 2) + columnNo;
+	} //getPackedIndex
+
+	/**
+	Returns the number of rows (and columns) in the matrix
+	*/
+	int getNumElements() {
+		return _numElements;
+	} //getNumElements
+
+	/**
+	Returns the value of the cell at [rowNo][columnNo]
+	@throws ExceptionClass - Throws error if rowNo/columnNo isn't within range
+	*/
+	double getCellValueAt(int rowNo, int columnNo) throws ExceptionClass {
+		String errorMsg = "\nCan't retrieve value at position [" + (rowNo) + "," + (columnNo) + "]";
+		ExceptionClass.throwErrorIfMatrixRowOutOfRange(rowNo, _numElements, errorMsg);
+		ExceptionClass.throwErrorIfMatrixColumnOutOfRange(columnNo, _numElements, errorMsg);
+		return _packedArray[packedIndex(Math.min(rowNo, columnNo), Math.max(rowNo, columnNo))];
+	} //getCellValueAt
+
+	/**
+	Changes the value of the cell at [rowNo][columnNo] (and [columnNo][rowNo])
+	@throws ExceptionClass - Throws error if rowNo/columnNo isn't within range
+	*/
+	void changeCellValueAt(int rowNo, int columnNo, double value) throws ExceptionClass {
+		String errorMsg = "\nCan't change value at position [" + (rowNo) + "," + (columnNo) + "]";
+		ExceptionClass.throwErrorIfMatrixRowOutOfRange(rowNo, _numElements, errorMsg);
+		ExceptionClass.throwErrorIfMatrixColumnOutOfRange(columnNo, _numElements, errorMsg);
+		_packedArray[packedIndex(Math.min(rowNo, columnNo), Math.max(rowNo, columnNo))] = value;
+	} //changeCellValueAt
+
+	/**
+	Returns the packed upper triangle
+	*/
+	double[] getPackedArray() {
+		return _packedArray;
+	} //getPackedArray
+}
@@ -0,0 +1,191 @@
+package macs.hig.imt4072_library;
+
+/**
+Class containing the inner loops used by the matrix calculations
+(dot product, AXPY and squared distance) on flat arrays with an offset
+and stride, so they can be used directly on the rows and columns of a
+Matrix (and its views) instead of going through getCellValueAt().
+When the values are stored next to each other (stride 1), the loop is
+unrolled LANES times with separate sums. The separate sums are
+independent of each other, so the processor can do them in parallel
+(and the JIT compiler can turn them into SIMD instructions), instead of
+waiting for the previous addition to finish. For other strides, a plain
+loop is used.
+Note! Since the unrolled loops add the values in another order, the
+sums can differ from a plain loop in the last bits (the usual rounding
+error of a sum), but the result is otherwise the same.
+@Author  Knut Lucas Andersen
+*/
+public class VectorKernels {
+	//number of values handled in each round of the unrolled loops
+	final static int LANES = 4;
+
+	/**
+	Default constructor
+	*/
+	public VectorKernels() {
+
+	} //constructor
+
+	/**
+	Calculates the dot product sum(x[i] * y[i]) of two vectors.
+	@param length - int: The number of values in the vectors
+	@param x - double[]: Array containing the 1. vector
+	@param xOffset - int: The index of the first value in x
+	@param xStride - int: The distance between two values in x
+	@param y - double[]: Array containing the 2. vector
+	@param yOffset - int: The index of the first value in y
+	@param yStride - int: The distance between two values in y
+	@return double: the dot product
+	*/
+	static double dot(int length, double[] x, int xOffset, int xStride, double[] y, int yOffset, int yStride) {
+		int unrolledLength = length - (length % LANES),
+			i = 0;
+		double sum0 = 0,
+			sum1 = 0,
+			sum2 = 0,
+			sum3 = 0;
+		if(xStride == 1 && yStride == 1) {
+			for(i = 0; i < unrolledLength; i += LANES) {
+				sum0 += x[xOffset + i] * y[yOffset + i];
+				sum1 += x[xOffset + i + 1] * y[yOffset + i + 1];
+				sum2 += x[xOffset + i + 2] * y[yOffset + i + 2];
+				sum3 += x[xOffset + i + 3] * y[yOffset + i + 3];
+			} //for
+			for(; i < length; i++) {
+				sum0 += x[xOffset + i] * y[yOffset + i];
+			} //for
+			return (sum0 + sum1) + (sum2 + sum3);
+		} //if
+		for(i = 0; i < length; i++) {
+			sum0 += x[xOffset] * y[yOffset];
+			xOffset += xStride;
+			yOffset += yStride;
+		} //for
+		return sum0;
+	} //dot
+
+	/**
+	Adds alpha * x to y (y = y + alpha * x).
+	@param length - int: The number of values in the vectors
+	@param alpha - double: The value to multiply x with
+	@param x - double[]: Array containing the vector x
+	@param xOffset - int: The index of the first value in x
+	@param xStride - int: The distance between two values in x
+	@param y - double[]: Array containing the vector y (updated)
+	@param yOffset - int: The index of the first value in y
+	@param yStride - int: The distance between two values in y
+	*/
+	static void axpy(int length, double alpha, double[] x, int xOffset, int xStride, double[] y, int yOffset, int yStride) {
+		int unrolledLength = length - (length % LANES),
+			i = 0;
+		if(xStride == 1 && yStride == 1) {
+			for(i = 0; i < unrolledLength; i += LANES) {
+				y[yOffset + i] += alpha * x[xOffset + i];
+				y[yOffset + i + 1] += alpha * x[xOffset + i + 1];
+				y[yOffset + i + 2] += alpha * x[xOffset + i + 2];
+				y[yOffset + i + 3] += alpha * x[xOffset + i + 3];
+			} //for
+			for(; i < length; i++) {
+				y[yOffset + i] += alpha * x[xOffset + i];
+			} //for
+			return;
+		} //if
+		for(i = 0; i < length; i++) {
+			y[yOffset] += alpha * x[xOffset];
+			xOffset += xStride;
+			yOffset += yStride;
+		} //for
+	} //axpy
+
+	/**
+	Calculates the squared euclidean distance sum((x[i] - y[i])2) between two vectors.
+	@param length - int: The number of values in the vectors
+	@param x - double[]: Array containing the 1. vector
+	@param xOffset - int: The index of the first value in x
+	@param xStride - int: The distance between two values in x
+	@param y - double[]: Array containing the 2. vector
+	@param yOffset - int: The index of the first value in y
+	@param yStride - int: The distance between two values in y
+	@return double: the squared distance
+	*/
+	static double squaredDistance(int length, double[] x, int xOffset, int xStride, double[] y, int yOffset, int yStride) {
+		int unrolledLength = length - (length % LANES),
+			i = 0;
+		double sum0 = 0,
+			sum1 = 0,
+			sum2 = 0,
+			sum3 = 0,
+			difference0 = 0,
+			difference1 = 0,
+			difference2 = 0,
+			difference3 = 0;
+		if(xStride == 1 && yStride == 1) {
+			for(i = 0; i < unrolledLength; i += LANES) {
+				difference0 = x[xOffset + i] - y[yOffset + i];
+				difference1 = x[xOffset + i + 1] - y[yOffset + i + 1];
+				difference2 = x[xOffset + i + 2] - y[yOffset + i + 2];
+				difference3 = x[xOffset + i + 3] - y[yOffset + i + 3];
+				sum0 += difference0 * difference0;
+				sum1 += difference1 * difference1;
+				sum2 += difference2 * difference2;
+				sum3 += difference3 * difference3;
+			} //for
+			for(; i < length; i++) {
+				difference0 = x[xOffset + i] - y[yOffset + i];
+				sum0 += difference0 * difference0;
+			} //for
+			return (sum0 + sum1) + (sum2 + sum3);
+		} //if
+		for(i = 0; i < length; i++) {
+			difference0 = x[xOffset] - y[yOffset];
+			sum0 += difference0 * difference0;
+			xOffset += xStride;
+			yOffset += yStride;
+		} //for
+		return sum0;
+	} //squaredDistance
+
+	/**
+	Calculates the squared euclidean distance sum((x[i] - y[i])2) between a
+	vector stored as float (e.g. a sample in a FloatMatrix) and a vector
+	stored as double (e.g. a centroid). The differences are calculated in double.
+	@see squaredDistance(int, double[], int, int, double[], int, int)
+	*/
+	static double squaredDistance(int length, float[] x, int xOffset, int xStride, double[] y, int yOffset, int yStride) {
+		int unrolledLength = length - (length % LANES),
+			i = 0;
+		double sum0 = 0,
+			sum1 = 0,
+			sum2 = 0,
+			sum3 = 0,
+			difference0 = 0,
+			difference1 = 0,
+			difference2 = 0,
+			difference3 = 0;
+		if(xStride == 1 && yStride == 1) {
+			for(i = 0; i < unrolledLength; i += LANES) {
+				difference0 = x[xOffset + i] - y[yOffset + i];
+				difference1 = x[xOffset + i + 1] - y[yOffset + i + 1];
+				difference2 = x[xOffset + i + 2] - y[yOffset + i + 2];
+				difference3 = x[xOffset + i + 3] - y[yOffset + i + 3];
+				sum0 += difference0 * difference0;
+				sum1 += difference1 * difference1;
+				sum2 += difference2 * difference2;
+				sum3 += difference3 * difference3;
+			} //for
+			for(; i < length; i++) {
+				difference0 = x[xOffset + i] - y[yOffset + i];
+				sum0 += difference0 * difference0;
+			} //for
+			return (sum0 + sum1) + (sum2 + sum3);
+		} //if
+		for(i = 0; i < length; i++) {
+			difference0 = x[xOffset] - y[yOffset];
+			sum0 += difference0 * difference0;
+			xOffset += xStride;
+			yOffset += yStride;
+		} //for
+		return sum0;
+	} //squaredDistance
+}
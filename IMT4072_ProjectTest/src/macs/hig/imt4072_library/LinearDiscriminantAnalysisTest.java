@@ -0,0 +1,223 @@
+package macs.hig.imt4072_library;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+/**
+Tests for LinearDiscriminantAnalysis, where the projection matrix W must
+solve the generalized eigenproblem: WT * Sw * W = I, and
+Sb * w = l * Sw * w for each axis w (column in W) and its eigenvalue l.
+@Author  Knut Lucas Andersen
+*/
+public class LinearDiscriminantAnalysisTest extends TestCase {
+	//seed for the random values, so a failing test can be repeated
+	final static long SEED = 4072;
+	//largest error allowed (relative)
+	final static double TOLERANCE = 1e-10;
+
+	/**
+	Turns the parallel mode off after each test
+	*/
+	protected void tearDown() throws Exception {
+		try {
+			ParallelExecution.setParallelism(1);
+		} catch (ExceptionClass ex) {
+			fail(ex.ToString());
+		} //try/catch
+		super.tearDown();
+	} //tearDown
+
+	/**
+	Three classes and five features (two axes)
+	*/
+	public void testThreeClasses() throws ExceptionClass {
+		checkProjection(3, 5, 2, 3000);
+	} //testThreeClasses
+
+	/**
+	Two classes (one axis)
+	*/
+	public void testTwoClasses() throws ExceptionClass {
+		checkProjection(2, 4, 1, 2000);
+	} //testTwoClasses
+
+	/**
+	More classes then features, where the number of axes is limited by N
+	*/
+	public void testMoreClassesThenFeatures() throws ExceptionClass {
+		checkProjection(6, 3, 3, 6000);
+	} //testMoreClassesThenFeatures
+
+	/**
+	The rows can be added in several calls (e.g. once per file)
+	*/
+	public void testAddRowsTwice() throws ExceptionClass {
+		int numRows = 1000;
+		Random random = new Random(SEED);
+		int[] labels = createLabels(numRows, 3, random);
+		Matrix data = createSamples(labels, 4, random);
+		LinearDiscriminantAnalysis once = new LinearDiscriminantAnalysis(3, 4),
+			twice = new LinearDiscriminantAnalysis(3, 4);
+		once.addRows(data, labels);
+		twice.addRows(new Matrix(data.getMatrix(), 600, 4, 0, 4, 1), Arrays.copyOfRange(labels, 0, 600));
+		twice.addRows(new Matrix(data.getMatrix(), 400, 4, 600 * 4, 4, 1), Arrays.copyOfRange(labels, 600, numRows));
+		for(int c = 0; c < 3; c++) {
+			assertEquals(once.getClassCount(c), twice.getClassCount(c));
+		} //for
+		assertMatrixEquals(once.createWithinClassScatterMatrix().toMatrix(),
+			twice.createWithinClassScatterMatrix().toMatrix(), TOLERANCE);
+	} //testAddRowsTwice
+
+	/**
+	The statistics are merged in block order, so the result is the same
+	for any number of threads
+	*/
+	public void testSameResultForAnyThreadCount() throws ExceptionClass {
+		int numRows = 5 * MatrixStatisticsAccumulator.ROWS_PER_BLOCK;
+		Random random = new Random(SEED);
+		int[] labels = createLabels(numRows, 3, random);
+		Matrix data = createSamples(labels, 4, random),
+			expected = null,
+			projection;
+		for(int threads = 1; threads <= 4; threads++) {
+			ParallelExecution.setParallelism(threads);
+			LinearDiscriminantAnalysis lda = new LinearDiscriminantAnalysis(3, 4);
+			lda.addRows(data, labels);
+			projection = lda.createProjectionMatrix(2, 0);
+			if(expected == null) {
+				expected = projection;
+			} //if
+			assertTrue("The projection differs for " + threads + " threads",
+				Arrays.equals(expected.getMatrix(), projection.getMatrix()));
+		} //for
+	} //testSameResultForAnyThreadCount
+
+	/**
+	An error is thrown if a label isn't one of the classes
+	*/
+	public void testLabelOutOfRange() throws ExceptionClass {
+		LinearDiscriminantAnalysis lda = new LinearDiscriminantAnalysis(2, 2);
+		try {
+			lda.addRows(new Matrix(2, 2), new int[] { 0, 2 });
+			fail("Expected an error for the label 2");
+		} catch (ExceptionClass ex) {
+			//expected
+		} //try/catch
+	} //testLabelOutOfRange
+
+	/************************* PRIVATE FUNCTIONS *********************************/
+
+	/**
+	Creates random labelled samples, and checks WT * Sw * W = I and
+	Sb * w = l * Sw * w for the projection matrix W
+	*/
+	void checkProjection(int numClasses, int numElements, int numAxes, int numRows) throws ExceptionClass {
+		Random random = new Random(SEED);
+		int[] labels = createLabels(numRows, numClasses, random);
+		LinearDiscriminantAnalysis lda = new LinearDiscriminantAnalysis(numClasses, numElements);
+		lda.addRows(createSamples(labels, numElements, random), labels);
+		Matrix projection = lda.createProjectionMatrix(numAxes, 0),
+			sW = lda.createWithinClassScatterMatrix().toMatrix(),
+			sB = lda.createBetweenClassScatterMatrix().toMatrix(),
+			identity = new Matrix(numAxes, numAxes);
+		double[] axis = new double[numElements],
+			sBAxis,
+			sWAxis;
+		double eigenvalue = 0;
+		assertEquals(numElements, projection.getNumRows());
+		assertEquals(numAxes, projection.getNumColumns());
+		for(int k = 0; k < numAxes; k++) {
+			identity.changeCellValueAt(k, k, 1);
+		} //for
+		assertMatrixEquals(identity, multiply(projection.getTransposedView(), multiply(sW, projection)), TOLERANCE);
+		for(int k = 0; k < numAxes; k++) {
+			for(int i = 0; i < numElements; i++) {
+				axis[i] = projection.getCellValueAt(i, k);
+			} //for
+			eigenvalue = lda.getAxisEigenvalue(k);
+			assertTrue("The axis eigenvalues aren't sorted", k == 0 || lda.getAxisEigenvalue(k - 1) >= eigenvalue);
+			sBAxis = multiply(sB, axis);
+			sWAxis = multiply(sW, axis);
+			for(int i = 0; i < numElements; i++) {
+				assertEquals("Sb * w != l * Sw * w for axis " + k, eigenvalue * sWAxis[i], sBAxis[i],
+					TOLERANCE * (Math.abs(sBAxis[i]) + (eigenvalue * Math.abs(sWAxis[i])) + 1));
+			} //for
+		} //for
+	} //checkProjection
+
+	/**
+	Creates numRows random labels (0, ..., numClasses-1)
+	*/
+	int[] createLabels(int numRows, int numClasses, Random random) {
+		int[] labels = new int[numRows];
+		for(int i = 0; i < numRows; i++) {
+			labels[i] = random.nextInt(numClasses);
+		} //for
+		return labels;
+	} //createLabels
+
+	/**
+	Creates one sample per label, where each class has its own mean, and
+	the features are correlated (each feature adds a share of the previous one)
+	*/
+	Matrix createSamples(int[] labels, int numElements, Random random) {
+		Matrix data = new Matrix(labels.length, numElements);
+		double[] values = data.getMatrix();
+		double previous = 0;
+		for(int i = 0; i < labels.length; i++) {
+			previous = 0;
+			for(int j = 0; j < numElements; j++) {
+				previous = (0.5 * previous) + random.nextGaussian() + (((labels[i] + j) % 3) * 2.0);
+				values[(i * numElements) + j] = previous + 100;
+			} //for
+		} //for
+		return data;
+	} //createSamples
+
+	/**
+	Multiplies matrix1 with matrix2 with a plain triple loop
+	*/
+	Matrix multiply(Matrix matrix1, Matrix matrix2) throws ExceptionClass {
+		Matrix result = new Matrix(matrix1.getNumRows(), matrix2.getNumColumns());
+		double sum = 0;
+		for(int i = 0; i < matrix1.getNumRows(); i++) {
+			for(int j = 0; j < matrix2.getNumColumns(); j++) {
+				sum = 0;
+				for(int p = 0; p < matrix1.getNumColumns(); p++) {
+					sum += matrix1.getCellValueAt(i, p) * matrix2.getCellValueAt(p, j);
+				} //for
+				result.changeCellValueAt(i, j, sum);
+			} //for
+		} //for
+		return result;
+	} //multiply
+
+	/**
+	Multiplies the matrix with the vector
+	*/
+	double[] multiply(Matrix matrix, double[] vector) throws ExceptionClass {
+		double[] result = new double[matrix.getNumRows()];
+		for(int i = 0; i < matrix.getNumRows(); i++) {
+			for(int j = 0; j < vector.length; j++) {
+				result[i] += matrix.getCellValueAt(i, j) * vector[j];
+			} //for
+		} //for
+		return result;
+	} //multiply
+
+	/**
+	Checks that all the cells in the two matrices are equal (within tolerance)
+	*/
+	void assertMatrixEquals(Matrix expected, Matrix actual, double tolerance) throws ExceptionClass {
+		assertEquals(expected.getNumRows(), actual.getNumRows());
+		assertEquals(expected.getNumColumns(), actual.getNumColumns());
+		for(int i = 0; i < expected.getNumRows(); i++) {
+			for(int j = 0; j < expected.getNumColumns(); j++) {
+				assertEquals("Cell [" + i + "," + j + "]", expected.getCellValueAt(i, j), actual.getCellValueAt(i, j),
+					tolerance * Math.max(1, Math.abs(expected.getCellValueAt(i, j))));
+			} //for
+		} //for
+	} //assertMatrixEquals
+}
@@ -0,0 +1,295 @@
+package macs.hig.imt4072_library;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+/**
+Tests for MatrixFile, where matrices are written and loaded again
+(row-major, column-major, float32 and mapped), and invalid or truncated
+files must be rejected when the header is read.
+@Author  Knut Lucas Andersen
+*/
+public class MatrixFileTest extends TestCase {
+	//seed for the random values, so a failing test can be repeated
+	final static long SEED = 4072;
+
+	/**
+	A matrix is written and loaded again without changes
+	*/
+	public void testRowMajorRoundTrip() throws ExceptionClass {
+		Matrix matrix = createRandom(37, 11, new Random(SEED));
+		File file = createTempFile();
+		MatrixFile.write(matrix, file);
+		MatrixFile header = new MatrixFile(file);
+		assertEquals(MatrixFile.FORMAT_VERSION, header.getVersion());
+		assertEquals(MatrixFile.DTYPE_FLOAT64, header.getDataType());
+		assertEquals(MatrixFile.LAYOUT_ROW_MAJOR, header.getLayout());
+		assertEquals(37, header.getNumRows());
+		assertEquals(11, header.getNumColumns());
+		assertEquals(MatrixFile.HEADER_SIZE + header.getPayloadSize(), file.length());
+		assertMatrixEquals(matrix, MatrixFile.readMatrix(file));
+	} //testRowMajorRoundTrip
+
+	/**
+	A view (here transposed) is written in row-major order
+	*/
+	public void testWriteView() throws ExceptionClass {
+		Matrix view = createRandom(8, 13, new Random(SEED)).getTransposedView();
+		File file = createTempFile();
+		MatrixFile.write(view, file);
+		Matrix loaded = MatrixFile.readMatrix(file);
+		assertEquals(13, loaded.getNumRows());
+		assertEquals(1, loaded.getColumnStride());
+		assertMatrixEquals(view, loaded);
+	} //testWriteView
+
+	/**
+	A column-major payload is loaded as a view with swapped strides
+	*/
+	public void testColumnMajor() throws ExceptionClass {
+		int numRows = 6,
+			numColumns = 9;
+		Matrix matrix = createRandom(numRows, numColumns, new Random(SEED));
+		ByteBuffer buffer = ByteBuffer.allocate(MatrixFile.HEADER_SIZE + (numRows * numColumns * 8)).order(ByteOrder.LITTLE_ENDIAN);
+		MatrixFile.putHeader(buffer, MatrixFile.DTYPE_FLOAT64, MatrixFile.LAYOUT_COLUMN_MAJOR, numRows, numColumns);
+		for(int j = 0; j < numColumns; j++) {
+			for(int i = 0; i < numRows; i++) {
+				buffer.putDouble(matrix.getCellValueAt(i, j));
+			} //for
+		} //for
+		File file = createFile(buffer);
+		Matrix loaded = MatrixFile.readMatrix(file);
+		assertEquals(1, loaded.getRowStride());
+		assertEquals(numRows, loaded.getColumnStride());
+		assertMatrixEquals(matrix, loaded);
+		//can't be mapped directly
+		try {
+			MatrixFile.mapMatrix(file, true);
+			fail("Expected an error for mapping a column-major file");
+		} catch (ExceptionClass ex) {
+			//expected
+		} //try/catch
+	} //testColumnMajor
+
+	/**
+	A float matrix is loaded as floats (readFloatMatrix) and widened to doubles (readMatrix)
+	*/
+	public void testFloat32() throws ExceptionClass {
+		FloatMatrix matrix = FloatMatrix.fromMatrix(createRandom(14, 5, new Random(SEED)));
+		File file = createTempFile();
+		MatrixFile.write(matrix, file);
+		assertEquals(MatrixFile.DTYPE_FLOAT32, new MatrixFile(file).getDataType());
+		assertEquals(MatrixFile.HEADER_SIZE + (14 * 5 * 4), file.length());
+		FloatMatrix loaded = MatrixFile.readFloatMatrix(file);
+		Matrix widened = MatrixFile.readMatrix(file);
+		for(int i = 0; i < 14; i++) {
+			for(int j = 0; j < 5; j++) {
+				assertEquals(matrix.getCellValueAt(i, j), loaded.getCellValueAt(i, j), 0);
+				assertEquals(matrix.getCellValueAt(i, j), widened.getCellValueAt(i, j), 0);
+			} //for
+		} //for
+		//column-major floats
+		ByteBuffer buffer = ByteBuffer.allocate(MatrixFile.HEADER_SIZE + (2 * 3 * 4)).order(ByteOrder.LITTLE_ENDIAN);
+		MatrixFile.putHeader(buffer, MatrixFile.DTYPE_FLOAT32, MatrixFile.LAYOUT_COLUMN_MAJOR, 2, 3);
+		for(int k = 0; k < 6; k++) {
+			buffer.putFloat(k);
+		} //for
+		loaded = MatrixFile.readFloatMatrix(createFile(buffer));
+		assertEquals(2.0, loaded.getCellValueAt(0, 1), 0);
+		assertEquals(5.0, loaded.getCellValueAt(1, 2), 0);
+	} //testFloat32
+
+	/**
+	readFloatMatrix(...) rejects files with doubles
+	*/
+	public void testReadFloatsFromDoubles() throws ExceptionClass {
+		File file = createTempFile();
+		MatrixFile.write(new Matrix(2, 2), file);
+		try {
+			MatrixFile.readFloatMatrix(file);
+			fail("Expected an error for reading doubles as floats");
+		} catch (ExceptionClass ex) {
+			//expected
+		} //try/catch
+	} //testReadFloatsFromDoubles
+
+	/**
+	A mapped file gives the same values, changes are written to the file
+	(unless it is read-only), and a mapped matrix can be written again
+	*/
+	public void testMapMatrix() throws ExceptionClass {
+		Matrix matrix = createRandom(50, 7, new Random(SEED));
+		File file = createTempFile(),
+			copy = createTempFile();
+		MatrixFile.write(matrix, file);
+		MappedMatrix readOnly = MatrixFile.mapMatrix(file, true);
+		assertTrue(readOnly.isReadOnly());
+		assertMatrixEquals(matrix, readOnly.toMatrix());
+		try {
+			readOnly.changeCellValueAt(0, 0, 1);
+			fail("Expected an error for changing a read-only matrix");
+		} catch (ExceptionClass ex) {
+			//expected
+		} //try/catch
+		MappedMatrix mapped = MatrixFile.mapMatrix(file, false);
+		mapped.changeCellValueAt(49, 6, 4072);
+		matrix.changeCellValueAt(49, 6, 4072);
+		assertMatrixEquals(matrix, MatrixFile.readMatrix(file));
+		MatrixFile.write(mapped, copy);
+		assertMatrixEquals(matrix, MatrixFile.readMatrix(copy));
+	} //testMapMatrix
+
+	/**
+	Invalid headers are rejected
+	*/
+	public void testInvalidHeader() throws ExceptionClass {
+		//wrong magic number (big-endian)
+		ByteBuffer buffer = createValidFile();
+		buffer.order(ByteOrder.BIG_ENDIAN).putInt(0, MatrixFile.MAGIC_NUMBER);
+		assertHeaderFails(buffer);
+		//unsupported version
+		buffer = createValidFile();
+		buffer.putInt(4, MatrixFile.FORMAT_VERSION + 1);
+		assertHeaderFails(buffer);
+		buffer.putInt(4, 0);
+		assertHeaderFails(buffer);
+		//unknown data type
+		buffer = createValidFile();
+		buffer.putInt(8, 3);
+		assertHeaderFails(buffer);
+		//unknown layout
+		buffer = createValidFile();
+		buffer.putInt(12, 2);
+		assertHeaderFails(buffer);
+		//no rows, or a negative number of columns
+		buffer = createValidFile();
+		buffer.putInt(16, 0);
+		assertHeaderFails(buffer);
+		buffer = createValidFile();
+		buffer.putInt(20, -3);
+		assertHeaderFails(buffer);
+		//the valid file can be read
+		assertEquals(2, new MatrixFile(createFile(createValidFile())).getNumRows());
+	} //testInvalidHeader
+
+	/**
+	Files that are too small for the header or the payload are rejected
+	*/
+	public void testTruncatedFile() throws ExceptionClass {
+		ByteBuffer buffer = createValidFile();
+		//shorter then the header
+		buffer.limit(MatrixFile.HEADER_SIZE - 1);
+		assertHeaderFails(buffer);
+		//the last value is missing
+		buffer.limit(buffer.capacity() - 8);
+		assertHeaderFails(buffer);
+		//rows * columns is larger then an int, but the file only contains the header
+		buffer = ByteBuffer.allocate(MatrixFile.HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+		MatrixFile.putHeader(buffer, MatrixFile.DTYPE_FLOAT64, MatrixFile.LAYOUT_ROW_MAJOR, 100000, 100000);
+		assertHeaderFails(buffer);
+		//an empty file
+		assertHeaderFails(ByteBuffer.allocate(0));
+	} //testTruncatedFile
+
+	/**
+	An error is thrown for a file that doesn't exist
+	*/
+	public void testMissingFile() {
+		File file = new File(System.getProperty("java.io.tmpdir"), "imt4072-missing-" + SEED + ".imtm");
+		file.delete();
+		try {
+			MatrixFile.readMatrix(file);
+			fail("Expected an error for a file that doesn't exist");
+		} catch (ExceptionClass ex) {
+			//expected
+		} //try/catch
+	} //testMissingFile
+
+	/************************* PRIVATE FUNCTIONS *********************************/
+
+	/**
+	Creates a matrix filled with random values between -1 and 1
+	*/
+	Matrix createRandom(int numRows, int numColumns, Random random) {
+		Matrix matrix = new Matrix(numRows, numColumns);
+		double[] values = matrix.getMatrix();
+		for(int i = 0; i < values.length; i++) {
+			values[i] = (2 * random.nextDouble()) - 1;
+		} //for
+		return matrix;
+	} //createRandom
+
+	/**
+	Returns the content of a valid file with a 2x3 row-major matrix of doubles
+	*/
+	ByteBuffer createValidFile() {
+		ByteBuffer buffer = ByteBuffer.allocate(MatrixFile.HEADER_SIZE + (2 * 3 * 8)).order(ByteOrder.LITTLE_ENDIAN);
+		MatrixFile.putHeader(buffer, MatrixFile.DTYPE_FLOAT64, MatrixFile.LAYOUT_ROW_MAJOR, 2, 3);
+		for(int k = 0; k < 6; k++) {
+			buffer.putDouble(k);
+		} //for
+		return buffer;
+	} //createValidFile
+
+	/**
+	Creates a temporary file that is deleted when the tests are done
+	*/
+	File createTempFile() throws ExceptionClass {
+		try {
+			File file = File.createTempFile("imt4072", ".imtm");
+			file.deleteOnExit();
+			return file;
+		} catch (IOException ex) {
+			throw new ExceptionClass("Can't create a temporary file.\n" + ex.getMessage());
+		} //try/catch
+	} //createTempFile
+
+	/**
+	Writes the buffer (from 0 to its limit) to a temporary file
+	*/
+	File createFile(ByteBuffer buffer) throws ExceptionClass {
+		File file = createTempFile();
+		FileOutputStream stream = null;
+		try {
+			stream = new FileOutputStream(file);
+			stream.write(buffer.array(), 0, buffer.limit());
+		} catch (IOException ex) {
+			throw new ExceptionClass("Can't write the temporary file.\n" + ex.getMessage());
+		} finally {
+			MatrixFile.closeStream(stream);
+		} //try/catch
+		return file;
+	} //createFile
+
+	/**
+	Checks that the header of the file with the passed content is rejected
+	*/
+	void assertHeaderFails(ByteBuffer buffer) throws ExceptionClass {
+		File file = createFile(buffer);
+		try {
+			new MatrixFile(file);
+			fail("Expected an error for the invalid file");
+		} catch (ExceptionClass ex) {
+			//expected
+		} //try/catch
+	} //assertHeaderFails
+
+	/**
+	Checks that all the cells in the two matrices are equal
+	*/
+	void assertMatrixEquals(Matrix expected, Matrix actual) throws ExceptionClass {
+		assertEquals(expected.getNumRows(), actual.getNumRows());
+		assertEquals(expected.getNumColumns(), actual.getNumColumns());
+		for(int i = 0; i < expected.getNumRows(); i++) {
+			for(int j = 0; j < expected.getNumColumns(); j++) {
+				assertEquals("Cell [" + i + "," + j + "]", expected.getCellValueAt(i, j), actual.getCellValueAt(i, j), 0);
+			} //for
+		} //for
+	} //assertMatrixEquals
+}
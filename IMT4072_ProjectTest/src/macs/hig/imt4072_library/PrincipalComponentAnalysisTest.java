@@ -0,0 +1,103 @@
+package macs.hig.imt4072_library;
+
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+/**
+Tests for PrincipalComponentAnalysis, where the components must be
+orthonormal, and the variance of the projected samples along each
+component must be equal to its eigenvalue (with no co-variance between
+the components).
+@Author  Knut Lucas Andersen
+*/
+public class PrincipalComponentAnalysisTest extends TestCase {
+	//seed for the random values, so a failing test can be repeated
+	final static long SEED = 4072;
+	//largest error allowed (relative)
+	final static double TOLERANCE = 1e-10;
+
+	/**
+	Few features (Jacobi)
+	*/
+	public void testFewFeatures() throws ExceptionClass {
+		checkComponents(2000, 6, 3);
+	} //testFewFeatures
+
+	/**
+	Many features (Householder + QL)
+	*/
+	public void testManyFeatures() throws ExceptionClass {
+		checkComponents(3000, 40, 10);
+	} //testManyFeatures
+
+	/**
+	The explained variance grows with the number of components, and is 1 for all of them
+	*/
+	public void testExplainedVariance() throws ExceptionClass {
+		PrincipalComponentAnalysis pca = new PrincipalComponentAnalysis(createSamples(1000, 8, new Random(SEED)));
+		double previous = 0,
+			share = 0;
+		for(int k = 1; k <= 8; k++) {
+			share = pca.calculateExplainedVariance(k);
+			assertTrue("The explained variance isn't growing", share >= previous);
+			previous = share;
+		} //for
+		assertEquals(1, previous, TOLERANCE);
+		assertEquals(8, pca.findComponentCount(1));
+		assertTrue(pca.calculateExplainedVariance(pca.findComponentCount(0.9)) >= 0.9);
+	} //testExplainedVariance
+
+	/************************* PRIVATE FUNCTIONS *********************************/
+
+	/**
+	Projects random samples onto the numComponents first components, and
+	checks that the components are orthonormal and that the co-variance of
+	the projected samples is diagonal, with the eigenvalues on the diagonal
+	*/
+	void checkComponents(int numRows, int numElements, int numComponents) throws ExceptionClass {
+		Matrix samples = createSamples(numRows, numElements, new Random(SEED));
+		PrincipalComponentAnalysis pca = new PrincipalComponentAnalysis(samples);
+		Matrix components = pca.createComponentMatrix(numComponents),
+			projected = pca.project(samples, numComponents),
+			coVariance;
+		double sum = 0,
+			scale = pca.getComponentVariance(0);
+		assertEquals(numRows, projected.getNumRows());
+		assertEquals(numComponents, projected.getNumColumns());
+		for(int i = 0; i < numComponents; i++) {
+			for(int k = 0; k < numComponents; k++) {
+				sum = 0;
+				for(int j = 0; j < numElements; j++) {
+					sum += components.getCellValueAt(j, i) * components.getCellValueAt(j, k);
+				} //for
+				assertEquals("The components aren't orthonormal", (i == k) ? 1 : 0, sum, TOLERANCE);
+			} //for
+		} //for
+		coVariance = projected.createCoVarianceMatrix(projected);
+		for(int i = 0; i < numComponents; i++) {
+			for(int k = 0; k < numComponents; k++) {
+				assertEquals("Projected co-variance at [" + i + "," + k + "]",
+					(i == k) ? pca.getComponentVariance(i) : 0, coVariance.getCellValueAt(i, k), TOLERANCE * scale);
+			} //for
+		} //for
+	} //checkComponents
+
+	/**
+	Creates random samples with correlated features, where feature j has a
+	variance that grows with j (so the components are well separated)
+	*/
+	Matrix createSamples(int numRows, int numElements, Random random) {
+		Matrix samples = new Matrix(numRows, numElements);
+		double[] values = samples.getMatrix();
+		double previous = 0;
+		for(int i = 0; i < numRows; i++) {
+			previous = 0;
+			for(int j = 0; j < numElements; j++) {
+				previous = (0.3 * previous) + ((j + 1) * random.nextGaussian());
+				values[(i * numElements) + j] = previous + 50;
+			} //for
+		} //for
+		return samples;
+	} //createSamples
+}
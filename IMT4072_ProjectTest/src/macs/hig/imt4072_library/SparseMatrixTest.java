@@ -0,0 +1,245 @@
+package macs.hig.imt4072_library;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+/**
+Tests for SparseMatrix, where the conversions (fromMatrix, fromTriplets,
+transpose) and calculations are compared with the same dense Matrix,
+and the CSR arrays are checked for invalid input.
+@Author  Knut Lucas Andersen
+*/
+public class SparseMatrixTest extends TestCase {
+	//seed for the random values, so a failing test can be repeated
+	final static long SEED = 4072;
+	//largest error allowed (relative)
+	final static double TOLERANCE = 1e-12;
+
+	/**
+	A dense matrix is converted to CSR and back without changes,
+	also when it is a transposed view
+	*/
+	public void testMatrixRoundTrip() throws ExceptionClass {
+		Matrix dense = createRandomSparse(30, 17, 0.2, new Random(SEED));
+		SparseMatrix sparse = SparseMatrix.fromMatrix(dense);
+		assertEquals(countNonZeros(dense), sparse.getNumNonZeros());
+		assertDenseEquals(dense, sparse.toMatrix(), 0);
+		assertDenseEquals(dense.getTransposedView(), SparseMatrix.fromMatrix(dense.getTransposedView()).toMatrix(), 0);
+		for(int i = 0; i < dense.getNumRows(); i++) {
+			for(int j = 0; j < dense.getNumColumns(); j++) {
+				assertEquals(dense.getCellValueAt(i, j), sparse.getCellValueAt(i, j), 0);
+			} //for
+		} //for
+	} //testMatrixRoundTrip
+
+	/**
+	Triplets in any order, with duplicates (added together) and empty rows
+	*/
+	public void testFromTriplets() throws ExceptionClass {
+		int[] rows = { 3, 0, 3, 0, 1, 3, 0 },
+			columns = { 2, 4, 0, 1, 4, 2, 4 };
+		double[] values = { 1.5, 2, -1, 3, 4, 0.5, 5 };
+		SparseMatrix sparse = SparseMatrix.fromTriplets(5, 5, rows, columns, values);
+		Matrix expected = new Matrix(5, 5);
+		for(int k = 0; k < values.length; k++) {
+			expected.changeCellValueAt(rows[k], columns[k], expected.getCellValueAt(rows[k], columns[k]) + values[k]);
+		} //for
+		assertDenseEquals(expected, sparse.toMatrix(), 0);
+		//[0][1], [0][4], [1][4], [3][0], [3][2]
+		assertEquals(5, sparse.getNumNonZeros());
+		assertTrue(Arrays.equals(new int[] { 0, 2, 3, 3, 5, 5 }, sparse.getRowPointers()));
+		assertTrue(Arrays.equals(new int[] { 1, 4, 4, 0, 2 }, sparse.getColumnIndexes()));
+		//the CSR arrays are valid
+		new SparseMatrix(5, 5, sparse.getRowPointers(), sparse.getColumnIndexes(), sparse.getValues());
+	} //testFromTriplets
+
+	/**
+	Random triplets give the same matrix as adding them to a dense matrix
+	*/
+	public void testFromRandomTriplets() throws ExceptionClass {
+		Random random = new Random(SEED);
+		int count = 2000;
+		int[] rows = new int[count],
+			columns = new int[count];
+		double[] values = new double[count];
+		Matrix expected = new Matrix(40, 25);
+		for(int k = 0; k < count; k++) {
+			rows[k] = random.nextInt(40);
+			columns[k] = random.nextInt(25);
+			values[k] = random.nextInt(9) + 1;
+			expected.changeCellValueAt(rows[k], columns[k], expected.getCellValueAt(rows[k], columns[k]) + values[k]);
+		} //for
+		assertDenseEquals(expected, SparseMatrix.fromTriplets(40, 25, rows, columns, values).toMatrix(), 0);
+	} //testFromRandomTriplets
+
+	/**
+	Invalid triplets throw an error
+	*/
+	public void testInvalidTriplets() {
+		assertTripletsFail(2, 2, new int[] { 0, 1 }, new int[] { 0 }, new double[] { 1, 2 });
+		assertTripletsFail(2, 2, new int[] { 0, 2 }, new int[] { 0, 1 }, new double[] { 1, 2 });
+		assertTripletsFail(2, 2, new int[] { 0, 1 }, new int[] { -1, 1 }, new double[] { 1, 2 });
+		assertTripletsFail(2, 2, new int[] { 0, 1 }, new int[] { 0, 2 }, new double[] { 1, 2 });
+	} //testInvalidTriplets
+
+	/**
+	The transpose is equal to the dense transpose, and transposing twice
+	gives the original CSR arrays
+	*/
+	public void testTranspose() throws ExceptionClass {
+		Matrix dense = createRandomSparse(23, 41, 0.1, new Random(SEED));
+		//an empty row and column
+		for(int j = 0; j < 41; j++) {
+			dense.changeCellValueAt(5, j, 0);
+		} //for
+		for(int i = 0; i < 23; i++) {
+			dense.changeCellValueAt(i, 40, 0);
+		} //for
+		SparseMatrix sparse = SparseMatrix.fromMatrix(dense),
+			transposed = sparse.transpose(),
+			original = transposed.transpose();
+		assertEquals(41, transposed.getNumRows());
+		assertEquals(23, transposed.getNumColumns());
+		assertDenseEquals(dense.getTransposedView(), transposed.toMatrix(), 0);
+		//the transpose is a valid CSR matrix (sorted columns)
+		new SparseMatrix(41, 23, transposed.getRowPointers(), transposed.getColumnIndexes(), transposed.getValues());
+		assertTrue(Arrays.equals(sparse.getRowPointers(), original.getRowPointers()));
+		assertTrue(Arrays.equals(sparse.getColumnIndexes(), original.getColumnIndexes()));
+		assertTrue(Arrays.equals(sparse.getValues(), original.getValues()));
+	} //testTranspose
+
+	/**
+	Invalid CSR arrays are rejected by the constructor
+	*/
+	public void testInvalidArrays() {
+		//wrong number of row pointers
+		assertArraysFail(2, 3, new int[] { 0, 1 }, new int[] { 0 }, new double[] { 1 });
+		//the last row pointer isn't the number of values
+		assertArraysFail(2, 3, new int[] { 0, 1, 1 }, new int[] { 0, 1 }, new double[] { 1, 2 });
+		//the row pointers aren't increasing
+		assertArraysFail(2, 3, new int[] { 0, 2, 1 }, new int[] { 0, 1 }, new double[] { 1, 2 });
+		//a column is out of range
+		assertArraysFail(2, 3, new int[] { 0, 1, 2 }, new int[] { 0, 3 }, new double[] { 1, 2 });
+		//the columns aren't sorted
+		assertArraysFail(1, 3, new int[] { 0, 2 }, new int[] { 2, 0 }, new double[] { 1, 2 });
+		//duplicate columns
+		assertArraysFail(1, 3, new int[] { 0, 2 }, new int[] { 1, 1 }, new double[] { 1, 2 });
+		//the columns and values differ in length
+		assertArraysFail(1, 3, new int[] { 0, 1 }, new int[] { 1, 2 }, new double[] { 1 });
+	} //testInvalidArrays
+
+	/**
+	The mean, co-variance and scatter matrices are equal to the dense versions
+	*/
+	public void testStatistics() throws ExceptionClass {
+		Matrix dense = createRandomSparse(200, 12, 0.3, new Random(SEED));
+		SparseMatrix sparse = SparseMatrix.fromMatrix(dense);
+		Matrix coVariance = dense.createCoVarianceMatrix(dense),
+			scatter = dense.createScatterMatrix(dense, coVariance);
+		assertDenseEquals(dense.createMeanMatrix(), sparse.createMeanMatrix(), TOLERANCE);
+		assertDenseEquals(coVariance, sparse.createCoVarianceMatrix(), TOLERANCE);
+		assertDenseEquals(scatter, sparse.createScatterMatrix(), TOLERANCE);
+	} //testStatistics
+
+	/**
+	An error is thrown for the co-variance of a single row
+	*/
+	public void testScatterOfOneRow() throws ExceptionClass {
+		try {
+			SparseMatrix.fromMatrix(new Matrix(1, 3)).createScatterMatrix();
+			fail("Expected an error for a single row");
+		} catch (ExceptionClass ex) {
+			//expected
+		} //try/catch
+	} //testScatterOfOneRow
+
+	/**
+	Sparse x dense and dense x sparse are equal to the dense products
+	*/
+	public void testMultiply() throws ExceptionClass {
+		Random random = new Random(SEED);
+		Matrix denseA = createRandomSparse(30, 20, 0.2, random),
+			denseB = createRandomSparse(20, 7, 1, random),
+			denseC = createRandomSparse(9, 30, 1, random);
+		SparseMatrix sparseA = SparseMatrix.fromMatrix(denseA);
+		assertDenseEquals(denseA.multiplyMatrices(denseA, denseB), sparseA.multiply(denseB), TOLERANCE);
+		assertDenseEquals(denseC.multiplyMatrices(denseC, denseA), sparseA.multiplyFromLeft(denseC), TOLERANCE);
+		try {
+			sparseA.multiply(denseC);
+			fail("Expected an error for matrices that can't be multiplied");
+		} catch (ExceptionClass ex) {
+			//expected
+		} //try/catch
+	} //testMultiply
+
+	/************************* PRIVATE FUNCTIONS *********************************/
+
+	/**
+	Creates a matrix where each cell is non-zero with the passed probability
+	*/
+	Matrix createRandomSparse(int numRows, int numColumns, double density, Random random) {
+		Matrix matrix = new Matrix(numRows, numColumns);
+		double[] values = matrix.getMatrix();
+		for(int i = 0; i < values.length; i++) {
+			if(random.nextDouble() < density) {
+				values[i] = (2 * random.nextDouble()) - 1;
+			} //if
+		} //for
+		return matrix;
+	} //createRandomSparse
+
+	/**
+	Returns the number of non-zero cells in the matrix
+	*/
+	int countNonZeros(Matrix matrix) throws ExceptionClass {
+		int count = 0;
+		for(int i = 0; i < matrix.getNumRows(); i++) {
+			for(int j = 0; j < matrix.getNumColumns(); j++) {
+				if(matrix.getCellValueAt(i, j) != 0) {
+					count++;
+				} //if
+			} //for
+		} //for
+		return count;
+	} //countNonZeros
+
+	/**
+	Checks that fromTriplets(...) throws an error for the passed triplets
+	*/
+	void assertTripletsFail(int numRows, int numColumns, int[] rows, int[] columns, double[] values) {
+		try {
+			SparseMatrix.fromTriplets(numRows, numColumns, rows, columns, values);
+			fail("Expected an error for the triplets");
+		} catch (ExceptionClass ex) {
+			//expected
+		} //try/catch
+	} //assertTripletsFail
+
+	/**
+	Checks that the constructor throws an error for the passed CSR arrays
+	*/
+	void assertArraysFail(int numRows, int numColumns, int[] rowPointers, int[] columnIndexes, double[] values) {
+		try {
+			new SparseMatrix(numRows, numColumns, rowPointers, columnIndexes, values);
+			fail("Expected an error for the CSR arrays " + Arrays.toString(rowPointers) + " " + Arrays.toString(columnIndexes));
+		} catch (ExceptionClass ex) {
+			//expected
+		} //try/catch
+	} //assertArraysFail
+
+	/**
+	Checks that all the cells in the two matrices are equal (within tolerance)
+	*/
+	void assertDenseEquals(Matrix expected, Matrix actual, double tolerance) throws ExceptionClass {
+		assertEquals(expected.getNumRows(), actual.getNumRows());
+		assertEquals(expected.getNumColumns(), actual.getNumColumns());
+		for(int i = 0; i < expected.getNumRows(); i++) {
+			for(int j = 0; j < expected.getNumColumns(); j++) {
+				assertEquals("Cell [" + i + "," + j + "]", expected.getCellValueAt(i, j), actual.getCellValueAt(i, j),
+					tolerance * Math.max(1, Math.abs(expected.getCellValueAt(i, j))));
+			} //for
+		} //for
+	} //assertDenseEquals
+}
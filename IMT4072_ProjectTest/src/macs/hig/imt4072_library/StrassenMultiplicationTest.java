@@ -0,0 +1,141 @@
+package macs.hig.imt4072_library;
+
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+/**
+Tests for StrassenMultiplication, where the result is compared with the
+classical product (a plain triple loop) for odd and rectangular sizes,
+and the largest difference must be within getErrorBound(...).
+The sizes are above the crossover (CROSSOVER), so the recursion and the
+padding are used, except for the small size, which uses the classical kernel.
+@Author  Knut Lucas Andersen
+*/
+public class StrassenMultiplicationTest extends TestCase {
+	//seed for the random values, so a failing test can be repeated
+	final static long SEED = 4072;
+
+	/**
+	Square matrices with an odd size (one level, padded by one)
+	*/
+	public void testOddSquareSize() throws ExceptionClass {
+		checkAgainstClassical(513, 513, 513);
+	} //testOddSquareSize
+
+	/**
+	Rectangular matrices, where all three sizes are different (two levels)
+	*/
+	public void testRectangularSize() throws ExceptionClass {
+		checkAgainstClassical(600, 520, 700);
+	} //testRectangularSize
+
+	/**
+	Rectangular matrices with odd sizes, where the smallest size decides the levels
+	*/
+	public void testOddRectangularSize() throws ExceptionClass {
+		checkAgainstClassical(257, 901, 603);
+	} //testOddRectangularSize
+
+	/**
+	Matrices below the crossover, where the classical kernel is used
+	*/
+	public void testBelowCrossover() throws ExceptionClass {
+		assertEquals(0, StrassenMultiplication.getLevelCount(7));
+		checkAgainstClassical(3, 5, 7);
+	} //testBelowCrossover
+
+	/**
+	A long inner size below the crossover, where k * k is larger then an int
+	*/
+	public void testLongInnerSize() throws ExceptionClass {
+		int k = 100000;
+		double expected = (double) k * k * StrassenMultiplication.UNIT_ROUNDOFF;
+		assertEquals(expected, StrassenMultiplication.getErrorBound(10, k, 10, 1, 1), expected * 1e-12);
+		checkAgainstClassical(10, k, 10);
+	} //testLongInnerSize
+
+	/**
+	An error is thrown if the column count in A isn't equal to the row count in B
+	*/
+	public void testSizeMismatch() {
+		try {
+			StrassenMultiplication.multiply(new Matrix(300, 301), new Matrix(302, 300));
+			fail("Expected an error for matrices that can't be multiplied");
+		} catch (ExceptionClass ex) {
+			//expected
+		} //try/catch
+	} //testSizeMismatch
+
+	/************************* PRIVATE FUNCTIONS *********************************/
+
+	/**
+	Multiplies two random matrices (m x k and k x n) with Strassen, and checks
+	that the size is correct and that the largest difference from the
+	classical product is within the error bound.
+	*/
+	void checkAgainstClassical(int m, int k, int n) throws ExceptionClass {
+		Random random = new Random(SEED);
+		Matrix matrixA = createRandomMatrix(m, k, random),
+			matrixB = createRandomMatrix(k, n, random),
+			result = StrassenMultiplication.multiply(matrixA, matrixB);
+		double[] expected = multiplyClassical(m, k, n, matrixA.getMatrix(), matrixB.getMatrix());
+		double maxA = getLargestValue(matrixA.getMatrix()),
+			maxB = getLargestValue(matrixB.getMatrix()),
+			largestError = 0,
+			errorBound = 0;
+		assertEquals(m, result.getNumRows());
+		assertEquals(n, result.getNumColumns());
+		for(int i = 0; i < m; i++) {
+			for(int j = 0; j < n; j++) {
+				largestError = Math.max(largestError, Math.abs(result.getCellValueAt(i, j) - expected[(i * n) + j]));
+			} //for
+		} //for
+		//the classical product also has a rounding error (k * u * max|A| * max|B|)
+		errorBound = StrassenMultiplication.getErrorBound(m, k, n, maxA, maxB)
+			+ (k * StrassenMultiplication.UNIT_ROUNDOFF * maxA * maxB);
+		assertTrue("Error " + largestError + " is above the bound " + errorBound + " for "
+			+ m + " x " + k + " x " + n, largestError <= errorBound);
+	} //checkAgainstClassical
+
+	/**
+	Creates a matrix filled with random values between -1 and 1
+	*/
+	Matrix createRandomMatrix(int numRows, int numColumns, Random random) {
+		Matrix matrix = new Matrix(numRows, numColumns);
+		double[] values = matrix.getMatrix();
+		for(int i = 0; i < values.length; i++) {
+			values[i] = (2 * random.nextDouble()) - 1;
+		} //for
+		return matrix;
+	} //createRandomMatrix
+
+	/**
+	Multiplies A (m x k) with B (k x n) with a plain triple loop (row-major arrays)
+	*/
+	double[] multiplyClassical(int m, int k, int n, double[] a, double[] b) {
+		double[] c = new double[m * n];
+		double sum = 0;
+		for(int i = 0; i < m; i++) {
+			for(int j = 0; j < n; j++) {
+				sum = 0;
+				for(int p = 0; p < k; p++) {
+					sum += a[(i * k) + p] * b[(p * n) + j];
+				} //for
+				c[(i * n) + j] = sum;
+			} //for
+		} //for
+		return c;
+	} //multiplyClassical
+
+	/**
+	Returns the largest absolute value in the array
+	*/
+	double getLargestValue(double[] values) {
+		double largest = 0;
+		for(int i = 0; i < values.length; i++) {
+			largest = Math.max(largest, Math.abs(values[i]));
+		} //for
+		return largest;
+	} //getLargestValue
+}
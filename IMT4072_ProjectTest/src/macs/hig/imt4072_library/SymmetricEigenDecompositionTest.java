@@ -0,0 +1,150 @@
+package macs.hig.imt4072_library;
+
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+/**
+Tests for SymmetricEigenDecomposition, where A * V = V * D and VT * V = I
+are checked for both methods: Jacobi (N <= JACOBI_MAX_SIZE) and
+Householder + QL (N > JACOBI_MAX_SIZE).
+@Author  Knut Lucas Andersen
+*/
+public class SymmetricEigenDecompositionTest extends TestCase {
+	//seed for the random values, so a failing test can be repeated
+	final static long SEED = 4072;
+	//largest error allowed, relative to the largest value in A
+	final static double TOLERANCE = 1e-12;
+
+	/**
+	A small matrix, decomposed with Jacobi
+	*/
+	public void testJacobiSmall() throws ExceptionClass {
+		checkDecomposition(createRandomSymmetric(5, new Random(SEED)));
+	} //testJacobiSmall
+
+	/**
+	The largest matrix decomposed with Jacobi
+	*/
+	public void testJacobiLargest() throws ExceptionClass {
+		checkDecomposition(createRandomSymmetric(SymmetricEigenDecomposition.JACOBI_MAX_SIZE, new Random(SEED)));
+	} //testJacobiLargest
+
+	/**
+	The smallest matrix decomposed with Householder + QL
+	*/
+	public void testHouseholderSmallest() throws ExceptionClass {
+		checkDecomposition(createRandomSymmetric(SymmetricEigenDecomposition.JACOBI_MAX_SIZE + 1, new Random(SEED)));
+	} //testHouseholderSmallest
+
+	/**
+	A larger matrix, decomposed with Householder + QL
+	*/
+	public void testHouseholderLarge() throws ExceptionClass {
+		checkDecomposition(createRandomSymmetric(120, new Random(SEED)));
+	} //testHouseholderLarge
+
+	/**
+	Repeated eigenvalues (the eigenvectors aren't unique, but must still be orthonormal)
+	*/
+	public void testRepeatedEigenvalues() throws ExceptionClass {
+		int[] sizes = { 6, 40 };
+		for(int s = 0; s < sizes.length; s++) {
+			Matrix matrix = new Matrix(sizes[s], sizes[s]);
+			for(int i = 0; i < sizes[s]; i++) {
+				matrix.changeCellValueAt(i, i, (i % 2 == 0) ? 3 : -1);
+			} //for
+			checkDecomposition(matrix);
+		} //for
+	} //testRepeatedEigenvalues
+
+	/**
+	The packed (SymmetricMatrix) constructor gives the same eigenvalues
+	*/
+	public void testSymmetricMatrixConstructor() throws ExceptionClass {
+		Matrix matrix = createRandomSymmetric(20, new Random(SEED));
+		SymmetricEigenDecomposition full = new SymmetricEigenDecomposition(matrix),
+			packed = new SymmetricEigenDecomposition(SymmetricMatrix.fromMatrix(matrix));
+		for(int k = 0; k < 20; k++) {
+			assertEquals(full.getEigenvalue(k), packed.getEigenvalue(k), 0);
+		} //for
+	} //testSymmetricMatrixConstructor
+
+	/**
+	An error is thrown if the matrix isn't square
+	*/
+	public void testNotSquare() {
+		try {
+			new SymmetricEigenDecomposition(new Matrix(3, 4));
+			fail("Expected an error for a matrix that isn't square");
+		} catch (ExceptionClass ex) {
+			//expected
+		} //try/catch
+	} //testNotSquare
+
+	/************************* PRIVATE FUNCTIONS *********************************/
+
+	/**
+	Decomposes the matrix, and checks that A * V = V * D, VT * V = I, and
+	that the eigenvalues are sorted from the largest to the smallest
+	*/
+	void checkDecomposition(Matrix matrix) throws ExceptionClass {
+		int n = matrix.getNumRows();
+		SymmetricEigenDecomposition decomposition = new SymmetricEigenDecomposition(matrix);
+		Matrix vectors = decomposition.createEigenvectorMatrix(n),
+			values = decomposition.createEigenvalueMatrix();
+		double scale = Math.max(1, getLargestValue(matrix)),
+			sum = 0;
+		assertEquals(n, decomposition.getSize());
+		for(int k = 1; k < n; k++) {
+			assertTrue("The eigenvalues aren't sorted", decomposition.getEigenvalue(k - 1) >= decomposition.getEigenvalue(k));
+		} //for
+		for(int i = 0; i < n; i++) {
+			for(int k = 0; k < n; k++) {
+				//(A * V)[i][k] = D[k] * V[i][k]
+				sum = 0;
+				for(int j = 0; j < n; j++) {
+					sum += matrix.getCellValueAt(i, j) * vectors.getCellValueAt(j, k);
+				} //for
+				assertEquals("A * V != V * D at [" + i + "," + k + "] for N = " + n,
+					values.getCellValueAt(k, 0) * vectors.getCellValueAt(i, k), sum, n * TOLERANCE * scale);
+				//(VT * V)[i][k] = 1 if i == k, 0 otherwise
+				sum = 0;
+				for(int j = 0; j < n; j++) {
+					sum += vectors.getCellValueAt(j, i) * vectors.getCellValueAt(j, k);
+				} //for
+				assertEquals("VT * V != I at [" + i + "," + k + "] for N = " + n,
+					(i == k) ? 1 : 0, sum, n * TOLERANCE);
+			} //for
+		} //for
+	} //checkDecomposition
+
+	/**
+	Creates a symmetric NxN matrix filled with random values between -1 and 1
+	*/
+	Matrix createRandomSymmetric(int n, Random random) throws ExceptionClass {
+		Matrix matrix = new Matrix(n, n);
+		double value = 0;
+		for(int i = 0; i < n; i++) {
+			for(int j = i; j < n; j++) {
+				value = (2 * random.nextDouble()) - 1;
+				matrix.changeCellValueAt(i, j, value);
+				matrix.changeCellValueAt(j, i, value);
+			} //for
+		} //for
+		return matrix;
+	} //createRandomSymmetric
+
+	/**
+	Returns the largest absolute value in the matrix
+	*/
+	double getLargestValue(Matrix matrix) throws ExceptionClass {
+		double largest = 0;
+		for(int i = 0; i < matrix.getNumRows(); i++) {
+			for(int j = 0; j < matrix.getNumColumns(); j++) {
+				largest = Math.max(largest, Math.abs(matrix.getCellValueAt(i, j)));
+			} //for
+		} //for
+		return largest;
+	} //getLargestValue
+}